@@ -439,7 +439,10 @@ public class RunnerBuilder {
             .setSupportedProtocols(subProtocols)
             .setClientId(BesuInfo.nodeName(identityString))
             .setLimitRemoteWireConnectionsEnabled(limitRemoteWireConnectionsEnabled)
-            .setFractionRemoteWireConnectionsAllowed(fractionRemoteConnectionsAllowed);
+            .setFractionRemoteWireConnectionsAllowed(fractionRemoteConnectionsAllowed)
+            .setOutboundBatchMaxSize(networkingConfiguration.getRlpx().getOutboundBatchMaxSize())
+            .setOutboundBatchMaxDelayMillis(
+                networkingConfiguration.getRlpx().getOutboundBatchMaxDelayMillis());
     networkingConfiguration.setRlpx(rlpxConfiguration).setDiscovery(discoveryConfiguration);
 
     final PeerPermissionsDenylist bannedNodes = PeerPermissionsDenylist.create();
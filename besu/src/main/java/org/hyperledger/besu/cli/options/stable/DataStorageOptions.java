@@ -16,7 +16,13 @@
 
 package org.hyperledger.besu.cli.options.stable;
 
+import static org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration.DEFAULT_BONSAI_BACKGROUND_WRITER_MAX_PENDING_BLOCKS;
+import static org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration.DEFAULT_BONSAI_FLAT_STATE_FILTER_EXPECTED_ENTRIES;
+import static org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration.DEFAULT_BONSAI_HISTORICAL_STATE_ENABLED;
 import static org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration.DEFAULT_BONSAI_MAX_LAYERS_TO_LOAD;
+import static org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration.DEFAULT_BONSAI_PREFETCH_THREADS;
+import static org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration.DEFAULT_BONSAI_STORAGE_TRIE_PARALLELISM;
+import static org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration.DEFAULT_BONSAI_TRIE_NODE_CACHE_SIZE;
 
 import org.hyperledger.besu.cli.options.CLIOptions;
 import org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration;
@@ -34,6 +40,25 @@ public class DataStorageOptions implements CLIOptions<DataStorageConfiguration>
   private static final String BONSAI_STORAGE_FORMAT_MAX_LAYERS_TO_LOAD =
       "--bonsai-maximum-back-layers-to-load";
 
+  private static final String BONSAI_PARALLEL_TX_PROCESSING_ENABLED =
+      "--Xbonsai-parallel-tx-processing-enabled";
+
+  private static final String BONSAI_STORAGE_TRIE_PARALLELISM =
+      "--Xbonsai-storage-trie-parallelism";
+
+  private static final String BONSAI_TRIE_NODE_CACHE_SIZE = "--Xbonsai-trie-node-cache-size";
+
+  private static final String BONSAI_HISTORICAL_STATE_ENABLED =
+      "--Xbonsai-historical-state-enabled";
+
+  private static final String BONSAI_BACKGROUND_WRITER_MAX_PENDING_BLOCKS =
+      "--Xbonsai-background-writer-max-pending-blocks";
+
+  private static final String BONSAI_FLAT_STATE_FILTER_EXPECTED_ENTRIES =
+      "--Xbonsai-flat-state-filter-expected-entries";
+
+  private static final String BONSAI_PREFETCH_THREADS = "--Xbonsai-prefetch-threads";
+
   // Use Bonsai DB
   @Option(
       names = {DATA_STORAGE_FORMAT},
@@ -50,6 +75,78 @@ public class DataStorageOptions implements CLIOptions<DataStorageConfiguration>
       arity = "1")
   private final Long bonsaiMaxLayersToLoad = DEFAULT_BONSAI_MAX_LAYERS_TO_LOAD;
 
+  @Option(
+      names = {BONSAI_PARALLEL_TX_PROCESSING_ENABLED},
+      hidden = true,
+      description =
+          "Execute the transactions of imported blocks speculatively in parallel with BONSAI"
+              + " (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Boolean bonsaiParallelTxProcessingEnabled = false;
+
+  @Option(
+      names = {BONSAI_STORAGE_TRIE_PARALLELISM},
+      hidden = true,
+      paramLabel = "<INTEGER>",
+      description =
+          "Number of threads computing the trie updates of a block in parallel with BONSAI,"
+              + " 1 to compute them sequentially (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Integer bonsaiStorageTrieParallelism = DEFAULT_BONSAI_STORAGE_TRIE_PARALLELISM;
+
+  @Option(
+      names = {BONSAI_TRIE_NODE_CACHE_SIZE},
+      hidden = true,
+      paramLabel = "<LONG>",
+      description =
+          "Size in bytes of the in-memory cache of trie nodes with BONSAI, 0 to disable it"
+              + " (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Long bonsaiTrieNodeCacheSize = DEFAULT_BONSAI_TRIE_NODE_CACHE_SIZE;
+
+  @Option(
+      names = {BONSAI_HISTORICAL_STATE_ENABLED},
+      hidden = true,
+      description =
+          "Keep the flat state of every imported block with BONSAI to read past blocks without"
+              + " rolling the trie logs back, which requires a full sync from genesis"
+              + " (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Boolean bonsaiHistoricalStateEnabled = DEFAULT_BONSAI_HISTORICAL_STATE_ENABLED;
+
+  @Option(
+      names = {BONSAI_BACKGROUND_WRITER_MAX_PENDING_BLOCKS},
+      hidden = true,
+      paramLabel = "<INTEGER>",
+      description =
+          "Number of persisted BONSAI world states that may still be written to the storage in the"
+              + " background, 0 to write them before the block import completes"
+              + " (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Integer bonsaiBackgroundWriterMaxPendingBlocks =
+      DEFAULT_BONSAI_BACKGROUND_WRITER_MAX_PENDING_BLOCKS;
+
+  @Option(
+      names = {BONSAI_FLAT_STATE_FILTER_EXPECTED_ENTRIES},
+      hidden = true,
+      paramLabel = "<LONG>",
+      description =
+          "Number of flat account and storage entries the BONSAI filter of absent entries is sized"
+              + " for, 0 to disable it (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Long bonsaiFlatStateFilterExpectedEntries =
+      DEFAULT_BONSAI_FLAT_STATE_FILTER_EXPECTED_ENTRIES;
+
+  @Option(
+      names = {BONSAI_PREFETCH_THREADS},
+      hidden = true,
+      paramLabel = "<INTEGER>",
+      description =
+          "Number of threads loading the state a block is known to access while it executes with"
+              + " BONSAI, 0 to disable prefetching (default: ${DEFAULT-VALUE})",
+      arity = "1")
+  private final Integer bonsaiPrefetchThreads = DEFAULT_BONSAI_PREFETCH_THREADS;
+
   public static DataStorageOptions create() {
     return new DataStorageOptions();
   }
@@ -59,6 +156,13 @@ public class DataStorageOptions implements CLIOptions<DataStorageConfiguration>
     return ImmutableDataStorageConfiguration.builder()
         .dataStorageFormat(dataStorageFormat)
         .bonsaiMaxLayersToLoad(bonsaiMaxLayersToLoad)
+        .isBonsaiParallelTxProcessingEnabled(bonsaiParallelTxProcessingEnabled)
+        .bonsaiStorageTrieParallelism(bonsaiStorageTrieParallelism)
+        .bonsaiTrieNodeCacheSize(bonsaiTrieNodeCacheSize)
+        .isBonsaiHistoricalStateEnabled(bonsaiHistoricalStateEnabled)
+        .bonsaiBackgroundWriterMaxPendingBlocks(bonsaiBackgroundWriterMaxPendingBlocks)
+        .bonsaiFlatStateFilterExpectedEntries(bonsaiFlatStateFilterExpectedEntries)
+        .bonsaiPrefetchThreads(bonsaiPrefetchThreads)
         .build();
   }
 
@@ -68,6 +172,20 @@ public class DataStorageOptions implements CLIOptions<DataStorageConfiguration>
         DATA_STORAGE_FORMAT,
         dataStorageFormat.toString(),
         BONSAI_STORAGE_FORMAT_MAX_LAYERS_TO_LOAD,
-        bonsaiMaxLayersToLoad.toString());
+        bonsaiMaxLayersToLoad.toString(),
+        BONSAI_PARALLEL_TX_PROCESSING_ENABLED,
+        bonsaiParallelTxProcessingEnabled.toString(),
+        BONSAI_STORAGE_TRIE_PARALLELISM,
+        bonsaiStorageTrieParallelism.toString(),
+        BONSAI_TRIE_NODE_CACHE_SIZE,
+        bonsaiTrieNodeCacheSize.toString(),
+        BONSAI_HISTORICAL_STATE_ENABLED,
+        bonsaiHistoricalStateEnabled.toString(),
+        BONSAI_BACKGROUND_WRITER_MAX_PENDING_BLOCKS,
+        bonsaiBackgroundWriterMaxPendingBlocks.toString(),
+        BONSAI_FLAT_STATE_FILTER_EXPECTED_ENTRIES,
+        bonsaiFlatStateFilterExpectedEntries.toString(),
+        BONSAI_PREFETCH_THREADS,
+        bonsaiPrefetchThreads.toString());
   }
 }
@@ -26,6 +26,9 @@ import picocli.CommandLine;
 public class EvmOptions implements CLIOptions<EvmConfiguration> {
 
   public static final String JUMPDEST_CACHE_WEIGHT = "--Xevm-jumpdest-cache-weight-kb";
+  public static final String CODE_ANALYSIS_STORAGE_ENABLED =
+      "--Xevm-code-analysis-storage-enabled";
+  public static final String SUPERINSTRUCTIONS_ENABLED = "--Xevm-superinstructions-enabled";
 
   public static EvmOptions create() {
     return new EvmOptions();
@@ -44,13 +47,34 @@ public class EvmOptions implements CLIOptions<EvmConfiguration> {
   private Long jumpDestCacheWeightKilobytes =
       32_000L; // 10k contracts, (25k max contract size / 8 bit) + 32byte hash
 
+  @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"})
+  @CommandLine.Option(
+      names = {CODE_ANALYSIS_STORAGE_ENABLED},
+      description =
+          "Persist the valid jump destinations of executed code in the database, so that it "
+              + "does not need to be analysed again after a restart or a cache eviction",
+      hidden = true,
+      arity = "1")
+  private Boolean codeAnalysisStorageEnabled = Boolean.FALSE;
+
+  @SuppressWarnings({"FieldCanBeFinal", "FieldMayBeFinal"})
+  @CommandLine.Option(
+      names = {SUPERINSTRUCTIONS_ENABLED},
+      description =
+          "Fuse common operation sequences of untraced contract code into single operations",
+      hidden = true,
+      arity = "1")
+  private Boolean superinstructionsEnabled = Boolean.FALSE;
+
   @Override
   public EvmConfiguration toDomainObject() {
-    return new EvmConfiguration(jumpDestCacheWeightKilobytes);
+    return new EvmConfiguration(
+        jumpDestCacheWeightKilobytes, codeAnalysisStorageEnabled, superinstructionsEnabled);
   }
 
   @Override
   public List<String> getCLIOptions() {
-    return Arrays.asList(JUMPDEST_CACHE_WEIGHT);
+    return Arrays.asList(
+        JUMPDEST_CACHE_WEIGHT, CODE_ANALYSIS_STORAGE_ENABLED, SUPERINSTRUCTIONS_ENABLED);
   }
 }
@@ -17,6 +17,7 @@ package org.hyperledger.besu.cli.options.unstable;
 import org.hyperledger.besu.cli.options.CLIOptions;
 import org.hyperledger.besu.cli.options.OptionParser;
 import org.hyperledger.besu.ethereum.p2p.config.NetworkingConfiguration;
+import org.hyperledger.besu.ethereum.p2p.config.RlpxConfiguration;
 
 import java.util.Arrays;
 import java.util.List;
@@ -30,6 +31,8 @@ public class NetworkingOptions implements CLIOptions<NetworkingConfiguration> {
   private final String CHECK_MAINTAINED_CONNECTIONS_FREQUENCY_FLAG =
       "--Xp2p-check-maintained-connections-frequency";
   private final String DNS_DISCOVERY_SERVER_OVERRIDE_FLAG = "--Xp2p-dns-discovery-server";
+  private final String OUTBOUND_BATCH_MAX_SIZE_FLAG = "--Xp2p-outbound-batch-max-size";
+  private final String OUTBOUND_BATCH_MAX_DELAY_FLAG = "--Xp2p-outbound-batch-max-delay";
 
   @CommandLine.Option(
       names = INITIATE_CONNECTIONS_FREQUENCY_FLAG,
@@ -59,6 +62,25 @@ public class NetworkingOptions implements CLIOptions<NetworkingConfiguration> {
           "DNS server host to use for doing DNS Discovery of peers, rather than the machine's configured DNS server")
   private String dnsDiscoveryServerOverride = null;
 
+  @CommandLine.Option(
+      names = OUTBOUND_BATCH_MAX_SIZE_FLAG,
+      hidden = true,
+      defaultValue = "64",
+      paramLabel = "<INTEGER>",
+      description =
+          "Maximum number of outbound messages coalesced into one flush of a peer connection (default: ${DEFAULT-VALUE})")
+  private int outboundBatchMaxSize = RlpxConfiguration.DEFAULT_OUTBOUND_BATCH_MAX_SIZE;
+
+  @CommandLine.Option(
+      names = OUTBOUND_BATCH_MAX_DELAY_FLAG,
+      hidden = true,
+      defaultValue = "0",
+      paramLabel = "<LONG>",
+      description =
+          "Maximum delay (in milliseconds) outbound messages wait to be flushed with later ones, 0 flushes the messages sent in the same event loop tick together (default: ${DEFAULT-VALUE})")
+  private long outboundBatchMaxDelayMillis =
+      RlpxConfiguration.DEFAULT_OUTBOUND_BATCH_MAX_DELAY_MILLIS;
+
   private NetworkingOptions() {}
 
   public static NetworkingOptions create() {
@@ -73,6 +95,9 @@ public class NetworkingOptions implements CLIOptions<NetworkingConfiguration> {
         networkingConfig.getInitiateConnectionsFrequencySec();
     cliOptions.dnsDiscoveryServerOverride =
         networkingConfig.getDnsDiscoveryServerOverride().orElse("");
+    cliOptions.outboundBatchMaxSize = networkingConfig.getRlpx().getOutboundBatchMaxSize();
+    cliOptions.outboundBatchMaxDelayMillis =
+        networkingConfig.getRlpx().getOutboundBatchMaxDelayMillis();
     return cliOptions;
   }
 
@@ -83,6 +108,10 @@ public class NetworkingOptions implements CLIOptions<NetworkingConfiguration> {
     config.setInitiateConnectionsFrequency(initiateConnectionsFrequencySec);
     config.setDnsDiscoveryServerOverride(
         Optional.of(dnsDiscoveryServerOverride).filter(z -> !z.isBlank()).orElse(null));
+    config
+        .getRlpx()
+        .setOutboundBatchMaxSize(outboundBatchMaxSize)
+        .setOutboundBatchMaxDelayMillis(outboundBatchMaxDelayMillis);
     return config;
   }
 
@@ -94,6 +123,10 @@ public class NetworkingOptions implements CLIOptions<NetworkingConfiguration> {
         INITIATE_CONNECTIONS_FREQUENCY_FLAG,
         OptionParser.format(initiateConnectionsFrequencySec),
         DNS_DISCOVERY_SERVER_OVERRIDE_FLAG,
-        dnsDiscoveryServerOverride);
+        dnsDiscoveryServerOverride,
+        OUTBOUND_BATCH_MAX_SIZE_FLAG,
+        OptionParser.format(outboundBatchMaxSize),
+        OUTBOUND_BATCH_MAX_DELAY_FLAG,
+        OptionParser.format(outboundBatchMaxDelayMillis));
   }
 }
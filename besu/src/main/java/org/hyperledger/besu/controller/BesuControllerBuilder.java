@@ -26,7 +26,13 @@ import org.hyperledger.besu.ethereum.GasLimitCalculator;
 import org.hyperledger.besu.ethereum.ProtocolContext;
 import org.hyperledger.besu.ethereum.api.jsonrpc.methods.JsonRpcMethods;
 import org.hyperledger.besu.ethereum.blockcreation.MiningCoordinator;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiBackgroundWriter;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiFlatStateFilter;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiHistoricalStateStorage;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiStatePrefetcher;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiTrieNodeCache;
 import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateArchive;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateKeyValueStorage;
 import org.hyperledger.besu.ethereum.chain.Blockchain;
 import org.hyperledger.besu.ethereum.chain.BlockchainStorage;
 import org.hyperledger.besu.ethereum.chain.DefaultBlockchain;
@@ -56,9 +62,12 @@ import org.hyperledger.besu.ethereum.eth.sync.state.SyncState;
 import org.hyperledger.besu.ethereum.eth.transactions.TransactionPool;
 import org.hyperledger.besu.ethereum.eth.transactions.TransactionPoolConfiguration;
 import org.hyperledger.besu.ethereum.eth.transactions.TransactionPoolFactory;
+import org.hyperledger.besu.ethereum.mainnet.ParallelSenderRecovery;
+import org.hyperledger.besu.ethereum.mainnet.ParallelTransactionProcessor;
 import org.hyperledger.besu.ethereum.mainnet.ProtocolSchedule;
 import org.hyperledger.besu.ethereum.p2p.config.SubProtocolConfiguration;
 import org.hyperledger.besu.ethereum.storage.StorageProvider;
+import org.hyperledger.besu.ethereum.storage.keyvalue.CodeAnalysisKeyValueStorage;
 import org.hyperledger.besu.ethereum.storage.keyvalue.KeyValueSegmentIdentifier;
 import org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration;
 import org.hyperledger.besu.ethereum.worldstate.DataStorageFormat;
@@ -69,7 +78,10 @@ import org.hyperledger.besu.ethereum.worldstate.PrunerConfiguration;
 import org.hyperledger.besu.ethereum.worldstate.WorldStateArchive;
 import org.hyperledger.besu.ethereum.worldstate.WorldStatePreimageStorage;
 import org.hyperledger.besu.ethereum.worldstate.WorldStateStorage;
+import org.hyperledger.besu.evm.EVM;
+import org.hyperledger.besu.evm.internal.CodeCache;
 import org.hyperledger.besu.evm.internal.EvmConfiguration;
+import org.hyperledger.besu.metrics.BesuMetricCategory;
 import org.hyperledger.besu.metrics.ObservableMetricsSystem;
 import org.hyperledger.besu.plugin.services.permissioning.NodeMessagePermissioningProvider;
 
@@ -83,6 +95,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -262,10 +276,18 @@ public abstract class BesuControllerBuilder implements MiningParameterOverrides
     checkNotNull(evmConfiguration, "Missing evm config");
     prepForBuild();
 
+    if (evmConfiguration.isCodeAnalysisPersisted()) {
+      evmConfiguration(
+          evmConfiguration.withCodeAnalysisStorage(
+              new CodeAnalysisKeyValueStorage(
+                  storageProvider.getStorageBySegmentIdentifier(
+                      KeyValueSegmentIdentifier.CODE_ANALYSIS))));
+    }
+
     final ProtocolSchedule protocolSchedule = createProtocolSchedule();
+    registerCodeCacheMetrics(protocolSchedule);
     final GenesisState genesisState = GenesisState.fromConfig(genesisConfig, protocolSchedule);
-    final WorldStateStorage worldStateStorage =
-        storageProvider.createWorldStateStorage(dataStorageConfiguration.getDataStorageFormat());
+    final WorldStateStorage worldStateStorage = createWorldStateStorage();
 
     final BlockchainStorage blockchainStorage =
         storageProvider.createBlockchainStorage(protocolSchedule);
@@ -328,6 +350,22 @@ public abstract class BesuControllerBuilder implements MiningParameterOverrides
             syncConfig.getTransactionsParallelism(),
             syncConfig.getComputationParallelism(),
             metricsSystem);
+    protocolContext.setParallelSenderRecovery(
+        new ParallelSenderRecovery(
+            scheduler::executeComputationTask,
+            syncConfig.getComputationParallelism(),
+            metricsSystem));
+    if (dataStorageConfiguration.getDataStorageFormat().equals(DataStorageFormat.BONSAI)
+        && dataStorageConfiguration.getBonsaiPrefetchThreads() > 0) {
+      protocolContext.setStatePrefetcher(
+          new BonsaiStatePrefetcher(
+              dataStorageConfiguration.getBonsaiPrefetchThreads(), metricsSystem));
+    }
+    if (dataStorageConfiguration.getDataStorageFormat().equals(DataStorageFormat.BONSAI)
+        && dataStorageConfiguration.isBonsaiParallelTxProcessingEnabled()) {
+      protocolContext.setParallelTransactionProcessor(
+          new ParallelTransactionProcessor(scheduler::executeComputationTask, metricsSystem));
+    }
     final EthContext ethContext = new EthContext(ethPeers, ethMessages, snapMessages, scheduler);
     final SyncState syncState = new SyncState(blockchain, ethPeers);
     final boolean fastSyncEnabled = SyncMode.FAST.equals(syncConfig.getSyncMode());
@@ -358,7 +396,8 @@ public abstract class BesuControllerBuilder implements MiningParameterOverrides
             peerValidators);
 
     final Optional<SnapProtocolManager> maybeSnapProtocolManager =
-        createSnapProtocolManager(peerValidators, ethPeers, snapMessages, worldStateArchive);
+        createSnapProtocolManager(
+            peerValidators, ethPeers, snapMessages, worldStateStorage, blockchain);
 
     final Synchronizer synchronizer =
         new DefaultSynchronizer(
@@ -395,6 +434,13 @@ public abstract class BesuControllerBuilder implements MiningParameterOverrides
         createAdditionalJsonRpcMethodFactory(protocolContext);
 
     final List<Closeable> closeables = new ArrayList<>();
+    if (worldStateArchive instanceof BonsaiWorldStateArchive) {
+      closeables.add((BonsaiWorldStateArchive) worldStateArchive);
+    }
+    if (worldStateStorage instanceof BonsaiWorldStateKeyValueStorage) {
+      // world states still written in the background must reach the storage before it is closed
+      closeables.add((BonsaiWorldStateKeyValueStorage) worldStateStorage);
+    }
     closeables.add(storageProvider);
     if (privacyParameters.getPrivateStorageProvider() != null) {
       closeables.add(privacyParameters.getPrivateStorageProvider());
@@ -428,6 +474,53 @@ public abstract class BesuControllerBuilder implements MiningParameterOverrides
 
   protected void prepForBuild() {}
 
+  private void registerCodeCacheMetrics(final ProtocolSchedule protocolSchedule) {
+    final List<CodeCache> codeCaches =
+        protocolSchedule
+            .streamMilestoneBlocks()
+            .map(blockNumber -> protocolSchedule.getByBlockNumber(blockNumber).getEvm())
+            .map(EVM::getCodeCache)
+            .distinct()
+            .collect(Collectors.toList());
+    registerCodeCacheGauge(
+        codeCaches,
+        "code_cache_hits",
+        "Code cache lookups served from memory",
+        CodeCache::getHitCount);
+    registerCodeCacheGauge(
+        codeCaches,
+        "code_cache_misses",
+        "Code cache lookups that had to load the code",
+        CodeCache::getMissCount);
+    registerCodeCacheGauge(
+        codeCaches,
+        "code_cache_evictions",
+        "Code evicted from the in-memory code cache",
+        CodeCache::getEvictionCount);
+    registerCodeCacheGauge(
+        codeCaches,
+        "code_analysis_storage_hits",
+        "Code analysis loaded from the database instead of being recomputed",
+        CodeCache::getStoredAnalysisHitCount);
+    registerCodeCacheGauge(
+        codeCaches,
+        "code_analysis_storage_misses",
+        "Code analysis that was not found in the database",
+        CodeCache::getStoredAnalysisMissCount);
+  }
+
+  private void registerCodeCacheGauge(
+      final List<CodeCache> codeCaches,
+      final String name,
+      final String help,
+      final ToLongFunction<CodeCache> counter) {
+    metricsSystem.createLongGauge(
+        BesuMetricCategory.BLOCKCHAIN,
+        name,
+        help,
+        () -> codeCaches.stream().mapToLong(counter).sum());
+  }
+
   protected JsonRpcMethods createAdditionalJsonRpcMethodFactory(
       final ProtocolContext protocolContext) {
     return apis -> Collections.emptyMap();
@@ -500,14 +593,44 @@ public abstract class BesuControllerBuilder implements MiningParameterOverrides
         blockchain, worldStateArchive, protocolSchedule, consensusContextFactory);
   }
 
-  @SuppressWarnings("unused")
   private Optional<SnapProtocolManager> createSnapProtocolManager(
       final List<PeerValidator> peerValidators,
       final EthPeers ethPeers,
       final EthMessages snapMessages,
-      final WorldStateArchive worldStateArchive) {
-    // TODO implement method when flag will be available
-    return Optional.empty();
+      final WorldStateStorage worldStateStorage,
+      final MutableBlockchain blockchain) {
+    // only the flat database of Bonsai can be iterated to serve ranges of the state
+    if (!syncConfig.isSnapServerEnabled()
+        || !(worldStateStorage instanceof BonsaiWorldStateKeyValueStorage)) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        new SnapProtocolManager(
+            peerValidators,
+            ethPeers,
+            snapMessages,
+            (BonsaiWorldStateKeyValueStorage) worldStateStorage,
+            blockchain,
+            metricsSystem));
+  }
+
+  private WorldStateStorage createWorldStateStorage() {
+    if (dataStorageConfiguration.getDataStorageFormat().equals(DataStorageFormat.BONSAI)) {
+      // a single Bonsai storage is shared by the archive and the synchronizer so that both see
+      // the same trie node cache
+      final int maxPendingBlocks =
+          dataStorageConfiguration.getBonsaiBackgroundWriterMaxPendingBlocks();
+      return new BonsaiWorldStateKeyValueStorage(
+          storageProvider,
+          new BonsaiTrieNodeCache(
+              dataStorageConfiguration.getBonsaiTrieNodeCacheSize(), metricsSystem),
+          new BonsaiFlatStateFilter(
+              dataStorageConfiguration.getBonsaiFlatStateFilterExpectedEntries(), metricsSystem),
+          maxPendingBlocks > 0
+              ? Optional.of(new BonsaiBackgroundWriter(maxPendingBlocks, metricsSystem))
+              : Optional.empty());
+    }
+    return storageProvider.createWorldStateStorage(dataStorageConfiguration.getDataStorageFormat());
   }
 
   private WorldStateArchive createWorldStateArchive(
@@ -515,7 +638,13 @@ public abstract class BesuControllerBuilder implements MiningParameterOverrides
     switch (dataStorageConfiguration.getDataStorageFormat()) {
       case BONSAI:
         return new BonsaiWorldStateArchive(
-            storageProvider, blockchain, dataStorageConfiguration.getBonsaiMaxLayersToLoad());
+            (BonsaiWorldStateKeyValueStorage) worldStateStorage,
+            dataStorageConfiguration.isBonsaiHistoricalStateEnabled()
+                ? Optional.of(new BonsaiHistoricalStateStorage(storageProvider))
+                : Optional.empty(),
+            blockchain,
+            dataStorageConfiguration.getBonsaiMaxLayersToLoad(),
+            dataStorageConfiguration.getBonsaiStorageTrieParallelism());
       case FOREST:
       default:
         final WorldStatePreimageStorage preimageStorage =
@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import org.hyperledger.besu.cli.options.unstable.NetworkingOptions;
 import org.hyperledger.besu.ethereum.p2p.config.NetworkingConfiguration;
+import org.hyperledger.besu.ethereum.p2p.config.RlpxConfiguration;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -101,6 +102,21 @@ public class NetworkingOptionsTest
     assertThat(commandOutput.toString(UTF_8)).isEmpty();
   }
 
+  @Test
+  public void outboundBatchFlags_areSet() {
+    final TestBesuCommand cmd =
+        parseCommand(
+            "--Xp2p-outbound-batch-max-size", "8", "--Xp2p-outbound-batch-max-delay", "5");
+
+    final NetworkingOptions options = cmd.getNetworkingOptions();
+    final NetworkingConfiguration networkingConfig = options.toDomainObject();
+    assertThat(networkingConfig.getRlpx().getOutboundBatchMaxSize()).isEqualTo(8);
+    assertThat(networkingConfig.getRlpx().getOutboundBatchMaxDelayMillis()).isEqualTo(5);
+
+    assertThat(commandErrorOutput.toString(UTF_8)).isEmpty();
+    assertThat(commandOutput.toString(UTF_8)).isEmpty();
+  }
+
   @Override
   NetworkingConfiguration createDefaultDomainObject() {
     return NetworkingConfiguration.create();
@@ -113,6 +129,11 @@ public class NetworkingOptionsTest
         NetworkingConfiguration.DEFAULT_INITIATE_CONNECTIONS_FREQUENCY_SEC + 10);
     config.setCheckMaintainedConnectionsFrequency(
         NetworkingConfiguration.DEFAULT_CHECK_MAINTAINED_CONNECTIONS_FREQUENCY_SEC + 10);
+    config
+        .getRlpx()
+        .setOutboundBatchMaxSize(RlpxConfiguration.DEFAULT_OUTBOUND_BATCH_MAX_SIZE + 10)
+        .setOutboundBatchMaxDelayMillis(
+            RlpxConfiguration.DEFAULT_OUTBOUND_BATCH_MAX_DELAY_MILLIS + 10);
     return config;
   }
 
@@ -45,6 +45,7 @@ import org.hyperledger.besu.ethereum.worldstate.WorldStatePreimageStorage;
 import org.hyperledger.besu.ethereum.worldstate.WorldStateStorage;
 import org.hyperledger.besu.evm.internal.EvmConfiguration;
 import org.hyperledger.besu.metrics.ObservableMetricsSystem;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
 import org.hyperledger.besu.services.kvstore.InMemoryKeyValueStorage;
 
 import java.math.BigInteger;
@@ -116,6 +117,8 @@ public class BesuControllerBuilderTest {
     when(observableMetricsSystem.createLabelledCounter(
             any(), anyString(), anyString(), anyString()))
         .thenReturn(labels -> null);
+    when(observableMetricsSystem.createCounter(any(), anyString(), anyString()))
+        .thenReturn(NoOpMetricsSystem.NO_OP_COUNTER);
 
     when(storageProvider.createWorldStateStorage(DataStorageFormat.FOREST))
         .thenReturn(worldStateStorage);
@@ -0,0 +1,87 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.trie;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares committing a trie with a large number of random updates sequentially and with the
+ * {@link ParallelCommitVisitor}, as done for the account trie at the end of each block.
+ */
+@State(Scope.Thread)
+public class TrieCommitBenchmark {
+
+  @Param({"10000"})
+  public int updates;
+
+  @Param({"4"})
+  public int threads;
+
+  private final Random random = new Random(42);
+  private ExecutorService executor;
+  private StoredMerklePatriciaTrie<Bytes32, Bytes> trie;
+  private long storedBytes;
+
+  @Setup
+  public void prepare() {
+    executor = new ForkJoinPool(threads);
+  }
+
+  @Setup(Level.Invocation)
+  public void updateTrie() {
+    trie =
+        new StoredMerklePatriciaTrie<>(
+            (location, hash) -> Optional.empty(), Function.identity(), Function.identity());
+    for (int i = 0; i < updates; i++) {
+      trie.put(Bytes32.random(random), Bytes32.random(random));
+    }
+  }
+
+  @TearDown
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public Bytes32 sequentialCommit() {
+    trie.commit(this::store);
+    return trie.getRootHash();
+  }
+
+  @Benchmark
+  public Bytes32 parallelCommit() {
+    final NodeUpdater nodeUpdater = this::store;
+    trie.commit(nodeUpdater, new ParallelCommitVisitor<>(nodeUpdater, executor));
+    return trie.getRootHash();
+  }
+
+  private void store(final Bytes location, final Bytes32 hash, final Bytes value) {
+    storedBytes += value.size();
+  }
+}
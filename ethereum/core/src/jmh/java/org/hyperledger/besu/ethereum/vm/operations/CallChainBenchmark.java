@@ -0,0 +1,116 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.vm.operations;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.core.BlockHeader;
+import org.hyperledger.besu.ethereum.core.BlockHeaderTestFixture;
+import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
+import org.hyperledger.besu.ethereum.core.MutableWorldState;
+import org.hyperledger.besu.evm.Code;
+import org.hyperledger.besu.evm.EVM;
+import org.hyperledger.besu.evm.MainnetEVMs;
+import org.hyperledger.besu.evm.frame.MessageFrame;
+import org.hyperledger.besu.evm.internal.EvmConfiguration;
+import org.hyperledger.besu.evm.precompile.PrecompileContractRegistry;
+import org.hyperledger.besu.evm.processor.MessageCallProcessor;
+import org.hyperledger.besu.evm.tracing.OperationTracer;
+import org.hyperledger.besu.evm.worldstate.WorldUpdater;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Runs a contract that calls itself until the requested depth is reached, so that the cost of
+ * creating, running and completing message frames dominates.
+ */
+@State(Scope.Thread)
+public class CallChainBenchmark {
+
+  // PUSH1 0, CALLDATALOAD, DUP1, ISZERO, PUSH1 30, JUMPI, PUSH1 1, SWAP1, SUB, PUSH1 0, MSTORE,
+  // PUSH1 0, PUSH1 0, PUSH1 32, PUSH1 0, PUSH1 0, ADDRESS, GAS, CALL, POP, STOP, JUMPDEST, STOP
+  private static final Bytes RECURSIVE_CALL =
+      Bytes.fromHexString("0x6000358015601e576001900360005260006000602060006000305af150005b00");
+
+  private static final Address CONTRACT = Address.fromHexString("0xc0ffee");
+  private static final Address SENDER = Address.fromHexString("0xa1");
+
+  // enough for the 63/64 rule to still leave gas at the deepest call
+  private static final long INITIAL_GAS = 100_000_000_000L;
+
+  @Param({"16", "256", "1000"})
+  private int depth;
+
+  private MutableWorldState worldState;
+  private BlockHeader blockHeader;
+  private MessageCallProcessor messageCallProcessor;
+  private Code code;
+  private Bytes inputData;
+
+  @Setup
+  public void prepare() {
+    worldState = InMemoryKeyValueStorageProvider.createInMemoryWorldState();
+    final WorldUpdater updater = worldState.updater();
+    updater.createAccount(CONTRACT).getMutable().setCode(RECURSIVE_CALL);
+    updater.commit();
+
+    blockHeader = new BlockHeaderTestFixture().buildHeader();
+    final EVM evm = MainnetEVMs.london(EvmConfiguration.DEFAULT);
+    messageCallProcessor = new MessageCallProcessor(evm, new PrecompileContractRegistry());
+    code = evm.getCode(Hash.hash(RECURSIVE_CALL), RECURSIVE_CALL);
+    inputData = Bytes32.leftPad(Bytes.ofUnsignedInt(depth));
+  }
+
+  @Benchmark
+  public long callChain() {
+    final Deque<MessageFrame> messageFrameStack = new ArrayDeque<>();
+    final MessageFrame initialFrame =
+        MessageFrame.builder()
+            .type(MessageFrame.Type.MESSAGE_CALL)
+            .messageFrameStack(messageFrameStack)
+            .worldUpdater(worldState.updater())
+            .initialGas(INITIAL_GAS)
+            .address(CONTRACT)
+            .originator(SENDER)
+            .contract(CONTRACT)
+            .gasPrice(Wei.ZERO)
+            .inputData(inputData)
+            .sender(SENDER)
+            .value(Wei.ZERO)
+            .apparentValue(Wei.ZERO)
+            .code(code)
+            .blockValues(blockHeader)
+            .depth(0)
+            .completer(frame -> {})
+            .miningBeneficiary(blockHeader.getCoinbase())
+            .blockHashLookup(number -> Hash.ZERO)
+            .build();
+    messageFrameStack.addFirst(initialFrame);
+    while (!messageFrameStack.isEmpty()) {
+      messageCallProcessor.process(messageFrameStack.peekFirst(), OperationTracer.NO_TRACING);
+    }
+    return initialFrame.getRemainingGas();
+  }
+}
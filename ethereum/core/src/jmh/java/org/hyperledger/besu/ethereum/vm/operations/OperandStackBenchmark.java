@@ -0,0 +1,137 @@
+/*
+ * Copyright contributors to Hyperledger Besu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.vm.operations;
+
+import org.hyperledger.besu.evm.internal.FixedStack;
+import org.hyperledger.besu.evm.internal.OperandStack;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.units.bigints.UInt256;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares arithmetic on the limb based {@link OperandStack} against the previous approach of
+ * keeping {@link Bytes} on a {@link FixedStack} and converting through {@link UInt256} or {@link
+ * BigInteger} for every operation.
+ */
+@State(Scope.Thread)
+public class OperandStackBenchmark {
+
+  private static final int OPERATIONS = 1_000;
+
+  private Bytes first;
+  private Bytes second;
+  private FixedStack<Bytes> bytesStack;
+  private OperandStack operandStack;
+
+  @Setup
+  public void prepare() {
+    final Random random = new Random(42);
+    first = Bytes32.random(random);
+    second = Bytes32.random(random);
+    bytesStack = new FixedStack<>(1024, Bytes.class);
+    operandStack = new OperandStack(1024);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public Bytes bytesStackAdd() {
+    bytesStack.push(first);
+    for (int i = 0; i < OPERATIONS; i++) {
+      bytesStack.push(second);
+      final BigInteger value0 = new BigInteger(1, bytesStack.pop().toArrayUnsafe());
+      final BigInteger value1 = new BigInteger(1, bytesStack.pop().toArrayUnsafe());
+      final byte[] result = value0.add(value1).toByteArray();
+      final int length = result.length;
+      bytesStack.push(length > 32 ? Bytes.wrap(result, length - 32, 32) : Bytes.wrap(result));
+    }
+    return bytesStack.pop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public Bytes operandStackAdd() {
+    operandStack.push(first);
+    for (int i = 0; i < OPERATIONS; i++) {
+      operandStack.push(second);
+      operandStack.add();
+    }
+    return operandStack.pop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public Bytes bytesStackMul() {
+    bytesStack.push(first);
+    for (int i = 0; i < OPERATIONS; i++) {
+      bytesStack.push(second);
+      final UInt256 value0 = UInt256.fromBytes(bytesStack.pop());
+      final UInt256 value1 = UInt256.fromBytes(bytesStack.pop());
+      bytesStack.push(value0.multiply(value1));
+    }
+    return bytesStack.pop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public Bytes operandStackMul() {
+    operandStack.push(first);
+    for (int i = 0; i < OPERATIONS; i++) {
+      operandStack.push(second);
+      operandStack.mul();
+    }
+    return operandStack.pop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public Bytes bytesStackDupSwapAnd() {
+    bytesStack.push(first);
+    bytesStack.push(second);
+    for (int i = 0; i < OPERATIONS; i++) {
+      bytesStack.push(bytesStack.get(1));
+      final Bytes tmp = bytesStack.get(0);
+      bytesStack.set(0, bytesStack.get(1));
+      bytesStack.set(1, tmp);
+      final UInt256 value0 = UInt256.fromBytes(bytesStack.pop());
+      final UInt256 value1 = UInt256.fromBytes(bytesStack.pop());
+      bytesStack.push(value0.and(value1));
+    }
+    bytesStack.pop();
+    return bytesStack.pop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public Bytes operandStackDupSwapAnd() {
+    operandStack.push(first);
+    operandStack.push(second);
+    for (int i = 0; i < OPERATIONS; i++) {
+      operandStack.dup(2);
+      operandStack.swap(1);
+      operandStack.and();
+    }
+    operandStack.pop();
+    return operandStack.pop();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.vm.operations;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.hyperledger.besu.config.GenesisAllocation;
+import org.hyperledger.besu.config.GenesisConfigFile;
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.core.BlockHeader;
+import org.hyperledger.besu.ethereum.core.BlockHeaderTestFixture;
+import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
+import org.hyperledger.besu.ethereum.core.MutableWorldState;
+import org.hyperledger.besu.evm.Code;
+import org.hyperledger.besu.evm.EVM;
+import org.hyperledger.besu.evm.MainnetEVMs;
+import org.hyperledger.besu.evm.frame.MessageFrame;
+import org.hyperledger.besu.evm.gascalculator.LondonGasCalculator;
+import org.hyperledger.besu.evm.internal.EvmConfiguration;
+import org.hyperledger.besu.evm.precompile.MainnetPrecompiledContracts;
+import org.hyperledger.besu.evm.processor.MessageCallProcessor;
+import org.hyperledger.besu.evm.tracing.OperationTracer;
+import org.hyperledger.besu.evm.worldstate.WorldUpdater;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.google.common.io.Resources;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures superinstructions on real contract code: the beacon chain deposit contract, whose
+ * mainnet bytecode ships in the genesis file of the Kiln test network. Each view function is run
+ * with and without fusion.
+ */
+@State(Scope.Thread)
+public class SuperinstructionBenchmark {
+
+  private static final Address DEPOSIT_CONTRACT =
+      Address.fromHexString("0x4242424242424242424242424242424242424242");
+  private static final Address SENDER = Address.fromHexString("0xa1");
+  private static final long INITIAL_GAS = 10_000_000L;
+
+  @Param({"false", "true"})
+  private boolean superinstructions;
+
+  // get_deposit_root hashes up the deposit tree, get_deposit_count encodes the count in little
+  // endian and supportsInterface mostly dispatches and decodes its argument
+  @Param({"get_deposit_root", "get_deposit_count", "supportsInterface"})
+  private String function;
+
+  private MutableWorldState worldState;
+  private BlockHeader blockHeader;
+  private MessageCallProcessor messageCallProcessor;
+  private Code code;
+  private Bytes inputData;
+
+  @Setup
+  public void prepare() throws IOException {
+    final Bytes depositContract = depositContractCode();
+    worldState = InMemoryKeyValueStorageProvider.createInMemoryWorldState();
+    final WorldUpdater updater = worldState.updater();
+    updater.createAccount(DEPOSIT_CONTRACT).getMutable().setCode(depositContract);
+    updater.commit();
+
+    blockHeader = new BlockHeaderTestFixture().buildHeader();
+    final EVM evm = MainnetEVMs.london(new EvmConfiguration(32_000L, false, superinstructions));
+    messageCallProcessor =
+        new MessageCallProcessor(
+            evm, MainnetPrecompiledContracts.istanbul(new LondonGasCalculator()));
+    code = evm.getCode(Hash.hash(depositContract), depositContract);
+    inputData = inputData(function);
+  }
+
+  private static Bytes inputData(final String function) {
+    switch (function) {
+      case "get_deposit_root":
+        return Bytes.fromHexString("0xc5f2892f");
+      case "get_deposit_count":
+        return Bytes.fromHexString("0x621fd130");
+      case "supportsInterface":
+        // supportsInterface(0x01ffc9a7), the ERC-165 interface id
+        return Bytes.concatenate(
+            Bytes.fromHexString("0x01ffc9a7"),
+            Bytes32.rightPad(Bytes.fromHexString("0x01ffc9a7")));
+      default:
+        throw new IllegalArgumentException("Unknown function " + function);
+    }
+  }
+
+  private static Bytes depositContractCode() throws IOException {
+    final GenesisConfigFile kiln =
+        GenesisConfigFile.fromConfig(
+            Resources.toString(GenesisConfigFile.class.getResource("/kiln.json"), UTF_8));
+    return kiln.streamAllocations()
+        .filter(
+            allocation -> DEPOSIT_CONTRACT.equals(Address.fromHexString(allocation.getAddress())))
+        .map(GenesisAllocation::getCode)
+        .map(Bytes::fromHexString)
+        .findFirst()
+        .orElseThrow();
+  }
+
+  @Benchmark
+  public Bytes executeCall() {
+    final Deque<MessageFrame> messageFrameStack = new ArrayDeque<>();
+    final MessageFrame initialFrame =
+        MessageFrame.builder()
+            .type(MessageFrame.Type.MESSAGE_CALL)
+            .messageFrameStack(messageFrameStack)
+            .worldUpdater(worldState.updater())
+            .initialGas(INITIAL_GAS)
+            .address(DEPOSIT_CONTRACT)
+            .originator(SENDER)
+            .contract(DEPOSIT_CONTRACT)
+            .gasPrice(Wei.ZERO)
+            .inputData(inputData)
+            .sender(SENDER)
+            .value(Wei.ZERO)
+            .apparentValue(Wei.ZERO)
+            .code(code)
+            .blockValues(blockHeader)
+            .depth(0)
+            .completer(frame -> {})
+            .miningBeneficiary(blockHeader.getCoinbase())
+            .blockHashLookup(number -> Hash.ZERO)
+            .build();
+    messageFrameStack.addFirst(initialFrame);
+    while (!messageFrameStack.isEmpty()) {
+      messageCallProcessor.process(messageFrameStack.peekFirst(), OperationTracer.NO_TRACING);
+    }
+    return initialFrame.getOutputData();
+  }
+}
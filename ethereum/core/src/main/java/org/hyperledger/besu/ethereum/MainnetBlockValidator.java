@@ -14,6 +14,8 @@
  */
 package org.hyperledger.besu.ethereum;
 
+import org.hyperledger.besu.ethereum.bonsai.BonsaiPersistedWorldState;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiStatePrefetcher;
 import org.hyperledger.besu.ethereum.chain.BadBlockManager;
 import org.hyperledger.besu.ethereum.chain.MutableBlockchain;
 import org.hyperledger.besu.ethereum.core.Block;
@@ -97,7 +99,15 @@ public class MainnetBlockValidator implements BlockValidator {
     }
     final MutableWorldState worldState = maybeWorldState.get();
 
-    final BlockProcessor.Result result = processBlock(context, worldState, block);
+    context.getParallelSenderRecovery().ifPresent(recovery -> recovery.recoverSenders(block));
+    final Optional<BonsaiStatePrefetcher.Prefetch> prefetch =
+        startPrefetch(context, worldState, block);
+    final BlockProcessor.Result result;
+    try {
+      result = processBlock(context, worldState, block);
+    } finally {
+      prefetch.ifPresent(BonsaiStatePrefetcher.Prefetch::close);
+    }
     if (result.isFailed()) {
       return handleAndReportFailure(block, "Error processing block");
     }
@@ -126,6 +136,17 @@ public class MainnetBlockValidator implements BlockValidator {
     return new Result(new BlockProcessingOutputs(worldState, receipts));
   }
 
+  private Optional<BonsaiStatePrefetcher.Prefetch> startPrefetch(
+      final ProtocolContext context, final MutableWorldState worldState, final Block block) {
+    if (!(worldState instanceof BonsaiPersistedWorldState)) {
+      return Optional.empty();
+    }
+    final BonsaiPersistedWorldState bonsaiWorldState = (BonsaiPersistedWorldState) worldState;
+    return context
+        .getStatePrefetcher()
+        .map(prefetcher -> prefetcher.prefetch(bonsaiWorldState, block));
+  }
+
   private Result handleAndReportFailure(final Block invalidBlock, final String reason) {
     badBlockManager.addBadBlock(invalidBlock);
     LOG.error("{}. Block {}", reason, invalidBlock.toLogString());
@@ -143,7 +164,13 @@ public class MainnetBlockValidator implements BlockValidator {
   protected BlockProcessor.Result processBlock(
       final ProtocolContext context, final MutableWorldState worldState, final Block block) {
 
-    return blockProcessor.processBlock(context.getBlockchain(), worldState, block);
+    return context
+        .getParallelTransactionProcessor()
+        .map(
+            parallelTransactionProcessor ->
+                blockProcessor.processBlock(
+                    context.getBlockchain(), worldState, block, parallelTransactionProcessor))
+        .orElseGet(() -> blockProcessor.processBlock(context.getBlockchain(), worldState, block));
   }
 
   @Override
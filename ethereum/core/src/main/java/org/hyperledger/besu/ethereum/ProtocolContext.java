@@ -15,9 +15,14 @@
 package org.hyperledger.besu.ethereum;
 
 import org.hyperledger.besu.ethereum.chain.MutableBlockchain;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiStatePrefetcher;
+import org.hyperledger.besu.ethereum.mainnet.ParallelSenderRecovery;
+import org.hyperledger.besu.ethereum.mainnet.ParallelTransactionProcessor;
 import org.hyperledger.besu.ethereum.mainnet.ProtocolSchedule;
 import org.hyperledger.besu.ethereum.worldstate.WorldStateArchive;
 
+import java.util.Optional;
+
 /**
  * Holds the mutable state used to track the current context of the protocol. This is primarily the
  * blockchain and world state archive, but can also hold arbitrary context required by a particular
@@ -27,6 +32,9 @@ public class ProtocolContext {
   private final MutableBlockchain blockchain;
   private final WorldStateArchive worldStateArchive;
   private final ConsensusContext consensusContext;
+  private Optional<ParallelSenderRecovery> parallelSenderRecovery = Optional.empty();
+  private Optional<ParallelTransactionProcessor> parallelTransactionProcessor = Optional.empty();
+  private Optional<BonsaiStatePrefetcher> statePrefetcher = Optional.empty();
 
   public ProtocolContext(
       final MutableBlockchain blockchain,
@@ -59,4 +67,29 @@ public class ProtocolContext {
   public <C extends ConsensusContext> C getConsensusContext(final Class<C> klass) {
     return consensusContext.as(klass);
   }
+
+  public Optional<ParallelSenderRecovery> getParallelSenderRecovery() {
+    return parallelSenderRecovery;
+  }
+
+  public void setParallelSenderRecovery(final ParallelSenderRecovery parallelSenderRecovery) {
+    this.parallelSenderRecovery = Optional.of(parallelSenderRecovery);
+  }
+
+  public Optional<ParallelTransactionProcessor> getParallelTransactionProcessor() {
+    return parallelTransactionProcessor;
+  }
+
+  public void setParallelTransactionProcessor(
+      final ParallelTransactionProcessor parallelTransactionProcessor) {
+    this.parallelTransactionProcessor = Optional.of(parallelTransactionProcessor);
+  }
+
+  public Optional<BonsaiStatePrefetcher> getStatePrefetcher() {
+    return statePrefetcher;
+  }
+
+  public void setStatePrefetcher(final BonsaiStatePrefetcher statePrefetcher) {
+    this.statePrefetcher = Optional.of(statePrefetcher);
+  }
 }
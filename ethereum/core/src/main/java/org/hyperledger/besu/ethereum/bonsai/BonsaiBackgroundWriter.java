@@ -0,0 +1,243 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.exception.StorageException;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorage;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
+
+import java.io.Closeable;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.tuweni.bytes.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the flat state and trie nodes of persisted Bonsai world states on a background thread, so
+ * that importing a block does not wait for the storage to flush or compact.
+ *
+ * <p>The writes of a block are buffered in a batch, which is queued once the root hash of the block
+ * was validated and written by a single thread in the order the batches were queued. Until a batch
+ * is written its values are served from memory, newest batch first, so readers never see the
+ * storage lag behind. At most a fixed number of batches are pending: queuing another one waits for
+ * the oldest to be written.
+ *
+ * <p>If a batch can not be written, it stays pending so that reads remain consistent, and queuing
+ * further batches fails.
+ */
+public class BonsaiBackgroundWriter implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BonsaiBackgroundWriter.class);
+
+  private final ExecutorService executor;
+  private final Semaphore capacity;
+  private final Deque<Batch> pending = new ConcurrentLinkedDeque<>();
+  private volatile RuntimeException failure;
+
+  public BonsaiBackgroundWriter(final int maxPendingBatches, final MetricsSystem metricsSystem) {
+    this(
+        maxPendingBatches,
+        metricsSystem,
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("BonsaiBackgroundWriter-%d")
+                .build()));
+  }
+
+  BonsaiBackgroundWriter(
+      final int maxPendingBatches,
+      final MetricsSystem metricsSystem,
+      final ExecutorService executor) {
+    this.executor = executor;
+    this.capacity = new Semaphore(maxPendingBatches);
+    metricsSystem.createIntegerGauge(
+        BesuMetricCategory.BLOCKCHAIN,
+        "bonsai_background_writer_pending_batches",
+        "Number of persisted world states not yet written to the storage",
+        pending::size);
+  }
+
+  public Batch newBatch() {
+    return new Batch();
+  }
+
+  /**
+   * Returns the value of the given key as last written by a pending batch.
+   *
+   * @param storage the storage the key belongs to
+   * @param key the key
+   * @return empty if no pending batch wrote the key, otherwise the written value, which is empty
+   *     if the key was removed
+   */
+  Optional<Optional<Bytes>> getPending(final KeyValueStorage storage, final Bytes key) {
+    final Iterator<Batch> batches = pending.descendingIterator();
+    while (batches.hasNext()) {
+      final Optional<Optional<Bytes>> value = batches.next().get(storage, key);
+      if (value.isPresent()) {
+        return value;
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Waits until every queued batch was written. */
+  public void flush() {
+    try {
+      executor.submit(() -> {}).get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StorageException(e);
+    } catch (final ExecutionException e) {
+      throw new StorageException(e.getCause());
+    }
+    throwIfFailed();
+  }
+
+  @Override
+  public void close() {
+    try {
+      flush();
+    } finally {
+      executor.shutdown();
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void throwIfFailed() {
+    if (failure != null) {
+      throw new StorageException("Writing a persisted world state failed", failure);
+    }
+  }
+
+  /** The writes of one persisted world state, applied to the storages as a whole. */
+  public class Batch {
+    private final Map<KeyValueStorage, BufferedTransaction> transactions = new LinkedHashMap<>();
+
+    private Batch() {}
+
+    /**
+     * Buffers the writes to a storage in this batch.
+     *
+     * @param storage the storage that is written
+     * @param transactionFactory starts the transaction the writes are applied with
+     * @return the transaction buffering the writes
+     */
+    public KeyValueStorageTransaction transaction(
+        final KeyValueStorage storage,
+        final Supplier<KeyValueStorageTransaction> transactionFactory) {
+      final BufferedTransaction transaction = new BufferedTransaction(transactionFactory);
+      transactions.put(storage, transaction);
+      return transaction;
+    }
+
+    /** Queues this batch, waiting for the oldest pending batch to be written if needed. */
+    public void submit() {
+      throwIfFailed();
+      try {
+        capacity.acquire();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new StorageException(e);
+      }
+      pending.addLast(this);
+      executor.execute(this::write);
+    }
+
+    private void write() {
+      try {
+        transactions.values().forEach(BufferedTransaction::write);
+      } catch (final RuntimeException e) {
+        LOG.error("Unable to write a persisted world state", e);
+        failure = e;
+        return;
+      } finally {
+        capacity.release();
+      }
+      // only dropped once written so that a reader missing it finds the value in the storage
+      pending.remove(this);
+    }
+
+    private Optional<Optional<Bytes>> get(final KeyValueStorage storage, final Bytes key) {
+      final BufferedTransaction transaction = transactions.get(storage);
+      return transaction == null
+          ? Optional.empty()
+          : Optional.ofNullable(transaction.writes.get(key));
+    }
+  }
+
+  /** Buffers writes until the batch is written. Committing is done by submitting the batch. */
+  private static class BufferedTransaction implements KeyValueStorageTransaction {
+    private final Supplier<KeyValueStorageTransaction> transactionFactory;
+    private final Map<Bytes, Optional<Bytes>> writes = new HashMap<>();
+
+    private BufferedTransaction(final Supplier<KeyValueStorageTransaction> transactionFactory) {
+      this.transactionFactory = transactionFactory;
+    }
+
+    @Override
+    public void put(final byte[] key, final byte[] value) {
+      writes.put(Bytes.wrap(key), Optional.of(Bytes.wrap(value)));
+    }
+
+    @Override
+    public void remove(final byte[] key) {
+      writes.put(Bytes.wrap(key), Optional.empty());
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      // written with the batch
+    }
+
+    @Override
+    public void rollback() {
+      writes.clear();
+    }
+
+    private void write() {
+      final KeyValueStorageTransaction transaction = transactionFactory.get();
+      writes.forEach(
+          (key, value) -> {
+            if (value.isPresent()) {
+              transaction.put(key.toArrayUnsafe(), value.get().toArrayUnsafe());
+            } else {
+              transaction.remove(key.toArrayUnsafe());
+            }
+          });
+      transaction.commit();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorage;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.tuweni.bytes.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Bloom filter over the keys of the flat account and storage entries, so that reading an entry
+ * that was never written does not reach the storage.
+ *
+ * <p>The filter is split into shards by the last byte of the key, which is a byte of the account
+ * hash for accounts and of the slot hash for storage, so that the slots of a large contract spread
+ * over all shards. Keys are added as soon as they are written, before the write is committed, and
+ * are never removed: a key that was rolled back or deleted only costs a storage read. The keys
+ * already stored are added by a rebuild in the background, and until it completes every read goes
+ * to the storage.
+ */
+public class BonsaiFlatStateFilter {
+
+  static final int SHARDS = 16;
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private static final Logger LOG = LoggerFactory.getLogger(BonsaiFlatStateFilter.class);
+
+  private static final BonsaiFlatStateFilter DISABLED =
+      new BonsaiFlatStateFilter(0, new NoOpMetricsSystem(), Runnable::run);
+
+  private final boolean enabled;
+  private final BloomFilter<byte[]>[] shards;
+  private final Executor rebuildExecutor;
+  private final Counter shortCircuits;
+  private final Counter falsePositives;
+  private volatile boolean ready = false;
+
+  public BonsaiFlatStateFilter(final long expectedEntries, final MetricsSystem metricsSystem) {
+    this(
+        expectedEntries,
+        metricsSystem,
+        runnable ->
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("BonsaiFlatStateFilter-%d")
+                .build()
+                .newThread(runnable)
+                .start());
+  }
+
+  @SuppressWarnings("unchecked")
+  BonsaiFlatStateFilter(
+      final long expectedEntries,
+      final MetricsSystem metricsSystem,
+      final Executor rebuildExecutor) {
+    this.enabled = expectedEntries > 0;
+    this.rebuildExecutor = rebuildExecutor;
+    this.shards = new BloomFilter[enabled ? SHARDS : 0];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] =
+          BloomFilter.create(
+              Funnels.byteArrayFunnel(),
+              Math.max(1, expectedEntries / SHARDS),
+              FALSE_POSITIVE_PROBABILITY);
+    }
+    this.shortCircuits =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "bonsai_flat_state_filter_short_circuits_total",
+            "Number of flat state reads answered as absent by the Bonsai flat state filter");
+    this.falsePositives =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "bonsai_flat_state_filter_false_positives_total",
+            "Number of flat state reads passed by the Bonsai flat state filter that found nothing");
+  }
+
+  public static BonsaiFlatStateFilter disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Adds the keys stored in the given storages in the background, after which the filter is used.
+   *
+   * @param storages the flat account and storage storages
+   */
+  void rebuild(final KeyValueStorage... storages) {
+    if (!enabled) {
+      return;
+    }
+    rebuildExecutor.execute(
+        () -> {
+          try {
+            for (final KeyValueStorage storage : storages) {
+              try (final Stream<byte[]> keys = storage.streamKeys()) {
+                keys.forEach(this::put);
+              }
+            }
+            ready = true;
+            LOG.info("Bonsai flat state filter is ready");
+          } catch (final RuntimeException e) {
+            LOG.warn("Unable to build the Bonsai flat state filter, it will not be used", e);
+          }
+        });
+  }
+
+  /**
+   * Records that the given flat state key is written.
+   *
+   * @param key the account or storage key
+   */
+  void put(final byte[] key) {
+    if (enabled) {
+      shard(key).put(key);
+    }
+  }
+
+  /**
+   * Reads a flat state entry, unless the filter shows it was never written.
+   *
+   * @param key the account or storage key
+   * @param storageRead reads the entry from the storage
+   * @return the stored entry, if any
+   */
+  Optional<Bytes> get(final byte[] key, final Supplier<Optional<Bytes>> storageRead) {
+    if (!ready) {
+      return storageRead.get();
+    }
+    if (!shard(key).mightContain(key)) {
+      shortCircuits.inc();
+      return Optional.empty();
+    }
+    final Optional<Bytes> stored = storageRead.get();
+    if (stored.isEmpty()) {
+      falsePositives.inc();
+    }
+    return stored;
+  }
+
+  private BloomFilter<byte[]> shard(final byte[] key) {
+    return shards[key.length == 0 ? 0 : (key[key.length - 1] & 0xff) % SHARDS];
+  }
+}
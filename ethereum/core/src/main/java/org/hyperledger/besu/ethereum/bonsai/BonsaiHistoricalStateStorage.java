@@ -0,0 +1,353 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.ethereum.core.BlockHeader;
+import org.hyperledger.besu.ethereum.storage.StorageProvider;
+import org.hyperledger.besu.ethereum.storage.keyvalue.KeyValueSegmentIdentifier;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorage;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the value every account, code and storage slot had after each block that changed it, so
+ * that the state of a past block can be read without rolling the world state back to it.
+ *
+ * <p>Entries are keyed by the account hash, and the slot hash for storage, followed by the number
+ * and hash of the block that wrote them. The value as of a block is therefore the entry with the
+ * nearest key at or before that block, found with a single seek. The block hash keeps the entries
+ * written by competing forks apart: entries of blocks that are not canonical are skipped when
+ * reading. A removed value is stored as an empty value.
+ *
+ * <p>A value that was never changed can not be told apart from a missing one, so recording only
+ * starts with the genesis block, and stops for good at the first block whose parent is not the last
+ * recorded block: only the blocks a node imported one after the other from genesis are available.
+ * A node that fast or snap syncs therefore only has the genesis state recorded, and a reorg below
+ * the last recorded block ends the recording at the fork point. The hash of every recorded block is
+ * kept, so that the blocks of a fork that was never recorded are not reported as available.
+ */
+public class BonsaiHistoricalStateStorage {
+
+  static final byte[] ARCHIVE_START_BLOCK_KEY =
+      "archiveStartBlock".getBytes(StandardCharsets.UTF_8);
+  static final byte[] ARCHIVE_LAST_BLOCK_KEY = "archiveLastBlock".getBytes(StandardCharsets.UTF_8);
+  static final Bytes ARCHIVE_BLOCK_HASH_PREFIX =
+      Bytes.wrap("archiveBlockHash".getBytes(StandardCharsets.UTF_8));
+
+  private static final Logger LOG = LoggerFactory.getLogger(BonsaiHistoricalStateStorage.class);
+
+  private static final Bytes LAST_BLOCK_HASH = Bytes32.ZERO.not();
+
+  private final KeyValueStorage accountStorage;
+  private final KeyValueStorage codeStorage;
+  private final KeyValueStorage storageStorage;
+  private volatile Optional<Long> archiveStartBlock;
+  private volatile long archiveLastBlock;
+  private volatile Optional<Hash> archiveLastBlockHash;
+  private boolean stopReported = false;
+
+  public BonsaiHistoricalStateStorage(final StorageProvider provider) {
+    this(
+        provider.getStorageBySegmentIdentifier(
+            KeyValueSegmentIdentifier.ACCOUNT_INFO_STATE_ARCHIVE),
+        provider.getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.CODE_STORAGE_ARCHIVE),
+        provider.getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.ACCOUNT_STORAGE_ARCHIVE));
+  }
+
+  public BonsaiHistoricalStateStorage(
+      final KeyValueStorage accountStorage,
+      final KeyValueStorage codeStorage,
+      final KeyValueStorage storageStorage) {
+    this.accountStorage = accountStorage;
+    this.codeStorage = codeStorage;
+    this.storageStorage = storageStorage;
+    this.archiveLastBlock =
+        accountStorage
+            .get(ARCHIVE_LAST_BLOCK_KEY)
+            .map(bytes -> Bytes.wrap(bytes).toLong())
+            .orElse(-1L);
+    this.archiveLastBlockHash = getRecordedBlockHash(archiveLastBlock);
+    this.archiveStartBlock =
+        accountStorage.get(ARCHIVE_START_BLOCK_KEY).map(bytes -> Bytes.wrap(bytes).toLong());
+  }
+
+  /**
+   * Whether the changes of the given block should be recorded, which is the case for the genesis
+   * block and, once it was recorded, for every block whose parent is the last recorded block.
+   *
+   * @param blockNumber the block number
+   * @param parentHash the hash of the parent of the block
+   * @return true if the block should be recorded
+   */
+  public boolean isRecording(final long blockNumber, final Hash parentHash) {
+    if (archiveStartBlock.isEmpty()) {
+      return blockNumber == BlockHeader.GENESIS_BLOCK_NUMBER;
+    }
+    if (blockNumber == archiveLastBlock + 1
+        && archiveLastBlockHash.map(parentHash::equals).orElse(false)) {
+      return true;
+    }
+    // blocks at or below the last block are either recorded already or of a fork
+    if (blockNumber > archiveLastBlock && !stopReported) {
+      stopReported = true;
+      LOG.warn(
+          "Historical state is not recorded after block {} because block {} does not follow it,"
+              + " the node has to sync from genesis with full sync to record it",
+          archiveLastBlock,
+          blockNumber);
+    }
+    return false;
+  }
+
+  /**
+   * Whether the state after the given block can be read from this storage.
+   *
+   * @param blockNumber the block number
+   * @param blockHash the block hash
+   * @return true if that block and every change up to it was recorded
+   */
+  public boolean isAvailable(final long blockNumber, final Hash blockHash) {
+    return archiveStartBlock.map(start -> start <= blockNumber).orElse(false)
+        && blockNumber <= archiveLastBlock
+        && getRecordedBlockHash(blockNumber).map(blockHash::equals).orElse(false);
+  }
+
+  private Optional<Hash> getRecordedBlockHash(final long blockNumber) {
+    return accountStorage
+        .get(blockHashKey(blockNumber))
+        .map(bytes -> Hash.wrap(Bytes32.wrap(bytes)));
+  }
+
+  private static byte[] blockHashKey(final long blockNumber) {
+    return Bytes.concatenate(ARCHIVE_BLOCK_HASH_PREFIX, Bytes.ofUnsignedLong(blockNumber))
+        .toArrayUnsafe();
+  }
+
+  public Optional<Bytes> getAccount(
+      final Hash accountHash,
+      final long blockNumber,
+      final LongFunction<Optional<Hash>> canonicalBlockHashes) {
+    return getAsOf(accountStorage, accountHash, blockNumber, canonicalBlockHashes);
+  }
+
+  public Optional<Bytes> getCode(
+      final Hash accountHash,
+      final long blockNumber,
+      final LongFunction<Optional<Hash>> canonicalBlockHashes) {
+    return getAsOf(codeStorage, accountHash, blockNumber, canonicalBlockHashes);
+  }
+
+  public Optional<Bytes> getStorageValueBySlotHash(
+      final Hash accountHash,
+      final Hash slotHash,
+      final long blockNumber,
+      final LongFunction<Optional<Hash>> canonicalBlockHashes) {
+    return getAsOf(
+        storageStorage,
+        Bytes.concatenate(accountHash, slotHash),
+        blockNumber,
+        canonicalBlockHashes);
+  }
+
+  /**
+   * Reads every storage slot an account had as of a block, by scanning the changes recorded for
+   * its storage.
+   *
+   * @param accountHash the hash of the account owning the storage
+   * @param blockNumber the block number
+   * @param canonicalBlockHashes the hashes of the canonical blocks by number
+   * @return the hashes and values of the non-zero slots
+   */
+  public Map<Bytes32, Bytes> getAllStorageValues(
+      final Hash accountHash,
+      final long blockNumber,
+      final LongFunction<Optional<Hash>> canonicalBlockHashes) {
+    final Map<Bytes32, Bytes> values = new HashMap<>();
+    final int blockOffset = 2 * Bytes32.SIZE;
+    try (final Stream<Map.Entry<byte[], byte[]>> entries =
+        storageStorage.streamFromKey(accountHash.toArrayUnsafe())) {
+      entries
+          .takeWhile(entry -> Bytes.wrap(entry.getKey(), 0, Bytes32.SIZE).equals(accountHash))
+          .forEach(
+              entry -> {
+                final Bytes key = Bytes.wrap(entry.getKey());
+                final long changeBlockNumber = key.getLong(blockOffset);
+                // the changes of a slot are ordered by block, so the last one up to the block wins
+                if (changeBlockNumber <= blockNumber
+                    && isCanonical(
+                        changeBlockNumber,
+                        Hash.wrap(Bytes32.wrap(key.slice(blockOffset + Long.BYTES))),
+                        canonicalBlockHashes)) {
+                  values.put(
+                      Bytes32.wrap(key.slice(Bytes32.SIZE, Bytes32.SIZE)),
+                      Bytes.wrap(entry.getValue()));
+                }
+              });
+    }
+    values.values().removeIf(Bytes::isEmpty);
+    return values;
+  }
+
+  /**
+   * Starts recording the changes made by a block.
+   *
+   * @param blockNumber the number of the block
+   * @param blockHash the hash of the block
+   * @return the updater to record the changes with
+   */
+  public Updater updater(final long blockNumber, final Hash blockHash) {
+    return new Updater(blockNumber, blockHash);
+  }
+
+  private Optional<Bytes> getAsOf(
+      final KeyValueStorage storage,
+      final Bytes prefix,
+      final long blockNumber,
+      final LongFunction<Optional<Hash>> canonicalBlockHashes) {
+    Bytes searchKey = Bytes.concatenate(prefix, Bytes.ofUnsignedLong(blockNumber), LAST_BLOCK_HASH);
+    while (true) {
+      final Optional<Map.Entry<byte[], byte[]>> nearest =
+          storage.getNearestBefore(searchKey.toArrayUnsafe());
+      if (nearest.isEmpty()) {
+        return Optional.empty();
+      }
+      final Bytes key = Bytes.wrap(nearest.get().getKey());
+      if (key.size() != searchKey.size() || !key.slice(0, prefix.size()).equals(prefix)) {
+        // nothing was recorded for this entry up to the block
+        return Optional.empty();
+      }
+      final long changeBlockNumber = key.getLong(prefix.size());
+      final Hash changeBlockHash = Hash.wrap(Bytes32.wrap(key.slice(prefix.size() + Long.BYTES)));
+      if (isCanonical(changeBlockNumber, changeBlockHash, canonicalBlockHashes)) {
+        final Bytes value = Bytes.wrap(nearest.get().getValue());
+        return value.isEmpty() ? Optional.empty() : Optional.of(value);
+      }
+      // written by a block of another fork, look for an earlier change
+      final Optional<Bytes> previousKey = keyBefore(key, prefix.size());
+      if (previousKey.isEmpty()) {
+        return Optional.empty();
+      }
+      searchKey = previousKey.get();
+    }
+  }
+
+  private static boolean isCanonical(
+      final long blockNumber,
+      final Hash blockHash,
+      final LongFunction<Optional<Hash>> canonicalBlockHashes) {
+    return canonicalBlockHashes.apply(blockNumber).map(blockHash::equals).orElse(false);
+  }
+
+  private static Optional<Bytes> keyBefore(final Bytes key, final int prefixSize) {
+    final byte[] previous = key.toArray();
+    for (int i = previous.length - 1; i >= prefixSize; i--) {
+      if (previous[i]-- != 0) {
+        return Optional.of(Bytes.wrap(previous));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Records the values written by a block, as part of persisting its world state. */
+  public class Updater {
+    private final Bytes blockSuffix;
+    private final long blockNumber;
+    private final Hash blockHash;
+    private final KeyValueStorageTransaction accountTransaction = accountStorage.startTransaction();
+    private final KeyValueStorageTransaction codeTransaction = codeStorage.startTransaction();
+    private final KeyValueStorageTransaction storageTransaction =
+        storageStorage.startTransaction();
+
+    private Updater(final long blockNumber, final Hash blockHash) {
+      this.blockNumber = blockNumber;
+      this.blockHash = blockHash;
+      this.blockSuffix = Bytes.concatenate(Bytes.ofUnsignedLong(blockNumber), blockHash);
+    }
+
+    public void putAccount(final Hash accountHash, final Bytes accountValue) {
+      accountTransaction.put(key(accountHash), accountValue.toArrayUnsafe());
+    }
+
+    public void removeAccount(final Hash accountHash) {
+      accountTransaction.put(key(accountHash), Bytes.EMPTY.toArrayUnsafe());
+    }
+
+    public void putCode(final Hash accountHash, final Bytes code) {
+      codeTransaction.put(key(accountHash), code.toArrayUnsafe());
+    }
+
+    public void removeCode(final Hash accountHash) {
+      codeTransaction.put(key(accountHash), Bytes.EMPTY.toArrayUnsafe());
+    }
+
+    public void putStorageValueBySlotHash(
+        final Hash accountHash, final Hash slotHash, final Bytes value) {
+      // a zero value is stored as an empty value, like a removed slot
+      storageTransaction.put(
+          key(Bytes.concatenate(accountHash, slotHash)), value.trimLeadingZeros().toArrayUnsafe());
+    }
+
+    public void removeStorageValueBySlotHash(final Hash accountHash, final Hash slotHash) {
+      storageTransaction.put(
+          key(Bytes.concatenate(accountHash, slotHash)), Bytes.EMPTY.toArrayUnsafe());
+    }
+
+    private byte[] key(final Bytes prefix) {
+      return Bytes.concatenate(prefix, blockSuffix).toArrayUnsafe();
+    }
+
+    public void commit() {
+      final boolean firstBlock = archiveStartBlock.isEmpty();
+      if (firstBlock) {
+        accountTransaction.put(
+            ARCHIVE_START_BLOCK_KEY, Bytes.ofUnsignedLong(blockNumber).toArrayUnsafe());
+      }
+      accountTransaction.put(blockHashKey(blockNumber), blockHash.toArrayUnsafe());
+      final boolean lastBlock = blockNumber >= archiveLastBlock;
+      if (lastBlock) {
+        accountTransaction.put(
+            ARCHIVE_LAST_BLOCK_KEY, Bytes.ofUnsignedLong(blockNumber).toArrayUnsafe());
+      }
+      accountTransaction.commit();
+      codeTransaction.commit();
+      storageTransaction.commit();
+      if (lastBlock) {
+        archiveLastBlock = blockNumber;
+        archiveLastBlockHash = Optional.of(blockHash);
+      }
+      if (firstBlock) {
+        archiveStartBlock = Optional.of(blockNumber);
+      }
+    }
+
+    public void rollback() {
+      accountTransaction.rollback();
+      codeTransaction.rollback();
+      storageTransaction.rollback();
+    }
+  }
+}
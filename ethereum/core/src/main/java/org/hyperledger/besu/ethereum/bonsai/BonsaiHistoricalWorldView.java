@@ -0,0 +1,92 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.evm.account.Account;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.units.bigints.UInt256;
+
+/** A read only view of the state after a past block, read from the historical state storage. */
+public class BonsaiHistoricalWorldView implements BonsaiWorldView {
+
+  private final BonsaiHistoricalStateStorage historicalStateStorage;
+  private final Blockchain blockchain;
+  private final long blockNumber;
+
+  public BonsaiHistoricalWorldView(
+      final BonsaiHistoricalStateStorage historicalStateStorage,
+      final Blockchain blockchain,
+      final long blockNumber) {
+    this.historicalStateStorage = historicalStateStorage;
+    this.blockchain = blockchain;
+    this.blockNumber = blockNumber;
+  }
+
+  @Override
+  public Account get(final Address address) {
+    return historicalStateStorage
+        .getAccount(Hash.hash(address), blockNumber, blockchain::getBlockHashByNumber)
+        .map(bytes -> BonsaiAccount.fromRLP(this, address, bytes, false))
+        .orElse(null);
+  }
+
+  @Override
+  public Optional<Bytes> getCode(final Address address) {
+    return historicalStateStorage.getCode(
+        Hash.hash(address), blockNumber, blockchain::getBlockHashByNumber);
+  }
+
+  @Override
+  public Optional<Bytes> getStateTrieNode(final Bytes location) {
+    // only the flat state is kept for past blocks
+    return Optional.empty();
+  }
+
+  @Override
+  public UInt256 getStorageValue(final Address address, final UInt256 key) {
+    return getStorageValueBySlotHash(address, Hash.hash(key)).orElse(UInt256.ZERO);
+  }
+
+  @Override
+  public Optional<UInt256> getStorageValueBySlotHash(final Address address, final Hash slotHash) {
+    return historicalStateStorage
+        .getStorageValueBySlotHash(
+            Hash.hash(address), slotHash, blockNumber, blockchain::getBlockHashByNumber)
+        .map(UInt256::fromBytes);
+  }
+
+  @Override
+  public UInt256 getPriorStorageValue(final Address address, final UInt256 key) {
+    return getStorageValue(address, key);
+  }
+
+  @Override
+  public Map<Bytes32, Bytes> getAllAccountStorage(final Address address, final Hash rootHash) {
+    // no trie is kept for past blocks, the storage as of the block is read from the changes
+    final Map<Bytes32, Bytes> storage =
+        historicalStateStorage.getAllStorageValues(
+            Hash.hash(address), blockNumber, blockchain::getBlockHashByNumber);
+    storage.replaceAll((slotHash, value) -> BonsaiWorldView.encodeTrieValue(value));
+    return storage;
+  }
+}
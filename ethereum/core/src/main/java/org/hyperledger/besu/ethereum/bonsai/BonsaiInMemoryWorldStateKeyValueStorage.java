@@ -36,6 +36,33 @@ public class BonsaiInMemoryWorldStateKeyValueStorage extends BonsaiWorldStateKey
     super(accountStorage, codeStorage, storageStorage, trieBranchStorage, trieLogStorage);
   }
 
+  public BonsaiInMemoryWorldStateKeyValueStorage(
+      final KeyValueStorage accountStorage,
+      final KeyValueStorage codeStorage,
+      final KeyValueStorage storageStorage,
+      final KeyValueStorage trieBranchStorage,
+      final KeyValueStorage trieLogStorage,
+      final BonsaiTrieNodeCache trieNodeCache) {
+    super(
+        accountStorage,
+        codeStorage,
+        storageStorage,
+        trieBranchStorage,
+        trieLogStorage,
+        trieNodeCache);
+  }
+
+  /**
+   * Reads the state of the given storage, including the world states it is still writing in the
+   * background, without ever writing to it.
+   *
+   * @param worldStateStorage the storage to read
+   */
+  public BonsaiInMemoryWorldStateKeyValueStorage(
+      final BonsaiWorldStateKeyValueStorage worldStateStorage) {
+    super(worldStateStorage);
+  }
+
   @Override
   public InMemoryUpdater updater() {
     return new InMemoryUpdater(
@@ -46,6 +73,15 @@ public class BonsaiInMemoryWorldStateKeyValueStorage extends BonsaiWorldStateKey
         trieLogStorage.startTransaction());
   }
 
+  @Override
+  public InMemoryUpdater bulkLoadUpdater() {
+    return updater();
+  }
+
+  /** The background writer is owned, and closed, by the persisted storage. */
+  @Override
+  public void close() {}
+
   public static class InMemoryUpdater extends BonsaiWorldStateKeyValueStorage.Updater
       implements WorldStateStorage.Updater {
 
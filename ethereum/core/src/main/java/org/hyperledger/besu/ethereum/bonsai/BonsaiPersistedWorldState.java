@@ -24,7 +24,9 @@ import org.hyperledger.besu.datatypes.Address;
 import org.hyperledger.besu.datatypes.Hash;
 import org.hyperledger.besu.ethereum.core.BlockHeader;
 import org.hyperledger.besu.ethereum.core.MutableWorldState;
-import org.hyperledger.besu.ethereum.rlp.BytesValueRLPOutput;
+import org.hyperledger.besu.ethereum.trie.CommitVisitor;
+import org.hyperledger.besu.ethereum.trie.NodeUpdater;
+import org.hyperledger.besu.ethereum.trie.ParallelCommitVisitor;
 import org.hyperledger.besu.ethereum.trie.StoredMerklePatriciaTrie;
 import org.hyperledger.besu.ethereum.worldstate.WorldStateStorage;
 import org.hyperledger.besu.evm.account.Account;
@@ -32,8 +34,14 @@ import org.hyperledger.besu.evm.worldstate.WorldUpdater;
 import org.hyperledger.besu.plugin.services.exception.StorageException;
 import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -55,6 +63,7 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
 
   private Hash worldStateRootHash;
   private Hash worldStateBlockHash;
+  private volatile BonsaiStatePrefetcher.Prefetch prefetch;
 
   public BonsaiPersistedWorldState(
       final BonsaiWorldStateArchive archive,
@@ -76,13 +85,7 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
   @Override
   public MutableWorldState copy() {
     return new BonsaiInMemoryWorldState(
-        archive,
-        new BonsaiInMemoryWorldStateKeyValueStorage(
-            worldStateStorage.accountStorage,
-            worldStateStorage.codeStorage,
-            worldStateStorage.storageStorage,
-            worldStateStorage.trieBranchStorage,
-            worldStateStorage.trieLogStorage));
+        archive, new BonsaiInMemoryWorldStateKeyValueStorage(worldStateStorage));
   }
 
   @Override
@@ -99,6 +102,16 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
     return worldStateStorage;
   }
 
+  void setPrefetch(final BonsaiStatePrefetcher.Prefetch prefetch) {
+    this.prefetch = prefetch;
+  }
+
+  void clearPrefetch(final BonsaiStatePrefetcher.Prefetch prefetch) {
+    if (this.prefetch == prefetch) {
+      this.prefetch = null;
+    }
+  }
+
   protected Hash calculateRootHash(final BonsaiWorldStateKeyValueStorage.Updater stateUpdater) {
     return calculateRootHash(stateUpdater, updater.copy());
   }
@@ -106,85 +119,23 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
   protected Hash calculateRootHash(
       final BonsaiWorldStateKeyValueStorage.Updater stateUpdater,
       final BonsaiWorldStateUpdater worldStateUpdater) {
-    // first clear storage
+    // first clear storage, second update account storage state.  This must be done before
+    // updating the accounts so that we can get the storage state hash.  The storage of each
+    // account is independent of the others, so the tries are computed concurrently and their
+    // writes are applied afterwards in the order they would have been made one by one.
+    final List<StorageTrieWrites> storageTrieWrites = new ArrayList<>();
     for (final Address address : worldStateUpdater.getStorageToClear()) {
-      // because we are clearing persisted values we need the account root as persisted
-      final BonsaiAccount oldAccount =
-          worldStateStorage
-              .getAccount(Hash.hash(address))
-              .map(bytes -> fromRLP(BonsaiPersistedWorldState.this, address, bytes, true))
-              .orElse(null);
-      if (oldAccount == null) {
-        // This is when an account is both created and deleted within the scope of the same
-        // block.  A not-uncommon DeFi bot pattern.
-        continue;
-      }
-      final Hash addressHash = Hash.hash(address);
-      final StoredMerklePatriciaTrie<Bytes, Bytes> storageTrie =
-          new StoredMerklePatriciaTrie<>(
-              (location, key) -> getStorageTrieNode(addressHash, location, key),
-              oldAccount.getStorageRoot(),
-              Function.identity(),
-              Function.identity());
-      Map<Bytes32, Bytes> entriesToDelete = storageTrie.entriesFrom(Bytes32.ZERO, 256);
-      while (!entriesToDelete.isEmpty()) {
-        entriesToDelete
-            .keySet()
-            .forEach(
-                k -> stateUpdater.removeStorageValueBySlotHash(Hash.hash(address), Hash.wrap(k)));
-        if (entriesToDelete.size() == 256) {
-          entriesToDelete.keySet().forEach(storageTrie::remove);
-          entriesToDelete = storageTrie.entriesFrom(Bytes32.ZERO, 256);
-        } else {
-          break;
-        }
-      }
+      storageTrieWrites.add(new StorageTrieWrites(writes -> clearStorage(address, writes)));
     }
-
-    // second update account storage state.  This must be done before updating the accounts so
-    // that we can get the storage state hash
     for (final Map.Entry<Address, Map<Hash, BonsaiValue<UInt256>>> storageAccountUpdate :
         worldStateUpdater.getStorageToUpdate().entrySet()) {
-      final Address updatedAddress = storageAccountUpdate.getKey();
-      final Hash updatedAddressHash = Hash.hash(updatedAddress);
-      if (worldStateUpdater.getAccountsToUpdate().containsKey(updatedAddress)) {
-        final BonsaiValue<BonsaiAccount> accountValue =
-            worldStateUpdater.getAccountsToUpdate().get(updatedAddress);
-        final BonsaiAccount accountOriginal = accountValue.getPrior();
-        final Hash storageRoot =
-            (accountOriginal == null) ? Hash.EMPTY_TRIE_HASH : accountOriginal.getStorageRoot();
-        final StoredMerklePatriciaTrie<Bytes, Bytes> storageTrie =
-            new StoredMerklePatriciaTrie<>(
-                (location, key) -> getStorageTrieNode(updatedAddressHash, location, key),
-                storageRoot,
-                Function.identity(),
-                Function.identity());
-
-        // for manicured tries and composting, collect branches here (not implemented)
-
-        for (final Map.Entry<Hash, BonsaiValue<UInt256>> storageUpdate :
-            storageAccountUpdate.getValue().entrySet()) {
-          final Hash keyHash = storageUpdate.getKey();
-          final UInt256 updatedStorage = storageUpdate.getValue().getUpdated();
-          if (updatedStorage == null || updatedStorage.equals(UInt256.ZERO)) {
-            stateUpdater.removeStorageValueBySlotHash(updatedAddressHash, keyHash);
-            storageTrie.remove(keyHash);
-          } else {
-            stateUpdater.putStorageValueBySlotHash(updatedAddressHash, keyHash, updatedStorage);
-            storageTrie.put(keyHash, BonsaiWorldView.encodeTrieValue(updatedStorage));
-          }
-        }
-
-        final BonsaiAccount accountUpdated = accountValue.getUpdated();
-        if (accountUpdated != null) {
-          storageTrie.commit(
-              (location, key, value) ->
-                  writeStorageTrieNode(stateUpdater, updatedAddressHash, location, key, value));
-          final Hash newStorageRoot = Hash.wrap(storageTrie.getRootHash());
-          accountUpdated.setStorageRoot(newStorageRoot);
-        }
-      }
-      // for manicured tries and composting, trim and compost here
+      storageTrieWrites.add(
+          new StorageTrieWrites(
+              writes -> updateStorageTrie(worldStateUpdater, storageAccountUpdate, writes)));
+    }
+    computeStorageTries(storageTrieWrites);
+    for (final StorageTrieWrites writes : storageTrieWrites) {
+      writes.applyTo(stateUpdater);
     }
 
     // Third update the code.  This has the side effect of ensuring a code hash is calculated.
@@ -229,13 +180,155 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
 
     // TODO write to a cache and then generate a layer update from that and the
     // DB tx updates.  Right now it is just DB updates.
-    accountTrie.commit(
+    final NodeUpdater accountTrieUpdater =
         (location, hash, value) ->
-            writeTrieNode(stateUpdater.getTrieBranchStorageTransaction(), location, value));
+            writeTrieNode(stateUpdater.getTrieBranchStorageTransaction(), location, value);
+    accountTrie.commit(
+        accountTrieUpdater,
+        archive
+            .getTrieExecutor()
+            .<CommitVisitor<Bytes>>map(
+                executor -> new ParallelCommitVisitor<>(accountTrieUpdater, executor))
+            .orElseGet(() -> new CommitVisitor<>(accountTrieUpdater)));
     final Bytes32 rootHash = accountTrie.getRootHash();
     return Hash.wrap(rootHash);
   }
 
+  private void clearStorage(final Address address, final StorageTrieWrites writes) {
+    // because we are clearing persisted values we need the account root as persisted
+    final BonsaiAccount oldAccount =
+        worldStateStorage
+            .getAccount(Hash.hash(address))
+            .map(bytes -> fromRLP(BonsaiPersistedWorldState.this, address, bytes, true))
+            .orElse(null);
+    if (oldAccount == null) {
+      // This is when an account is both created and deleted within the scope of the same
+      // block.  A not-uncommon DeFi bot pattern.
+      return;
+    }
+    final Hash addressHash = Hash.hash(address);
+    final StoredMerklePatriciaTrie<Bytes, Bytes> storageTrie =
+        new StoredMerklePatriciaTrie<>(
+            (location, key) -> getStorageTrieNode(addressHash, location, key),
+            oldAccount.getStorageRoot(),
+            Function.identity(),
+            Function.identity());
+    Map<Bytes32, Bytes> entriesToDelete = storageTrie.entriesFrom(Bytes32.ZERO, 256);
+    while (!entriesToDelete.isEmpty()) {
+      entriesToDelete
+          .keySet()
+          .forEach(
+              k ->
+                  writes.add(
+                      stateUpdater ->
+                          stateUpdater.removeStorageValueBySlotHash(addressHash, Hash.wrap(k))));
+      if (entriesToDelete.size() == 256) {
+        entriesToDelete.keySet().forEach(storageTrie::remove);
+        entriesToDelete = storageTrie.entriesFrom(Bytes32.ZERO, 256);
+      } else {
+        break;
+      }
+    }
+  }
+
+  private void updateStorageTrie(
+      final BonsaiWorldStateUpdater worldStateUpdater,
+      final Map.Entry<Address, Map<Hash, BonsaiValue<UInt256>>> storageAccountUpdate,
+      final StorageTrieWrites writes) {
+    final Address updatedAddress = storageAccountUpdate.getKey();
+    final Hash updatedAddressHash = Hash.hash(updatedAddress);
+    if (worldStateUpdater.getAccountsToUpdate().containsKey(updatedAddress)) {
+      final BonsaiValue<BonsaiAccount> accountValue =
+          worldStateUpdater.getAccountsToUpdate().get(updatedAddress);
+      final BonsaiAccount accountOriginal = accountValue.getPrior();
+      final Hash storageRoot =
+          (accountOriginal == null) ? Hash.EMPTY_TRIE_HASH : accountOriginal.getStorageRoot();
+      final StoredMerklePatriciaTrie<Bytes, Bytes> storageTrie =
+          new StoredMerklePatriciaTrie<>(
+              (location, key) -> getStorageTrieNode(updatedAddressHash, location, key),
+              storageRoot,
+              Function.identity(),
+              Function.identity());
+
+      // for manicured tries and composting, collect branches here (not implemented)
+
+      for (final Map.Entry<Hash, BonsaiValue<UInt256>> storageUpdate :
+          storageAccountUpdate.getValue().entrySet()) {
+        final Hash keyHash = storageUpdate.getKey();
+        final UInt256 updatedStorage = storageUpdate.getValue().getUpdated();
+        if (updatedStorage == null || updatedStorage.equals(UInt256.ZERO)) {
+          writes.add(
+              stateUpdater ->
+                  stateUpdater.removeStorageValueBySlotHash(updatedAddressHash, keyHash));
+          storageTrie.remove(keyHash);
+        } else {
+          writes.add(
+              stateUpdater ->
+                  stateUpdater.putStorageValueBySlotHash(
+                      updatedAddressHash, keyHash, updatedStorage));
+          storageTrie.put(keyHash, BonsaiWorldView.encodeTrieValue(updatedStorage));
+        }
+      }
+
+      final BonsaiAccount accountUpdated = accountValue.getUpdated();
+      if (accountUpdated != null) {
+        storageTrie.commit(
+            (location, key, value) ->
+                writes.add(
+                    stateUpdater ->
+                        writeStorageTrieNode(
+                            stateUpdater, updatedAddressHash, location, key, value)));
+        final Hash newStorageRoot = Hash.wrap(storageTrie.getRootHash());
+        accountUpdated.setStorageRoot(newStorageRoot);
+      }
+    }
+    // for manicured tries and composting, trim and compost here
+  }
+
+  private void computeStorageTries(final List<StorageTrieWrites> storageTrieWrites) {
+    final Optional<ExecutorService> executor =
+        storageTrieWrites.size() > 1 ? archive.getTrieExecutor() : Optional.empty();
+    if (executor.isEmpty()) {
+      storageTrieWrites.forEach(StorageTrieWrites::compute);
+      return;
+    }
+    final List<CompletableFuture<Void>> futures = new ArrayList<>(storageTrieWrites.size());
+    for (final StorageTrieWrites writes : storageTrieWrites) {
+      futures.add(CompletableFuture.runAsync(writes::compute, executor.get()));
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /** The storage writes of one account, recorded while its storage trie is computed. */
+  private static class StorageTrieWrites {
+    private final Consumer<StorageTrieWrites> computation;
+    private final List<Consumer<BonsaiWorldStateKeyValueStorage.Updater>> writes =
+        new ArrayList<>();
+
+    private StorageTrieWrites(final Consumer<StorageTrieWrites> computation) {
+      this.computation = computation;
+    }
+
+    private void compute() {
+      computation.accept(this);
+    }
+
+    private void add(final Consumer<BonsaiWorldStateKeyValueStorage.Updater> write) {
+      writes.add(write);
+    }
+
+    private void applyTo(final BonsaiWorldStateKeyValueStorage.Updater stateUpdater) {
+      writes.forEach(write -> write.accept(stateUpdater));
+    }
+  }
+
   @Override
   public void persist(final BlockHeader blockHeader) {
     boolean success = false;
@@ -245,6 +338,19 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
     final Hash originalBlockHash = worldStateBlockHash;
     final Hash originalRootHash = worldStateRootHash;
     final BonsaiWorldStateKeyValueStorage.Updater stateUpdater = worldStateStorage.updater();
+    if (blockHeader != null) {
+      archive
+          .getHistoricalStateStorage()
+          .filter(
+              historicalState ->
+                  historicalState.isRecording(
+                      blockHeader.getNumber(), blockHeader.getParentHash()))
+          .ifPresent(
+              historicalState ->
+                  stateUpdater.recordHistoricalState(
+                      historicalState.updater(
+                          blockHeader.getNumber(), Hash.fromPlugin(blockHeader.getBlockHash()))));
+    }
 
     try {
       worldStateRootHash = calculateRootHash(stateUpdater, localUpdater);
@@ -272,12 +378,9 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
           final TrieLogLayer trieLog = localUpdater.generateTrieLog(worldStateBlockHash);
           trieLog.freeze();
           archive.addLayeredWorldState(this, blockHeader, worldStateRootHash, trieLog);
-          final BytesValueRLPOutput rlpLog = new BytesValueRLPOutput();
-          trieLog.writeTo(rlpLog);
-
           stateUpdater
               .getTrieLogStorageTransaction()
-              .put(worldStateBlockHash.toArrayUnsafe(), rlpLog.encoded().toArrayUnsafe());
+              .put(worldStateBlockHash.toArrayUnsafe(), trieLog.toBytes().toArrayUnsafe());
         }
       } else {
         stateUpdater.getTrieBranchStorageTransaction().remove(WORLD_BLOCK_HASH_KEY);
@@ -353,8 +456,13 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
 
   @Override
   public Account get(final Address address) {
+    final Hash accountHash = Hash.hash(address);
+    final BonsaiStatePrefetcher.Prefetch currentPrefetch = prefetch;
+    if (currentPrefetch != null) {
+      currentPrefetch.onAccountRead(accountHash);
+    }
     return worldStateStorage
-        .getAccount(Hash.hash(address))
+        .getAccount(accountHash)
         .map(bytes -> fromRLP(updater, address, bytes, true))
         .orElse(null);
   }
@@ -394,8 +502,13 @@ public class BonsaiPersistedWorldState implements MutableWorldState, BonsaiWorld
 
   @Override
   public Optional<UInt256> getStorageValueBySlotHash(final Address address, final Hash slotHash) {
+    final Hash accountHash = Hash.hash(address);
+    final BonsaiStatePrefetcher.Prefetch currentPrefetch = prefetch;
+    if (currentPrefetch != null) {
+      currentPrefetch.onStorageRead(accountHash, slotHash);
+    }
     return worldStateStorage
-        .getStorageValueBySlotHash(Hash.hash(address), slotHash)
+        .getStorageValueBySlotHash(accountHash, slotHash)
         .map(UInt256::fromBytes);
   }
 
@@ -0,0 +1,193 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.evm.account.Account;
+import org.hyperledger.besu.evm.account.EvmAccount;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.units.bigints.UInt256;
+
+/**
+ * A layer on top of a persisted world state that runs one transaction of a block speculatively,
+ * against the state at the start of the block, while recording everything the transaction read.
+ *
+ * <p>Every transaction pays its fee to the mining beneficiary, so the fee would make all
+ * transactions of a block conflict with each other. The fee is therefore kept aside on a separate
+ * account and added when the transaction is applied. A transaction that reads the mining
+ * beneficiary itself cannot be applied this way and has to be re-executed.
+ */
+public class BonsaiSpeculativeWorldStateUpdater extends BonsaiWorldStateUpdater {
+
+  private final StateAccessSet reads;
+  private final Address miningBeneficiary;
+  private final BonsaiAccount miningReward;
+
+  private BonsaiSpeculativeWorldStateUpdater(
+      final ReadRecordingWorldView worldView, final Address miningBeneficiary) {
+    super(worldView);
+    this.reads = worldView.reads;
+    this.miningBeneficiary = miningBeneficiary;
+    this.miningReward =
+        new BonsaiAccount(
+            this,
+            miningBeneficiary,
+            Hash.hash(miningBeneficiary),
+            Account.DEFAULT_NONCE,
+            Wei.ZERO,
+            Hash.EMPTY_TRIE_HASH,
+            Hash.EMPTY,
+            true);
+  }
+
+  public static BonsaiSpeculativeWorldStateUpdater create(
+      final BonsaiPersistedWorldState worldState, final Address miningBeneficiary) {
+    return new BonsaiSpeculativeWorldStateUpdater(
+        new ReadRecordingWorldView(worldState), miningBeneficiary);
+  }
+
+  /**
+   * Whether transactions can run speculatively on top of a world state. The layers read straight
+   * from its storage, so it must not hold changes that were not persisted yet.
+   *
+   * @param worldState the world state at the start of the block
+   * @return true if the world state has no pending changes
+   */
+  public static boolean canSpeculateOn(final BonsaiPersistedWorldState worldState) {
+    final BonsaiWorldStateUpdater updater = (BonsaiWorldStateUpdater) worldState.updater();
+    return updater.getAccountsToUpdate().isEmpty()
+        && updater.getCodeToUpdate().isEmpty()
+        && updater.getStorageToUpdate().isEmpty()
+        && updater.getStorageToClear().isEmpty();
+  }
+
+  @Override
+  public EvmAccount getOrCreate(final Address address) {
+    // the transaction processor only credits the fee through this call, the EVM goes through
+    // stacked updaters and sees the mining beneficiary as it was at the start of the block
+    if (address.equals(miningBeneficiary)) {
+      return miningReward;
+    }
+    return super.getOrCreate(address);
+  }
+
+  @Override
+  public EvmAccount getOrCreateSenderAccount(final Address address) {
+    final EvmAccount account = getAccount(address);
+    return account == null ? createAccount(address) : account;
+  }
+
+  public StateAccessSet getReads() {
+    return reads;
+  }
+
+  public StateAccessSet getWrites() {
+    final StateAccessSet writes = new StateAccessSet();
+    writes.addWrites(getUpdatedAccounts(), getDeletedAccounts());
+    writes.addAccount(miningBeneficiary);
+    return writes;
+  }
+
+  /**
+   * Whether the transaction can be applied on top of the given changes of the transactions before
+   * it in the block, as if it had been executed after them.
+   *
+   * @param writes the state written by the transactions applied so far
+   * @return true if the transaction did not read any of it
+   */
+  public boolean canApplyAfter(final StateAccessSet writes) {
+    // a zero fee would leave an empty mining beneficiary account behind, which sequential
+    // execution may delete
+    return !miningReward.getBalance().isZero()
+        && !reads.containsAccount(miningBeneficiary)
+        && !reads.isAffectedBy(writes);
+  }
+
+  /**
+   * Applies the changes of the transaction to the updater accumulating the changes of the block.
+   *
+   * @param blockUpdater the updater of the persisted world state this layer was created on
+   */
+  public void applyTo(final BonsaiWorldStateUpdater blockUpdater) {
+    blockUpdater.applyUpdates(this);
+    blockUpdater
+        .getOrCreate(miningBeneficiary)
+        .getMutable()
+        .incrementBalance(miningReward.getBalance());
+  }
+
+  /**
+   * Reads through to the persisted world state. Accounts are rebound to this view so that their
+   * storage reads are recorded as well.
+   */
+  private static class ReadRecordingWorldView implements BonsaiWorldView {
+
+    private final BonsaiPersistedWorldState worldState;
+    private final StateAccessSet reads = new StateAccessSet();
+
+    private ReadRecordingWorldView(final BonsaiPersistedWorldState worldState) {
+      this.worldState = worldState;
+    }
+
+    @Override
+    public Account get(final Address address) {
+      reads.addAccount(address);
+      final Account account = worldState.get(address);
+      return account instanceof BonsaiAccount
+          ? new BonsaiAccount((BonsaiAccount) account, this, false)
+          : account;
+    }
+
+    @Override
+    public Optional<Bytes> getCode(final Address address) {
+      reads.addAccount(address);
+      return worldState.getCode(address);
+    }
+
+    @Override
+    public Optional<Bytes> getStateTrieNode(final Bytes location) {
+      return worldState.getStateTrieNode(location);
+    }
+
+    @Override
+    public UInt256 getStorageValue(final Address address, final UInt256 key) {
+      return getStorageValueBySlotHash(address, Hash.hash(key)).orElse(UInt256.ZERO);
+    }
+
+    @Override
+    public Optional<UInt256> getStorageValueBySlotHash(final Address address, final Hash slotHash) {
+      reads.addSlot(address, slotHash);
+      return worldState.getStorageValueBySlotHash(address, slotHash);
+    }
+
+    @Override
+    public UInt256 getPriorStorageValue(final Address address, final UInt256 key) {
+      return getStorageValue(address, key);
+    }
+
+    @Override
+    public Map<Bytes32, Bytes> getAllAccountStorage(final Address address, final Hash rootHash) {
+      reads.addStorage(address);
+      return worldState.getAllAccountStorage(address, rootHash);
+    }
+  }
+}
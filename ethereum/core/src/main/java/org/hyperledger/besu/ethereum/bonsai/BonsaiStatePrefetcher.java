@@ -0,0 +1,299 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.ethereum.core.Block;
+import org.hyperledger.besu.ethereum.core.Transaction;
+import org.hyperledger.besu.ethereum.rlp.RLP;
+import org.hyperledger.besu.ethereum.trie.StoredMerklePatriciaTrie;
+import org.hyperledger.besu.ethereum.worldstate.StateTrieAccountValue;
+import org.hyperledger.besu.evm.AccessListEntry;
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the state a block is known to access before the block processor needs it.
+ *
+ * <p>The coinbase, the sender and recipient of every transaction and the entries of the EIP-2930
+ * access lists are read from the flat account and storage databases, and the trie nodes on their
+ * paths are loaded, on a few background workers while the block executes. Nothing is kept in
+ * memory here: the reads only bring the data into the storage caches, so that the reads of the
+ * block processor are served from memory instead of waiting on the disk.
+ *
+ * <p>Accounts are fetched in the order of the transactions that touch them first, so the accounts
+ * of early transactions are usually loaded before they are executed. The share of the accounts and
+ * slots read by the block that had already been prefetched is reported as the hit ratio. It is
+ * measured on a sample of the keys, chosen by their hash, so that the other reads of the block
+ * processor only pay a single byte comparison.
+ */
+public class BonsaiStatePrefetcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BonsaiStatePrefetcher.class);
+
+  /** One key in 16 is accounted for in the hit ratio. */
+  private static final int DEFAULT_SAMPLING_MASK = 0x0f;
+
+  private final Executor executor;
+  private final int parallelism;
+  private final int samplingMask;
+  private final Counter prefetchedKeys;
+  private final Counter hits;
+  private final Counter reads;
+  private volatile double lastHitRatio = 0;
+
+  public BonsaiStatePrefetcher(final int threads, final MetricsSystem metricsSystem) {
+    this(
+        // the workers of a block that find no free thread are dropped rather than queued
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("BonsaiStatePrefetcher-%d")
+                .build()),
+        threads,
+        DEFAULT_SAMPLING_MASK,
+        metricsSystem);
+  }
+
+  BonsaiStatePrefetcher(
+      final Executor executor,
+      final int parallelism,
+      final int samplingMask,
+      final MetricsSystem metricsSystem) {
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+    this.samplingMask = samplingMask;
+    this.prefetchedKeys =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "bonsai_prefetch_keys_total",
+            "Number of accounts and storage slots prefetched ahead of block execution");
+    this.hits =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "bonsai_prefetch_hits_total",
+            "Number of sampled accounts and storage slots read by blocks that were already"
+                + " prefetched");
+    this.reads =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "bonsai_prefetch_reads_total",
+            "Number of distinct sampled accounts and storage slots read by blocks while"
+                + " prefetching");
+    metricsSystem.createGauge(
+        BesuMetricCategory.BLOCKCHAIN,
+        "bonsai_prefetch_hit_ratio",
+        "Share of the sampled accounts and storage slots read by the last block that were"
+            + " prefetched",
+        () -> lastHitRatio);
+  }
+
+  /**
+   * Starts prefetching the state accessed by a block. The returned prefetch must be closed once
+   * the block is processed.
+   *
+   * @param worldState the world state the block is about to be executed on
+   * @param block the block about to be executed
+   * @return the running prefetch
+   */
+  public Prefetch prefetch(final BonsaiPersistedWorldState worldState, final Block block) {
+    final Prefetch prefetch = new Prefetch(worldState, collectAccesses(block));
+    worldState.setPrefetch(prefetch);
+    prefetch.start();
+    return prefetch;
+  }
+
+  private static Map<Address, Set<Bytes32>> collectAccesses(final Block block) {
+    final Map<Address, Set<Bytes32>> accesses = new LinkedHashMap<>();
+    accesses.put(block.getHeader().getCoinbase(), new LinkedHashSet<>());
+    for (final Transaction transaction : block.getBody().getTransactions()) {
+      try {
+        accesses.computeIfAbsent(transaction.getSender(), address -> new LinkedHashSet<>());
+      } catch (final IllegalStateException e) {
+        // reported when the transaction is processed
+      }
+      transaction
+          .getTo()
+          .ifPresent(to -> accesses.computeIfAbsent(to, address -> new LinkedHashSet<>()));
+      for (final AccessListEntry entry : transaction.getAccessList().orElse(List.of())) {
+        accesses
+            .computeIfAbsent(entry.getAddress(), address -> new LinkedHashSet<>())
+            .addAll(entry.getStorageKeys());
+      }
+    }
+    return accesses;
+  }
+
+  private boolean isSampled(final Bytes32 hash) {
+    return (hash.get(0) & samplingMask) == 0;
+  }
+
+  /** The prefetch of the state of one block. */
+  public class Prefetch implements AutoCloseable {
+
+    private final BonsaiPersistedWorldState worldState;
+    private final BonsaiWorldStateKeyValueStorage storage;
+    private final List<Map.Entry<Address, Set<Bytes32>>> accounts;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Set<Bytes> fetched = ConcurrentHashMap.newKeySet();
+    private final Set<Bytes> read = ConcurrentHashMap.newKeySet();
+    private final AtomicLong hitCount = new AtomicLong();
+    private volatile boolean closed = false;
+
+    private Prefetch(
+        final BonsaiPersistedWorldState worldState, final Map<Address, Set<Bytes32>> accesses) {
+      this.worldState = worldState;
+      this.storage = worldState.getWorldStateStorage();
+      this.accounts = new ArrayList<>(accesses.entrySet());
+    }
+
+    private void start() {
+      final int workers = Math.min(parallelism, accounts.size());
+      for (int i = 0; i < workers; i++) {
+        try {
+          executor.execute(this::fetchAccounts);
+        } catch (final RejectedExecutionException e) {
+          // the executor is shutting down, the block processor reads the state itself
+          return;
+        }
+      }
+    }
+
+    private void fetchAccounts() {
+      final Hash rootHash =
+          Hash.wrap(Bytes32.wrap(storage.getWorldStateRootHash().orElse(Hash.EMPTY_TRIE_HASH)));
+      final StoredMerklePatriciaTrie<Bytes, Bytes> accountTrie =
+          new StoredMerklePatriciaTrie<>(
+              storage::getAccountStateTrieNode, rootHash, Function.identity(), Function.identity());
+      int index;
+      while (!closed && (index = next.getAndIncrement()) < accounts.size()) {
+        final Map.Entry<Address, Set<Bytes32>> account = accounts.get(index);
+        try {
+          fetchAccount(accountTrie, Hash.hash(account.getKey()), account.getValue());
+        } catch (final RuntimeException e) {
+          // a missing node or a closed storage only means this account is not prefetched
+          LOG.trace("Failed to prefetch account {}", account.getKey(), e);
+        }
+      }
+    }
+
+    private void fetchAccount(
+        final StoredMerklePatriciaTrie<Bytes, Bytes> accountTrie,
+        final Hash accountHash,
+        final Set<Bytes32> slots) {
+      final Optional<Bytes> account = storage.getAccount(accountHash);
+      storage.getCode(null, accountHash);
+      accountTrie.get(accountHash);
+      prefetchedKeys.inc();
+      if (isSampled(accountHash)) {
+        fetched.add(accountHash);
+      }
+      if (account.isEmpty() || slots.isEmpty()) {
+        return;
+      }
+      final Hash storageRoot =
+          StateTrieAccountValue.readFrom(RLP.input(account.get())).getStorageRoot();
+      final StoredMerklePatriciaTrie<Bytes, Bytes> storageTrie =
+          new StoredMerklePatriciaTrie<>(
+              (location, hash) -> storage.getAccountStorageTrieNode(accountHash, location, hash),
+              storageRoot,
+              Function.identity(),
+              Function.identity());
+      for (final Bytes32 slot : slots) {
+        if (closed) {
+          return;
+        }
+        final Hash slotHash = Hash.hash(slot);
+        storage.getStorageValueBySlotHash(accountHash, slotHash);
+        storageTrie.get(slotHash);
+        prefetchedKeys.inc();
+        if (isSampled(slotHash)) {
+          fetched.add(Bytes.concatenate(accountHash, slotHash));
+        }
+      }
+    }
+
+    void onAccountRead(final Hash accountHash) {
+      if (isSampled(accountHash)) {
+        onRead(accountHash);
+      }
+    }
+
+    void onStorageRead(final Hash accountHash, final Hash slotHash) {
+      if (isSampled(slotHash)) {
+        onRead(Bytes.concatenate(accountHash, slotHash));
+      }
+    }
+
+    private void onRead(final Bytes key) {
+      if (!closed && read.add(key) && fetched.contains(key)) {
+        hitCount.incrementAndGet();
+      }
+    }
+
+    /**
+     * The share of the distinct sampled accounts and storage slots read so far that had been
+     * prefetched.
+     *
+     * @return the hit ratio, or zero if nothing was read
+     */
+    public double getHitRatio() {
+      final int readCount = read.size();
+      return readCount == 0 ? 0 : (double) hitCount.get() / readCount;
+    }
+
+    /** Stops the prefetch and reports how much of the state read by the block it had loaded. */
+    @Override
+    public void close() {
+      closed = true;
+      worldState.clearPrefetch(this);
+      if (!read.isEmpty()) {
+        reads.inc(read.size());
+        hits.inc(hitCount.get());
+        lastHitRatio = getHitRatio();
+      }
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.exception.StorageException;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.tuweni.bytes.Bytes;
+
+/**
+ * An in-memory copy of the most used entries of the trie branch storage.
+ *
+ * <p>Bonsai stores trie nodes by location, so the cache mirrors the storage key for key: an entry
+ * is the node currently stored at that key, exactly what the storage would return. Entries are
+ * added when a node is read from the storage and when a transaction writing nodes is committed,
+ * and dropped when the node is removed. The nodes near the root of the account trie, which every
+ * block reads and rewrites, are kept resident; the other nodes are evicted by recency once the
+ * cache holds more than its size in bytes.
+ *
+ * <p>A node read from the storage is only cached if no transaction committed to the storage in
+ * the meantime, so that a concurrent commit cannot be overwritten by the value it replaced.
+ */
+public class BonsaiTrieNodeCache {
+
+  /** Account trie nodes at most this many nibbles deep are never evicted. */
+  static final int RESIDENT_DEPTH = 3;
+
+  private static final BonsaiTrieNodeCache DISABLED =
+      new BonsaiTrieNodeCache(0, new NoOpMetricsSystem());
+
+  private final boolean enabled;
+  private final Map<Bytes, Bytes> resident = new ConcurrentHashMap<>();
+  private final Cache<Bytes, Bytes> recent;
+  private final Counter hits;
+  private final Counter misses;
+
+  private long version = 0;
+  private int commitsInProgress = 0;
+
+  public BonsaiTrieNodeCache(final long maxSizeInBytes, final MetricsSystem metricsSystem) {
+    this.enabled = maxSizeInBytes > 0;
+    this.recent =
+        CacheBuilder.newBuilder()
+            .maximumWeight(Math.max(0, maxSizeInBytes))
+            .<Bytes, Bytes>weigher((key, value) -> key.size() + value.size())
+            .build();
+    this.hits =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "bonsai_trie_node_cache_hits_total",
+            "Number of trie node lookups served from the Bonsai trie node cache");
+    this.misses =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "bonsai_trie_node_cache_misses_total",
+            "Number of trie node lookups read from the trie branch storage");
+    metricsSystem.createLongGauge(
+        BesuMetricCategory.BLOCKCHAIN,
+        "bonsai_trie_node_cache_entries",
+        "Number of trie nodes held by the Bonsai trie node cache",
+        () -> resident.size() + recent.size());
+  }
+
+  public static BonsaiTrieNodeCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Returns the entry for the given trie branch storage key, reading it from the storage if it is
+   * not cached.
+   *
+   * @param key the trie branch storage key
+   * @param storageRead reads the entry from the storage
+   * @return the stored entry, if any
+   */
+  Optional<Bytes> get(final Bytes key, final Supplier<Optional<Bytes>> storageRead) {
+    if (!enabled) {
+      return storageRead.get();
+    }
+    final Bytes cached = isResident(key) ? resident.get(key) : recent.getIfPresent(key);
+    if (cached != null) {
+      hits.inc();
+      return Optional.of(cached);
+    }
+    misses.inc();
+    final long readVersion;
+    synchronized (this) {
+      readVersion = commitsInProgress == 0 ? version : -1;
+    }
+    final Optional<Bytes> stored = storageRead.get();
+    if (stored.isPresent() && readVersion >= 0) {
+      synchronized (this) {
+        if (commitsInProgress == 0 && version == readVersion) {
+          put(key, stored.get());
+        }
+      }
+    }
+    return stored;
+  }
+
+  /**
+   * Wraps a trie branch storage transaction so that the cache is updated when it is committed.
+   *
+   * @param transaction the trie branch storage transaction
+   * @return the transaction to write through
+   */
+  KeyValueStorageTransaction wrap(final KeyValueStorageTransaction transaction) {
+    return enabled ? new CachingTransaction(transaction) : transaction;
+  }
+
+  /** Drops every entry, for instance because the storage was cleared. */
+  synchronized void clear() {
+    version++;
+    resident.clear();
+    recent.invalidateAll();
+  }
+
+  private static boolean isResident(final Bytes key) {
+    return key.size() <= RESIDENT_DEPTH;
+  }
+
+  private void put(final Bytes key, final Bytes value) {
+    if (isResident(key)) {
+      resident.put(key, value);
+    } else {
+      recent.put(key, value);
+    }
+  }
+
+  private void remove(final Bytes key) {
+    if (isResident(key)) {
+      resident.remove(key);
+    } else {
+      recent.invalidate(key);
+    }
+  }
+
+  private class CachingTransaction implements KeyValueStorageTransaction {
+    private final KeyValueStorageTransaction transaction;
+    private final List<Bytes> keys = new ArrayList<>();
+    private final List<Bytes> values = new ArrayList<>();
+
+    private CachingTransaction(final KeyValueStorageTransaction transaction) {
+      this.transaction = transaction;
+    }
+
+    @Override
+    public void put(final byte[] key, final byte[] value) {
+      transaction.put(key, value);
+      keys.add(Bytes.wrap(key));
+      values.add(Bytes.wrap(value));
+    }
+
+    @Override
+    public void remove(final byte[] key) {
+      transaction.remove(key);
+      keys.add(Bytes.wrap(key));
+      values.add(null);
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      synchronized (BonsaiTrieNodeCache.this) {
+        commitsInProgress++;
+        version++;
+      }
+      boolean committed = false;
+      try {
+        transaction.commit();
+        committed = true;
+      } finally {
+        synchronized (BonsaiTrieNodeCache.this) {
+          for (int i = 0; i < keys.size(); i++) {
+            // if the commit failed the keys may or may not be stored, so they are dropped
+            if (committed && values.get(i) != null) {
+              BonsaiTrieNodeCache.this.put(keys.get(i), values.get(i));
+            } else {
+              BonsaiTrieNodeCache.this.remove(keys.get(i));
+            }
+          }
+          commitsInProgress--;
+          version++;
+        }
+        keys.clear();
+        values.clear();
+      }
+    }
+
+    @Override
+    public void rollback() {
+      transaction.rollback();
+      keys.clear();
+      values.clear();
+    }
+  }
+}
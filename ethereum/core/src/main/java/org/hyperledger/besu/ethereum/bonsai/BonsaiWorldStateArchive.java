@@ -25,14 +25,18 @@ import org.hyperledger.besu.ethereum.core.BlockHeader;
 import org.hyperledger.besu.ethereum.core.MutableWorldState;
 import org.hyperledger.besu.ethereum.proof.WorldStateProof;
 import org.hyperledger.besu.ethereum.storage.StorageProvider;
+import org.hyperledger.besu.ethereum.worldstate.DataStorageConfiguration;
 import org.hyperledger.besu.ethereum.worldstate.WorldStateArchive;
 import org.hyperledger.besu.evm.worldstate.WorldState;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
@@ -40,7 +44,7 @@ import org.apache.tuweni.units.bigints.UInt256;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class BonsaiWorldStateArchive implements WorldStateArchive {
+public class BonsaiWorldStateArchive implements WorldStateArchive, Closeable {
 
   private static final Logger LOG = LoggerFactory.getLogger(BonsaiWorldStateArchive.class);
 
@@ -52,6 +56,8 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
   private final Map<Bytes32, BonsaiLayeredWorldState> layeredWorldStatesByHash;
   private final BonsaiWorldStateKeyValueStorage worldStateStorage;
   private final long maxLayersToLoad;
+  private final Optional<ExecutorService> trieExecutor;
+  private final Optional<BonsaiHistoricalStateStorage> historicalStateStorage;
 
   public BonsaiWorldStateArchive(final StorageProvider provider, final Blockchain blockchain) {
     this(provider, blockchain, RETAINED_LAYERS, new HashMap<>());
@@ -62,14 +68,95 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
     this(provider, blockchain, maxLayersToLoad, new HashMap<>());
   }
 
+  public BonsaiWorldStateArchive(
+      final StorageProvider provider,
+      final Blockchain blockchain,
+      final long maxLayersToLoad,
+      final int storageTrieParallelism) {
+    this(provider, blockchain, maxLayersToLoad, storageTrieParallelism, new HashMap<>());
+  }
+
   public BonsaiWorldStateArchive(
       final StorageProvider provider,
       final Blockchain blockchain,
       final long maxLayersToLoad,
       final Map<Bytes32, BonsaiLayeredWorldState> layeredWorldStatesByHash) {
-    this.blockchain = blockchain;
+    this(
+        provider,
+        blockchain,
+        maxLayersToLoad,
+        DataStorageConfiguration.DEFAULT_BONSAI_STORAGE_TRIE_PARALLELISM,
+        layeredWorldStatesByHash);
+  }
+
+  public BonsaiWorldStateArchive(
+      final StorageProvider provider,
+      final Blockchain blockchain,
+      final long maxLayersToLoad,
+      final int storageTrieParallelism,
+      final Map<Bytes32, BonsaiLayeredWorldState> layeredWorldStatesByHash) {
+    this(
+        new BonsaiWorldStateKeyValueStorage(provider),
+        blockchain,
+        maxLayersToLoad,
+        storageTrieParallelism,
+        layeredWorldStatesByHash);
+  }
+
+  public BonsaiWorldStateArchive(
+      final BonsaiWorldStateKeyValueStorage worldStateStorage,
+      final Blockchain blockchain,
+      final long maxLayersToLoad,
+      final int storageTrieParallelism) {
+    this(worldStateStorage, blockchain, maxLayersToLoad, storageTrieParallelism, new HashMap<>());
+  }
 
-    this.worldStateStorage = new BonsaiWorldStateKeyValueStorage(provider);
+  public BonsaiWorldStateArchive(
+      final BonsaiWorldStateKeyValueStorage worldStateStorage,
+      final Optional<BonsaiHistoricalStateStorage> historicalStateStorage,
+      final Blockchain blockchain,
+      final long maxLayersToLoad,
+      final int storageTrieParallelism) {
+    this(
+        worldStateStorage,
+        historicalStateStorage,
+        blockchain,
+        maxLayersToLoad,
+        storageTrieParallelism,
+        new HashMap<>());
+  }
+
+  public BonsaiWorldStateArchive(
+      final BonsaiWorldStateKeyValueStorage worldStateStorage,
+      final Blockchain blockchain,
+      final long maxLayersToLoad,
+      final int storageTrieParallelism,
+      final Map<Bytes32, BonsaiLayeredWorldState> layeredWorldStatesByHash) {
+    this(
+        worldStateStorage,
+        Optional.empty(),
+        blockchain,
+        maxLayersToLoad,
+        storageTrieParallelism,
+        layeredWorldStatesByHash);
+  }
+
+  public BonsaiWorldStateArchive(
+      final BonsaiWorldStateKeyValueStorage worldStateStorage,
+      final Optional<BonsaiHistoricalStateStorage> historicalStateStorage,
+      final Blockchain blockchain,
+      final long maxLayersToLoad,
+      final int storageTrieParallelism,
+      final Map<Bytes32, BonsaiLayeredWorldState> layeredWorldStatesByHash) {
+    this.blockchain = blockchain;
+    this.historicalStateStorage = historicalStateStorage;
+    // with a single worker the tries are updated on the persisting thread
+    this.trieExecutor =
+        storageTrieParallelism > 1
+            ? Optional.of(new ForkJoinPool(storageTrieParallelism))
+            : Optional.empty();
+
+    this.worldStateStorage = worldStateStorage;
     this.persistedState = new BonsaiPersistedWorldState(this, worldStateStorage);
     this.layeredWorldStatesByHash = layeredWorldStatesByHash;
     this.maxLayersToLoad = maxLayersToLoad;
@@ -153,6 +240,10 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
         return Optional.of(layeredWorldStatesByHash.get(blockHash));
       } else {
         final BlockHeader header = blockchain.getBlockHeader(blockHash).get();
+        final Optional<MutableWorldState> historicalState = getHistoricalState(header);
+        if (historicalState.isPresent()) {
+          return historicalState;
+        }
         final BlockHeader currentHeader = blockchain.getChainHeadHeader();
         if ((currentHeader.getNumber() - header.getNumber()) >= maxLayersToLoad) {
           LOG.warn("Exceeded the limit of back layers that can be loaded ({})", maxLayersToLoad);
@@ -186,10 +277,12 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
         final Optional<BlockHeader> maybePersistedHeader =
             blockchain.getBlockHeader(persistedState.blockHash()).map(BlockHeader.class::cast);
 
-        final List<TrieLogLayer> rollBacks = new ArrayList<>();
-        final List<TrieLogLayer> rollForwards = new ArrayList<>();
+        final List<Hash> rollBacks = new ArrayList<>();
+        final List<Hash> rollForwards = new ArrayList<>();
         if (maybePersistedHeader.isEmpty()) {
-          getTrieLogLayer(persistedState.blockHash()).ifPresent(rollBacks::add);
+          if (hasTrieLog(persistedState.blockHash())) {
+            rollBacks.add(persistedState.blockHash());
+          }
         } else {
           BlockHeader targetHeader = blockchain.getBlockHeader(blockHash).get();
           BlockHeader persistedHeader = maybePersistedHeader.get();
@@ -197,7 +290,7 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
           Hash persistedBlockHash = persistedHeader.getBlockHash();
           while (persistedHeader.getNumber() > targetHeader.getNumber()) {
             LOG.debug("Rollback {}", persistedBlockHash);
-            rollBacks.add(getTrieLogLayer(persistedBlockHash).get());
+            rollBacks.add(persistedBlockHash);
             persistedHeader = blockchain.getBlockHeader(persistedHeader.getParentHash()).get();
             persistedBlockHash = persistedHeader.getBlockHash();
           }
@@ -205,7 +298,7 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
           Hash targetBlockHash = targetHeader.getBlockHash();
           while (persistedHeader.getNumber() < targetHeader.getNumber()) {
             LOG.debug("Rollforward {}", targetBlockHash);
-            rollForwards.add(getTrieLogLayer(targetBlockHash).get());
+            rollForwards.add(targetBlockHash);
             targetHeader = blockchain.getBlockHeader(targetHeader.getParentHash()).get();
             targetBlockHash = targetHeader.getBlockHash();
           }
@@ -214,10 +307,10 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
           while (!persistedBlockHash.equals(targetBlockHash)) {
             LOG.debug("Paired Rollback {}", persistedBlockHash);
             LOG.debug("Paired Rollforward {}", targetBlockHash);
-            rollForwards.add(getTrieLogLayer(targetBlockHash).get());
+            rollForwards.add(targetBlockHash);
             targetHeader = blockchain.getBlockHeader(targetHeader.getParentHash()).get();
 
-            rollBacks.add(getTrieLogLayer(persistedBlockHash).get());
+            rollBacks.add(persistedBlockHash);
             persistedHeader = blockchain.getBlockHeader(persistedHeader.getParentHash()).get();
 
             targetBlockHash = targetHeader.getBlockHash();
@@ -229,13 +322,13 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
         final BonsaiWorldStateUpdater bonsaiUpdater =
             (BonsaiWorldStateUpdater) persistedState.updater();
         try {
-          for (final TrieLogLayer rollBack : rollBacks) {
-            LOG.debug("Attempting Rollback of {}", rollBack.getBlockHash());
-            bonsaiUpdater.rollBack(rollBack);
+          for (final Hash rollBack : rollBacks) {
+            LOG.debug("Attempting Rollback of {}", rollBack);
+            rollBack(bonsaiUpdater, rollBack);
           }
           for (int i = rollForwards.size() - 1; i >= 0; i--) {
-            LOG.debug("Attempting Rollforward of {}", rollForwards.get(i).getBlockHash());
-            bonsaiUpdater.rollForward(rollForwards.get(i));
+            LOG.debug("Attempting Rollforward of {}", rollForwards.get(i));
+            rollForward(bonsaiUpdater, rollForwards.get(i));
           }
           bonsaiUpdater.commit();
 
@@ -255,6 +348,83 @@ public class BonsaiWorldStateArchive implements WorldStateArchive {
     }
   }
 
+  // past canonical states below the persisted state are read from the historical state storage
+  // directly instead of rolling the trie logs back
+  private Optional<MutableWorldState> getHistoricalState(final BlockHeader header) {
+    final Hash blockHash = fromPlugin(header.getBlockHash());
+    if (historicalStateStorage.isEmpty()
+        || !historicalStateStorage.get().isAvailable(header.getNumber(), blockHash)
+        || !blockchain.getBlockHashByNumber(header.getNumber()).equals(Optional.of(blockHash))
+        || blockchain
+            .getBlockHeader(persistedState.blockHash())
+            .map(persistedHeader -> persistedHeader.getNumber() < header.getNumber())
+            .orElse(true)) {
+      return Optional.empty();
+    }
+    final TrieLogLayer emptyTrieLog = new TrieLogLayer();
+    emptyTrieLog.setBlockHash(blockHash);
+    emptyTrieLog.freeze();
+    return Optional.of(
+        new BonsaiLayeredWorldState(
+            blockchain,
+            this,
+            Optional.of(
+                new BonsaiHistoricalWorldView(
+                    historicalStateStorage.get(), blockchain, header.getNumber())),
+            header.getNumber(),
+            fromPlugin(header.getStateRoot()),
+            emptyTrieLog));
+  }
+
+  public Optional<BonsaiHistoricalStateStorage> getHistoricalStateStorage() {
+    return historicalStateStorage;
+  }
+
+  private boolean hasTrieLog(final Hash blockHash) {
+    return layeredWorldStatesByHash.containsKey(blockHash)
+        || worldStateStorage.getTrieLog(blockHash).isPresent();
+  }
+
+  // trie logs that are only in the storage are streamed into the updater rather than decoded
+  private void rollBack(final BonsaiWorldStateUpdater updater, final Hash blockHash) {
+    if (layeredWorldStatesByHash.containsKey(blockHash)) {
+      updater.rollBack(layeredWorldStatesByHash.get(blockHash).getTrieLog());
+    } else {
+      updater.rollBack(getStoredTrieLog(blockHash));
+    }
+  }
+
+  private void rollForward(final BonsaiWorldStateUpdater updater, final Hash blockHash) {
+    if (layeredWorldStatesByHash.containsKey(blockHash)) {
+      updater.rollForward(layeredWorldStatesByHash.get(blockHash).getTrieLog());
+    } else {
+      updater.rollForward(getStoredTrieLog(blockHash));
+    }
+  }
+
+  private Bytes getStoredTrieLog(final Hash blockHash) {
+    return worldStateStorage
+        .getTrieLog(blockHash)
+        .map(Bytes::wrap)
+        .orElseThrow(() -> new IllegalStateException("Missing trie log for block " + blockHash));
+  }
+
+  /**
+   * The executor the storage tries of the updated accounts and the subtrees of the account trie
+   * are computed on when a world state root hash is calculated, if they are computed in parallel.
+   *
+   * @return the trie executor, or empty to compute the tries on the calling thread
+   */
+  public Optional<ExecutorService> getTrieExecutor() {
+    return trieExecutor;
+  }
+
+  /** Stops the threads the tries are computed on. */
+  @Override
+  public void close() {
+    trieExecutor.ifPresent(ExecutorService::shutdown);
+  }
+
   @Override
   public MutableWorldState getMutable() {
     return persistedState;
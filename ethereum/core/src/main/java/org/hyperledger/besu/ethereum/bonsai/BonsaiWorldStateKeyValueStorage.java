@@ -22,27 +22,58 @@ import org.hyperledger.besu.ethereum.worldstate.WorldStateStorage;
 import org.hyperledger.besu.plugin.services.storage.KeyValueStorage;
 import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
 
+import java.io.Closeable;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
+public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage, Closeable {
 
   public static final byte[] WORLD_ROOT_HASH_KEY = "worldRoot".getBytes(StandardCharsets.UTF_8);
 
   public static final byte[] WORLD_BLOCK_HASH_KEY =
       "worldBlockHash".getBytes(StandardCharsets.UTF_8);
 
+  public static final byte[] CODE_HASH_INDEXED_KEY =
+      "codeHashIndexed".getBytes(StandardCharsets.UTF_8);
+
+  private static final Logger LOG = LoggerFactory.getLogger(BonsaiWorldStateKeyValueStorage.class);
+
+  // codes are also stored under the prefixed code hash, to be read without knowing their account
+  private static final Bytes CODE_HASH_PREFIX = Bytes.of(0);
+  private static final int CODE_HASH_INDEX_BATCH_SIZE = 1_000;
+
   protected final KeyValueStorage accountStorage;
   protected final KeyValueStorage codeStorage;
   protected final KeyValueStorage storageStorage;
   protected final KeyValueStorage trieBranchStorage;
   protected final KeyValueStorage trieLogStorage;
+  protected final BonsaiTrieNodeCache trieNodeCache;
+  protected final BonsaiFlatStateFilter flatStateFilter;
+  protected final Optional<BonsaiBackgroundWriter> backgroundWriter;
 
   public BonsaiWorldStateKeyValueStorage(final StorageProvider provider) {
+    this(provider, BonsaiTrieNodeCache.disabled());
+  }
+
+  public BonsaiWorldStateKeyValueStorage(
+      final StorageProvider provider, final BonsaiTrieNodeCache trieNodeCache) {
+    this(provider, trieNodeCache, BonsaiFlatStateFilter.disabled(), Optional.empty());
+  }
+
+  public BonsaiWorldStateKeyValueStorage(
+      final StorageProvider provider,
+      final BonsaiTrieNodeCache trieNodeCache,
+      final BonsaiFlatStateFilter flatStateFilter,
+      final Optional<BonsaiBackgroundWriter> backgroundWriter) {
     accountStorage =
         provider.getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.ACCOUNT_INFO_STATE);
     codeStorage = provider.getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.CODE_STORAGE);
@@ -52,6 +83,10 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
         provider.getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.TRIE_BRANCH_STORAGE);
     trieLogStorage =
         provider.getStorageBySegmentIdentifier(KeyValueSegmentIdentifier.TRIE_LOG_STORAGE);
+    this.trieNodeCache = trieNodeCache;
+    this.flatStateFilter = flatStateFilter;
+    this.backgroundWriter = backgroundWriter;
+    flatStateFilter.rebuild(accountStorage, storageStorage);
   }
 
   public BonsaiWorldStateKeyValueStorage(
@@ -60,20 +95,129 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
       final KeyValueStorage storageStorage,
       final KeyValueStorage trieBranchStorage,
       final KeyValueStorage trieLogStorage) {
+    this(
+        accountStorage,
+        codeStorage,
+        storageStorage,
+        trieBranchStorage,
+        trieLogStorage,
+        BonsaiTrieNodeCache.disabled());
+  }
+
+  public BonsaiWorldStateKeyValueStorage(
+      final KeyValueStorage accountStorage,
+      final KeyValueStorage codeStorage,
+      final KeyValueStorage storageStorage,
+      final KeyValueStorage trieBranchStorage,
+      final KeyValueStorage trieLogStorage,
+      final BonsaiTrieNodeCache trieNodeCache) {
+    this(
+        accountStorage,
+        codeStorage,
+        storageStorage,
+        trieBranchStorage,
+        trieLogStorage,
+        trieNodeCache,
+        BonsaiFlatStateFilter.disabled(),
+        Optional.empty());
+  }
+
+  public BonsaiWorldStateKeyValueStorage(
+      final KeyValueStorage accountStorage,
+      final KeyValueStorage codeStorage,
+      final KeyValueStorage storageStorage,
+      final KeyValueStorage trieBranchStorage,
+      final KeyValueStorage trieLogStorage,
+      final BonsaiTrieNodeCache trieNodeCache,
+      final BonsaiFlatStateFilter flatStateFilter,
+      final Optional<BonsaiBackgroundWriter> backgroundWriter) {
     this.accountStorage = accountStorage;
     this.codeStorage = codeStorage;
     this.storageStorage = storageStorage;
     this.trieBranchStorage = trieBranchStorage;
     this.trieLogStorage = trieLogStorage;
+    this.trieNodeCache = trieNodeCache;
+    this.flatStateFilter = flatStateFilter;
+    this.backgroundWriter = backgroundWriter;
+    flatStateFilter.rebuild(accountStorage, storageStorage);
+  }
+
+  /**
+   * Reads the same storages as the given storage, including the values it is still writing in the
+   * background.
+   *
+   * @param worldStateStorage the storage to read
+   */
+  protected BonsaiWorldStateKeyValueStorage(
+      final BonsaiWorldStateKeyValueStorage worldStateStorage) {
+    this.accountStorage = worldStateStorage.accountStorage;
+    this.codeStorage = worldStateStorage.codeStorage;
+    this.storageStorage = worldStateStorage.storageStorage;
+    this.trieBranchStorage = worldStateStorage.trieBranchStorage;
+    this.trieLogStorage = worldStateStorage.trieLogStorage;
+    this.trieNodeCache = worldStateStorage.trieNodeCache;
+    // already rebuilt for these storages
+    this.flatStateFilter = worldStateStorage.flatStateFilter;
+    this.backgroundWriter = worldStateStorage.backgroundWriter;
   }
 
   @Override
   public Optional<Bytes> getCode(final Bytes32 codeHash, final Hash accountHash) {
-    return codeStorage.get(accountHash.toArrayUnsafe()).map(Bytes::wrap);
+    return get(codeStorage, accountHash);
+  }
+
+  /**
+   * Reads a code by its hash. The codes written before codes were also stored by hash are only
+   * found once {@link #indexCodeByHash()} has run.
+   *
+   * @param codeHash the hash of the code
+   * @return the code, if stored
+   */
+  public Optional<Bytes> getCodeByHash(final Bytes32 codeHash) {
+    if (codeHash.equals(Hash.EMPTY)) {
+      return Optional.of(Bytes.EMPTY);
+    }
+    return get(codeStorage, codeHashKey(codeHash));
+  }
+
+  /**
+   * Stores by hash the codes written before codes were also stored by hash. This scans the whole
+   * code storage the first time only, later calls return immediately.
+   */
+  public void indexCodeByHash() {
+    if (codeStorage.containsKey(CODE_HASH_INDEXED_KEY)) {
+      return;
+    }
+    LOG.info("Indexing contract code by code hash");
+    long indexed = 0;
+    KeyValueStorageTransaction transaction = codeStorage.startTransaction();
+    try (final Stream<Map.Entry<byte[], byte[]>> codes = codeStorage.streamFromKey(new byte[0])) {
+      final Iterator<Map.Entry<byte[], byte[]>> iterator = codes.iterator();
+      while (iterator.hasNext()) {
+        final Map.Entry<byte[], byte[]> code = iterator.next();
+        // the codes stored by account hash, codes written since are already stored by hash too
+        if (code.getKey().length != Hash.SIZE) {
+          continue;
+        }
+        transaction.put(
+            codeHashKey(Hash.hash(Bytes.wrap(code.getValue()))).toArrayUnsafe(), code.getValue());
+        if (++indexed % CODE_HASH_INDEX_BATCH_SIZE == 0) {
+          transaction.commit();
+          transaction = codeStorage.startTransaction();
+        }
+      }
+    }
+    transaction.put(CODE_HASH_INDEXED_KEY, new byte[] {1});
+    transaction.commit();
+    LOG.info("Indexed {} contract codes by code hash", indexed);
+  }
+
+  private static Bytes codeHashKey(final Bytes32 codeHash) {
+    return Bytes.concatenate(CODE_HASH_PREFIX, codeHash);
   }
 
   public Optional<Bytes> getAccount(final Hash accountHash) {
-    return accountStorage.get(accountHash.toArrayUnsafe()).map(Bytes::wrap);
+    return getFlatState(accountStorage, accountHash);
   }
 
   @Override
@@ -87,7 +231,7 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
     if (nodeHash.equals(MerklePatriciaTrie.EMPTY_TRIE_NODE_HASH)) {
       return Optional.of(MerklePatriciaTrie.EMPTY_TRIE_NODE);
     } else {
-      return trieBranchStorage.get(location.toArrayUnsafe()).map(Bytes::wrap);
+      return getTrieNode(location);
     }
   }
 
@@ -97,9 +241,7 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
     if (nodeHash.equals(MerklePatriciaTrie.EMPTY_TRIE_NODE_HASH)) {
       return Optional.of(MerklePatriciaTrie.EMPTY_TRIE_NODE);
     } else {
-      return trieBranchStorage
-          .get(Bytes.concatenate(accountHash, location).toArrayUnsafe())
-          .map(Bytes::wrap);
+      return getTrieNode(Bytes.concatenate(accountHash, location));
     }
   }
 
@@ -108,21 +250,82 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
   }
 
   public Optional<Bytes> getStateTrieNode(final Bytes location) {
-    return trieBranchStorage.get(location.toArrayUnsafe()).map(Bytes::wrap);
+    return getTrieNode(location);
+  }
+
+  private Optional<Bytes> getTrieNode(final Bytes key) {
+    return getPending(trieBranchStorage, key)
+        .orElseGet(
+            () ->
+                trieNodeCache.get(
+                    key, () -> trieBranchStorage.get(key.toArrayUnsafe()).map(Bytes::wrap)));
   }
 
   public Optional<Bytes> getWorldStateRootHash() {
-    return trieBranchStorage.get(WORLD_ROOT_HASH_KEY).map(Bytes::wrap);
+    return get(trieBranchStorage, Bytes.wrap(WORLD_ROOT_HASH_KEY));
   }
 
   public Optional<Bytes> getWorldStateBlockHash() {
-    return trieBranchStorage.get(WORLD_BLOCK_HASH_KEY).map(Bytes::wrap);
+    return get(trieBranchStorage, Bytes.wrap(WORLD_BLOCK_HASH_KEY));
   }
 
   public Optional<Bytes> getStorageValueBySlotHash(final Hash accountHash, final Hash slotHash) {
+    return getFlatState(storageStorage, Bytes.concatenate(accountHash, slotHash));
+  }
+
+  /**
+   * Streams the flat accounts from the given account hash on, in ascending order of account hash.
+   * The stream must be closed once consumed.
+   *
+   * @param startKeyHash the account hash to start from
+   * @return the account hashes and their RLP encoded accounts
+   */
+  public Stream<Map.Entry<Bytes32, Bytes>> streamFlatAccounts(final Bytes32 startKeyHash) {
+    // iterators only see what was written to the storage
+    backgroundWriter.ifPresent(BonsaiBackgroundWriter::flush);
+    return accountStorage
+        .streamFromKey(startKeyHash.toArrayUnsafe())
+        .map(entry -> Map.entry(Bytes32.wrap(entry.getKey()), Bytes.wrap(entry.getValue())));
+  }
+
+  /**
+   * Streams the flat storage slots of an account from the given slot hash on, in ascending order
+   * of slot hash. The stream must be closed once consumed.
+   *
+   * @param accountHash the hash of the account owning the storage
+   * @param startKeyHash the slot hash to start from
+   * @return the slot hashes and their values
+   */
+  public Stream<Map.Entry<Bytes32, Bytes>> streamFlatStorages(
+      final Hash accountHash, final Bytes32 startKeyHash) {
+    backgroundWriter.ifPresent(BonsaiBackgroundWriter::flush);
     return storageStorage
-        .get(Bytes.concatenate(accountHash, slotHash).toArrayUnsafe())
-        .map(Bytes::wrap);
+        .streamFromKey(Bytes.concatenate(accountHash, startKeyHash).toArrayUnsafe())
+        .takeWhile(entry -> Bytes.wrap(entry.getKey(), 0, Bytes32.SIZE).equals(accountHash))
+        .map(
+            entry ->
+                Map.entry(
+                    Bytes32.wrap(entry.getKey(), Bytes32.SIZE), Bytes.wrap(entry.getValue())));
+  }
+
+  private Optional<Bytes> getFlatState(final KeyValueStorage storage, final Bytes key) {
+    return getPending(storage, key)
+        .orElseGet(
+            () ->
+                flatStateFilter.get(
+                    key.toArrayUnsafe(), () -> storage.get(key.toArrayUnsafe()).map(Bytes::wrap)));
+  }
+
+  private Optional<Bytes> get(final KeyValueStorage storage, final Bytes key) {
+    return getPending(storage, key)
+        .orElseGet(() -> storage.get(key.toArrayUnsafe()).map(Bytes::wrap));
+  }
+
+  // values of world states still being written in the background are read from memory
+  private Optional<Optional<Bytes>> getPending(final KeyValueStorage storage, final Bytes key) {
+    return backgroundWriter.isPresent()
+        ? backgroundWriter.get().getPending(storage, key)
+        : Optional.empty();
   }
 
   @Override
@@ -132,8 +335,7 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
 
   @Override
   public boolean isWorldStateAvailable(final Bytes32 rootHash, final Hash blockHash) {
-    return trieBranchStorage
-            .get(WORLD_ROOT_HASH_KEY)
+    return getWorldStateRootHash()
             .map(Bytes32::wrap)
             .filter(hash -> hash.equals(rootHash))
             .isPresent()
@@ -142,27 +344,64 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
 
   @Override
   public void clear() {
+    backgroundWriter.ifPresent(BonsaiBackgroundWriter::flush);
     accountStorage.clear();
     codeStorage.clear();
     storageStorage.clear();
     trieBranchStorage.clear();
     trieLogStorage.clear();
+    trieNodeCache.clear();
   }
 
   @Override
   public void clearFlatDatabase() {
+    backgroundWriter.ifPresent(BonsaiBackgroundWriter::flush);
     accountStorage.clear();
     storageStorage.clear();
   }
 
   @Override
   public Updater updater() {
+    if (backgroundWriter.isPresent()) {
+      final BonsaiBackgroundWriter.Batch batch = backgroundWriter.get().newBatch();
+      return new Updater(
+          batch.transaction(accountStorage, accountStorage::startTransaction),
+          batch.transaction(codeStorage, codeStorage::startTransaction),
+          batch.transaction(storageStorage, storageStorage::startTransaction),
+          batch.transaction(
+              trieBranchStorage, () -> trieNodeCache.wrap(trieBranchStorage.startTransaction())),
+          trieLogStorage.startTransaction(),
+          flatStateFilter,
+          Optional.of(batch));
+    }
     return new Updater(
         accountStorage.startTransaction(),
         codeStorage.startTransaction(),
         storageStorage.startTransaction(),
-        trieBranchStorage.startTransaction(),
-        trieLogStorage.startTransaction());
+        trieNodeCache.wrap(trieBranchStorage.startTransaction()),
+        trieLogStorage.startTransaction(),
+        flatStateFilter,
+        Optional.empty());
+  }
+
+  @Override
+  public Updater bulkLoadUpdater() {
+    // pending world states must not overwrite the loaded values once written
+    backgroundWriter.ifPresent(BonsaiBackgroundWriter::flush);
+    return new Updater(
+        accountStorage.startBulkLoadTransaction(),
+        codeStorage.startBulkLoadTransaction(),
+        storageStorage.startBulkLoadTransaction(),
+        trieNodeCache.wrap(trieBranchStorage.startBulkLoadTransaction()),
+        trieLogStorage.startTransaction(),
+        flatStateFilter,
+        Optional.empty());
+  }
+
+  /** Writes the world states still pending in the background before the storage is closed. */
+  @Override
+  public void close() {
+    backgroundWriter.ifPresent(BonsaiBackgroundWriter::close);
   }
 
   @Override
@@ -187,6 +426,10 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
     private final KeyValueStorageTransaction storageStorageTransaction;
     private final KeyValueStorageTransaction trieBranchStorageTransaction;
     private final KeyValueStorageTransaction trieLogStorageTransaction;
+    private final BonsaiFlatStateFilter flatStateFilter;
+    private final Optional<BonsaiBackgroundWriter.Batch> backgroundBatch;
+    private Optional<BonsaiHistoricalStateStorage.Updater> historicalStateUpdater =
+        Optional.empty();
 
     public Updater(
         final KeyValueStorageTransaction accountStorageTransaction,
@@ -194,16 +437,49 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
         final KeyValueStorageTransaction storageStorageTransaction,
         final KeyValueStorageTransaction trieBranchStorageTransaction,
         final KeyValueStorageTransaction trieLogStorageTransaction) {
+      this(
+          accountStorageTransaction,
+          codeStorageTransaction,
+          storageStorageTransaction,
+          trieBranchStorageTransaction,
+          trieLogStorageTransaction,
+          BonsaiFlatStateFilter.disabled(),
+          Optional.empty());
+    }
+
+    Updater(
+        final KeyValueStorageTransaction accountStorageTransaction,
+        final KeyValueStorageTransaction codeStorageTransaction,
+        final KeyValueStorageTransaction storageStorageTransaction,
+        final KeyValueStorageTransaction trieBranchStorageTransaction,
+        final KeyValueStorageTransaction trieLogStorageTransaction,
+        final BonsaiFlatStateFilter flatStateFilter,
+        final Optional<BonsaiBackgroundWriter.Batch> backgroundBatch) {
 
       this.accountStorageTransaction = accountStorageTransaction;
       this.codeStorageTransaction = codeStorageTransaction;
       this.storageStorageTransaction = storageStorageTransaction;
       this.trieBranchStorageTransaction = trieBranchStorageTransaction;
       this.trieLogStorageTransaction = trieLogStorageTransaction;
+      this.flatStateFilter = flatStateFilter;
+      this.backgroundBatch = backgroundBatch;
+    }
+
+    /**
+     * Also records the flat state written by this updater as the state of a block.
+     *
+     * @param historicalStateUpdater the updater of the historical state of the block
+     * @return this updater
+     */
+    public Updater recordHistoricalState(
+        final BonsaiHistoricalStateStorage.Updater historicalStateUpdater) {
+      this.historicalStateUpdater = Optional.of(historicalStateUpdater);
+      return this;
     }
 
     public Updater removeCode(final Hash accountHash) {
       codeStorageTransaction.remove(accountHash.toArrayUnsafe());
+      historicalStateUpdater.ifPresent(updater -> updater.removeCode(accountHash));
       return this;
     }
 
@@ -214,11 +490,17 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
         return this;
       }
       codeStorageTransaction.put(accountHash.toArrayUnsafe(), code.toArrayUnsafe());
+      // codes are never removed by hash, other accounts may still use them
+      codeStorageTransaction.put(
+          codeHashKey(codeHash == null ? Hash.hash(code) : codeHash).toArrayUnsafe(),
+          code.toArrayUnsafe());
+      historicalStateUpdater.ifPresent(updater -> updater.putCode(accountHash, code));
       return this;
     }
 
     public Updater removeAccountInfoState(final Hash accountHash) {
       accountStorageTransaction.remove(accountHash.toArrayUnsafe());
+      historicalStateUpdater.ifPresent(updater -> updater.removeAccount(accountHash));
       return this;
     }
 
@@ -227,7 +509,9 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
         // Don't save empty values
         return this;
       }
+      flatStateFilter.put(accountHash.toArrayUnsafe());
       accountStorageTransaction.put(accountHash.toArrayUnsafe(), accountValue.toArrayUnsafe());
+      historicalStateUpdater.ifPresent(updater -> updater.putAccount(accountHash, accountValue));
       return this;
     }
 
@@ -269,13 +553,18 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
 
     public Updater putStorageValueBySlotHash(
         final Hash accountHash, final Hash slotHash, final Bytes storage) {
-      storageStorageTransaction.put(
-          Bytes.concatenate(accountHash, slotHash).toArrayUnsafe(), storage.toArrayUnsafe());
+      final byte[] key = Bytes.concatenate(accountHash, slotHash).toArrayUnsafe();
+      flatStateFilter.put(key);
+      storageStorageTransaction.put(key, storage.toArrayUnsafe());
+      historicalStateUpdater.ifPresent(
+          updater -> updater.putStorageValueBySlotHash(accountHash, slotHash, storage));
       return this;
     }
 
     public void removeStorageValueBySlotHash(final Hash accountHash, final Hash slotHash) {
       storageStorageTransaction.remove(Bytes.concatenate(accountHash, slotHash).toArrayUnsafe());
+      historicalStateUpdater.ifPresent(
+          updater -> updater.removeStorageValueBySlotHash(accountHash, slotHash));
     }
 
     public KeyValueStorageTransaction getTrieBranchStorageTransaction() {
@@ -288,11 +577,20 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
 
     @Override
     public void commit() {
+      if (backgroundBatch.isPresent()) {
+        // the trie log is durable before the state it leads to, so that a crash while the batch
+        // is pending is recovered by rolling the persisted state forward
+        trieLogStorageTransaction.commit();
+        historicalStateUpdater.ifPresent(BonsaiHistoricalStateStorage.Updater::commit);
+        backgroundBatch.get().submit();
+        return;
+      }
       accountStorageTransaction.commit();
       codeStorageTransaction.commit();
       storageStorageTransaction.commit();
       trieBranchStorageTransaction.commit();
       trieLogStorageTransaction.commit();
+      historicalStateUpdater.ifPresent(BonsaiHistoricalStateStorage.Updater::commit);
     }
 
     @Override
@@ -302,6 +600,7 @@ public class BonsaiWorldStateKeyValueStorage implements WorldStateStorage {
       storageStorageTransaction.rollback();
       trieBranchStorageTransaction.rollback();
       trieLogStorageTransaction.rollback();
+      historicalStateUpdater.ifPresent(BonsaiHistoricalStateStorage.Updater::rollback);
     }
   }
 }
@@ -284,6 +284,41 @@ public class BonsaiWorldStateUpdater extends AbstractWorldUpdater<BonsaiWorldVie
     }
   }
 
+  /**
+   * Applies the account changes buffered in another updater, the same way a stacked updater
+   * commits into its parent. The other updater must have run on top of the same world state.
+   */
+  void applyUpdates(final BonsaiWorldStateUpdater other) {
+    other.deletedAccounts.forEach(updatedAccounts::remove);
+    other.updatedAccounts.keySet().forEach(deletedAccounts::remove);
+    deletedAccounts.addAll(other.deletedAccounts);
+
+    for (final UpdateTrackingAccount<BonsaiAccount> update : other.updatedAccounts.values()) {
+      final Address address = update.getAddress();
+      UpdateTrackingAccount<BonsaiAccount> existing = updatedAccounts.get(address);
+      if (existing == null) {
+        final BonsaiAccount origin =
+            update.getWrappedAccount() == null ? null : getForMutation(address);
+        if (origin == null) {
+          // brand new account, tracked without a wrapped account like a stacked updater does
+          super.createAccount(address, Account.DEFAULT_NONCE, Account.DEFAULT_BALANCE);
+          existing = updatedAccounts.get(address);
+        } else {
+          existing = track(new UpdateTrackingAccount<>(origin));
+        }
+      }
+      existing.setNonce(update.getNonce());
+      existing.setBalance(update.getBalance());
+      if (update.codeWasUpdated()) {
+        existing.setCode(update.getCode());
+      }
+      if (update.getStorageWasCleared()) {
+        existing.clearStorage();
+      }
+      update.getUpdatedStorage().forEach(existing::setStorageValue);
+    }
+  }
+
   @Override
   public Optional<Bytes> getCode(final Address address) {
     final BonsaiValue<Bytes> localCode = codeToUpdate.get(address);
@@ -464,6 +499,34 @@ public class BonsaiWorldStateUpdater extends AbstractWorldUpdater<BonsaiWorldVie
                                 entry.getKey(), slotHash, value.getUpdated(), value.getPrior())));
   }
 
+  /**
+   * Rolls a stored trie log forward. A trie log in the compact encoding is applied while it is
+   * decoded, without building its {@link TrieLogLayer}.
+   *
+   * @param encodedTrieLog the trie log as stored
+   */
+  public void rollForward(final Bytes encodedTrieLog) {
+    if (CompactTrieLogCodec.isCompact(encodedTrieLog)) {
+      CompactTrieLogCodec.replay(encodedTrieLog, new TrieLogRoller(true));
+    } else {
+      rollForward(TrieLogLayer.fromBytes(encodedTrieLog.toArrayUnsafe()));
+    }
+  }
+
+  /**
+   * Rolls a stored trie log back. A trie log in the compact encoding is applied while it is
+   * decoded, without building its {@link TrieLogLayer}.
+   *
+   * @param encodedTrieLog the trie log as stored
+   */
+  public void rollBack(final Bytes encodedTrieLog) {
+    if (CompactTrieLogCodec.isCompact(encodedTrieLog)) {
+      CompactTrieLogCodec.replay(encodedTrieLog, new TrieLogRoller(false));
+    } else {
+      rollBack(TrieLogLayer.fromBytes(encodedTrieLog.toArrayUnsafe()));
+    }
+  }
+
   private void rollAccountChange(
       final Address address,
       final StateTrieAccountValue expectedValue,
@@ -664,4 +727,43 @@ public class BonsaiWorldStateUpdater extends AbstractWorldUpdater<BonsaiWorldVie
     accountsToUpdate.clear();
     super.reset();
   }
+
+  private class TrieLogRoller implements CompactTrieLogCodec.ChangeVisitor {
+    private final boolean forward;
+
+    private TrieLogRoller(final boolean forward) {
+      this.forward = forward;
+    }
+
+    @Override
+    public void onAccountChange(
+        final Address address,
+        final StateTrieAccountValue prior,
+        final StateTrieAccountValue updated) {
+      if (forward) {
+        rollAccountChange(address, prior, updated);
+      } else {
+        rollAccountChange(address, updated, prior);
+      }
+    }
+
+    @Override
+    public void onCodeChange(final Address address, final Bytes prior, final Bytes updated) {
+      if (forward) {
+        rollCodeChange(address, prior, updated);
+      } else {
+        rollCodeChange(address, updated, prior);
+      }
+    }
+
+    @Override
+    public void onStorageChange(
+        final Address address, final Hash slotHash, final UInt256 prior, final UInt256 updated) {
+      if (forward) {
+        rollStorageChange(address, slotHash, prior, updated);
+      } else {
+        rollStorageChange(address, slotHash, updated, prior);
+      }
+    }
+  }
 }
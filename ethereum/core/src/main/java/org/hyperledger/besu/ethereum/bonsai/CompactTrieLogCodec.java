@@ -0,0 +1,413 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.worldstate.StateTrieAccountValue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.units.bigints.UInt256;
+
+/**
+ * A compact binary encoding of {@link TrieLogLayer}, and a reader that replays an encoded layer
+ * without building it in memory.
+ *
+ * <p>The encoding starts with a version byte, which can never be the first byte of the legacy RLP
+ * encoding since that always starts with a list prefix. It is followed by the block hash and a
+ * dictionary of the changed addresses, sorted, which the account, code and storage changes then
+ * refer to by index. Each section is sorted by address so the indices are written as deltas.
+ * Integers are written as unsigned LEB128 varints and values as their minimal bytes. An updated
+ * account only repeats its storage root and code hash if they changed, and an updated slot value
+ * is written as the difference from its prior value when that is shorter.
+ */
+final class CompactTrieLogCodec {
+
+  static final int VERSION = 0x01;
+
+  private static final int PRIOR = 0x01;
+  private static final int UPDATED = 0x02;
+  private static final int SAME_STORAGE_ROOT = 0x04;
+  private static final int SAME_CODE_HASH = 0x08;
+  private static final int DELTA_ADD = 0x04;
+  private static final int DELTA_SUBTRACT = 0x08;
+
+  private CompactTrieLogCodec() {}
+
+  /** Receives the changes of an encoded trie log, in the order they are encoded. */
+  interface ChangeVisitor {
+
+    void onAccountChange(
+        Address address, StateTrieAccountValue prior, StateTrieAccountValue updated);
+
+    void onCodeChange(Address address, Bytes prior, Bytes updated);
+
+    void onStorageChange(Address address, Hash slotHash, UInt256 prior, UInt256 updated);
+  }
+
+  static boolean isCompact(final Bytes encoded) {
+    return !encoded.isEmpty() && (encoded.get(0) & 0xff) == VERSION;
+  }
+
+  static Bytes encode(final TrieLogLayer layer) {
+    final Map<Address, BonsaiValue<StateTrieAccountValue>> accounts =
+        sortedByAddress(
+            layer.streamAccountChanges().filter(entry -> !entry.getValue().isUnchanged()));
+    final Map<Address, BonsaiValue<Bytes>> code =
+        sortedByAddress(layer.streamCodeChanges().filter(entry -> !entry.getValue().isUnchanged()));
+    final Map<Address, Map<Hash, BonsaiValue<UInt256>>> storage =
+        sortedByAddress(layer.streamStorageChanges());
+
+    final Set<Address> addresses = new TreeSet<>();
+    addresses.addAll(accounts.keySet());
+    addresses.addAll(code.keySet());
+    addresses.addAll(storage.keySet());
+    final Map<Address, Integer> indices = new HashMap<>();
+
+    final Output output = new Output();
+    output.writeByte(VERSION);
+    output.writeBytes(layer.getBlockHash());
+    output.writeVarLong(addresses.size());
+    for (final Address address : addresses) {
+      indices.put(address, indices.size());
+      output.writeBytes(address);
+    }
+
+    output.writeVarLong(accounts.size());
+    int previousIndex = 0;
+    for (final Map.Entry<Address, BonsaiValue<StateTrieAccountValue>> entry :
+        accounts.entrySet()) {
+      final int index = indices.get(entry.getKey());
+      output.writeVarLong(index - previousIndex);
+      previousIndex = index;
+      writeAccountChange(output, entry.getValue().getPrior(), entry.getValue().getUpdated());
+    }
+
+    output.writeVarLong(code.size());
+    previousIndex = 0;
+    for (final Map.Entry<Address, BonsaiValue<Bytes>> entry : code.entrySet()) {
+      final int index = indices.get(entry.getKey());
+      output.writeVarLong(index - previousIndex);
+      previousIndex = index;
+      final Bytes prior = entry.getValue().getPrior();
+      final Bytes updated = entry.getValue().getUpdated();
+      output.writeByte((prior == null ? 0 : PRIOR) | (updated == null ? 0 : UPDATED));
+      if (prior != null) {
+        output.writeSizedBytes(prior);
+      }
+      if (updated != null) {
+        output.writeSizedBytes(updated);
+      }
+    }
+
+    output.writeVarLong(storage.size());
+    previousIndex = 0;
+    for (final Map.Entry<Address, Map<Hash, BonsaiValue<UInt256>>> entry : storage.entrySet()) {
+      final int index = indices.get(entry.getKey());
+      output.writeVarLong(index - previousIndex);
+      previousIndex = index;
+      output.writeVarLong(entry.getValue().size());
+      for (final Map.Entry<Hash, BonsaiValue<UInt256>> slot : entry.getValue().entrySet()) {
+        output.writeBytes(slot.getKey());
+        writeSlotChange(output, slot.getValue().getPrior(), slot.getValue().getUpdated());
+      }
+    }
+    return output.encoded();
+  }
+
+  static TrieLogLayer decode(final Bytes encoded) {
+    final TrieLogLayer layer = new TrieLogLayer();
+    final Hash blockHash =
+        replay(
+            encoded,
+            new ChangeVisitor() {
+              @Override
+              public void onAccountChange(
+                  final Address address,
+                  final StateTrieAccountValue prior,
+                  final StateTrieAccountValue updated) {
+                layer.addAccountChange(address, prior, updated);
+              }
+
+              @Override
+              public void onCodeChange(
+                  final Address address, final Bytes prior, final Bytes updated) {
+                layer.addCodeChange(address, prior, updated, null);
+              }
+
+              @Override
+              public void onStorageChange(
+                  final Address address,
+                  final Hash slotHash,
+                  final UInt256 prior,
+                  final UInt256 updated) {
+                layer.addStorageChange(address, slotHash, prior, updated);
+              }
+            });
+    layer.setBlockHash(blockHash);
+    layer.freeze();
+    return layer;
+  }
+
+  /**
+   * Reads an encoded trie log and passes each of its changes to the visitor as it is read.
+   *
+   * @param encoded the compact encoding of the trie log
+   * @param visitor receives the account changes, then the code changes, then the storage changes
+   * @return the block hash of the trie log
+   */
+  static Hash replay(final Bytes encoded, final ChangeVisitor visitor) {
+    final Input input = new Input(encoded);
+    final int version = input.readByte();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported trie log version " + version);
+    }
+    final Hash blockHash = Hash.wrap(input.readBytes32());
+    final int addressCount = input.readVarInt();
+    final Bytes addresses = input.readBytes(Math.multiplyExact(addressCount, Address.SIZE));
+
+    final int accountCount = input.readVarInt();
+    int index = 0;
+    for (int i = 0; i < accountCount; i++) {
+      index += input.readVarInt();
+      final Address address = addressAt(addresses, index);
+      final int flags = input.readByte();
+      final StateTrieAccountValue prior = (flags & PRIOR) == 0 ? null : readAccount(input, null, 0);
+      final StateTrieAccountValue updated =
+          (flags & UPDATED) == 0 ? null : readAccount(input, prior, flags);
+      visitor.onAccountChange(address, prior, updated);
+    }
+
+    final int codeCount = input.readVarInt();
+    index = 0;
+    for (int i = 0; i < codeCount; i++) {
+      index += input.readVarInt();
+      final Address address = addressAt(addresses, index);
+      final int flags = input.readByte();
+      final Bytes prior = (flags & PRIOR) == 0 ? null : input.readSizedBytes();
+      final Bytes updated = (flags & UPDATED) == 0 ? null : input.readSizedBytes();
+      visitor.onCodeChange(address, prior, updated);
+    }
+
+    final int storageCount = input.readVarInt();
+    index = 0;
+    for (int i = 0; i < storageCount; i++) {
+      index += input.readVarInt();
+      final Address address = addressAt(addresses, index);
+      final int slotCount = input.readVarInt();
+      for (int j = 0; j < slotCount; j++) {
+        final Hash slotHash = Hash.wrap(input.readBytes32());
+        final int flags = input.readByte();
+        final UInt256 prior = (flags & PRIOR) == 0 ? null : input.readUInt256();
+        UInt256 updated = (flags & UPDATED) == 0 ? null : input.readUInt256();
+        if ((flags & (DELTA_ADD | DELTA_SUBTRACT)) != 0) {
+          if (prior == null || updated == null) {
+            throw new IllegalArgumentException("Trie log slot delta without a prior value");
+          }
+          updated = (flags & DELTA_ADD) != 0 ? prior.add(updated) : prior.subtract(updated);
+        }
+        visitor.onStorageChange(address, slotHash, prior, updated);
+      }
+    }
+    return blockHash;
+  }
+
+  private static <V> Map<Address, V> sortedByAddress(
+      final Stream<Map.Entry<Address, V>> changes) {
+    final Map<Address, V> sorted = new TreeMap<>();
+    changes.forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+    return sorted;
+  }
+
+  private static void writeAccountChange(
+      final Output output,
+      final StateTrieAccountValue prior,
+      final StateTrieAccountValue updated) {
+    int flags = (prior == null ? 0 : PRIOR) | (updated == null ? 0 : UPDATED);
+    if (prior != null && updated != null) {
+      if (prior.getStorageRoot().equals(updated.getStorageRoot())) {
+        flags |= SAME_STORAGE_ROOT;
+      }
+      if (prior.getCodeHash().equals(updated.getCodeHash())) {
+        flags |= SAME_CODE_HASH;
+      }
+    }
+    output.writeByte(flags);
+    if (prior != null) {
+      writeAccount(output, prior, 0);
+    }
+    if (updated != null) {
+      writeAccount(output, updated, flags);
+    }
+  }
+
+  private static void writeAccount(
+      final Output output, final StateTrieAccountValue account, final int flags) {
+    output.writeVarLong(account.getNonce());
+    output.writeSizedBytes(account.getBalance().toMinimalBytes());
+    if ((flags & SAME_STORAGE_ROOT) == 0) {
+      output.writeBytes(account.getStorageRoot());
+    }
+    if ((flags & SAME_CODE_HASH) == 0) {
+      output.writeBytes(account.getCodeHash());
+    }
+  }
+
+  private static StateTrieAccountValue readAccount(
+      final Input input, final StateTrieAccountValue prior, final int flags) {
+    if (prior == null && (flags & (SAME_STORAGE_ROOT | SAME_CODE_HASH)) != 0) {
+      throw new IllegalArgumentException("Trie log account delta without a prior value");
+    }
+    final long nonce = input.readVarLong();
+    final Wei balance = Wei.wrap(input.readSizedBytes());
+    final Hash storageRoot =
+        (flags & SAME_STORAGE_ROOT) == 0 ? Hash.wrap(input.readBytes32()) : prior.getStorageRoot();
+    final Hash codeHash =
+        (flags & SAME_CODE_HASH) == 0 ? Hash.wrap(input.readBytes32()) : prior.getCodeHash();
+    return new StateTrieAccountValue(nonce, balance, storageRoot, codeHash);
+  }
+
+  private static void writeSlotChange(
+      final Output output, final UInt256 prior, final UInt256 updated) {
+    int flags = (prior == null ? 0 : PRIOR) | (updated == null ? 0 : UPDATED);
+    Bytes updatedBytes = updated == null ? null : updated.toMinimalBytes();
+    if (prior != null && updated != null) {
+      final boolean increased = updated.compareTo(prior) >= 0;
+      final Bytes delta =
+          (increased ? updated.subtract(prior) : prior.subtract(updated)).toMinimalBytes();
+      if (delta.size() < updatedBytes.size()) {
+        flags |= increased ? DELTA_ADD : DELTA_SUBTRACT;
+        updatedBytes = delta;
+      }
+    }
+    output.writeByte(flags);
+    if (prior != null) {
+      output.writeSizedBytes(prior.toMinimalBytes());
+    }
+    if (updatedBytes != null) {
+      output.writeSizedBytes(updatedBytes);
+    }
+  }
+
+  private static Address addressAt(final Bytes addresses, final int index) {
+    if (index < 0 || (index + 1) * Address.SIZE > addresses.size()) {
+      throw new IllegalArgumentException("Invalid trie log address index " + index);
+    }
+    return Address.wrap(addresses.slice(index * Address.SIZE, Address.SIZE));
+  }
+
+  private static class Output {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    void writeByte(final int value) {
+      out.write(value);
+    }
+
+    void writeBytes(final Bytes bytes) {
+      out.writeBytes(bytes.toArrayUnsafe());
+    }
+
+    void writeSizedBytes(final Bytes bytes) {
+      writeVarLong(bytes.size());
+      writeBytes(bytes);
+    }
+
+    void writeVarLong(final long value) {
+      long remaining = value;
+      while ((remaining & ~0x7FL) != 0) {
+        out.write((int) ((remaining & 0x7F) | 0x80));
+        remaining >>>= 7;
+      }
+      out.write((int) remaining);
+    }
+
+    Bytes encoded() {
+      return Bytes.wrap(out.toByteArray());
+    }
+  }
+
+  private static class Input {
+    private final Bytes bytes;
+    private int position = 0;
+
+    Input(final Bytes bytes) {
+      this.bytes = bytes;
+    }
+
+    int readByte() {
+      checkAvailable(1);
+      return bytes.get(position++) & 0xff;
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < Long.SIZE; shift += 7) {
+        final int next = readByte();
+        value |= (long) (next & 0x7F) << shift;
+        if ((next & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint in trie log");
+    }
+
+    int readVarInt() {
+      final long value = readVarLong();
+      if (value < 0 || value > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Trie log length out of range: " + value);
+      }
+      return (int) value;
+    }
+
+    Bytes readBytes(final int length) {
+      checkAvailable(length);
+      final Bytes slice = bytes.slice(position, length);
+      position += length;
+      return slice;
+    }
+
+    Bytes readSizedBytes() {
+      return readBytes(readVarInt());
+    }
+
+    Bytes32 readBytes32() {
+      return Bytes32.wrap(readBytes(Bytes32.SIZE));
+    }
+
+    UInt256 readUInt256() {
+      final Bytes value = readSizedBytes();
+      if (value.size() > Bytes32.SIZE) {
+        throw new IllegalArgumentException("Trie log slot value too large: " + value.size());
+      }
+      return UInt256.fromBytes(value);
+    }
+
+    private void checkAvailable(final int length) {
+      if (length < 0 || length > bytes.size() - position) {
+        throw new IllegalArgumentException("Truncated trie log");
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.evm.account.Account;
+import org.hyperledger.besu.evm.worldstate.UpdateTrackingAccount;
+import org.hyperledger.besu.evm.worldstate.WorldUpdater;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parts of the world state read or written by one or more transactions, at account and storage
+ * slot level. Storage slots are identified by the hash of their key, the way Bonsai stores them.
+ *
+ * <p>An account entry covers its nonce, balance and code. A storage entry covers all the slots of
+ * an account, for instance when the account is deleted or its whole storage is enumerated.
+ */
+public class StateAccessSet {
+
+  private final Set<Address> accounts = new HashSet<>();
+  private final Set<Address> storage = new HashSet<>();
+  private final Map<Address, Set<Hash>> slots = new HashMap<>();
+
+  public void addAccount(final Address address) {
+    accounts.add(address);
+  }
+
+  public void addStorage(final Address address) {
+    storage.add(address);
+  }
+
+  public void addSlot(final Address address, final Hash slotHash) {
+    slots.computeIfAbsent(address, __ -> new HashSet<>()).add(slotHash);
+  }
+
+  public void addAll(final StateAccessSet other) {
+    accounts.addAll(other.accounts);
+    storage.addAll(other.storage);
+    other.slots.forEach(
+        (address, hashes) -> slots.computeIfAbsent(address, __ -> new HashSet<>()).addAll(hashes));
+  }
+
+  /**
+   * Records the changes buffered in an updater that has not been committed yet. Accounts that were
+   * only loaded for mutation but end up with their original nonce, balance and code are not
+   * recorded as written.
+   *
+   * @param updater the updater holding the changes of a transaction
+   */
+  public void addWrites(final WorldUpdater updater) {
+    addWrites(updater.getTouchedAccounts(), updater.getDeletedAccountAddresses());
+  }
+
+  void addWrites(final Collection<? extends Account> touched, final Collection<Address> deleted) {
+    for (final Address address : deleted) {
+      accounts.add(address);
+      storage.add(address);
+    }
+    for (final Account account : touched) {
+      final UpdateTrackingAccount<?> tracked = (UpdateTrackingAccount<?>) account;
+      final Address address = tracked.getAddress();
+      final Account original = tracked.getWrappedAccount();
+      if (original == null) {
+        accounts.add(address);
+        storage.add(address);
+      } else if (original.getNonce() != tracked.getNonce()
+          || !original.getBalance().equals(tracked.getBalance())
+          || tracked.codeWasUpdated()) {
+        accounts.add(address);
+      }
+      if (tracked.getStorageWasCleared()) {
+        storage.add(address);
+      }
+      tracked.getUpdatedStorage().keySet().forEach(key -> addSlot(address, Hash.hash(key)));
+    }
+  }
+
+  /**
+   * Whether any state read in this set was written in the given one.
+   *
+   * @param writes the state written by other transactions
+   * @return true if this set read something the other one wrote
+   */
+  public boolean isAffectedBy(final StateAccessSet writes) {
+    for (final Address address : accounts) {
+      if (writes.accounts.contains(address)) {
+        return true;
+      }
+    }
+    for (final Address address : storage) {
+      if (writes.storage.contains(address) || writes.slots.containsKey(address)) {
+        return true;
+      }
+    }
+    for (final Map.Entry<Address, Set<Hash>> entry : slots.entrySet()) {
+      final Address address = entry.getKey();
+      if (writes.storage.contains(address)) {
+        return true;
+      }
+      final Set<Hash> written = writes.slots.get(address);
+      if (written != null && entry.getValue().stream().anyMatch(written::contains)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean containsAccount(final Address address) {
+    return accounts.contains(address);
+  }
+}
@@ -26,6 +26,7 @@ import org.hyperledger.besu.ethereum.rlp.RLPOutput;
 import org.hyperledger.besu.ethereum.worldstate.StateTrieAccountValue;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -99,8 +100,28 @@ public class TrieLogLayer {
         .put(slotHash, new BonsaiValue<>(oldValue, newValue));
   }
 
-  static TrieLogLayer fromBytes(final byte[] bytes) {
-    return readFrom(new BytesValueRLPInput(Bytes.wrap(bytes), false));
+  /**
+   * Decodes a stored trie log, in either the compact or the legacy RLP encoding.
+   *
+   * @param bytes the stored trie log
+   * @return the decoded layer
+   */
+  public static TrieLogLayer fromBytes(final byte[] bytes) {
+    final Bytes encoded = Bytes.wrap(bytes);
+    if (CompactTrieLogCodec.isCompact(encoded)) {
+      return CompactTrieLogCodec.decode(encoded);
+    }
+    return readFrom(new BytesValueRLPInput(encoded, false));
+  }
+
+  /**
+   * Encodes the layer in the compact encoding it is stored with.
+   *
+   * @return the encoded layer
+   */
+  Bytes toBytes() {
+    freeze();
+    return CompactTrieLogCodec.encode(this);
   }
 
   static TrieLogLayer readFrom(final RLPInput input) {
@@ -212,6 +233,24 @@ public class TrieLogLayer {
     output.endList(); // container
   }
 
+  /**
+   * The hashes of the accounts whose storage this layer changes, including the accounts it creates
+   * or deletes.
+   *
+   * @return the account hashes
+   */
+  public Set<Hash> getAccountHashesWithStorageChanges() {
+    final Set<Hash> accountHashes = new HashSet<>();
+    storage.keySet().forEach(address -> accountHashes.add(Hash.hash(address)));
+    accounts.forEach(
+        (address, value) -> {
+          if (value.getPrior() == null || value.getUpdated() == null) {
+            accountHashes.add(Hash.hash(address));
+          }
+        });
+    return accountHashes;
+  }
+
   Stream<Map.Entry<Address, BonsaiValue<StateTrieAccountValue>>> streamAccountChanges() {
     return accounts.entrySet().stream();
   }
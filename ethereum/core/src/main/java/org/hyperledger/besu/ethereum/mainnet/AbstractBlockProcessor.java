@@ -17,8 +17,11 @@ package org.hyperledger.besu.ethereum.mainnet;
 import org.hyperledger.besu.datatypes.Address;
 import org.hyperledger.besu.datatypes.Wei;
 import org.hyperledger.besu.ethereum.bonsai.BonsaiPersistedWorldState;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiSpeculativeWorldStateUpdater;
 import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateUpdater;
+import org.hyperledger.besu.ethereum.bonsai.StateAccessSet;
 import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.ethereum.core.Block;
 import org.hyperledger.besu.ethereum.core.BlockHeader;
 import org.hyperledger.besu.ethereum.core.MutableWorldState;
 import org.hyperledger.besu.ethereum.core.Transaction;
@@ -34,6 +37,7 @@ import org.hyperledger.besu.plugin.data.TransactionType;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
 import org.slf4j.Logger;
@@ -170,11 +174,7 @@ public abstract class AbstractBlockProcessor implements BlockProcessor {
               TransactionValidationParams.processingBlock(),
               privateMetadataUpdater);
       if (result.isInvalid()) {
-        LOG.info(
-            "Block processing error: transaction invalid '{}'. Block {} Transaction {}",
-            result.getValidationResult().getInvalidReason(),
-            blockHeader.getHash().toHexString(),
-            transaction.getHash().toHexString());
+        logInvalidTransaction(blockHeader, transaction, result);
         if (worldState instanceof BonsaiPersistedWorldState) {
           ((BonsaiWorldStateUpdater) worldStateUpdater).reset();
         }
@@ -191,6 +191,127 @@ public abstract class AbstractBlockProcessor implements BlockProcessor {
       receipts.add(transactionReceipt);
     }
 
+    return completeBlock(worldState, blockHeader, ommers, receipts);
+  }
+
+  @Override
+  public AbstractBlockProcessor.Result processBlock(
+      final Blockchain blockchain,
+      final MutableWorldState worldState,
+      final Block block,
+      final ParallelTransactionProcessor parallelTransactionProcessor) {
+    if (!(worldState instanceof BonsaiPersistedWorldState)
+        || !BonsaiSpeculativeWorldStateUpdater.canSpeculateOn(
+            (BonsaiPersistedWorldState) worldState)) {
+      return processBlock(blockchain, worldState, block);
+    }
+    final BonsaiPersistedWorldState bonsaiWorldState = (BonsaiPersistedWorldState) worldState;
+    final BlockHeader blockHeader = block.getHeader();
+    final List<Transaction> transactions = block.getBody().getTransactions();
+    final Address miningBeneficiary = miningBeneficiaryCalculator.calculateBeneficiary(blockHeader);
+
+    final ParallelTransactionProcessor.BlockExecution execution =
+        parallelTransactionProcessor.execute(
+            transactions,
+            transaction -> {
+              final BonsaiSpeculativeWorldStateUpdater speculativeUpdater =
+                  BonsaiSpeculativeWorldStateUpdater.create(bonsaiWorldState, miningBeneficiary);
+              return new ParallelTransactionProcessor.SpeculativeTransaction(
+                  speculativeUpdater,
+                  processTransaction(
+                      blockchain, speculativeUpdater, blockHeader, transaction, miningBeneficiary));
+            });
+
+    final BonsaiWorldStateUpdater worldStateUpdater =
+        (BonsaiWorldStateUpdater) bonsaiWorldState.updater();
+    final StateAccessSet blockWrites = new StateAccessSet();
+    final List<TransactionReceipt> receipts = new ArrayList<>();
+    long currentGasUsed = 0;
+    try {
+      for (int i = 0; i < transactions.size(); i++) {
+        final Transaction transaction = transactions.get(i);
+        if (!hasAvailableBlockBudget(blockHeader, transaction, currentGasUsed)) {
+          return AbstractBlockProcessor.Result.failed();
+        }
+
+        final Optional<ParallelTransactionProcessor.SpeculativeTransaction> speculation =
+            execution.get(i);
+        final TransactionProcessingResult result;
+        if (speculation.isPresent()
+            && !speculation.get().getResult().isInvalid()
+            && speculation.get().getUpdater().canApplyAfter(blockWrites)) {
+          final BonsaiSpeculativeWorldStateUpdater speculativeUpdater =
+              speculation.get().getUpdater();
+          result = speculation.get().getResult();
+          blockWrites.addAll(speculativeUpdater.getWrites());
+          speculativeUpdater.applyTo(worldStateUpdater);
+        } else {
+          // run it again on top of the transactions before it, recording what it writes
+          execution.conflict();
+          final WorldUpdater transactionUpdater = worldStateUpdater.updater();
+          result =
+              processTransaction(
+                  blockchain, transactionUpdater, blockHeader, transaction, miningBeneficiary);
+          if (result.isInvalid()) {
+            logInvalidTransaction(blockHeader, transaction, result);
+            worldStateUpdater.reset();
+            return AbstractBlockProcessor.Result.failed();
+          }
+          blockWrites.addWrites(transactionUpdater);
+          transactionUpdater.commit();
+        }
+
+        worldStateUpdater.commit();
+
+        currentGasUsed += transaction.getGasLimit() - result.getGasRemaining();
+
+        final TransactionReceipt transactionReceipt =
+            transactionReceiptFactory.create(
+                transaction.getType(), result, worldState, currentGasUsed);
+        receipts.add(transactionReceipt);
+      }
+    } finally {
+      execution.finish();
+    }
+
+    return completeBlock(worldState, blockHeader, block.getBody().getOmmers(), receipts);
+  }
+
+  private TransactionProcessingResult processTransaction(
+      final Blockchain blockchain,
+      final WorldUpdater worldStateUpdater,
+      final BlockHeader blockHeader,
+      final Transaction transaction,
+      final Address miningBeneficiary) {
+    return transactionProcessor.processTransaction(
+        blockchain,
+        worldStateUpdater,
+        blockHeader,
+        transaction,
+        miningBeneficiary,
+        OperationTracer.NO_TRACING,
+        new BlockHashLookup(blockHeader, blockchain),
+        true,
+        TransactionValidationParams.processingBlock(),
+        null);
+  }
+
+  private void logInvalidTransaction(
+      final BlockHeader blockHeader,
+      final Transaction transaction,
+      final TransactionProcessingResult result) {
+    LOG.info(
+        "Block processing error: transaction invalid '{}'. Block {} Transaction {}",
+        result.getValidationResult().getInvalidReason(),
+        blockHeader.getHash().toHexString(),
+        transaction.getHash().toHexString());
+  }
+
+  private AbstractBlockProcessor.Result completeBlock(
+      final MutableWorldState worldState,
+      final BlockHeader blockHeader,
+      final List<BlockHeader> ommers,
+      final List<TransactionReceipt> receipts) {
     if (!rewardCoinbase(worldState, blockHeader, ommers, skipZeroBlockRewards)) {
       // no need to log, rewardCoinbase logs the error.
       if (worldState instanceof BonsaiPersistedWorldState) {
@@ -81,6 +81,24 @@ public interface BlockProcessor {
         null);
   }
 
+  /**
+   * Processes the block, executing its transactions in parallel if this processor and the world
+   * state support it.
+   *
+   * @param blockchain the blockchain to append the block to
+   * @param worldState the world state to apply changes to
+   * @param block the block to process
+   * @param parallelTransactionProcessor runs the transactions of the block speculatively
+   * @return the block processing result, the same as if the transactions ran one after another
+   */
+  default Result processBlock(
+      final Blockchain blockchain,
+      final MutableWorldState worldState,
+      final Block block,
+      final ParallelTransactionProcessor parallelTransactionProcessor) {
+    return processBlock(blockchain, worldState, block);
+  }
+
   /**
    * Processes the block.
    *
@@ -0,0 +1,122 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.mainnet;
+
+import org.hyperledger.besu.ethereum.core.Block;
+import org.hyperledger.besu.ethereum.core.Transaction;
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recovers the senders of all transactions of a block in parallel before the block is executed.
+ *
+ * <p>{@link Transaction#getSender()} recovers the sender lazily and caches it, so once this stage
+ * completes the block processor finds every sender already recovered instead of running one ECDSA
+ * recovery after another. The transactions are split into one slice per worker; the calling thread
+ * recovers the first slice itself while the others run on the executor.
+ *
+ * <p>Failures are ignored here: a transaction whose sender cannot be recovered fails in the same
+ * way, and at the same point, when the block is processed.
+ */
+public class ParallelSenderRecovery {
+
+  private final Executor executor;
+  private final int parallelism;
+  private final Counter recoveredSenders;
+  private final Counter recoveryTime;
+  private final Counter timeSaved;
+
+  public ParallelSenderRecovery(
+      final Executor executor, final int parallelism, final MetricsSystem metricsSystem) {
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+    this.recoveredSenders =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "parallel_sender_recovery_transactions_total",
+            "Number of transaction senders recovered in parallel ahead of block execution");
+    this.recoveryTime =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "parallel_sender_recovery_duration_microseconds_total",
+            "Wall clock time spent recovering transaction senders in parallel");
+    this.timeSaved =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "parallel_sender_recovery_time_saved_microseconds_total",
+            "Time saved by recovering transaction senders in parallel instead of one by one");
+  }
+
+  public void recoverSenders(final Block block) {
+    recoverSenders(block.getBody().getTransactions());
+  }
+
+  /**
+   * Recovers the senders of the given transactions, returning once all of them are recovered.
+   *
+   * @param transactions the transactions of the block about to be processed
+   */
+  public void recoverSenders(final List<Transaction> transactions) {
+    final int count = transactions.size();
+    final int slices = Math.min(parallelism, count);
+    if (slices < 2) {
+      // nothing to run in parallel, the sender is recovered when the transaction is processed
+      return;
+    }
+    final long start = System.nanoTime();
+    final AtomicLong busyNanos = new AtomicLong();
+    final CompletableFuture<?>[] futures = new CompletableFuture<?>[slices - 1];
+    for (int i = 1; i < slices; i++) {
+      final int from = i * count / slices;
+      final int to = (i + 1) * count / slices;
+      try {
+        futures[i - 1] =
+            CompletableFuture.runAsync(
+                () -> busyNanos.addAndGet(recoverSenders(transactions, from, to)), executor);
+      } catch (final RejectedExecutionException e) {
+        // the executor is shutting down, recover this slice on the calling thread
+        busyNanos.addAndGet(recoverSenders(transactions, from, to));
+        futures[i - 1] = CompletableFuture.completedFuture(null);
+      }
+    }
+    busyNanos.addAndGet(recoverSenders(transactions, 0, count / slices));
+    CompletableFuture.allOf(futures).join();
+
+    final long elapsedNanos = System.nanoTime() - start;
+    recoveredSenders.inc(count);
+    recoveryTime.inc(elapsedNanos / 1_000);
+    timeSaved.inc(Math.max(0, busyNanos.get() - elapsedNanos) / 1_000);
+  }
+
+  private static long recoverSenders(
+      final List<Transaction> transactions, final int from, final int to) {
+    final long start = System.nanoTime();
+    for (int i = from; i < to; i++) {
+      try {
+        transactions.get(i).getSender();
+      } catch (final IllegalStateException e) {
+        // reported when the transaction is processed
+      }
+    }
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.mainnet;
+
+import org.hyperledger.besu.ethereum.bonsai.BonsaiSpeculativeWorldStateUpdater;
+import org.hyperledger.besu.ethereum.core.Transaction;
+import org.hyperledger.besu.ethereum.processing.TransactionProcessingResult;
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the transactions of a block speculatively and in parallel, each one on its own {@link
+ * BonsaiSpeculativeWorldStateUpdater} on top of the state at the start of the block.
+ *
+ * <p>The block processor still goes through the transactions in order. A transaction that read
+ * nothing written by the transactions before it is applied as it was executed, any other one is
+ * executed again on top of the changes accumulated so far. Receipts and state root are therefore
+ * the same as with sequential execution.
+ */
+public class ParallelTransactionProcessor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelTransactionProcessor.class);
+
+  private final Executor executor;
+  private final Counter speculativeTransactions;
+  private final Counter conflictingTransactions;
+  private volatile double lastConcurrency = 1.0d;
+
+  public ParallelTransactionProcessor(final Executor executor, final MetricsSystem metricsSystem) {
+    this.executor = executor;
+    this.speculativeTransactions =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "parallel_transactions_total",
+            "Number of transactions executed speculatively in parallel");
+    this.conflictingTransactions =
+        metricsSystem.createCounter(
+            BesuMetricCategory.BLOCKCHAIN,
+            "parallel_transaction_conflicts_total",
+            "Number of speculatively executed transactions executed again because of a conflict");
+    metricsSystem.createGauge(
+        BesuMetricCategory.BLOCKCHAIN,
+        "parallel_transaction_concurrency",
+        "Average number of transactions of the last block executing speculatively at the same"
+            + " time while it was processed",
+        () -> lastConcurrency);
+  }
+
+  /**
+   * Starts the speculative execution of the transactions of a block.
+   *
+   * @param transactions the transactions of the block
+   * @param speculation runs one transaction on its own speculative updater
+   * @return the execution, to be consumed in transaction order
+   */
+  public BlockExecution execute(
+      final List<Transaction> transactions,
+      final Function<Transaction, SpeculativeTransaction> speculation) {
+    return new BlockExecution(transactions, speculation);
+  }
+
+  public static class SpeculativeTransaction {
+    private final BonsaiSpeculativeWorldStateUpdater updater;
+    private final TransactionProcessingResult result;
+
+    public SpeculativeTransaction(
+        final BonsaiSpeculativeWorldStateUpdater updater,
+        final TransactionProcessingResult result) {
+      this.updater = updater;
+      this.result = result;
+    }
+
+    public BonsaiSpeculativeWorldStateUpdater getUpdater() {
+      return updater;
+    }
+
+    public TransactionProcessingResult getResult() {
+      return result;
+    }
+  }
+
+  public class BlockExecution {
+    private final long start = System.nanoTime();
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private final AtomicLong speculativeNanos = new AtomicLong();
+    private final List<CompletableFuture<SpeculativeTransaction>> speculations;
+    private int conflicts = 0;
+
+    private BlockExecution(
+        final List<Transaction> transactions,
+        final Function<Transaction, SpeculativeTransaction> speculation) {
+      speculations = new ArrayList<>(transactions.size());
+      for (final Transaction transaction : transactions) {
+        CompletableFuture<SpeculativeTransaction> future;
+        try {
+          future =
+              CompletableFuture.supplyAsync(() -> speculate(transaction, speculation), executor);
+        } catch (final RejectedExecutionException e) {
+          future = CompletableFuture.completedFuture(null);
+        }
+        speculations.add(future);
+      }
+    }
+
+    private SpeculativeTransaction speculate(
+        final Transaction transaction,
+        final Function<Transaction, SpeculativeTransaction> speculation) {
+      if (finished.get()) {
+        return null;
+      }
+      final long speculationStart = System.nanoTime();
+      try {
+        return speculation.apply(transaction);
+      } catch (final RuntimeException e) {
+        LOG.debug("Speculative execution of transaction {} failed", transaction.getHash(), e);
+        return null;
+      } finally {
+        speculativeNanos.addAndGet(System.nanoTime() - speculationStart);
+      }
+    }
+
+    /**
+     * Waits for the speculative execution of a transaction.
+     *
+     * @param index the index of the transaction in the block
+     * @return the speculative execution, or empty if the transaction was not executed
+     */
+    public Optional<SpeculativeTransaction> get(final int index) {
+      return Optional.ofNullable(speculations.get(index).join());
+    }
+
+    /** Records that a transaction had to be executed again. */
+    public void conflict() {
+      conflicts++;
+    }
+
+    /**
+     * Ends the execution of the block, skipping the speculations that did not start yet and waiting
+     * for the ones still running.
+     */
+    public void finish() {
+      if (!finished.compareAndSet(false, true)) {
+        return;
+      }
+      CompletableFuture.allOf(speculations.toArray(new CompletableFuture<?>[0])).join();
+      final long elapsedNanos = System.nanoTime() - start;
+      speculativeTransactions.inc(speculations.size());
+      conflictingTransactions.inc(conflicts);
+      if (elapsedNanos > 0) {
+        // the speculation time summed over all threads, per unit of processing time
+        lastConcurrency = (double) speculativeNanos.get() / elapsedNanos;
+      }
+    }
+  }
+}
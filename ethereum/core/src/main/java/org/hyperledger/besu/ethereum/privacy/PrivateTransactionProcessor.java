@@ -156,9 +156,7 @@ public class PrivateTransactionProcessor {
                 .address(privateContractAddress)
                 .contract(privateContractAddress)
                 .inputData(Bytes.EMPTY)
-                .code(
-                    contractCreationProcessor.getCodeFromEVM(
-                        Hash.hash(initCodeBytes), initCodeBytes))
+                .code(contractCreationProcessor.getInitCodeFromEVM(initCodeBytes))
                 .build();
       } else {
         final Address to = transaction.getTo().get();
@@ -0,0 +1,105 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.storage.keyvalue;
+
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.evm.internal.CodeAnalysisStorage;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorage;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the jump destinations of deployed code in the {@link
+ * KeyValueSegmentIdentifier#CODE_ANALYSIS} segment, keyed by code hash. Values start with a format
+ * version byte so that further analysis can be added to the record later.
+ *
+ * <p>Analysis is buffered and written in batches, so that executing code does not commit to the
+ * database. Buffered analysis that is lost on shutdown is computed again when the code runs next.
+ */
+public class CodeAnalysisKeyValueStorage implements CodeAnalysisStorage {
+
+  private static final byte FORMAT_VERSION = 1;
+  private static final int DEFAULT_BATCH_SIZE = 256;
+
+  private final KeyValueStorage keyValueStorage;
+  private final int batchSize;
+  private final Map<Hash, long[]> pending = new HashMap<>();
+
+  public CodeAnalysisKeyValueStorage(final KeyValueStorage keyValueStorage) {
+    this(keyValueStorage, DEFAULT_BATCH_SIZE);
+  }
+
+  CodeAnalysisKeyValueStorage(final KeyValueStorage keyValueStorage, final int batchSize) {
+    this.keyValueStorage = keyValueStorage;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public Optional<long[]> getJumpDestinations(final Hash codeHash) {
+    synchronized (pending) {
+      final long[] buffered = pending.get(codeHash);
+      if (buffered != null) {
+        return Optional.of(buffered);
+      }
+    }
+    return keyValueStorage
+        .get(codeHash.toArrayUnsafe())
+        .filter(
+            value ->
+                value.length > 1
+                    && value[0] == FORMAT_VERSION
+                    && (value.length - 1) % Long.BYTES == 0)
+        .map(CodeAnalysisKeyValueStorage::decodeJumpDestinations);
+  }
+
+  @Override
+  public void putJumpDestinations(final Hash codeHash, final long[] jumpDestinations) {
+    final Map<Hash, long[]> batch;
+    synchronized (pending) {
+      pending.put(codeHash, jumpDestinations);
+      if (pending.size() < batchSize) {
+        return;
+      }
+      batch = new HashMap<>(pending);
+      pending.clear();
+    }
+    final KeyValueStorageTransaction transaction = keyValueStorage.startTransaction();
+    batch.forEach(
+        (hash, bitmap) -> transaction.put(hash.toArrayUnsafe(), encodeJumpDestinations(bitmap)));
+    transaction.commit();
+  }
+
+  private static byte[] encodeJumpDestinations(final long[] jumpDestinations) {
+    final ByteBuffer value = ByteBuffer.allocate(1 + jumpDestinations.length * Long.BYTES);
+    value.put(FORMAT_VERSION);
+    for (final long entry : jumpDestinations) {
+      value.putLong(entry);
+    }
+    return value.array();
+  }
+
+  private static long[] decodeJumpDestinations(final byte[] value) {
+    final ByteBuffer buffer = ByteBuffer.wrap(value, 1, value.length - 1);
+    final long[] jumpDestinations = new long[(value.length - 1) / Long.BYTES];
+    for (int i = 0; i < jumpDestinations.length; i++) {
+      jumpDestinations[i] = buffer.getLong();
+    }
+    return jumpDestinations;
+  }
+}
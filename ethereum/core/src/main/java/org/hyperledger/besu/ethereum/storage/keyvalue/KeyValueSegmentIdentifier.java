@@ -32,7 +32,11 @@ public enum KeyValueSegmentIdentifier implements SegmentIdentifier {
   GOQUORUM_PRIVATE_WORLD_STATE(new byte[] {11}),
   GOQUORUM_PRIVATE_STORAGE(new byte[] {12}),
   BACKWARD_SYNC_HEADERS(new byte[] {13}),
-  BACKWARD_SYNC_BLOCKS(new byte[] {14});
+  BACKWARD_SYNC_BLOCKS(new byte[] {14}),
+  CODE_ANALYSIS(new byte[] {15}),
+  ACCOUNT_INFO_STATE_ARCHIVE(new byte[] {16}, new int[] {2}),
+  CODE_STORAGE_ARCHIVE(new byte[] {17}, new int[] {2}),
+  ACCOUNT_STORAGE_ARCHIVE(new byte[] {18}, new int[] {2});
 
   private final byte[] id;
   private final int[] versionList;
@@ -21,13 +21,16 @@ import org.hyperledger.besu.plugin.services.storage.KeyValueStorage;
 import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
 import org.hyperledger.besu.util.Subscribers;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.tuweni.bytes.Bytes;
@@ -87,6 +90,25 @@ public class WorldStateKeyValueStorage implements WorldStateStorage {
     }
   }
 
+  @Override
+  public List<Optional<Bytes>> getNodeData(final List<? extends Bytes32> hashes) {
+    final List<Optional<byte[]>> storedData =
+        keyValueStorage.getMultiple(
+            hashes.stream().map(Bytes32::toArrayUnsafe).collect(Collectors.toList()));
+    final List<Optional<Bytes>> nodeData = new ArrayList<>(hashes.size());
+    for (int i = 0; i < hashes.size(); i++) {
+      final Bytes32 hash = hashes.get(i);
+      if (hash.equals(MerklePatriciaTrie.EMPTY_TRIE_NODE_HASH)) {
+        nodeData.add(Optional.of(MerklePatriciaTrie.EMPTY_TRIE_NODE));
+      } else if (hash.equals(Hash.EMPTY)) {
+        nodeData.add(Optional.of(Bytes.EMPTY));
+      } else {
+        nodeData.add(storedData.get(i).map(Bytes::wrap));
+      }
+    }
+    return nodeData;
+  }
+
   @Override
   public boolean isWorldStateAvailable(final Bytes32 rootHash, final Hash blockHash) {
     return getAccountStateTrieNode(Bytes.EMPTY, rootHash).isPresent();
@@ -107,6 +129,11 @@ public class WorldStateKeyValueStorage implements WorldStateStorage {
     return new Updater(lock, keyValueStorage.startTransaction(), nodeAddedListeners);
   }
 
+  @Override
+  public Updater bulkLoadUpdater() {
+    return new Updater(lock, keyValueStorage.startBulkLoadTransaction(), nodeAddedListeners);
+  }
+
   @Override
   public long prune(final Predicate<byte[]> inUseCheck) {
     final AtomicInteger prunedKeys = new AtomicInteger(0);
@@ -22,6 +22,12 @@ import org.immutables.value.Value;
 public interface DataStorageConfiguration {
 
   long DEFAULT_BONSAI_MAX_LAYERS_TO_LOAD = 512;
+  int DEFAULT_BONSAI_STORAGE_TRIE_PARALLELISM = 4;
+  long DEFAULT_BONSAI_TRIE_NODE_CACHE_SIZE = 0;
+  boolean DEFAULT_BONSAI_HISTORICAL_STATE_ENABLED = false;
+  int DEFAULT_BONSAI_BACKGROUND_WRITER_MAX_PENDING_BLOCKS = 0;
+  long DEFAULT_BONSAI_FLAT_STATE_FILTER_EXPECTED_ENTRIES = 0;
+  int DEFAULT_BONSAI_PREFETCH_THREADS = 0;
 
   DataStorageConfiguration DEFAULT_CONFIG =
       ImmutableDataStorageConfiguration.builder()
@@ -32,4 +38,39 @@ public interface DataStorageConfiguration {
   DataStorageFormat getDataStorageFormat();
 
   Long getBonsaiMaxLayersToLoad();
+
+  @Value.Default
+  default boolean isBonsaiParallelTxProcessingEnabled() {
+    return false;
+  }
+
+  @Value.Default
+  default int getBonsaiStorageTrieParallelism() {
+    return DEFAULT_BONSAI_STORAGE_TRIE_PARALLELISM;
+  }
+
+  @Value.Default
+  default long getBonsaiTrieNodeCacheSize() {
+    return DEFAULT_BONSAI_TRIE_NODE_CACHE_SIZE;
+  }
+
+  @Value.Default
+  default boolean isBonsaiHistoricalStateEnabled() {
+    return DEFAULT_BONSAI_HISTORICAL_STATE_ENABLED;
+  }
+
+  @Value.Default
+  default int getBonsaiBackgroundWriterMaxPendingBlocks() {
+    return DEFAULT_BONSAI_BACKGROUND_WRITER_MAX_PENDING_BLOCKS;
+  }
+
+  @Value.Default
+  default long getBonsaiFlatStateFilterExpectedEntries() {
+    return DEFAULT_BONSAI_FLAT_STATE_FILTER_EXPECTED_ENTRIES;
+  }
+
+  @Value.Default
+  default int getBonsaiPrefetchThreads() {
+    return DEFAULT_BONSAI_PREFETCH_THREADS;
+  }
 }
@@ -91,6 +91,11 @@ public class DefaultWorldStateArchive implements WorldStateArchive {
     return worldStateStorage.getNodeData(null, hash);
   }
 
+  @Override
+  public List<Optional<Bytes>> getNodeData(final List<Hash> hashes) {
+    return worldStateStorage.getNodeData(hashes);
+  }
+
   public WorldStateStorage getWorldStateStorage() {
     return worldStateStorage;
   }
@@ -24,6 +24,7 @@ import org.hyperledger.besu.evm.worldstate.WorldState;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.units.bigints.UInt256;
@@ -47,6 +48,10 @@ public interface WorldStateArchive {
 
   Optional<Bytes> getNodeData(Hash hash);
 
+  default List<Optional<Bytes>> getNodeData(final List<Hash> hashes) {
+    return hashes.stream().map(this::getNodeData).collect(Collectors.toList());
+  }
+
   Optional<WorldStateProof> getAccountProof(
       Hash worldStateRoot, Address accountAddress, List<UInt256> accountStorageKeys);
 }
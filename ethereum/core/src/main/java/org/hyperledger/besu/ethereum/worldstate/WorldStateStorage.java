@@ -17,8 +17,10 @@ package org.hyperledger.besu.ethereum.worldstate;
 import org.hyperledger.besu.datatypes.Hash;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
@@ -35,6 +37,11 @@ public interface WorldStateStorage {
 
   Optional<Bytes> getNodeData(Bytes location, Bytes32 hash);
 
+  default List<Optional<Bytes>> getNodeData(final List<? extends Bytes32> hashes) {
+    // we don't have location info
+    return hashes.stream().map(hash -> getNodeData(null, hash)).collect(Collectors.toList());
+  }
+
   boolean isWorldStateAvailable(Bytes32 rootHash, Hash blockHash);
 
   default boolean contains(final Bytes32 hash) {
@@ -48,6 +55,17 @@ public interface WorldStateStorage {
 
   Updater updater();
 
+  /**
+   * Returns an updater for loading large amounts of state, as sync does. Its writes may skip the
+   * conflict checks and write-ahead log of the storage, so they can be lost on a crash until a
+   * regular update is made to the same storage.
+   *
+   * @return an updater for bulk loads
+   */
+  default Updater bulkLoadUpdater() {
+    return updater();
+  }
+
   long prune(Predicate<byte[]> inUseCheck);
 
   long addNodeAddedListener(NodesAddedListener listener);
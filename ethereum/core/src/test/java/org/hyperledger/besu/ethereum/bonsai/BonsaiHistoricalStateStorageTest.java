@@ -0,0 +1,190 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.services.kvstore.InMemoryKeyValueStorage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.Test;
+
+public class BonsaiHistoricalStateStorageTest {
+
+  private static final Hash ACCOUNT = Hash.hash(Bytes.of(1));
+  private static final Hash OTHER_ACCOUNT = Hash.hash(Bytes.of(2));
+  private static final Hash SLOT = Hash.hash(Bytes.of(3));
+
+  private final BonsaiHistoricalStateStorage storage =
+      new BonsaiHistoricalStateStorage(
+          new InMemoryKeyValueStorage(),
+          new InMemoryKeyValueStorage(),
+          new InMemoryKeyValueStorage());
+  private final Map<Long, Hash> canonicalBlockHashes = new HashMap<>();
+  private final LongFunction<Optional<Hash>> canonical =
+      number -> Optional.ofNullable(canonicalBlockHashes.get(number));
+
+  @Test
+  public void readsTheValueAsOfEachBlock() {
+    recordAccount(0, Bytes.of(10));
+    recordBlock(1);
+    recordAccount(2, Bytes.of(12));
+    recordBlock(3);
+
+    assertThat(storage.getAccount(ACCOUNT, 0, canonical)).contains(Bytes.of(10));
+    assertThat(storage.getAccount(ACCOUNT, 1, canonical)).contains(Bytes.of(10));
+    assertThat(storage.getAccount(ACCOUNT, 2, canonical)).contains(Bytes.of(12));
+    assertThat(storage.getAccount(ACCOUNT, 3, canonical)).contains(Bytes.of(12));
+    assertThat(storage.getAccount(OTHER_ACCOUNT, 3, canonical)).isEmpty();
+  }
+
+  @Test
+  public void skipsTheChangesOfBlocksThatAreNotCanonical() {
+    recordAccount(0, Bytes.of(10));
+    final BonsaiHistoricalStateStorage.Updater fork = storage.updater(1, blockHash(1, 1));
+    fork.putAccount(ACCOUNT, Bytes.of(11));
+    fork.commit();
+    recordBlock(1);
+
+    assertThat(storage.getAccount(ACCOUNT, 1, canonical)).contains(Bytes.of(10));
+  }
+
+  @Test
+  public void removedValuesReadAsEmpty() {
+    final BonsaiHistoricalStateStorage.Updater genesis = updater(0);
+    genesis.putCode(ACCOUNT, Bytes.of(1, 2, 3));
+    genesis.putStorageValueBySlotHash(ACCOUNT, SLOT, Bytes.of(0, 0, 7));
+    genesis.commit();
+    final BonsaiHistoricalStateStorage.Updater block = updater(1);
+    block.removeCode(ACCOUNT);
+    block.removeStorageValueBySlotHash(ACCOUNT, SLOT);
+    block.commit();
+
+    assertThat(storage.getCode(ACCOUNT, 0, canonical)).contains(Bytes.of(1, 2, 3));
+    assertThat(storage.getStorageValueBySlotHash(ACCOUNT, SLOT, 0, canonical))
+        .contains(Bytes.of(7));
+    assertThat(storage.getCode(ACCOUNT, 1, canonical)).isEmpty();
+    assertThat(storage.getStorageValueBySlotHash(ACCOUNT, SLOT, 1, canonical)).isEmpty();
+  }
+
+  @Test
+  public void readsAllStorageOfAnAccountAsOfABlock() {
+    final Hash otherSlot = Hash.hash(Bytes.of(4));
+    final Hash newSlot = Hash.hash(Bytes.of(5));
+    final BonsaiHistoricalStateStorage.Updater genesis = updater(0);
+    genesis.putStorageValueBySlotHash(ACCOUNT, SLOT, Bytes.of(7));
+    genesis.putStorageValueBySlotHash(ACCOUNT, otherSlot, Bytes.of(8));
+    genesis.putStorageValueBySlotHash(OTHER_ACCOUNT, SLOT, Bytes.of(9));
+    genesis.commit();
+    final BonsaiHistoricalStateStorage.Updater block = updater(1);
+    block.removeStorageValueBySlotHash(ACCOUNT, SLOT);
+    block.putStorageValueBySlotHash(ACCOUNT, newSlot, Bytes.of(10));
+    block.commit();
+    final BonsaiHistoricalStateStorage.Updater fork = storage.updater(2, blockHash(2, 1));
+    fork.putStorageValueBySlotHash(ACCOUNT, otherSlot, Bytes.of(11));
+    fork.commit();
+    recordBlock(2);
+
+    assertThat(storage.getAllStorageValues(ACCOUNT, 0, canonical))
+        .containsOnly(entry(SLOT, Bytes.of(7)), entry(otherSlot, Bytes.of(8)));
+    assertThat(storage.getAllStorageValues(ACCOUNT, 2, canonical))
+        .containsOnly(entry(otherSlot, Bytes.of(8)), entry(newSlot, Bytes.of(10)));
+    assertThat(storage.getAllStorageValues(Hash.hash(Bytes.of(6)), 2, canonical)).isEmpty();
+  }
+
+  @Test
+  public void onlyRecordsFromTheGenesisBlock() {
+    assertThat(storage.isRecording(1, blockHash(0, 0))).isFalse();
+    assertThat(storage.isRecording(0, Hash.ZERO)).isTrue();
+    assertThat(storage.isAvailable(0, blockHash(0, 0))).isFalse();
+
+    recordAccount(0, Bytes.of(10));
+
+    assertThat(storage.isRecording(1, blockHash(0, 0))).isTrue();
+    assertThat(storage.isAvailable(0, blockHash(0, 0))).isTrue();
+    assertThat(storage.isAvailable(1, blockHash(1, 0))).isFalse();
+
+    recordBlock(1);
+
+    assertThat(storage.isAvailable(1, blockHash(1, 0))).isTrue();
+  }
+
+  @Test
+  public void stopsRecordingAtTheFirstBlockWhoseParentWasNotRecorded() {
+    final InMemoryKeyValueStorage accountStorage = new InMemoryKeyValueStorage();
+    final BonsaiHistoricalStateStorage storage =
+        new BonsaiHistoricalStateStorage(
+            accountStorage, new InMemoryKeyValueStorage(), new InMemoryKeyValueStorage());
+    storage.updater(0, blockHash(0, 0)).commit();
+    storage.updater(1, blockHash(1, 0)).commit();
+
+    // a node syncing to a pivot block never imports the blocks before it
+    assertThat(storage.isRecording(100, blockHash(99, 0))).isFalse();
+    assertThat(storage.isAvailable(1, blockHash(1, 0))).isTrue();
+    assertThat(storage.isAvailable(100, blockHash(100, 0))).isFalse();
+
+    final BonsaiHistoricalStateStorage reopened =
+        new BonsaiHistoricalStateStorage(
+            accountStorage, new InMemoryKeyValueStorage(), new InMemoryKeyValueStorage());
+    assertThat(reopened.isRecording(2, blockHash(1, 0))).isTrue();
+    assertThat(reopened.isRecording(100, blockHash(99, 0))).isFalse();
+    assertThat(reopened.isAvailable(1, blockHash(1, 0))).isTrue();
+    assertThat(reopened.isAvailable(2, blockHash(2, 0))).isFalse();
+  }
+
+  @Test
+  public void doesNotRecordOrReportTheBlocksOfAForkThatWasNotRecorded() {
+    recordBlock(0);
+    recordBlock(1);
+    recordBlock(2);
+
+    // a reorg onto a fork branching off after block 0
+    assertThat(storage.isRecording(1, blockHash(0, 0))).isFalse();
+    assertThat(storage.isRecording(2, blockHash(1, 1))).isFalse();
+    assertThat(storage.isRecording(3, blockHash(2, 1))).isFalse();
+
+    assertThat(storage.isAvailable(0, blockHash(0, 0))).isTrue();
+    assertThat(storage.isAvailable(2, blockHash(2, 0))).isTrue();
+    assertThat(storage.isAvailable(1, blockHash(1, 1))).isFalse();
+    assertThat(storage.isAvailable(2, blockHash(2, 1))).isFalse();
+  }
+
+  private void recordAccount(final long blockNumber, final Bytes value) {
+    final BonsaiHistoricalStateStorage.Updater updater = updater(blockNumber);
+    updater.putAccount(ACCOUNT, value);
+    updater.commit();
+  }
+
+  private void recordBlock(final long blockNumber) {
+    updater(blockNumber).commit();
+  }
+
+  private BonsaiHistoricalStateStorage.Updater updater(final long blockNumber) {
+    final Hash blockHash = blockHash(blockNumber, 0);
+    canonicalBlockHashes.put(blockNumber, blockHash);
+    return storage.updater(blockNumber, blockHash);
+  }
+
+  private static Hash blockHash(final long blockNumber, final int fork) {
+    return Hash.hash(Bytes.concatenate(Bytes.ofUnsignedLong(blockNumber), Bytes.of(fork)));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
+import org.hyperledger.besu.ethereum.core.MutableWorldState;
+import org.hyperledger.besu.evm.account.Account;
+import org.hyperledger.besu.evm.account.MutableAccount;
+import org.hyperledger.besu.evm.worldstate.WorldUpdater;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.units.bigints.UInt256;
+import org.junit.Test;
+
+public class BonsaiPersistedWorldStateTest {
+
+  private static final int CONTRACTS = 16;
+
+  @Test
+  public void parallelStorageTriesMatchSequentialComputation() {
+    final BonsaiPersistedWorldState sequential = createWorldState(1);
+    final BonsaiPersistedWorldState parallel = createWorldState(4);
+
+    for (final BonsaiPersistedWorldState worldState : List.of(sequential, parallel)) {
+      final WorldUpdater updater = worldState.updater();
+      for (int i = 0; i < CONTRACTS; i++) {
+        final MutableAccount account =
+            updater.getOrCreate(Address.fromHexString("0x" + (1000 + i))).getMutable();
+        // overwrite, delete and add slots of an existing storage
+        account.setStorageValue(UInt256.ONE, UInt256.valueOf(i + 100));
+        account.setStorageValue(UInt256.valueOf(2), UInt256.ZERO);
+        account.setStorageValue(UInt256.valueOf(3), UInt256.valueOf(i));
+      }
+      updater.deleteAccount(Address.fromHexString("0x" + 1000));
+      updater.commit();
+      worldState.persist(null);
+    }
+
+    assertThat(parallel.rootHash()).isEqualTo(sequential.rootHash());
+    for (int i = 1; i < CONTRACTS; i++) {
+      final Address address = Address.fromHexString("0x" + (1000 + i));
+      for (int slot = 1; slot <= 3; slot++) {
+        assertThat(parallel.getStorageValue(address, UInt256.valueOf(slot)))
+            .isEqualTo(sequential.getStorageValue(address, UInt256.valueOf(slot)));
+      }
+    }
+    assertThat(parallel.get(Address.fromHexString("0x" + 1000))).isNull();
+  }
+
+  @Test
+  public void copySeesWorldStateStillBeingWritten() {
+    final CountDownLatch writerBlocked = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final BonsaiWorldStateKeyValueStorage storage =
+        new BonsaiWorldStateKeyValueStorage(
+            new InMemoryKeyValueStorageProvider(),
+            BonsaiTrieNodeCache.disabled(),
+            BonsaiFlatStateFilter.disabled(),
+            Optional.of(new BonsaiBackgroundWriter(4, new NoOpMetricsSystem(), executor)));
+    final BonsaiPersistedWorldState worldState =
+        (BonsaiPersistedWorldState)
+            new BonsaiWorldStateArchive(storage, mock(Blockchain.class), 512, 1).getMutable();
+    final Address address = Address.fromHexString("0x1000");
+    final Bytes code = Bytes.fromHexString("0x6001");
+    executor.execute(() -> awaitUninterruptibly(writerBlocked));
+
+    final WorldUpdater updater = worldState.updater();
+    final MutableAccount account = updater.createAccount(address).getMutable();
+    account.setBalance(Wei.of(1));
+    account.setCode(code);
+    account.setStorageValue(UInt256.ONE, UInt256.valueOf(2));
+    updater.commit();
+    worldState.persist(null);
+    final MutableWorldState copy = worldState.copy();
+
+    assertThat(copy.rootHash()).isEqualTo(worldState.rootHash());
+    final Account copiedAccount = copy.get(address);
+    assertThat(copiedAccount.getBalance()).isEqualTo(Wei.of(1));
+    assertThat(copiedAccount.getCode()).isEqualTo(code);
+    assertThat(copiedAccount.getStorageValue(UInt256.ONE)).isEqualTo(UInt256.valueOf(2));
+
+    writerBlocked.countDown();
+    storage.close();
+  }
+
+  private static BonsaiPersistedWorldState createWorldState(final int storageTrieParallelism) {
+    final BonsaiPersistedWorldState worldState =
+        (BonsaiPersistedWorldState)
+            new BonsaiWorldStateArchive(
+                    new InMemoryKeyValueStorageProvider(),
+                    mock(Blockchain.class),
+                    512,
+                    storageTrieParallelism)
+                .getMutable();
+    final WorldUpdater updater = worldState.updater();
+    for (int i = 0; i < CONTRACTS; i++) {
+      final MutableAccount account =
+          updater.createAccount(Address.fromHexString("0x" + (1000 + i))).getMutable();
+      account.setStorageValue(UInt256.ONE, UInt256.valueOf(i + 1));
+      account.setStorageValue(UInt256.valueOf(2), UInt256.valueOf(i + 2));
+    }
+    updater.commit();
+    worldState.persist(null);
+    return worldState;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
+import org.hyperledger.besu.evm.account.MutableAccount;
+import org.hyperledger.besu.evm.worldstate.WorldUpdater;
+
+import org.apache.tuweni.units.bigints.UInt256;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BonsaiSpeculativeWorldStateUpdaterTest {
+
+  private static final Address SENDER = Address.fromHexString("0x1111");
+  private static final Address CONTRACT = Address.fromHexString("0x2222");
+  private static final Address MINING_BENEFICIARY = Address.fromHexString("0x3333");
+
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private BonsaiPersistedWorldState worldState;
+
+  @Before
+  public void setUp() {
+    worldState = createWorldState();
+  }
+
+  private BonsaiPersistedWorldState createWorldState() {
+    final BonsaiPersistedWorldState state =
+        (BonsaiPersistedWorldState)
+            new BonsaiWorldStateArchive(new InMemoryKeyValueStorageProvider(), blockchain)
+                .getMutable();
+    final WorldUpdater updater = state.updater();
+    updater.createAccount(SENDER, 0, Wei.of(1_000));
+    updater.createAccount(CONTRACT).getMutable().setStorageValue(UInt256.ONE, UInt256.valueOf(7));
+    updater.commit();
+    state.persist(null);
+    return state;
+  }
+
+  private static void transferAndStore(final WorldUpdater updater) {
+    final MutableAccount sender = updater.getOrCreateSenderAccount(SENDER).getMutable();
+    sender.incrementNonce();
+    sender.decrementBalance(Wei.of(100));
+    updater.getAccount(CONTRACT).getMutable().setStorageValue(UInt256.ONE, UInt256.valueOf(8));
+    updater.getOrCreate(MINING_BENEFICIARY).getMutable().incrementBalance(Wei.of(100));
+  }
+
+  @Test
+  public void appliedTransactionMatchesDirectExecution() {
+    final BonsaiSpeculativeWorldStateUpdater speculative =
+        BonsaiSpeculativeWorldStateUpdater.create(worldState, MINING_BENEFICIARY);
+    transferAndStore(speculative);
+    assertThat(speculative.canApplyAfter(new StateAccessSet())).isTrue();
+    final BonsaiWorldStateUpdater blockUpdater = (BonsaiWorldStateUpdater) worldState.updater();
+    speculative.applyTo(blockUpdater);
+    blockUpdater.commit();
+
+    final BonsaiPersistedWorldState sequentialState = createWorldState();
+    final WorldUpdater sequentialUpdater = sequentialState.updater();
+    transferAndStore(sequentialUpdater);
+    sequentialUpdater.commit();
+
+    assertThat(worldState.rootHash()).isEqualTo(sequentialState.rootHash());
+    assertThat(worldState.get(MINING_BENEFICIARY).getBalance()).isEqualTo(Wei.of(100));
+  }
+
+  @Test
+  public void transactionReadingAnEarlierWriteCannotBeApplied() {
+    final BonsaiSpeculativeWorldStateUpdater first =
+        BonsaiSpeculativeWorldStateUpdater.create(worldState, MINING_BENEFICIARY);
+    first.getAccount(CONTRACT).getMutable().setStorageValue(UInt256.ONE, UInt256.valueOf(8));
+    first.getOrCreate(MINING_BENEFICIARY).getMutable().incrementBalance(Wei.ONE);
+
+    final BonsaiSpeculativeWorldStateUpdater sameSlot =
+        BonsaiSpeculativeWorldStateUpdater.create(worldState, MINING_BENEFICIARY);
+    assertThat(sameSlot.getAccount(CONTRACT).getStorageValue(UInt256.ONE))
+        .isEqualTo(UInt256.valueOf(7));
+    sameSlot.getOrCreate(MINING_BENEFICIARY).getMutable().incrementBalance(Wei.ONE);
+
+    final BonsaiSpeculativeWorldStateUpdater otherSlot =
+        BonsaiSpeculativeWorldStateUpdater.create(worldState, MINING_BENEFICIARY);
+    assertThat(otherSlot.getAccount(CONTRACT).getStorageValue(UInt256.valueOf(2))).isZero();
+    otherSlot.getOrCreate(MINING_BENEFICIARY).getMutable().incrementBalance(Wei.ONE);
+
+    assertThat(sameSlot.canApplyAfter(first.getWrites())).isFalse();
+    assertThat(otherSlot.canApplyAfter(first.getWrites())).isTrue();
+  }
+
+  @Test
+  public void transactionReadingTheMiningBeneficiaryCannotBeApplied() {
+    final BonsaiSpeculativeWorldStateUpdater speculative =
+        BonsaiSpeculativeWorldStateUpdater.create(worldState, MINING_BENEFICIARY);
+    assertThat(speculative.get(MINING_BENEFICIARY)).isNull();
+    speculative.getOrCreate(MINING_BENEFICIARY).getMutable().incrementBalance(Wei.ONE);
+
+    assertThat(speculative.canApplyAfter(new StateAccessSet())).isFalse();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.hyperledger.besu.crypto.SignatureAlgorithmFactory;
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.ethereum.core.Block;
+import org.hyperledger.besu.ethereum.core.BlockBody;
+import org.hyperledger.besu.ethereum.core.BlockHeaderTestFixture;
+import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
+import org.hyperledger.besu.ethereum.core.Transaction;
+import org.hyperledger.besu.evm.AccessListEntry;
+import org.hyperledger.besu.evm.worldstate.WorldUpdater;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.hyperledger.besu.plugin.data.TransactionType;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.units.bigints.UInt256;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BonsaiStatePrefetcherTest {
+
+  private static final Address CONTRACT = Address.fromHexString("0x2222");
+  private static final Address MINING_BENEFICIARY = Address.fromHexString("0x3333");
+  private static final Address UNLISTED = Address.fromHexString("0x4444");
+
+  private BonsaiPersistedWorldState worldState;
+  private Block block;
+
+  @Before
+  public void setUp() {
+    worldState =
+        (BonsaiPersistedWorldState)
+            new BonsaiWorldStateArchive(
+                    new InMemoryKeyValueStorageProvider(), mock(Blockchain.class))
+                .getMutable();
+    final WorldUpdater updater = worldState.updater();
+    updater.createAccount(CONTRACT).getMutable().setStorageValue(UInt256.ONE, UInt256.valueOf(7));
+    updater.createAccount(UNLISTED, 0, Wei.ONE);
+    updater.commit();
+    worldState.persist(null);
+
+    final Transaction transaction =
+        Transaction.builder()
+            .type(TransactionType.ACCESS_LIST)
+            .nonce(0)
+            .gasPrice(Wei.ONE)
+            .gasLimit(100_000)
+            .to(CONTRACT)
+            .value(Wei.ZERO)
+            .payload(Bytes.EMPTY)
+            .accessList(List.of(new AccessListEntry(CONTRACT, List.of(UInt256.ONE.toBytes()))))
+            .chainId(BigInteger.ONE)
+            .signAndBuild(SignatureAlgorithmFactory.getInstance().generateKeyPair());
+    block =
+        new Block(
+            new BlockHeaderTestFixture().coinbase(MINING_BENEFICIARY).buildHeader(),
+            new BlockBody(List.of(transaction), Collections.emptyList()));
+  }
+
+  @Test
+  public void reportsTheShareOfReadsThatWerePrefetched() {
+    final BonsaiStatePrefetcher prefetcher =
+        new BonsaiStatePrefetcher(Runnable::run, 2, 0, new NoOpMetricsSystem());
+    final BonsaiStatePrefetcher.Prefetch prefetch = prefetcher.prefetch(worldState, block);
+
+    assertThat(worldState.get(CONTRACT)).isNotNull();
+    assertThat(worldState.getStorageValue(CONTRACT, UInt256.ONE)).isEqualTo(UInt256.valueOf(7));
+    assertThat(worldState.get(UNLISTED)).isNotNull();
+    assertThat(prefetch.getHitRatio()).isEqualTo(2.0 / 3.0);
+
+    prefetch.close();
+    worldState.get(MINING_BENEFICIARY);
+    assertThat(prefetch.getHitRatio()).isEqualTo(2.0 / 3.0);
+  }
+
+  @Test
+  public void blockIsStillReadableWhenThePrefetchCannotBeScheduled() {
+    final BonsaiStatePrefetcher prefetcher =
+        new BonsaiStatePrefetcher(
+            command -> {
+              throw new RejectedExecutionException();
+            },
+            2,
+            0,
+            new NoOpMetricsSystem());
+    try (final BonsaiStatePrefetcher.Prefetch prefetch = prefetcher.prefetch(worldState, block)) {
+      assertThat(worldState.getStorageValue(CONTRACT, UInt256.ONE)).isEqualTo(UInt256.valueOf(7));
+      assertThat(prefetch.getHitRatio()).isZero();
+    }
+  }
+}
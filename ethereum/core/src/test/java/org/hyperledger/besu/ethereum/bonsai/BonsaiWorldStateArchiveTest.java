@@ -38,6 +38,7 @@ import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.tuweni.bytes.Bytes32;
 import org.junit.Before;
@@ -84,6 +85,16 @@ public class BonsaiWorldStateArchiveTest {
         .containsInstanceOf(BonsaiPersistedWorldState.class);
   }
 
+  @Test
+  public void closeShutsTheTrieExecutorDown() {
+    bonsaiWorldStateArchive = new BonsaiWorldStateArchive(storageProvider, blockchain, 512, 2);
+    final ExecutorService trieExecutor = bonsaiWorldStateArchive.getTrieExecutor().orElseThrow();
+
+    bonsaiWorldStateArchive.close();
+
+    assertThat(trieExecutor.isShutdown()).isTrue();
+  }
+
   @Test
   public void testGetMutableReturnEmptyWhenLoadMoreThanLimitLayersBack() {
     bonsaiWorldStateArchive = new BonsaiWorldStateArchive(storageProvider, blockchain, 512);
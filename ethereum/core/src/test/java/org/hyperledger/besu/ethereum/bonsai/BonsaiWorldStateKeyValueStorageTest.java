@@ -14,13 +14,27 @@
  */
 package org.hyperledger.besu.ethereum.bonsai;
 
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateKeyValueStorage.WORLD_ROOT_HASH_KEY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import org.hyperledger.besu.datatypes.Address;
 import org.hyperledger.besu.datatypes.Hash;
 import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
 import org.hyperledger.besu.ethereum.trie.MerklePatriciaTrie;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
+import org.hyperledger.besu.services.kvstore.InMemoryKeyValueStorage;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
@@ -85,6 +99,39 @@ public class BonsaiWorldStateKeyValueStorageTest {
     assertThat(storage.getCode(null, Hash.EMPTY)).contains(bytes);
   }
 
+  @Test
+  public void getCodeByHash_returnsSavedCode() {
+    final Bytes bytes = Bytes.fromHexString("0x123456");
+    final BonsaiWorldStateKeyValueStorage storage = emptyStorage();
+    storage.updater().putCode(Hash.EMPTY, bytes).commit();
+
+    assertThat(storage.getCodeByHash(Hash.hash(bytes))).contains(bytes);
+    assertThat(storage.getCodeByHash(Hash.EMPTY)).contains(Bytes.EMPTY);
+  }
+
+  @Test
+  public void indexCodeByHash_indexesCodeStoredByAccountHashOnly() {
+    final Bytes bytes = Bytes.fromHexString("0x123456");
+    final Hash accountHash = Hash.hash(Address.fromHexString("0x1"));
+    final InMemoryKeyValueStorage codeStorage = new InMemoryKeyValueStorage();
+    final KeyValueStorageTransaction transaction = codeStorage.startTransaction();
+    transaction.put(accountHash.toArrayUnsafe(), bytes.toArrayUnsafe());
+    transaction.commit();
+    final BonsaiWorldStateKeyValueStorage storage =
+        new BonsaiWorldStateKeyValueStorage(
+            new InMemoryKeyValueStorage(),
+            codeStorage,
+            new InMemoryKeyValueStorage(),
+            new InMemoryKeyValueStorage(),
+            new InMemoryKeyValueStorage());
+    assertThat(storage.getCodeByHash(Hash.hash(bytes))).isEmpty();
+
+    storage.indexCodeByHash();
+
+    assertThat(storage.getCodeByHash(Hash.hash(bytes))).contains(bytes);
+    assertThat(storage.getCode(null, accountHash)).contains(bytes);
+  }
+
   @Test
   public void getAccountStateTrieNode_saveAndGetSpecialValues() {
     final BonsaiWorldStateKeyValueStorage storage = emptyStorage();
@@ -192,7 +239,192 @@ public class BonsaiWorldStateKeyValueStorageTest {
         .isTrue();
   }
 
+  @Test
+  public void trieNodeCache_servesCommittedNodesWithoutReadingStorage() {
+    final Bytes location = Bytes.fromHexString("0x01");
+    final Bytes bytes = Bytes.fromHexString("0x123456");
+    final InMemoryKeyValueStorage trieBranchStorage = spy(new InMemoryKeyValueStorage());
+    final BonsaiWorldStateKeyValueStorage storage = storageWithTrieNodeCache(trieBranchStorage);
+    storage.updater().putAccountStateTrieNode(location, Hash.hash(bytes), bytes).commit();
+
+    assertThat(storage.getAccountStateTrieNode(location, Hash.hash(bytes))).contains(bytes);
+    verify(trieBranchStorage, never()).get(any());
+  }
+
+  @Test
+  public void trieNodeCache_dropsRemovedNodes() {
+    final Bytes location = Bytes.fromHexString("0x01");
+    final Bytes bytes = Bytes.fromHexString("0x123456");
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithTrieNodeCache(new InMemoryKeyValueStorage());
+    storage.updater().putAccountStateTrieNode(location, Hash.hash(bytes), bytes).commit();
+    assertThat(storage.getAccountStateTrieNode(location, Hash.hash(bytes))).contains(bytes);
+
+    storage.updater().removeAccountStateTrieNode(location, Hash.hash(bytes)).commit();
+
+    assertThat(storage.getAccountStateTrieNode(location, Hash.hash(bytes))).isEmpty();
+  }
+
+  @Test
+  public void trieNodeCache_ignoresRolledBackNodes() {
+    final Hash accountHash = Hash.hash(Address.fromHexString("0x1"));
+    final Bytes location = Bytes.fromHexString("0x0102");
+    final Bytes bytes = Bytes.fromHexString("0x123456");
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithTrieNodeCache(new InMemoryKeyValueStorage());
+    final BonsaiWorldStateKeyValueStorage.Updater updater = storage.updater();
+    updater.putAccountStorageTrieNode(accountHash, location, Hash.hash(bytes), bytes);
+    updater.rollback();
+
+    assertThat(storage.getAccountStorageTrieNode(accountHash, location, Hash.hash(bytes)))
+        .isEmpty();
+  }
+
+  @Test
+  public void trieNodeCache_isClearedWithStorage() {
+    final Bytes location = Bytes.fromHexString("0x01");
+    final Bytes bytes = Bytes.fromHexString("0x123456");
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithTrieNodeCache(new InMemoryKeyValueStorage());
+    storage.updater().putAccountStateTrieNode(location, Hash.hash(bytes), bytes).commit();
+
+    storage.clear();
+
+    assertThat(storage.getAccountStateTrieNode(location, Hash.hash(bytes))).isEmpty();
+  }
+
+  @Test
+  public void backgroundWriter_servesPendingWritesFromMemory() {
+    final Hash accountHash = Hash.hash(Address.fromHexString("0x1"));
+    final Bytes account = Bytes.fromHexString("0x0123");
+    final InMemoryKeyValueStorage accountStorage = new InMemoryKeyValueStorage();
+    final InMemoryKeyValueStorage trieLogStorage = new InMemoryKeyValueStorage();
+    final CountDownLatch writerBlocked = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.execute(() -> awaitUninterruptibly(writerBlocked));
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithBackgroundWriter(accountStorage, trieLogStorage, executor);
+
+    final BonsaiWorldStateKeyValueStorage.Updater updater = storage.updater();
+    updater.putAccountInfoState(accountHash, account);
+    updater.getTrieLogStorageTransaction().put(Hash.ZERO.toArrayUnsafe(), account.toArray());
+    updater.commit();
+
+    assertThat(storage.getAccount(accountHash)).contains(account);
+    assertThat(accountStorage.get(accountHash.toArrayUnsafe())).isEmpty();
+    assertThat(storage.getTrieLog(Hash.ZERO)).isPresent();
+
+    writerBlocked.countDown();
+    storage.close();
+
+    assertThat(accountStorage.get(accountHash.toArrayUnsafe())).contains(account.toArray());
+    assertThat(storage.getAccount(accountHash)).contains(account);
+  }
+
+  @Test
+  public void backgroundWriter_servesPendingRemovalsFromMemory() {
+    final Hash accountHash = Hash.hash(Address.fromHexString("0x1"));
+    final Bytes account = Bytes.fromHexString("0x0123");
+    final InMemoryKeyValueStorage accountStorage = new InMemoryKeyValueStorage();
+    final CountDownLatch writerBlocked = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithBackgroundWriter(accountStorage, new InMemoryKeyValueStorage(), executor);
+    storage.updater().putAccountInfoState(accountHash, account).commit();
+    executor.execute(() -> awaitUninterruptibly(writerBlocked));
+
+    storage.updater().removeAccountInfoState(accountHash).commit();
+
+    assertThat(storage.getAccount(accountHash)).isEmpty();
+    assertThat(accountStorage.get(accountHash.toArrayUnsafe())).contains(account.toArray());
+
+    writerBlocked.countDown();
+    storage.close();
+
+    assertThat(accountStorage.get(accountHash.toArrayUnsafe())).isEmpty();
+  }
+
+  @Test
+  public void flatStateFilter_skipsTheStorageForAbsentSlots() {
+    final Hash accountHash = Hash.hash(Address.fromHexString("0x1"));
+    final Hash storedSlot = Hash.hash(Bytes.of(1));
+    final Hash absentSlot = Hash.hash(Bytes.of(2));
+    final InMemoryKeyValueStorage storageStorage = spy(new InMemoryKeyValueStorage());
+    final KeyValueStorageTransaction transaction = storageStorage.startTransaction();
+    transaction.put(Bytes.concatenate(accountHash, storedSlot).toArrayUnsafe(), new byte[] {1});
+    transaction.commit();
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithFlatStateFilter(storageStorage, Runnable::run);
+
+    assertThat(storage.getStorageValueBySlotHash(accountHash, storedSlot)).contains(Bytes.of(1));
+    assertThat(storage.getStorageValueBySlotHash(accountHash, absentSlot)).isEmpty();
+    verify(storageStorage, never()).get(Bytes.concatenate(accountHash, absentSlot).toArrayUnsafe());
+  }
+
+  @Test
+  public void flatStateFilter_findsWrittenSlots() {
+    final Hash accountHash = Hash.hash(Address.fromHexString("0x1"));
+    final Hash slot = Hash.hash(Bytes.of(1));
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithFlatStateFilter(new InMemoryKeyValueStorage(), Runnable::run);
+
+    storage.updater().putStorageValueBySlotHash(accountHash, slot, Bytes.of(1)).commit();
+
+    assertThat(storage.getStorageValueBySlotHash(accountHash, slot)).contains(Bytes.of(1));
+  }
+
+  @Test
+  public void flatStateFilter_readsTheStorageUntilRebuilt() {
+    final Hash accountHash = Hash.hash(Address.fromHexString("0x1"));
+    final Hash slot = Hash.hash(Bytes.of(1));
+    final InMemoryKeyValueStorage storageStorage = spy(new InMemoryKeyValueStorage());
+    final BonsaiWorldStateKeyValueStorage storage =
+        storageWithFlatStateFilter(storageStorage, runnable -> {});
+
+    assertThat(storage.getStorageValueBySlotHash(accountHash, slot)).isEmpty();
+    verify(storageStorage).get(Bytes.concatenate(accountHash, slot).toArrayUnsafe());
+  }
+
   private BonsaiWorldStateKeyValueStorage emptyStorage() {
     return new BonsaiWorldStateKeyValueStorage(new InMemoryKeyValueStorageProvider());
   }
+
+  private BonsaiWorldStateKeyValueStorage storageWithTrieNodeCache(
+      final InMemoryKeyValueStorage trieBranchStorage) {
+    return new BonsaiWorldStateKeyValueStorage(
+        new InMemoryKeyValueStorage(),
+        new InMemoryKeyValueStorage(),
+        new InMemoryKeyValueStorage(),
+        trieBranchStorage,
+        new InMemoryKeyValueStorage(),
+        new BonsaiTrieNodeCache(1024 * 1024, new NoOpMetricsSystem()));
+  }
+
+  private BonsaiWorldStateKeyValueStorage storageWithFlatStateFilter(
+      final InMemoryKeyValueStorage storageStorage, final Executor rebuildExecutor) {
+    return new BonsaiWorldStateKeyValueStorage(
+        new InMemoryKeyValueStorage(),
+        new InMemoryKeyValueStorage(),
+        storageStorage,
+        new InMemoryKeyValueStorage(),
+        new InMemoryKeyValueStorage(),
+        BonsaiTrieNodeCache.disabled(),
+        new BonsaiFlatStateFilter(1024, new NoOpMetricsSystem(), rebuildExecutor),
+        Optional.empty());
+  }
+
+  private BonsaiWorldStateKeyValueStorage storageWithBackgroundWriter(
+      final InMemoryKeyValueStorage accountStorage,
+      final InMemoryKeyValueStorage trieLogStorage,
+      final ExecutorService executor) {
+    return new BonsaiWorldStateKeyValueStorage(
+        accountStorage,
+        new InMemoryKeyValueStorage(),
+        new InMemoryKeyValueStorage(),
+        new InMemoryKeyValueStorage(),
+        trieLogStorage,
+        BonsaiTrieNodeCache.disabled(),
+        BonsaiFlatStateFilter.disabled(),
+        Optional.of(new BonsaiBackgroundWriter(4, new NoOpMetricsSystem(), executor)));
+  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.bonsai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.rlp.BytesValueRLPOutput;
+import org.hyperledger.besu.ethereum.worldstate.StateTrieAccountValue;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.units.bigints.UInt256;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class CompactTrieLogCodecTest {
+
+  private static final Hash BLOCK_HASH = Hash.hash(Bytes.of(1));
+  private static final Address CREATED = Address.fromHexString("0x01");
+  private static final Address UPDATED = Address.fromHexString("0x02");
+  private static final Address DELETED = Address.fromHexString("0x03");
+  private static final Hash SLOT_ONE = Hash.hash(Bytes.of(1));
+  private static final Hash SLOT_TWO = Hash.hash(Bytes.of(2));
+  private static final Hash SLOT_THREE = Hash.hash(Bytes.of(3));
+  private static final Hash SLOT_FOUR = Hash.hash(Bytes.of(4));
+  private static final StateTrieAccountValue ACCOUNT =
+      new StateTrieAccountValue(
+          1, Wei.of(1_000_000), Hash.EMPTY_TRIE_HASH, Hash.hash(Bytes.of(0, 1, 2)));
+  private static final StateTrieAccountValue UPDATED_ACCOUNT =
+      new StateTrieAccountValue(
+          2, Wei.of(999_000), Hash.hash(Bytes.of(5)), Hash.hash(Bytes.of(0, 1, 2)));
+  private static final UInt256 LARGE_VALUE =
+      UInt256.fromHexString("0x1000000000000000000000000000000000000000000000000000000000000000");
+
+  @Test
+  public void compactEncodingRoundTrips() {
+    final TrieLogLayer layer = layer();
+
+    final Bytes encoded = layer.toBytes();
+    assertThat(CompactTrieLogCodec.isCompact(encoded)).isTrue();
+
+    assertSameChanges(TrieLogLayer.fromBytes(encoded.toArrayUnsafe()), layer);
+  }
+
+  @Test
+  public void legacyEncodingIsStillRead() {
+    final TrieLogLayer layer = layer();
+    final BytesValueRLPOutput rlpLog = new BytesValueRLPOutput();
+    layer.writeTo(rlpLog);
+
+    assertThat(CompactTrieLogCodec.isCompact(rlpLog.encoded())).isFalse();
+    assertSameChanges(TrieLogLayer.fromBytes(rlpLog.encoded().toArrayUnsafe()), layer);
+  }
+
+  @Test
+  public void compactEncodingIsSmallerThanLegacyEncoding() {
+    final TrieLogLayer layer = layer();
+    final BytesValueRLPOutput rlpLog = new BytesValueRLPOutput();
+    layer.writeTo(rlpLog);
+
+    assertThat(layer.toBytes().size()).isLessThan(rlpLog.encodedSize());
+  }
+
+  @Test
+  public void replayVisitsChangesWithoutDecodingLayer() {
+    final CompactTrieLogCodec.ChangeVisitor visitor = mock(CompactTrieLogCodec.ChangeVisitor.class);
+
+    assertThat(CompactTrieLogCodec.replay(layer().toBytes(), visitor)).isEqualTo(BLOCK_HASH);
+
+    final InOrder inOrder = inOrder(visitor);
+    inOrder.verify(visitor).onAccountChange(CREATED, null, ACCOUNT);
+    inOrder.verify(visitor).onAccountChange(UPDATED, ACCOUNT, UPDATED_ACCOUNT);
+    inOrder.verify(visitor).onAccountChange(DELETED, ACCOUNT, null);
+    inOrder.verify(visitor).onCodeChange(CREATED, Bytes.EMPTY, Bytes.of(0, 1, 2));
+    inOrder.verify(visitor).onStorageChange(UPDATED, SLOT_ONE, UInt256.ONE, UInt256.valueOf(2));
+    verify(visitor).onStorageChange(UPDATED, SLOT_TWO, LARGE_VALUE, LARGE_VALUE.subtract(1));
+    verify(visitor).onStorageChange(UPDATED, SLOT_THREE, UInt256.valueOf(7), null);
+    verify(visitor).onStorageChange(UPDATED, SLOT_FOUR, LARGE_VALUE, LARGE_VALUE);
+    verifyNoMoreInteractions(visitor);
+  }
+
+  @Test
+  public void truncatedEncodingIsRejected() {
+    final Bytes encoded = layer().toBytes();
+    final Bytes truncated = encoded.slice(0, encoded.size() - 1);
+
+    assertThatThrownBy(() -> TrieLogLayer.fromBytes(truncated.toArrayUnsafe()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static TrieLogLayer layer() {
+    final TrieLogLayer layer = new TrieLogLayer();
+    layer.setBlockHash(BLOCK_HASH);
+    layer.addAccountChange(CREATED, null, ACCOUNT);
+    layer.addAccountChange(UPDATED, ACCOUNT, UPDATED_ACCOUNT);
+    layer.addAccountChange(DELETED, ACCOUNT, null);
+    layer.addCodeChange(CREATED, null, Bytes.of(0, 1, 2), BLOCK_HASH);
+    layer.addStorageChange(UPDATED, SLOT_ONE, UInt256.ONE, UInt256.valueOf(2));
+    layer.addStorageChange(UPDATED, SLOT_TWO, LARGE_VALUE, LARGE_VALUE.subtract(1));
+    layer.addStorageChange(UPDATED, SLOT_THREE, UInt256.valueOf(7), null);
+    layer.addStorageChange(UPDATED, SLOT_FOUR, LARGE_VALUE, LARGE_VALUE);
+    return layer;
+  }
+
+  private static void assertSameChanges(final TrieLogLayer actual, final TrieLogLayer expected) {
+    assertThat(actual.getBlockHash()).isEqualTo(expected.getBlockHash());
+    for (final Address address : new Address[] {CREATED, UPDATED, DELETED}) {
+      assertThat(actual.getPriorAccount(address)).isEqualTo(expected.getPriorAccount(address));
+      assertThat(actual.getAccount(address)).isEqualTo(expected.getAccount(address));
+      // the legacy encoding reads empty code back as no code
+      assertThat(actual.getPriorCode(address).orElse(Bytes.EMPTY))
+          .isEqualTo(expected.getPriorCode(address).orElse(Bytes.EMPTY));
+      assertThat(actual.getCode(address).orElse(Bytes.EMPTY))
+          .isEqualTo(expected.getCode(address).orElse(Bytes.EMPTY));
+    }
+    for (final Hash slotHash : new Hash[] {SLOT_ONE, SLOT_TWO, SLOT_THREE, SLOT_FOUR}) {
+      assertThat(actual.getPriorStorageBySlotHash(UPDATED, slotHash))
+          .isEqualTo(expected.getPriorStorageBySlotHash(UPDATED, slotHash));
+      assertThat(actual.getStorageBySlotHash(UPDATED, slotHash))
+          .isEqualTo(expected.getStorageBySlotHash(UPDATED, slotHash));
+    }
+  }
+}
@@ -27,7 +27,6 @@ import org.hyperledger.besu.ethereum.core.BlockHeader;
 import org.hyperledger.besu.ethereum.core.Difficulty;
 import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
 import org.hyperledger.besu.ethereum.mainnet.MainnetBlockHeaderFunctions;
-import org.hyperledger.besu.ethereum.rlp.BytesValueRLPInput;
 import org.hyperledger.besu.ethereum.storage.keyvalue.KeyValueSegmentIdentifier;
 import org.hyperledger.besu.evm.account.MutableAccount;
 import org.hyperledger.besu.evm.log.LogsBloomFilter;
@@ -181,8 +180,7 @@ public class LogRollingTests {
 
     final Optional<byte[]> value = trieLogStorage.get(headerOne.getHash().toArrayUnsafe());
 
-    final TrieLogLayer layer =
-        TrieLogLayer.readFrom(new BytesValueRLPInput(Bytes.wrap(value.get()), false));
+    final TrieLogLayer layer = TrieLogLayer.fromBytes(value.get());
 
     secondUpdater.rollForward(layer);
     secondUpdater.commit();
@@ -323,7 +321,7 @@ public class LogRollingTests {
   private TrieLogLayer getTrieLogLayer(final InMemoryKeyValueStorage storage, final Bytes key) {
     return storage
         .get(key.toArrayUnsafe())
-        .map(bytes -> TrieLogLayer.readFrom(new BytesValueRLPInput(Bytes.wrap(bytes), false)))
+        .map(TrieLogLayer::fromBytes)
         .get();
   }
 
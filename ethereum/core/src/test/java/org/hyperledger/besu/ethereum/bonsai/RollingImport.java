@@ -19,7 +19,6 @@ package org.hyperledger.besu.ethereum.bonsai;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
-import org.hyperledger.besu.ethereum.rlp.BytesValueRLPInput;
 import org.hyperledger.besu.ethereum.storage.keyvalue.KeyValueSegmentIdentifier;
 import org.hyperledger.besu.services.kvstore.InMemoryKeyValueStorage;
 import org.hyperledger.besu.util.io.RollingFileReader;
@@ -68,10 +67,8 @@ public class RollingImport {
         if (bytes.length < 1) {
           continue;
         }
-        final TrieLogLayer layer =
-            TrieLogLayer.readFrom(new BytesValueRLPInput(Bytes.wrap(bytes), false));
         final BonsaiWorldStateUpdater updater = (BonsaiWorldStateUpdater) bonsaiState.updater();
-        updater.rollForward(layer);
+        updater.rollForward(Bytes.wrap(bytes));
         updater.commit();
         bonsaiState.persist(null);
         if (count % 10000 == 0) {
@@ -96,10 +93,8 @@ public class RollingImport {
         count--;
         reader.seek(count);
         final byte[] bytes = reader.readBytes();
-        final TrieLogLayer layer =
-            TrieLogLayer.readFrom(new BytesValueRLPInput(Bytes.wrap(bytes), false));
         final BonsaiWorldStateUpdater updater = (BonsaiWorldStateUpdater) bonsaiState.updater();
-        updater.rollBack(layer);
+        updater.rollBack(Bytes.wrap(bytes));
         updater.commit();
         bonsaiState.persist(null);
         if (count % 10000 == 0) {
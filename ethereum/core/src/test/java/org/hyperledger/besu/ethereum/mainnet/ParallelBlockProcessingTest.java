@@ -0,0 +1,187 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.mainnet;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.hyperledger.besu.config.GenesisConfigFile;
+import org.hyperledger.besu.crypto.KeyPair;
+import org.hyperledger.besu.crypto.SignatureAlgorithmFactory;
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiPersistedWorldState;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateArchive;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateKeyValueStorage;
+import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.ethereum.core.Block;
+import org.hyperledger.besu.ethereum.core.BlockBody;
+import org.hyperledger.besu.ethereum.core.BlockHeader;
+import org.hyperledger.besu.ethereum.core.BlockHeaderTestFixture;
+import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
+import org.hyperledger.besu.ethereum.core.Transaction;
+import org.hyperledger.besu.ethereum.core.TransactionReceipt;
+import org.hyperledger.besu.ethereum.core.TransactionTestFixture;
+import org.hyperledger.besu.ethereum.core.Util;
+import org.hyperledger.besu.evm.internal.EvmConfiguration;
+import org.hyperledger.besu.evm.worldstate.WorldUpdater;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.units.bigints.UInt256;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelBlockProcessingTest {
+
+  private static final int SENDERS = 8;
+  private static final Address COUNTER = Address.fromHexString("0x1000");
+  // increments the value of slot 0
+  private static final Bytes COUNTER_CODE = Bytes.fromHexString("0x60005460010160005500");
+  private static final Address COINBASE = Address.fromHexString("0x2000");
+
+  private final ProtocolSchedule protocolSchedule =
+      MainnetProtocolSchedule.fromConfig(
+          GenesisConfigFile.fromConfig("{\"config\": {\"chainId\": 1337, \"istanbulBlock\": 0}}")
+              .getConfigOptions(),
+          EvmConfiguration.DEFAULT);
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final List<KeyPair> senders = new ArrayList<>();
+
+  public ParallelBlockProcessingTest() {
+    for (int i = 0; i < SENDERS; i++) {
+      senders.add(SignatureAlgorithmFactory.getInstance().generateKeyPair());
+    }
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void nonConflictingBlockMatchesSequentialProcessing() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < SENDERS; i++) {
+      transactions.add(transaction(senders.get(i), 0, Address.fromHexString("0x" + (3000 + i))));
+    }
+
+    assertParallelMatchesSequential(block(transactions));
+  }
+
+  @Test
+  public void conflictingBlockMatchesSequentialProcessing() {
+    final List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < SENDERS; i++) {
+      // every call reads the counter written by the call before it
+      transactions.add(transaction(senders.get(i), 0, COUNTER));
+    }
+    // and each of these reads the sender written by its first transaction
+    transactions.add(transaction(senders.get(0), 1, COUNTER));
+    transactions.add(transaction(senders.get(1), 1, Address.fromHexString("0x3000")));
+
+    final BonsaiPersistedWorldState parallelState =
+        assertParallelMatchesSequential(block(transactions));
+    assertThat(parallelState.get(COUNTER).getStorageValue(UInt256.ZERO))
+        .isEqualTo(UInt256.valueOf(SENDERS + 1));
+  }
+
+  private BonsaiPersistedWorldState assertParallelMatchesSequential(final Block block) {
+    final BlockProcessor blockProcessor =
+        protocolSchedule.getByBlockNumber(block.getHeader().getNumber()).getBlockProcessor();
+
+    final BonsaiPersistedWorldState sequentialState = createWorldState();
+    final BlockProcessor.Result sequential =
+        blockProcessor.processBlock(blockchain, sequentialState, block);
+    final BonsaiPersistedWorldState parallelState = createWorldState();
+    final BlockProcessor.Result parallel =
+        blockProcessor.processBlock(
+            blockchain,
+            parallelState,
+            block,
+            new ParallelTransactionProcessor(executor, new NoOpMetricsSystem()));
+
+    assertThat(sequential.isSuccessful()).isTrue();
+    assertThat(sequential.getReceipts()).allMatch(receipt -> receipt.getStatus() == 1);
+    assertThat(parallel.isSuccessful()).isTrue();
+    assertThat(parallel.getReceipts()).isEqualTo(sequential.getReceipts());
+    assertThat(gasUsed(parallel)).isEqualTo(gasUsed(sequential));
+    assertThat(parallelState.rootHash()).isEqualTo(sequentialState.rootHash());
+    return parallelState;
+  }
+
+  private static long gasUsed(final BlockProcessor.Result result) {
+    final List<TransactionReceipt> receipts = result.getReceipts();
+    return receipts.get(receipts.size() - 1).getCumulativeGasUsed();
+  }
+
+  private BonsaiPersistedWorldState createWorldState() {
+    final InMemoryKeyValueStorageProvider provider = new InMemoryKeyValueStorageProvider();
+    final BonsaiPersistedWorldState worldState =
+        new AnyRootWorldState(
+            new BonsaiWorldStateArchive(provider, blockchain),
+            new BonsaiWorldStateKeyValueStorage(provider));
+    final WorldUpdater updater = worldState.updater();
+    for (final KeyPair sender : senders) {
+      updater.createAccount(Util.publicKeyToAddress(sender.getPublicKey()), 0, Wei.fromEth(1));
+    }
+    updater.createAccount(COUNTER).getMutable().setCode(COUNTER_CODE);
+    updater.commit();
+    worldState.persist(null);
+    return worldState;
+  }
+
+  private static Transaction transaction(final KeyPair sender, final long nonce, final Address to) {
+    return new TransactionTestFixture()
+        .sender(Util.publicKeyToAddress(sender.getPublicKey()))
+        .nonce(nonce)
+        .to(Optional.of(to))
+        .gasLimit(100_000)
+        .createTransaction(sender);
+  }
+
+  private static Block block(final List<Transaction> transactions) {
+    final BlockHeader header =
+        new BlockHeaderTestFixture()
+            .number(1)
+            .coinbase(COINBASE)
+            .gasLimit(10_000_000)
+            .buildHeader();
+    return new Block(header, new BlockBody(transactions, emptyList()));
+  }
+
+  /** Persists the state of a block without checking the root hash, which is not known up front. */
+  private static class AnyRootWorldState extends BonsaiPersistedWorldState {
+
+    AnyRootWorldState(
+        final BonsaiWorldStateArchive archive,
+        final BonsaiWorldStateKeyValueStorage worldStateStorage) {
+      super(archive, worldStateStorage);
+    }
+
+    @Override
+    public void persist(final BlockHeader blockHeader) {
+      super.persist(null);
+    }
+  }
+}
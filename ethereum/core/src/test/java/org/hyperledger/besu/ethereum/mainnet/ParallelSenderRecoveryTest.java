@@ -0,0 +1,67 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.mainnet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hyperledger.besu.datatypes.Address;
+import org.hyperledger.besu.ethereum.core.BlockDataGenerator;
+import org.hyperledger.besu.ethereum.core.Transaction;
+import org.hyperledger.besu.ethereum.rlp.RLP;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class ParallelSenderRecoveryTest {
+
+  private final BlockDataGenerator generator = new BlockDataGenerator();
+  private final AtomicInteger submittedTasks = new AtomicInteger();
+  private final Executor executor =
+      command -> {
+        submittedTasks.incrementAndGet();
+        command.run();
+      };
+
+  @Test
+  public void recoversAllSendersSplittingTheWorkBetweenWorkers() {
+    final List<Transaction> transactions =
+        IntStream.range(0, 10).mapToObj(i -> generator.transaction()).collect(Collectors.toList());
+    final List<Address> expectedSenders =
+        transactions.stream()
+            .map(transaction -> Transaction.readFrom(RLP.encode(transaction::writeTo)).getSender())
+            .collect(Collectors.toList());
+
+    new ParallelSenderRecovery(executor, 4, new NoOpMetricsSystem()).recoverSenders(transactions);
+
+    // one slice is recovered by the calling thread
+    assertThat(submittedTasks).hasValue(3);
+    assertThat(transactions.stream().map(Transaction::getSender).collect(Collectors.toList()))
+        .isEqualTo(expectedSenders);
+  }
+
+  @Test
+  public void doesNotUseTheExecutorForASingleTransaction() {
+    new ParallelSenderRecovery(executor, 4, new NoOpMetricsSystem())
+        .recoverSenders(List.of(generator.transaction()));
+
+    assertThat(submittedTasks).hasValue(0);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.storage.keyvalue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.evm.Code;
+import org.hyperledger.besu.evm.EVM;
+import org.hyperledger.besu.evm.MainnetEVMs;
+import org.hyperledger.besu.evm.internal.EvmConfiguration;
+import org.hyperledger.besu.services.kvstore.InMemoryKeyValueStorage;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.Test;
+
+public class CodeAnalysisKeyValueStorageTest {
+
+  private static final Bytes CODE = Bytes.fromHexString("0x600456fe5b00");
+  private static final Hash CODE_HASH = Hash.hash(CODE);
+
+  @Test
+  public void getJumpDestinations_returnsEmptyWhenMissing() {
+    final CodeAnalysisKeyValueStorage storage =
+        new CodeAnalysisKeyValueStorage(new InMemoryKeyValueStorage());
+    assertThat(storage.getJumpDestinations(CODE_HASH)).isEmpty();
+  }
+
+  @Test
+  public void putJumpDestinations_roundTrips() {
+    final CodeAnalysisKeyValueStorage storage =
+        new CodeAnalysisKeyValueStorage(new InMemoryKeyValueStorage());
+    final long[] bitmap = {0x10L, -1L, Long.MIN_VALUE};
+    storage.putJumpDestinations(CODE_HASH, bitmap);
+    assertThat(storage.getJumpDestinations(CODE_HASH))
+        .hasValueSatisfying(stored -> assertThat(stored).containsExactly(bitmap));
+  }
+
+  @Test
+  public void putJumpDestinations_writesInBatches() {
+    final InMemoryKeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+    final CodeAnalysisKeyValueStorage storage = new CodeAnalysisKeyValueStorage(keyValueStorage, 2);
+    final Hash otherCodeHash = Hash.hash(Bytes.fromHexString("0x5b00"));
+
+    storage.putJumpDestinations(CODE_HASH, new long[] {0x10L});
+    assertThat(keyValueStorage.get(CODE_HASH.toArrayUnsafe())).isEmpty();
+    assertThat(storage.getJumpDestinations(CODE_HASH)).isPresent();
+
+    storage.putJumpDestinations(otherCodeHash, new long[] {0x01L});
+    assertThat(keyValueStorage.get(CODE_HASH.toArrayUnsafe())).isPresent();
+    assertThat(keyValueStorage.get(otherCodeHash.toArrayUnsafe())).isPresent();
+  }
+
+  @Test
+  public void initCodeAnalysisIsNotPersisted() {
+    final CodeAnalysisKeyValueStorage storage =
+        new CodeAnalysisKeyValueStorage(new InMemoryKeyValueStorage());
+    final EVM evm =
+        MainnetEVMs.london(new EvmConfiguration(32_000L, true).withCodeAnalysisStorage(storage));
+
+    final Code initCode = evm.getInitCode(CODE);
+
+    assertThat(initCode.isJumpDestInvalid(4)).isFalse();
+    assertThat(evm.getCodeCache().getStoredAnalysisMissCount()).isZero();
+    assertThat(storage.getJumpDestinations(CODE_HASH)).isEmpty();
+  }
+
+  @Test
+  public void analysisSurvivesAcrossEvmInstances() {
+    final CodeAnalysisKeyValueStorage storage =
+        new CodeAnalysisKeyValueStorage(new InMemoryKeyValueStorage());
+    final EvmConfiguration configuration =
+        new EvmConfiguration(32_000L, true).withCodeAnalysisStorage(storage);
+
+    final EVM first = MainnetEVMs.london(configuration);
+    final Code analysed = first.getCode(CODE_HASH, CODE);
+    assertThat(analysed.isJumpDestInvalid(4)).isFalse();
+    assertThat(first.getCodeCache().getStoredAnalysisMissCount()).isEqualTo(1);
+
+    final EVM second = MainnetEVMs.london(configuration);
+    final Code restored = second.getCode(CODE_HASH, CODE);
+    assertThat(second.getCodeCache().getStoredAnalysisHitCount()).isEqualTo(1);
+    assertThat(restored.isJumpDestInvalid(4)).isFalse();
+    assertThat(restored.isJumpDestInvalid(3)).isTrue();
+  }
+}
@@ -19,14 +19,19 @@ import static org.mockito.ArgumentMatchers.anyByte;
 import static org.mockito.Mockito.when;
 
 import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.ethereum.core.MessageFrameTestFixture;
 import org.hyperledger.besu.evm.Code;
 import org.hyperledger.besu.evm.EVM;
+import org.hyperledger.besu.evm.MainnetEVMs;
+import org.hyperledger.besu.evm.frame.ExceptionalHaltReason;
+import org.hyperledger.besu.evm.frame.MessageFrame;
 import org.hyperledger.besu.evm.gascalculator.FrontierGasCalculator;
 import org.hyperledger.besu.evm.gascalculator.GasCalculator;
 import org.hyperledger.besu.evm.internal.EvmConfiguration;
 import org.hyperledger.besu.evm.operation.Operation;
 import org.hyperledger.besu.evm.operation.OperationRegistry;
 import org.hyperledger.besu.evm.operation.StopOperation;
+import org.hyperledger.besu.evm.tracing.OperationTracer;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.junit.Before;
@@ -65,4 +70,94 @@ public class EVMTest {
     assertThat(operation).isNotNull();
     assertThat(operation.isVirtualOperation()).isFalse();
   }
+
+  @Test
+  public void untracedExecutionMatchesTracedExecution() {
+    // PUSH1 2, PUSH1 3, ADD, PUSH1 0, MSTORE, PUSH1 12, JUMP, INVALID, JUMPDEST, PUSH1 32,
+    // PUSH1 0, RETURN
+    final Bytes program = Bytes.fromHexString("0x6002600301600052600c56fe5b60206000f3");
+    final Code code = Code.createLegacyCode(program, Hash.hash(program));
+    final EVM londonEvm = MainnetEVMs.london(EvmConfiguration.DEFAULT);
+
+    final MessageFrame untraced = new MessageFrameTestFixture().code(code).initialGas(100L).build();
+    untraced.setState(MessageFrame.State.CODE_EXECUTING);
+    londonEvm.runToHalt(untraced, OperationTracer.NO_TRACING);
+
+    final MessageFrame traced = new MessageFrameTestFixture().code(code).initialGas(100L).build();
+    traced.setState(MessageFrame.State.CODE_EXECUTING);
+    londonEvm.runToHalt(traced, (frame, executeOperation) -> executeOperation.execute());
+
+    assertThat(untraced.getState()).isEqualTo(MessageFrame.State.CODE_SUCCESS);
+    assertThat(untraced.getState()).isEqualTo(traced.getState());
+    assertThat(untraced.getRemainingGas()).isEqualTo(traced.getRemainingGas());
+    assertThat(untraced.getPC()).isEqualTo(traced.getPC());
+    assertThat(untraced.getOutputData()).isEqualTo(traced.getOutputData());
+    assertThat(untraced.getOutputData().getInt(28)).isEqualTo(5);
+  }
+
+  @Test
+  public void untracedExecutionHaltsInsideBasicBlockLikeTracedExecution() {
+    // PUSH1 2, PUSH1 3, ADD, PUSH1 0 form a block costing 12 gas; 7 gas runs out at the ADD
+    final Bytes program = Bytes.fromHexString("0x6002600301600052600c56fe5b60206000f3");
+    final Code code = Code.createLegacyCode(program, Hash.hash(program));
+    final EVM londonEvm = MainnetEVMs.london(EvmConfiguration.DEFAULT);
+
+    final MessageFrame untraced = new MessageFrameTestFixture().code(code).initialGas(7L).build();
+    untraced.setState(MessageFrame.State.CODE_EXECUTING);
+    londonEvm.runToHalt(untraced, OperationTracer.NO_TRACING);
+
+    final MessageFrame traced = new MessageFrameTestFixture().code(code).initialGas(7L).build();
+    traced.setState(MessageFrame.State.CODE_EXECUTING);
+    londonEvm.runToHalt(traced, (frame, executeOperation) -> executeOperation.execute());
+
+    assertThat(untraced.getState()).isEqualTo(MessageFrame.State.EXCEPTIONAL_HALT);
+    assertThat(untraced.getExceptionalHaltReason())
+        .contains(ExceptionalHaltReason.INSUFFICIENT_GAS);
+    assertThat(untraced.getExceptionalHaltReason()).isEqualTo(traced.getExceptionalHaltReason());
+    assertThat(untraced.getPC()).isEqualTo(traced.getPC()).isEqualTo(4);
+    assertThat(untraced.getRemainingGas()).isEqualTo(traced.getRemainingGas());
+  }
+
+  @Test
+  public void superinstructionsMatchTracedExecution() {
+    // PUSH1 1, ISZERO, PUSH1 10, JUMPI, PUSH1 11, JUMP, INVALID, INVALID, JUMPDEST, PUSH1 5,
+    // PUSH1 7, SWAP1, POP, PUSH1 0, MSTORE, PUSH1 32, PUSH1 0, RETURN
+    final Bytes program =
+        Bytes.fromHexString("0x600115600a57600b56fefe5b60056007905060005260206000f3");
+    final MessageFrame untraced = runWithSuperinstructions(program, OperationTracer.NO_TRACING);
+    final MessageFrame traced =
+        runWithSuperinstructions(program, (frame, executeOperation) -> executeOperation.execute());
+
+    assertThat(untraced.getState()).isEqualTo(MessageFrame.State.CODE_SUCCESS);
+    assertThat(untraced.getState()).isEqualTo(traced.getState());
+    assertThat(untraced.getRemainingGas()).isEqualTo(traced.getRemainingGas());
+    assertThat(untraced.getPC()).isEqualTo(traced.getPC());
+    assertThat(untraced.getOutputData()).isEqualTo(traced.getOutputData());
+    assertThat(untraced.getOutputData().getInt(28)).isEqualTo(7);
+  }
+
+  @Test
+  public void superinstructionHaltsAtTheJumpOnInvalidDestination() {
+    // PUSH1 1, PUSH1 4, JUMPI
+    final Bytes program = Bytes.fromHexString("0x6001600457");
+    final MessageFrame untraced = runWithSuperinstructions(program, OperationTracer.NO_TRACING);
+    final MessageFrame traced =
+        runWithSuperinstructions(program, (frame, executeOperation) -> executeOperation.execute());
+
+    assertThat(untraced.getState()).isEqualTo(MessageFrame.State.EXCEPTIONAL_HALT);
+    assertThat(untraced.getExceptionalHaltReason())
+        .contains(ExceptionalHaltReason.INVALID_JUMP_DESTINATION);
+    assertThat(untraced.getExceptionalHaltReason()).isEqualTo(traced.getExceptionalHaltReason());
+    assertThat(untraced.getPC()).isEqualTo(traced.getPC()).isEqualTo(4);
+  }
+
+  private static MessageFrame runWithSuperinstructions(
+      final Bytes program, final OperationTracer tracer) {
+    final EVM londonEvm = MainnetEVMs.london(new EvmConfiguration(32_000L, false, true));
+    final Code code = londonEvm.getCode(Hash.hash(program), program);
+    final MessageFrame frame = new MessageFrameTestFixture().code(code).initialGas(100L).build();
+    frame.setState(MessageFrame.State.CODE_EXECUTING);
+    londonEvm.runToHalt(frame, tracer);
+    return frame;
+  }
 }
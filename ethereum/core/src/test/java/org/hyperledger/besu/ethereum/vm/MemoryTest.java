@@ -224,4 +224,49 @@ public class MemoryTest {
     assertThat(memory.getWord(32)).isEqualTo(Bytes32.ZERO);
     assertThat(memory.getWord(64)).isEqualTo(Bytes32.ZERO);
   }
+
+  @Test
+  public void shouldKeepMemoryBeyondActiveWordsZeroWhenGrowing() {
+    memory.setWord(0, WORD1);
+    memory.setWord(32, WORD2);
+    assertThat(memory.getWord(64)).isEqualTo(Bytes32.ZERO);
+    assertThat(memory.getWord(4096)).isEqualTo(Bytes32.ZERO);
+    assertThat(memory.getWord(0)).isEqualTo(WORD1);
+    assertThat(memory.getWord(32)).isEqualTo(WORD2);
+  }
+
+  @Test
+  public void shouldOnlyCompareActiveBytes() {
+    final Memory other = new Memory();
+    memory.setWord(0, WORD1);
+    memory.getWord(4096);
+    other.setWord(0, WORD1);
+    assertThat(memory).isNotEqualTo(other);
+
+    other.getWord(4096);
+    assertThat(memory).isEqualTo(other);
+    assertThat(memory.hashCode()).isEqualTo(other.hashCode());
+  }
+
+  @Test
+  public void shouldReadBytesWithoutCopy() {
+    memory.setWord(0, WORD1);
+    final Bytes value = memory.getBytesWithoutCopy(16, 1008);
+    assertThat(value.slice(0, 32))
+        .isEqualTo(Bytes.concatenate(WORD1.slice(16), Bytes32.ZERO.slice(16)));
+
+    memory.setWord(32, WORD2);
+    assertThat(value.slice(0, 32))
+        .isEqualTo(Bytes.concatenate(WORD1.slice(16), WORD2.slice(0, 16)));
+  }
+
+  @Test
+  public void shouldCopyShortBytesReadWithoutCopy() {
+    memory.setWord(0, WORD1);
+    memory.setWord(992, WORD2);
+    final Bytes value = memory.getBytesWithoutCopy(16, 32);
+
+    memory.setWord(32, WORD2);
+    assertThat(value).isEqualTo(Bytes.concatenate(WORD1.slice(16), Bytes32.ZERO.slice(16)));
+  }
 }
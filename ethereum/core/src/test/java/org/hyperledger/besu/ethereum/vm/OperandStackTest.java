@@ -20,6 +20,7 @@ import org.hyperledger.besu.evm.internal.FixedStack.OverflowException;
 import org.hyperledger.besu.evm.internal.FixedStack.UnderflowException;
 import org.hyperledger.besu.evm.internal.OperandStack;
 
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import org.apache.tuweni.units.bigints.UInt256;
 import org.junit.Test;
@@ -108,4 +109,78 @@ public class OperandStackTest {
     assertThat(stack.get(1)).isEqualTo(Bytes32.fromHexString("0x02"));
     assertThat(stack.get(2)).isEqualTo(Bytes32.fromHexString("0x04"));
   }
+
+  @Test
+  public void add_WrapsAround() {
+    final OperandStack stack = new OperandStack(2);
+    stack.push(Bytes.of(2));
+    stack.push(UInt256.MAX_VALUE);
+    stack.add();
+    assertThat(stack.size()).isEqualTo(1);
+    assertThat(stack.pop()).isEqualTo(Bytes32.fromHexString("0x01"));
+  }
+
+  @Test
+  public void sub_WrapsAround() {
+    final OperandStack stack = new OperandStack(2);
+    stack.push(Bytes.of(1));
+    stack.push(Bytes.EMPTY);
+    stack.sub();
+    assertThat(stack.pop()).isEqualTo(UInt256.MAX_VALUE);
+  }
+
+  @Test
+  public void mul_CarriesAcrossLimbs() {
+    final OperandStack stack = new OperandStack(2);
+    stack.push(UInt256.fromHexString("0xffffffffffffffffffffffffffffffff"));
+    stack.push(UInt256.fromHexString("0xffffffffffffffffffffffffffffffff"));
+    stack.mul();
+    assertThat(stack.pop())
+        .isEqualTo(
+            Bytes32.fromHexString(
+                "0xfffffffffffffffffffffffffffffffe00000000000000000000000000000001"));
+  }
+
+  @Test
+  public void signExtend_NegativeByte() {
+    final OperandStack stack = new OperandStack(2);
+    stack.push(Bytes.fromHexString("0x0180"));
+    stack.push(Bytes.of(0));
+    stack.signExtend();
+    assertThat(stack.pop())
+        .isEqualTo(
+            Bytes32.fromHexString(
+                "0xffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff80"));
+  }
+
+  @Test
+  public void signExtend_IndexOutOfRangeKeepsValue() {
+    final OperandStack stack = new OperandStack(2);
+    final Bytes value = Bytes.fromHexString("0x80");
+    stack.push(value);
+    stack.push(Bytes.of(31));
+    stack.signExtend();
+    assertThat(stack.pop()).isSameAs(value);
+  }
+
+  @Test
+  public void dupAndSwapPreserveLimbValues() {
+    final OperandStack stack = new OperandStack(4);
+    stack.push(Bytes.of(3));
+    stack.push(Bytes.of(4));
+    stack.add();
+    stack.push(Bytes.of(1));
+    stack.dup(2);
+    stack.swap(1);
+    assertThat(stack.get(0)).isEqualTo(Bytes32.fromHexString("0x01"));
+    assertThat(stack.get(1)).isEqualTo(Bytes32.fromHexString("0x07"));
+    assertThat(stack.get(2)).isEqualTo(Bytes32.fromHexString("0x07"));
+  }
+
+  @Test(expected = UnderflowException.class)
+  public void add_StackUnderflow() {
+    final OperandStack stack = new OperandStack(2);
+    stack.push(Bytes.of(1));
+    stack.add();
+  }
 }
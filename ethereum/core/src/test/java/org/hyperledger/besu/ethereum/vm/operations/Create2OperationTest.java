@@ -165,10 +165,12 @@ public class Create2OperationTest {
     when(mutableAccount.getBalance()).thenReturn(Wei.ZERO);
     when(worldUpdater.getAccount(any())).thenReturn(account);
     when(worldUpdater.updater()).thenReturn(worldUpdater);
-    when(evm.getCode(any(), any()))
+    when(evm.getInitCode(any()))
         .thenAnswer(
-            invocation ->
-                Code.createLegacyCode(invocation.getArgument(1), invocation.getArgument(0)));
+            invocation -> {
+              final Bytes initCode = invocation.getArgument(0);
+              return Code.createLegacyCode(initCode, Hash.hash(initCode));
+            });
   }
 
   @Test
@@ -0,0 +1,215 @@
+/*
+ * Copyright ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.eth.manager.snap;
+
+import static org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider.createInMemoryBlockchain;
+import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_BACKGROUND_THREAD_COUNT;
+import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_CACHE_CAPACITY;
+import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_MAX_BACKGROUND_COMPACTIONS;
+import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_MAX_OPEN_FILES;
+
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateKeyValueStorage;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldView;
+import org.hyperledger.besu.ethereum.chain.MutableBlockchain;
+import org.hyperledger.besu.ethereum.core.BlockDataGenerator;
+import org.hyperledger.besu.ethereum.eth.manager.EthMessage;
+import org.hyperledger.besu.ethereum.eth.manager.EthMessages;
+import org.hyperledger.besu.ethereum.eth.manager.EthPeer;
+import org.hyperledger.besu.ethereum.eth.manager.EthProtocolManager;
+import org.hyperledger.besu.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetAccountRangeMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetStorageRangeMessage;
+import org.hyperledger.besu.ethereum.eth.sync.snapsync.RangeManager;
+import org.hyperledger.besu.ethereum.p2p.rlpx.wire.MessageData;
+import org.hyperledger.besu.ethereum.rlp.RLP;
+import org.hyperledger.besu.ethereum.storage.StorageProvider;
+import org.hyperledger.besu.ethereum.storage.keyvalue.KeyValueSegmentIdentifier;
+import org.hyperledger.besu.ethereum.storage.keyvalue.KeyValueStorageProviderBuilder;
+import org.hyperledger.besu.ethereum.trie.MerklePatriciaTrie;
+import org.hyperledger.besu.ethereum.trie.StoredMerklePatriciaTrie;
+import org.hyperledger.besu.ethereum.worldstate.StateTrieAccountValue;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.hyperledger.besu.plugin.services.storage.rocksdb.RocksDBKeyValueStorageFactory;
+import org.hyperledger.besu.plugin.services.storage.rocksdb.RocksDBMetricsFactory;
+import org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBFactoryConfiguration;
+import org.hyperledger.besu.services.BesuConfigurationImpl;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.io.Files;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.units.bigints.UInt256;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Serves the snap requests of many peers at once from a Bonsai world state stored in RocksDB, to
+ * measure how many requests and bytes {@link SnapServer} serves per second.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class SnapServerBenchmark {
+
+  private static final int ACCOUNT_COUNT = 20_000;
+  private static final int SLOT_COUNT = 10;
+  private static final int PEER_COUNT = 32;
+  private static final int ACCOUNTS_PER_STORAGE_REQUEST = 16;
+  // large enough for the peers never to be throttled
+  private static final long PEER_BYTES_PER_SECOND = 1L << 40;
+
+  private final List<Hash> accountHashes = new ArrayList<>();
+  private final List<EthPeer> peers = new ArrayList<>();
+  private final EthMessages snapMessages = new EthMessages();
+  private Path tempDir;
+  private StorageProvider storageProvider;
+  private EthProtocolManager ethProtocolManager;
+  private Hash rootHash;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    tempDir = Files.createTempDir().toPath();
+    storageProvider = createKeyValueStorageProvider(tempDir, tempDir.resolve("database"));
+    final BonsaiWorldStateKeyValueStorage worldStateStorage =
+        new BonsaiWorldStateKeyValueStorage(storageProvider);
+    rootHash = createWorldState(worldStateStorage);
+
+    final MutableBlockchain blockchain =
+        createInMemoryBlockchain(new BlockDataGenerator().genesisBlock());
+    ethProtocolManager = EthProtocolManagerTestUtil.create(blockchain);
+    for (int i = 0; i < PEER_COUNT; i++) {
+      peers.add(EthProtocolManagerTestUtil.createPeer(ethProtocolManager).getEthPeer());
+    }
+    new SnapServer(
+        snapMessages,
+        worldStateStorage,
+        blockchain,
+        new NoOpMetricsSystem(),
+        PEER_BYTES_PER_SECOND,
+        Clock.systemUTC());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    ethProtocolManager.stop();
+    ethProtocolManager.awaitStop();
+    storageProvider.close();
+    MoreFiles.deleteRecursively(tempDir, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  public Optional<MessageData> accountRange() {
+    final Hash startKeyHash = Hash.wrap(Bytes32.random());
+    return dispatch(GetAccountRangeMessage.create(rootHash, startKeyHash, RangeManager.MAX_RANGE));
+  }
+
+  @Benchmark
+  public Optional<MessageData> storageRange() {
+    final int first = ThreadLocalRandom.current().nextInt(ACCOUNT_COUNT);
+    final List<Bytes32> requestedAccounts =
+        new ArrayList<>(
+            accountHashes.subList(
+                first, Math.min(first + ACCOUNTS_PER_STORAGE_REQUEST, ACCOUNT_COUNT)));
+    return dispatch(
+        GetStorageRangeMessage.create(
+            rootHash, requestedAccounts, Hash.ZERO, RangeManager.MAX_RANGE));
+  }
+
+  private Optional<MessageData> dispatch(final MessageData request) {
+    final EthPeer peer = peers.get(ThreadLocalRandom.current().nextInt(PEER_COUNT));
+    return snapMessages.dispatch(new EthMessage(peer, request.wrapMessageData(BigInteger.ONE)));
+  }
+
+  private Hash createWorldState(final BonsaiWorldStateKeyValueStorage worldStateStorage) {
+    final MerklePatriciaTrie<Bytes, Bytes> accountTrie =
+        new StoredMerklePatriciaTrie<>(
+            worldStateStorage::getAccountStateTrieNode, b -> b, b -> b);
+    BonsaiWorldStateKeyValueStorage.Updater updater = worldStateStorage.updater();
+    for (int i = 0; i < ACCOUNT_COUNT; i++) {
+      final Hash accountHash = Hash.hash(Bytes.ofUnsignedInt(i));
+      final MerklePatriciaTrie<Bytes32, Bytes> storageTrie =
+          new StoredMerklePatriciaTrie<>(
+              (location, hash) ->
+                  worldStateStorage.getAccountStorageTrieNode(accountHash, location, hash),
+              b -> b,
+              b -> b);
+      for (int slot = 1; slot <= SLOT_COUNT; slot++) {
+        final Hash slotHash = Hash.hash(UInt256.valueOf(slot));
+        final UInt256 value = UInt256.valueOf(i + slot);
+        storageTrie.put(slotHash, BonsaiWorldView.encodeTrieValue(value));
+        updater.putStorageValueBySlotHash(accountHash, slotHash, value);
+      }
+      final BonsaiWorldStateKeyValueStorage.Updater storageUpdater = updater;
+      storageTrie.commit(
+          (location, hash, value) ->
+              storageUpdater.putAccountStorageTrieNode(accountHash, location, hash, value));
+      final StateTrieAccountValue account =
+          new StateTrieAccountValue(
+              i, Wei.of(i), Hash.wrap(storageTrie.getRootHash()), Hash.EMPTY);
+      final Bytes accountValue = RLP.encode(account::writeTo);
+      accountTrie.put(accountHash, accountValue);
+      updater.putAccountInfoState(accountHash, accountValue);
+      accountHashes.add(accountHash);
+      if (i % 1_000 == 999) {
+        updater.commit();
+        updater = worldStateStorage.updater();
+      }
+    }
+    accountTrie.commit(updater::putAccountStateTrieNode);
+    final Hash rootHash = Hash.wrap(accountTrie.getRootHash());
+    updater
+        .getTrieBranchStorageTransaction()
+        .put(BonsaiWorldStateKeyValueStorage.WORLD_ROOT_HASH_KEY, rootHash.toArrayUnsafe());
+    updater
+        .getTrieBranchStorageTransaction()
+        .put(BonsaiWorldStateKeyValueStorage.WORLD_BLOCK_HASH_KEY, Hash.ZERO.toArrayUnsafe());
+    updater.commit();
+    accountHashes.sort(Bytes::compareTo);
+    return rootHash;
+  }
+
+  private StorageProvider createKeyValueStorageProvider(final Path dataDir, final Path dbDir) {
+    return new KeyValueStorageProviderBuilder()
+        .withStorageFactory(
+            new RocksDBKeyValueStorageFactory(
+                () ->
+                    new RocksDBFactoryConfiguration(
+                        DEFAULT_MAX_OPEN_FILES,
+                        DEFAULT_MAX_BACKGROUND_COMPACTIONS,
+                        DEFAULT_BACKGROUND_THREAD_COUNT,
+                        DEFAULT_CACHE_CAPACITY),
+                Arrays.asList(KeyValueSegmentIdentifier.values()),
+                RocksDBMetricsFactory.PUBLIC_ROCKS_DB_METRICS))
+        .withCommonConfiguration(new BesuConfigurationImpl(dataDir, dbDir))
+        .withMetricsSystem(new NoOpMetricsSystem())
+        .build();
+  }
+}
@@ -24,7 +24,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class EthMessages {
   private final Map<Integer, Subscribers<MessageCallback>> listenersByCode =
       new ConcurrentHashMap<>();
-  private final Map<Integer, MessageResponseConstructor> messageResponseConstructorsByCode =
+  private final Map<Integer, PeerMessageResponseConstructor> messageResponseConstructorsByCode =
       new ConcurrentHashMap<>();
 
   public Optional<MessageData> dispatch(final EthMessage ethMessage) {
@@ -36,9 +36,7 @@ public class EthMessages {
             listeners -> listeners.forEach(messageCallback -> messageCallback.exec(ethMessage)));
 
     return Optional.ofNullable(messageResponseConstructorsByCode.get(code))
-        .map(
-            messageResponseConstructor ->
-                messageResponseConstructor.response(ethMessage.getData()));
+        .map(messageResponseConstructor -> messageResponseConstructor.response(ethMessage));
   }
 
   public long subscribe(final int messageCode, final MessageCallback callback) {
@@ -55,6 +53,19 @@ public class EthMessages {
 
   public void registerResponseConstructor(
       final int messageCode, final MessageResponseConstructor messageResponseConstructor) {
+    messageResponseConstructorsByCode.put(
+        messageCode, message -> messageResponseConstructor.response(message.getData()));
+  }
+
+  /**
+   * Registers a response constructor that also needs to know which peer sent the message, for
+   * instance to limit how much a single peer can request.
+   *
+   * @param messageCode the code of the messages to respond to
+   * @param messageResponseConstructor the constructor of the response
+   */
+  public void registerPeerResponseConstructor(
+      final int messageCode, final PeerMessageResponseConstructor messageResponseConstructor) {
     messageResponseConstructorsByCode.put(messageCode, messageResponseConstructor);
   }
 
@@ -67,4 +78,9 @@ public class EthMessages {
   public interface MessageResponseConstructor {
     MessageData response(MessageData message);
   }
+
+  @FunctionalInterface
+  public interface PeerMessageResponseConstructor {
+    MessageData response(EthMessage message);
+  }
 }
@@ -94,6 +94,7 @@ public class EthPeer {
 
   private final AtomicReference<Consumer<EthPeer>> onStatusesExchanged = new AtomicReference<>();
   private final PeerReputation reputation = new PeerReputation();
+  private final PeerPerformance performance = new PeerPerformance();
   private final Map<PeerValidator, Boolean> validationStatus = new ConcurrentHashMap<>();
 
   private static final Map<Integer, Integer> roundMessages;
@@ -143,17 +144,19 @@ public class EthPeer {
         Map.ofEntries(
             Map.entry(
                 EthPV62.GET_BLOCK_HEADERS,
-                new RequestManager(this, supportsRequestId, protocolName)),
+                new RequestManager(this, supportsRequestId, protocolName, clock)),
             Map.entry(
                 EthPV62.GET_BLOCK_BODIES,
-                new RequestManager(this, supportsRequestId, protocolName)),
+                new RequestManager(this, supportsRequestId, protocolName, clock)),
             Map.entry(
-                EthPV63.GET_RECEIPTS, new RequestManager(this, supportsRequestId, protocolName)),
+                EthPV63.GET_RECEIPTS,
+                new RequestManager(this, supportsRequestId, protocolName, clock)),
             Map.entry(
-                EthPV63.GET_NODE_DATA, new RequestManager(this, supportsRequestId, protocolName)),
+                EthPV63.GET_NODE_DATA,
+                new RequestManager(this, supportsRequestId, protocolName, clock)),
             Map.entry(
                 EthPV65.GET_POOLED_TRANSACTIONS,
-                new RequestManager(this, supportsRequestId, protocolName))));
+                new RequestManager(this, supportsRequestId, protocolName, clock))));
   }
 
   private void initSnapRequestManagers() {
@@ -161,10 +164,14 @@ public class EthPeer {
     requestManagers.put(
         SnapProtocol.NAME,
         Map.ofEntries(
-            Map.entry(SnapV1.GET_ACCOUNT_RANGE, new RequestManager(this, true, SnapProtocol.NAME)),
-            Map.entry(SnapV1.GET_STORAGE_RANGE, new RequestManager(this, true, SnapProtocol.NAME)),
-            Map.entry(SnapV1.GET_BYTECODES, new RequestManager(this, true, SnapProtocol.NAME)),
-            Map.entry(SnapV1.GET_TRIE_NODES, new RequestManager(this, true, SnapProtocol.NAME))));
+            Map.entry(
+                SnapV1.GET_ACCOUNT_RANGE, new RequestManager(this, true, SnapProtocol.NAME, clock)),
+            Map.entry(
+                SnapV1.GET_STORAGE_RANGE, new RequestManager(this, true, SnapProtocol.NAME, clock)),
+            Map.entry(
+                SnapV1.GET_BYTECODES, new RequestManager(this, true, SnapProtocol.NAME, clock)),
+            Map.entry(
+                SnapV1.GET_TRIE_NODES, new RequestManager(this, true, SnapProtocol.NAME, clock))));
   }
 
   public void markValidated(final PeerValidator validator) {
@@ -391,6 +398,16 @@ public class EthPeer {
     return Optional.empty();
   }
 
+  void recordResponse(final int responseCode, final long latencyMillis, final long responseBytes) {
+    Optional.ofNullable(roundMessages.get(responseCode))
+        .ifPresent(
+            requestCode -> performance.recordResponse(requestCode, latencyMillis, responseBytes));
+  }
+
+  public PeerPerformance getPerformance() {
+    return performance;
+  }
+
   public Map<Integer, AtomicInteger> timeoutCounts() {
     return reputation.timeoutCounts();
   }
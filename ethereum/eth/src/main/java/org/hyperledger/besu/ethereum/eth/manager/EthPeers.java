@@ -118,14 +118,59 @@ public class EthPeers {
     }
   }
 
+  /**
+   * Orders peers by the bytes per second they delivered for the given request type. Peers that
+   * were not measured yet are treated as the fastest so that they get measured.
+   *
+   * @param requestCode the code of the request
+   * @return the comparator
+   */
+  public static Comparator<EthPeer> fastestToSlowest(final int requestCode) {
+    return Comparator.comparingDouble(
+            (final EthPeer p) -> {
+              final double throughput = p.getPerformance().getThroughput(requestCode);
+              return Double.isNaN(throughput) ? Double.MAX_VALUE : throughput;
+            })
+        .reversed();
+  }
+
+  /**
+   * Orders peers like {@link #LEAST_TO_MOST_BUSY}, but prefers the fastest peer for the given
+   * request type among those with the same number of outstanding requests.
+   *
+   * @param requestCode the code of the request
+   * @return the comparator
+   */
+  public static Comparator<EthPeer> leastToMostBusy(final int requestCode) {
+    return Comparator.comparing(EthPeer::outstandingRequests)
+        .thenComparing(fastestToSlowest(requestCode))
+        .thenComparing(EthPeer::getLastRequestTimestamp);
+  }
+
   public EthPeer peer(final PeerConnection peerConnection) {
     return connections.get(peerConnection);
   }
 
   public PendingPeerRequest executePeerRequest(
       final PeerRequest request, final long minimumBlockNumber, final Optional<EthPeer> peer) {
+    return executePeerRequest(request, LEAST_TO_MOST_BUSY, minimumBlockNumber, peer);
+  }
+
+  public PendingPeerRequest executePeerRequest(
+      final PeerRequest request,
+      final int requestCode,
+      final long minimumBlockNumber,
+      final Optional<EthPeer> peer) {
+    return executePeerRequest(request, leastToMostBusy(requestCode), minimumBlockNumber, peer);
+  }
+
+  private PendingPeerRequest executePeerRequest(
+      final PeerRequest request,
+      final Comparator<EthPeer> peerPreference,
+      final long minimumBlockNumber,
+      final Optional<EthPeer> peer) {
     final PendingPeerRequest pendingPeerRequest =
-        new PendingPeerRequest(this, request, minimumBlockNumber, peer);
+        new PendingPeerRequest(this, request, peerPreference, minimumBlockNumber, peer);
     synchronized (this) {
       if (!pendingPeerRequest.attemptExecution()) {
         pendingRequests.add(pendingPeerRequest);
@@ -138,6 +138,10 @@ public class EthScheduler {
     return serviceFuture;
   }
 
+  public void executeServiceTask(final Runnable command) {
+    servicesExecutor.execute(command);
+  }
+
   public CompletableFuture<Void> startPipeline(final Pipeline<?> pipeline) {
     final CompletableFuture<Void> pipelineFuture = pipeline.start(servicesExecutor);
     pendingFutures.add(pipelineFuture);
@@ -149,6 +153,10 @@ public class EthScheduler {
     return CompletableFuture.supplyAsync(computation, computationExecutor);
   }
 
+  public void executeComputationTask(final Runnable command) {
+    computationExecutor.execute(command);
+  }
+
   public CompletableFuture<Void> scheduleFutureTask(
       final Runnable command, final Duration duration) {
     final CompletableFuture<Void> promise = new CompletableFuture<>();
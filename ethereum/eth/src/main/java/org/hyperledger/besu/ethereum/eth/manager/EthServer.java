@@ -210,16 +210,17 @@ class EthServer {
     final GetNodeDataMessage getNodeDataMessage = GetNodeDataMessage.readFrom(message);
     final Iterable<Hash> hashes = getNodeDataMessage.hashes();
 
-    final List<Bytes> nodeData = new ArrayList<>();
-    int count = 0;
+    final List<Hash> requestedHashes = new ArrayList<>();
     for (final Hash hash : hashes) {
-      if (count >= requestLimit) {
+      if (requestedHashes.size() >= requestLimit) {
         break;
       }
-      count++;
-
-      worldStateArchive.getNodeData(hash).ifPresent(nodeData::add);
+      requestedHashes.add(hash);
     }
+
+    // the nodes are read from the storage in a single batch
+    final List<Bytes> nodeData = new ArrayList<>();
+    worldStateArchive.getNodeData(requestedHashes).forEach(data -> data.ifPresent(nodeData::add));
     return NodeDataMessage.create(nodeData);
   }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.eth.manager;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks how well a peer serves each type of request: the bytes per second it delivers, the
+ * latency of its responses and the share of the requested items it actually returns.
+ *
+ * <p>Throughput and completeness are exponentially weighted moving averages so that the model
+ * follows a peer whose conditions change, while latencies keep the last {@value #LATENCY_SAMPLES}
+ * samples per request type to answer percentile queries.
+ */
+public class PeerPerformance {
+  static final int LATENCY_SAMPLES = 64;
+  static final long TARGET_LATENCY_MILLIS = 2_000;
+  private static final double SMOOTHING_FACTOR = 0.25;
+  // Ask for a bit more than the peer last served so that the size can grow back
+  private static final double GROWTH_FACTOR = 1.25;
+  private static final double LATENCY_PERCENTILE = 90;
+
+  private final ConcurrentMap<Integer, RequestStats> statsByRequestType =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Records the response to a request.
+   *
+   * @param requestCode the code of the request that was answered
+   * @param latencyMillis the time between sending the request and receiving the response
+   * @param responseBytes the size of the response
+   */
+  public void recordResponse(
+      final int requestCode, final long latencyMillis, final long responseBytes) {
+    final double bytesPerSecond = responseBytes * 1000.0 / Math.max(latencyMillis, 1);
+    getOrCreateStats(requestCode).recordResponse(latencyMillis, bytesPerSecond);
+  }
+
+  /**
+   * Records how many of the requested items a response contained.
+   *
+   * @param requestCode the code of the request that was answered
+   * @param requested the number of items that were requested
+   * @param received the number of requested items the response contained
+   */
+  public void recordItems(final int requestCode, final int requested, final int received) {
+    if (requested > 0) {
+      getOrCreateStats(requestCode).recordItems(requested, Math.min(received, requested));
+    }
+  }
+
+  /**
+   * The bytes per second delivered by this peer for the given request type.
+   *
+   * @param requestCode the code of the request
+   * @return the throughput, or {@link Double#NaN} if nothing was measured yet
+   */
+  public double getThroughput(final int requestCode) {
+    final RequestStats stats = statsByRequestType.get(requestCode);
+    return stats == null ? Double.NaN : stats.getThroughput();
+  }
+
+  /**
+   * The latency below which the given percentage of recent responses were received.
+   *
+   * @param requestCode the code of the request
+   * @param percentile the percentile, between 0 and 100
+   * @return the latency in milliseconds, or empty if no response was received yet
+   */
+  public OptionalLong getLatencyPercentile(final int requestCode, final double percentile) {
+    final RequestStats stats = statsByRequestType.get(requestCode);
+    return stats == null ? OptionalLong.empty() : stats.getLatencyPercentile(percentile);
+  }
+
+  /**
+   * The share of the requested items this peer returns, between 0 and 1.
+   *
+   * @param requestCode the code of the request
+   * @return the completeness, or 1 if it was not measured yet
+   */
+  public double getCompleteness(final int requestCode) {
+    final RequestStats stats = statsByRequestType.get(requestCode);
+    return stats == null ? 1 : stats.getCompleteness();
+  }
+
+  /**
+   * Sizes a request to what this peer can serve. Requests are only capped once the peer truncated a
+   * response, starting from the number of items it served then, and are shrunk when the peer
+   * answers slower than {@value #TARGET_LATENCY_MILLIS}ms so that slow peers get smaller requests
+   * instead of timing out.
+   *
+   * @param requestCode the code of the request
+   * @param maxSize the number of items that would be requested otherwise
+   * @return the number of items to request, between 1 and {@code maxSize}
+   */
+  public int recommendedRequestSize(final int requestCode, final int maxSize) {
+    final RequestStats stats = statsByRequestType.get(requestCode);
+    if (stats == null || maxSize <= 1) {
+      return maxSize;
+    }
+    return stats.recommendedRequestSize(maxSize);
+  }
+
+  private RequestStats getOrCreateStats(final int requestCode) {
+    return statsByRequestType.computeIfAbsent(requestCode, code -> new RequestStats());
+  }
+
+  private static double smooth(final double average, final double sample) {
+    return Double.isNaN(average) ? sample : average + SMOOTHING_FACTOR * (sample - average);
+  }
+
+  private static class RequestStats {
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount = 0;
+    private int nextLatency = 0;
+    private double throughput = Double.NaN;
+    private double completeness = Double.NaN;
+    // How many items the peer serves in one response, known once it truncated a response
+    private double servedItems = Double.NaN;
+
+    private synchronized void recordResponse(
+        final long latencyMillis, final double bytesPerSecond) {
+      latencies[nextLatency] = latencyMillis;
+      nextLatency = (nextLatency + 1) % LATENCY_SAMPLES;
+      latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+      throughput = smooth(throughput, bytesPerSecond);
+    }
+
+    private synchronized void recordItems(final int requested, final int received) {
+      completeness = smooth(completeness, (double) received / requested);
+      if (received < requested) {
+        servedItems = smooth(servedItems, received);
+      } else if (!Double.isNaN(servedItems)) {
+        // a complete response only shows that the peer serves at least that many items
+        servedItems = Math.max(servedItems, received);
+      }
+    }
+
+    private synchronized double getThroughput() {
+      return throughput;
+    }
+
+    private synchronized double getCompleteness() {
+      return Double.isNaN(completeness) ? 1 : completeness;
+    }
+
+    private synchronized OptionalLong getLatencyPercentile(final double percentile) {
+      if (latencyCount == 0) {
+        return OptionalLong.empty();
+      }
+      final long[] sorted = Arrays.copyOf(latencies, latencyCount);
+      Arrays.sort(sorted);
+      final int index = (int) Math.ceil(percentile / 100 * latencyCount) - 1;
+      return OptionalLong.of(sorted[Math.max(0, Math.min(index, latencyCount - 1))]);
+    }
+
+    private synchronized int recommendedRequestSize(final int maxSize) {
+      double size =
+          Double.isNaN(servedItems) ? maxSize : Math.min(maxSize, servedItems * GROWTH_FACTOR + 1);
+      final OptionalLong latency = getLatencyPercentile(LATENCY_PERCENTILE);
+      if (latency.isPresent() && latency.getAsLong() > TARGET_LATENCY_MILLIS) {
+        size = size * TARGET_LATENCY_MILLIS / latency.getAsLong();
+      }
+      return (int) Math.max(1, Math.round(size));
+    }
+  }
+}
@@ -19,6 +19,7 @@ import org.hyperledger.besu.ethereum.eth.manager.exceptions.NoAvailablePeersExce
 import org.hyperledger.besu.ethereum.eth.manager.exceptions.PeerDisconnectedException;
 import org.hyperledger.besu.ethereum.p2p.rlpx.connections.PeerConnection.PeerNotConnected;
 
+import java.util.Comparator;
 import java.util.Optional;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
@@ -28,6 +29,7 @@ import java.util.function.Consumer;
 public class PendingPeerRequest {
   private final EthPeers ethPeers;
   private final PeerRequest request;
+  private final Comparator<EthPeer> peerPreference;
   private final CompletableFuture<ResponseStream> result = new CompletableFuture<>();
   private final long minimumBlockNumber;
   private final Optional<EthPeer> peer;
@@ -35,10 +37,12 @@ public class PendingPeerRequest {
   PendingPeerRequest(
       final EthPeers ethPeers,
       final PeerRequest request,
+      final Comparator<EthPeer> peerPreference,
       final long minimumBlockNumber,
       final Optional<EthPeer> peer) {
     this.ethPeers = ethPeers;
     this.request = request;
+    this.peerPreference = peerPreference;
     this.minimumBlockNumber = minimumBlockNumber;
     this.peer = peer;
   }
@@ -85,7 +89,7 @@ public class PendingPeerRequest {
         : ethPeers
             .streamAvailablePeers()
             .filter(peer -> peer.chainState().getEstimatedHeight() >= minimumBlockNumber)
-            .min(EthPeers.LEAST_TO_MOST_BUSY);
+            .min(peerPreference);
   }
 
   /**
@@ -19,6 +19,7 @@ import org.hyperledger.besu.ethereum.p2p.rlpx.wire.MessageData;
 import org.hyperledger.besu.ethereum.p2p.rlpx.wire.messages.DisconnectMessage;
 
 import java.math.BigInteger;
+import java.time.Clock;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -35,14 +36,26 @@ public class RequestManager {
   private final EthPeer peer;
   private final boolean supportsRequestId;
   private final String protocolName;
+  private final Clock clock;
+  // When each outstanding request was sent, to measure how long the peer takes to respond
+  private final Map<BigInteger, Long> requestSentTimes = new ConcurrentHashMap<>();
 
   private final AtomicInteger outstandingRequests = new AtomicInteger(0);
 
   public RequestManager(
       final EthPeer peer, final boolean supportsRequestId, final String protocolName) {
+    this(peer, supportsRequestId, protocolName, Clock.systemUTC());
+  }
+
+  public RequestManager(
+      final EthPeer peer,
+      final boolean supportsRequestId,
+      final String protocolName,
+      final Clock clock) {
     this.peer = peer;
     this.supportsRequestId = supportsRequestId;
     this.protocolName = protocolName;
+    this.clock = clock;
   }
 
   public int outstandingRequests() {
@@ -58,6 +71,7 @@ public class RequestManager {
     outstandingRequests.incrementAndGet();
     final BigInteger requestId = BigInteger.valueOf(requestIdCounter.getAndIncrement());
     final ResponseStream stream = createStream(requestId);
+    requestSentTimes.put(requestId, clock.millis());
     sender.send(supportsRequestId ? messageData.wrapMessageData(requestId) : messageData);
     return stream;
   }
@@ -69,13 +83,21 @@ public class RequestManager {
       // If there's a requestId, find the specific stream it belongs to
       final Map.Entry<BigInteger, MessageData> requestIdAndEthMessage =
           ethMessage.getData().unwrapMessageData();
+      recordResponseTime(
+          Optional.ofNullable(requestSentTimes.remove(requestIdAndEthMessage.getKey())),
+          ethMessage);
       Optional.ofNullable(responseStreams.get(requestIdAndEthMessage.getKey()))
           .ifPresentOrElse(
               responseStream -> responseStream.processMessage(requestIdAndEthMessage.getValue()),
               // disconnect on incorrect requestIds
               () -> peer.disconnect(DisconnectMessage.DisconnectReason.BREACH_OF_PROTOCOL));
     } else {
-      // otherwise iterate through all of them
+      // otherwise iterate through all of them, assuming the peer answers the oldest request first
+      recordResponseTime(
+          requestSentTimes.entrySet().stream()
+              .min(Map.Entry.comparingByValue())
+              .map(entry -> requestSentTimes.remove(entry.getKey())),
+          ethMessage);
       streams.forEach(stream -> stream.processMessage(ethMessage.getData()));
     }
     if (count == 0) {
@@ -88,6 +110,15 @@ public class RequestManager {
     closeOutstandingStreams(responseStreams.values());
   }
 
+  private void recordResponseTime(final Optional<Long> sentTime, final EthMessage ethMessage) {
+    sentTime.ifPresent(
+        time ->
+            peer.recordResponse(
+                ethMessage.getData().getCode(),
+                Math.max(0, clock.millis() - time),
+                ethMessage.getData().getSize()));
+  }
+
   private ResponseStream createStream(final BigInteger requestId) {
     final ResponseStream stream = new ResponseStream(peer, () -> deregisterStream(requestId));
     responseStreams.put(requestId, stream);
@@ -101,6 +132,7 @@ public class RequestManager {
 
   private void deregisterStream(final BigInteger id) {
     responseStreams.remove(id);
+    requestSentTimes.remove(id);
   }
 
   @FunctionalInterface
@@ -14,66 +14,515 @@
  */
 package org.hyperledger.besu.ethereum.eth.manager.snap;
 
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateKeyValueStorage;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldView;
+import org.hyperledger.besu.ethereum.bonsai.TrieLogLayer;
+import org.hyperledger.besu.ethereum.chain.BlockAddedEvent;
+import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.ethereum.core.BlockHeader;
+import org.hyperledger.besu.ethereum.eth.manager.EthMessage;
 import org.hyperledger.besu.ethereum.eth.manager.EthMessages;
 import org.hyperledger.besu.ethereum.eth.messages.snap.AccountRangeMessage;
 import org.hyperledger.besu.ethereum.eth.messages.snap.ByteCodesMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetAccountRangeMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetByteCodesMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetStorageRangeMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetTrieNodesMessage;
 import org.hyperledger.besu.ethereum.eth.messages.snap.SnapV1;
 import org.hyperledger.besu.ethereum.eth.messages.snap.StorageRangeMessage;
 import org.hyperledger.besu.ethereum.eth.messages.snap.TrieNodesMessage;
+import org.hyperledger.besu.ethereum.eth.sync.snapsync.RangeManager;
 import org.hyperledger.besu.ethereum.p2p.rlpx.wire.MessageData;
-import org.hyperledger.besu.ethereum.worldstate.WorldStateArchive;
+import org.hyperledger.besu.ethereum.proof.WorldStateProofProvider;
+import org.hyperledger.besu.ethereum.rlp.RLP;
+import org.hyperledger.besu.ethereum.trie.CompactEncoding;
+import org.hyperledger.besu.ethereum.worldstate.StateTrieAccountValue;
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.metrics.LabelledMetric;
 
-import java.util.HashMap;
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import kotlin.collections.ArrayDeque;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-@SuppressWarnings("unused")
+/**
+ * Serves the snap/1 requests of other peers from the flat database of a Bonsai world state.
+ *
+ * <p>Bonsai only keeps the trie of its head world state, so account ranges and account trie nodes
+ * are only served at the state root of the persisted head. Storage ranges and storage trie nodes
+ * are also served at the state roots of recent canonical blocks, for the accounts whose storage the
+ * trie logs show to be unchanged since. Bytecodes do not depend on the state root, they are served
+ * for the code hashes the storage has indexed, which on a database created before the index
+ * includes the older codes only once the index has been backfilled in the background.
+ *
+ * <p>Responses are cut at the size the peer asked for, and never exceed {@link
+ * #MAX_RESPONSE_SIZE}. Each peer also gets a budget of response bytes refilled every second, the
+ * requests of a peer over its budget get an empty response.
+ */
 class SnapServer {
+  private static final Logger LOG = LoggerFactory.getLogger(SnapServer.class);
+
+  static final int MAX_RESPONSE_SIZE = 2 * 1024 * 1024;
+  static final long DEFAULT_PEER_BYTES_PER_SECOND = 8 * 1024 * 1024;
+  private static final int MAX_RECENT_STATE_ROOTS = 128;
+  private static final Duration PEER_BUDGET_EXPIRY = Duration.ofMinutes(5);
 
   private final EthMessages snapMessages;
-  private final WorldStateArchive worldStateArchive;
+  private final BonsaiWorldStateKeyValueStorage worldStateStorage;
+  private final Blockchain blockchain;
+  private final WorldStateProofProvider proofProvider;
+  private final long peerBytesPerSecond;
+  private final Clock clock;
+
+  // canonical block hashes by the state root of the block
+  private final Cache<Hash, Hash> recentBlockHashesByStateRoot =
+      CacheBuilder.newBuilder().maximumSize(MAX_RECENT_STATE_ROOTS).build();
+  private final Cache<Hash, Set<Hash>> storageChangesByBlockHash =
+      CacheBuilder.newBuilder().maximumSize(MAX_RECENT_STATE_ROOTS).build();
+  private final Cache<Bytes, PeerBudget> peerBudgets =
+      CacheBuilder.newBuilder().expireAfterAccess(PEER_BUDGET_EXPIRY).build();
 
-  SnapServer(final EthMessages snapMessages, final WorldStateArchive worldStateArchive) {
+  private final LabelledMetric<Counter> requestCounter;
+  private final LabelledMetric<Counter> responseBytesCounter;
+  private final LabelledMetric<Counter> throttledRequestCounter;
+
+  SnapServer(
+      final EthMessages snapMessages,
+      final BonsaiWorldStateKeyValueStorage worldStateStorage,
+      final Blockchain blockchain,
+      final MetricsSystem metricsSystem) {
+    this(
+        snapMessages,
+        worldStateStorage,
+        blockchain,
+        metricsSystem,
+        DEFAULT_PEER_BYTES_PER_SECOND,
+        Clock.systemUTC());
+    new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("SnapServerCodeIndex")
+        .build()
+        .newThread(
+            () -> {
+              try {
+                worldStateStorage.indexCodeByHash();
+              } catch (final RuntimeException e) {
+                LOG.warn("Failed to index contract code by code hash", e);
+              }
+            })
+        .start();
+  }
+
+  @VisibleForTesting
+  SnapServer(
+      final EthMessages snapMessages,
+      final BonsaiWorldStateKeyValueStorage worldStateStorage,
+      final Blockchain blockchain,
+      final MetricsSystem metricsSystem,
+      final long peerBytesPerSecond,
+      final Clock clock) {
     this.snapMessages = snapMessages;
-    this.worldStateArchive = worldStateArchive;
+    this.worldStateStorage = worldStateStorage;
+    this.blockchain = blockchain;
+    this.proofProvider = new WorldStateProofProvider(worldStateStorage);
+    this.peerBytesPerSecond = peerBytesPerSecond;
+    this.clock = clock;
+    this.requestCounter =
+        metricsSystem.createLabelledCounter(
+            BesuMetricCategory.NETWORK,
+            "snap_server_requests",
+            "Number of snap requests received from peers",
+            "messageType");
+    this.responseBytesCounter =
+        metricsSystem.createLabelledCounter(
+            BesuMetricCategory.NETWORK,
+            "snap_server_response_bytes",
+            "Number of bytes sent in response to snap requests",
+            "messageType");
+    this.throttledRequestCounter =
+        metricsSystem.createLabelledCounter(
+            BesuMetricCategory.NETWORK,
+            "snap_server_throttled_requests",
+            "Number of snap requests answered empty because the peer was over its budget",
+            "messageType");
+    final BlockHeader chainHead = blockchain.getChainHeadHeader();
+    recentBlockHashesByStateRoot.put(chainHead.getStateRoot(), chainHead.getHash());
+    blockchain.observeBlockAdded(this::onBlockAdded);
     this.registerResponseConstructors();
   }
 
+  private void onBlockAdded(final BlockAddedEvent event) {
+    if (event.isNewCanonicalHead()) {
+      final BlockHeader header = event.getBlock().getHeader();
+      recentBlockHashesByStateRoot.put(header.getStateRoot(), header.getHash());
+    }
+  }
+
   private void registerResponseConstructors() {
-    snapMessages.registerResponseConstructor(
+    snapMessages.registerPeerResponseConstructor(
         SnapV1.GET_ACCOUNT_RANGE,
-        messageData -> constructGetAccountRangeResponse(worldStateArchive, messageData));
-    snapMessages.registerResponseConstructor(
+        message ->
+            serve(
+                "account_range",
+                message,
+                this::constructGetAccountRangeResponse,
+                () -> AccountRangeMessage.create(new TreeMap<>(), new ArrayDeque<>())));
+    snapMessages.registerPeerResponseConstructor(
         SnapV1.GET_STORAGE_RANGE,
-        messageData -> constructGetStorageRangeResponse(worldStateArchive, messageData));
-    snapMessages.registerResponseConstructor(
+        message ->
+            serve(
+                "storage_range",
+                message,
+                this::constructGetStorageRangeResponse,
+                () -> StorageRangeMessage.create(new ArrayDeque<>(), new ArrayDeque<>())));
+    snapMessages.registerPeerResponseConstructor(
         SnapV1.GET_BYTECODES,
-        messageData -> constructGetBytecodesResponse(worldStateArchive, messageData));
-    snapMessages.registerResponseConstructor(
+        message ->
+            serve(
+                "bytecodes",
+                message,
+                this::constructGetBytecodesResponse,
+                () -> ByteCodesMessage.create(new ArrayDeque<>())));
+    snapMessages.registerPeerResponseConstructor(
         SnapV1.GET_TRIE_NODES,
-        messageData -> constructGetTrieNodesResponse(worldStateArchive, messageData));
+        message ->
+            serve(
+                "trie_nodes",
+                message,
+                this::constructGetTrieNodesResponse,
+                () -> TrieNodesMessage.create(new ArrayDeque<>())));
+  }
+
+  private MessageData serve(
+      final String messageType,
+      final EthMessage message,
+      final Function<MessageData, MessageData> responseConstructor,
+      final Supplier<MessageData> emptyResponse) {
+    requestCounter.labels(messageType).inc();
+    final PeerBudget budget =
+        peerBudgets
+            .asMap()
+            .computeIfAbsent(
+                message.getPeer().nodeId(),
+                nodeId -> new PeerBudget(peerBytesPerSecond, clock.millis()));
+    if (!budget.isAvailable(clock.millis())) {
+      LOG.trace("Throttling {} request of {}", messageType, message.getPeer());
+      throttledRequestCounter.labels(messageType).inc();
+      return emptyResponse.get();
+    }
+    MessageData response;
+    try {
+      response = responseConstructor.apply(message.getData());
+    } catch (final IllegalArgumentException e) {
+      LOG.debug("Invalid {} request from {}", messageType, message.getPeer(), e);
+      response = emptyResponse.get();
+    }
+    budget.consume(response.getSize());
+    responseBytesCounter.labels(messageType).inc(response.getSize());
+    return response;
+  }
+
+  @VisibleForTesting
+  MessageData constructGetAccountRangeResponse(final MessageData message) {
+    final GetAccountRangeMessage.Range range = GetAccountRangeMessage.readFrom(message).range(true);
+    final Optional<Hash> headBlockHash = getHeadBlockHash();
+    if (headBlockHash.isEmpty() || !isHeadStateRoot(range.worldStateRootHash())) {
+      return AccountRangeMessage.create(new TreeMap<>(), new ArrayDeque<>());
+    }
+    final int maxResponseSize = getMaxResponseSize(range.responseBytes());
+
+    final TreeMap<Bytes32, Bytes> accounts = new TreeMap<>();
+    int size = 0;
+    try (final Stream<Map.Entry<Bytes32, Bytes>> flatAccounts =
+        worldStateStorage.streamFlatAccounts(range.startKeyHash())) {
+      final Iterator<Map.Entry<Bytes32, Bytes>> iterator = flatAccounts.iterator();
+      while (iterator.hasNext() && size < maxResponseSize) {
+        final Map.Entry<Bytes32, Bytes> account = iterator.next();
+        accounts.put(account.getKey(), account.getValue());
+        size += Bytes32.SIZE + account.getValue().size();
+        // the first account past the limit proves there is no other account in the range
+        if (account.getKey().compareTo(range.endKeyHash()) >= 0) {
+          break;
+        }
+      }
+    }
+
+    final Set<Bytes> proof =
+        new LinkedHashSet<>(
+            proofProvider.getAccountProofRelatedNodes(
+                range.worldStateRootHash(), range.startKeyHash()));
+    if (!accounts.isEmpty()) {
+      proof.addAll(
+          proofProvider.getAccountProofRelatedNodes(
+              range.worldStateRootHash(), accounts.lastKey()));
+    }
+    if (!headBlockHash.equals(getHeadBlockHash())) {
+      // the head moved while reading, the accounts may be from two different states
+      return AccountRangeMessage.create(new TreeMap<>(), new ArrayDeque<>());
+    }
+    return AccountRangeMessage.create(accounts, new ArrayList<>(proof));
+  }
+
+  @VisibleForTesting
+  MessageData constructGetStorageRangeResponse(final MessageData message) {
+    final GetStorageRangeMessage.StorageRange range =
+        GetStorageRangeMessage.readFrom(message).range(true);
+    final Optional<Hash> headBlockHash = getHeadBlockHash();
+    final Optional<List<Set<Hash>>> storageChanges =
+        headBlockHash.flatMap(head -> getStorageChangesSince(head, range.worldStateRootHash()));
+    if (storageChanges.isEmpty()) {
+      return StorageRangeMessage.create(new ArrayDeque<>(), new ArrayDeque<>());
+    }
+    final int maxResponseSize = getMaxResponseSize(range.responseBytes());
+
+    final ArrayDeque<TreeMap<Bytes32, Bytes>> slots = new ArrayDeque<>();
+    final Set<Bytes> proof = new LinkedHashSet<>();
+    // the requested range only applies to the first account
+    Bytes32 startKeyHash = range.startKeyHash();
+    Bytes32 endKeyHash =
+        range.endKeyHash().equals(Hash.ZERO) ? RangeManager.MAX_RANGE : range.endKeyHash();
+    int size = 0;
+    for (final Bytes32 accountHash : range.hashes()) {
+      final Optional<Bytes32> storageRoot = getStorageRoot(accountHash);
+      if (size >= maxResponseSize
+          || storageRoot.isEmpty()
+          || isStorageChanged(storageChanges.get(), accountHash)) {
+        break;
+      }
+      final TreeMap<Bytes32, Bytes> accountSlots = new TreeMap<>();
+      final boolean complete;
+      try (final Stream<Map.Entry<Bytes32, Bytes>> flatStorages =
+          worldStateStorage.streamFlatStorages(Hash.wrap(accountHash), startKeyHash)) {
+        final Iterator<Map.Entry<Bytes32, Bytes>> iterator = flatStorages.iterator();
+        while (iterator.hasNext() && size < maxResponseSize) {
+          final Map.Entry<Bytes32, Bytes> slot = iterator.next();
+          final Bytes value = BonsaiWorldView.encodeTrieValue(slot.getValue());
+          accountSlots.put(slot.getKey(), value);
+          size += Bytes32.SIZE + value.size();
+          if (slot.getKey().compareTo(endKeyHash) >= 0) {
+            break;
+          }
+        }
+        complete = !iterator.hasNext();
+      }
+      slots.add(accountSlots);
+      // a partial storage range needs the proofs of its boundaries and ends the response
+      if (!startKeyHash.equals(Hash.ZERO) || !complete) {
+        proof.addAll(
+            proofProvider.getStorageProofRelatedNodes(
+                storageRoot.get(), accountHash, startKeyHash));
+        if (!accountSlots.isEmpty()) {
+          proof.addAll(
+              proofProvider.getStorageProofRelatedNodes(
+                  storageRoot.get(), accountHash, accountSlots.lastKey()));
+        }
+        break;
+      }
+      startKeyHash = Hash.ZERO;
+      endKeyHash = RangeManager.MAX_RANGE;
+    }
+    if (!headBlockHash.equals(getHeadBlockHash())) {
+      return StorageRangeMessage.create(new ArrayDeque<>(), new ArrayDeque<>());
+    }
+    return StorageRangeMessage.create(slots, new ArrayList<>(proof));
   }
 
-  private MessageData constructGetAccountRangeResponse(
-      final WorldStateArchive worldStateArchive, final MessageData message) {
-    // TODO implement
-    return AccountRangeMessage.create(new HashMap<>(), new ArrayDeque<>());
+  @VisibleForTesting
+  MessageData constructGetBytecodesResponse(final MessageData message) {
+    final GetByteCodesMessage.CodeHashes codeHashes =
+        GetByteCodesMessage.readFrom(message).codeHashes(true);
+    final int maxResponseSize = getMaxResponseSize(codeHashes.responseBytes());
+
+    // codes that are not found are skipped, the peer asks another peer for them
+    final List<Bytes> codes = new ArrayList<>();
+    int size = 0;
+    for (final Bytes32 codeHash : codeHashes.hashes()) {
+      if (size >= maxResponseSize) {
+        break;
+      }
+      final Optional<Bytes> code = worldStateStorage.getCodeByHash(codeHash);
+      if (code.isPresent()) {
+        codes.add(code.get());
+        size += code.get().size();
+      }
+    }
+    return ByteCodesMessage.create(codes);
+  }
+
+  @VisibleForTesting
+  MessageData constructGetTrieNodesResponse(final MessageData message) {
+    final GetTrieNodesMessage.TrieNodesPaths paths =
+        GetTrieNodesMessage.readFrom(message).paths(true);
+    final Optional<Hash> headBlockHash = getHeadBlockHash();
+    final Optional<List<Set<Hash>>> storageChanges =
+        headBlockHash.flatMap(head -> getStorageChangesSince(head, paths.worldStateRootHash()));
+    if (storageChanges.isEmpty()) {
+      return TrieNodesMessage.create(new ArrayDeque<>());
+    }
+    final int maxResponseSize = getMaxResponseSize(paths.responseBytes());
+
+    final List<Bytes> nodes = new ArrayList<>();
+    int size = 0;
+    for (final Bytes location :
+        getTrieNodeLocations(
+            paths.paths(), isHeadStateRoot(paths.worldStateRootHash()), storageChanges.get())) {
+      final Optional<Bytes> node = worldStateStorage.getStateTrieNode(location);
+      if (node.isEmpty() || size >= maxResponseSize) {
+        break;
+      }
+      nodes.add(node.get());
+      size += node.get().size();
+    }
+    if (!headBlockHash.equals(getHeadBlockHash())) {
+      return TrieNodesMessage.create(new ArrayDeque<>());
+    }
+    return TrieNodesMessage.create(nodes);
+  }
+
+  /**
+   * The storage locations of the requested trie nodes, up to the first node that cannot be served
+   * at the requested state root.
+   */
+  private List<Bytes> getTrieNodeLocations(
+      final List<List<Bytes>> paths,
+      final boolean isHeadStateRoot,
+      final List<Set<Hash>> storageChanges) {
+    final List<Bytes> locations = new ArrayList<>();
+    for (final List<Bytes> path : paths) {
+      if (path.size() == 1 && isHeadStateRoot) {
+        locations.add(CompactEncoding.decode(path.get(0)));
+      } else if (path.size() > 1
+          && path.get(0).size() == Bytes32.SIZE
+          && !isStorageChanged(storageChanges, path.get(0))) {
+        final Bytes accountHash = path.get(0);
+        path.stream()
+            .skip(1)
+            .map(storagePath -> Bytes.concatenate(accountHash, CompactEncoding.decode(storagePath)))
+            .forEach(locations::add);
+      } else {
+        break;
+      }
+    }
+    return locations;
+  }
+
+  private Optional<Hash> getHeadBlockHash() {
+    return worldStateStorage.getWorldStateBlockHash().map(Bytes32::wrap).map(Hash::wrap);
+  }
+
+  private boolean isHeadStateRoot(final Hash stateRoot) {
+    return worldStateStorage.getWorldStateRootHash().map(stateRoot::equals).orElse(false);
   }
 
-  private MessageData constructGetStorageRangeResponse(
-      final WorldStateArchive worldStateArchive, final MessageData message) {
-    // TODO implement
-    return StorageRangeMessage.create(new ArrayDeque<>(), new ArrayDeque<>());
+  /**
+   * The accounts whose storage changed in each block between the given state root and the head,
+   * if the state root is recent enough to be served.
+   */
+  private Optional<List<Set<Hash>>> getStorageChangesSince(
+      final Hash headBlockHash, final Hash stateRoot) {
+    if (isHeadStateRoot(stateRoot)) {
+      return Optional.of(List.of());
+    }
+    final Hash blockHash = recentBlockHashesByStateRoot.getIfPresent(stateRoot);
+    if (blockHash == null) {
+      return Optional.empty();
+    }
+    final List<Set<Hash>> storageChanges = new ArrayList<>();
+    Hash currentBlockHash = headBlockHash;
+    while (!currentBlockHash.equals(blockHash)) {
+      if (storageChanges.size() >= MAX_RECENT_STATE_ROOTS) {
+        return Optional.empty();
+      }
+      final Optional<BlockHeader> header = blockchain.getBlockHeader(currentBlockHash);
+      final Optional<Set<Hash>> blockStorageChanges = getStorageChanges(currentBlockHash);
+      if (header.isEmpty() || blockStorageChanges.isEmpty()) {
+        return Optional.empty();
+      }
+      storageChanges.add(blockStorageChanges.get());
+      currentBlockHash = header.get().getParentHash();
+    }
+    return Optional.of(storageChanges);
   }
 
-  private MessageData constructGetBytecodesResponse(
-      final WorldStateArchive worldStateArchive, final MessageData message) {
-    // TODO implement
-    return ByteCodesMessage.create(new ArrayDeque<>());
+  private Optional<Set<Hash>> getStorageChanges(final Hash blockHash) {
+    final Set<Hash> cached = storageChangesByBlockHash.getIfPresent(blockHash);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    final Optional<Set<Hash>> storageChanges =
+        worldStateStorage
+            .getTrieLog(blockHash)
+            .map(TrieLogLayer::fromBytes)
+            .map(TrieLogLayer::getAccountHashesWithStorageChanges);
+    storageChanges.ifPresent(changes -> storageChangesByBlockHash.put(blockHash, changes));
+    return storageChanges;
   }
 
-  private MessageData constructGetTrieNodesResponse(
-      final WorldStateArchive worldStateArchive, final MessageData message) {
-    return TrieNodesMessage.create(new ArrayDeque<>());
+  private static boolean isStorageChanged(
+      final List<Set<Hash>> storageChanges, final Bytes accountHash) {
+    final Hash hash = Hash.wrap(Bytes32.wrap(accountHash));
+    return storageChanges.stream().anyMatch(changes -> changes.contains(hash));
+  }
+
+  private Optional<Bytes32> getStorageRoot(final Bytes32 accountHash) {
+    return worldStateStorage
+        .getAccount(Hash.wrap(accountHash))
+        .map(account -> StateTrieAccountValue.readFrom(RLP.input(account)).getStorageRoot());
+  }
+
+  private static int getMaxResponseSize(final BigInteger requestedResponseSize) {
+    return requestedResponseSize
+        .min(BigInteger.valueOf(MAX_RESPONSE_SIZE))
+        .max(BigInteger.ONE)
+        .intValue();
+  }
+
+  /** The response bytes a peer may still be sent, refilled at a fixed rate up to one second. */
+  private static class PeerBudget {
+    private final long bytesPerSecond;
+    private long availableBytes;
+    private long lastRefillMillis;
+
+    private PeerBudget(final long bytesPerSecond, final long nowMillis) {
+      this.bytesPerSecond = bytesPerSecond;
+      this.availableBytes = bytesPerSecond;
+      this.lastRefillMillis = nowMillis;
+    }
+
+    private synchronized boolean isAvailable(final long nowMillis) {
+      final long elapsedMillis = Math.max(0, nowMillis - lastRefillMillis);
+      availableBytes =
+          Math.min(bytesPerSecond, availableBytes + elapsedMillis * bytesPerSecond / 1000);
+      lastRefillMillis = nowMillis;
+      return availableBytes > 0;
+    }
+
+    // a response may go over the budget, the peer then waits until it is paid back
+    private synchronized void consume(final long bytes) {
+      availableBytes -= bytes;
+    }
   }
 }
@@ -87,7 +87,9 @@ public abstract class AbstractPeerRequestTask<R> extends AbstractPeerTask<R> {
 
   public PendingPeerRequest sendRequestToPeer(
       final PeerRequest request, final long minimumBlockNumber) {
-    return ethContext.getEthPeers().executePeerRequest(request, minimumBlockNumber, assignedPeer);
+    return ethContext
+        .getEthPeers()
+        .executePeerRequest(request, requestCode, minimumBlockNumber, assignedPeer);
   }
 
   private void handleMessage(
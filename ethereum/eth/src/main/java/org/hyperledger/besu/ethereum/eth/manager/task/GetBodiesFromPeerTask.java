@@ -51,6 +51,7 @@ public class GetBodiesFromPeerTask extends AbstractPeerRequestTask<List<Block>>
   private final ProtocolSchedule protocolSchedule;
   private final List<BlockHeader> headers;
   private final Map<BodyIdentifier, List<BlockHeader>> bodyToHeaders = new HashMap<>();
+  private volatile int requestedBodies;
 
   private GetBodiesFromPeerTask(
       final ProtocolSchedule protocolSchedule,
@@ -86,8 +87,12 @@ public class GetBodiesFromPeerTask extends AbstractPeerRequestTask<List<Block>>
 
     return sendRequestToPeer(
         peer -> {
-          LOG.debug("Requesting {} bodies from peer {}.", blockHashes.size(), peer);
-          return peer.getBodies(blockHashes);
+          // Only ask for as many bodies as this peer has been able to deliver
+          requestedBodies =
+              peer.getPerformance()
+                  .recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, blockHashes.size());
+          LOG.debug("Requesting {} bodies from peer {}.", requestedBodies, peer);
+          return peer.getBodies(blockHashes.subList(0, requestedBodies));
         },
         minimumRequiredBlockNumber);
   }
@@ -126,6 +131,7 @@ public class GetBodiesFromPeerTask extends AbstractPeerRequestTask<List<Block>>
       // Clear processed headers
       headers.clear();
     }
+    peer.getPerformance().recordItems(EthPV62.GET_BLOCK_BODIES, requestedBodies, bodies.size());
     return Optional.of(blocks);
   }
 
@@ -45,6 +45,7 @@ public class GetReceiptsFromPeerTask
 
   private final Collection<BlockHeader> blockHeaders;
   private final Map<Hash, List<BlockHeader>> headersByReceiptsRoot = new HashMap<>();
+  private volatile int requestedReceipts;
 
   private GetReceiptsFromPeerTask(
       final EthContext ethContext,
@@ -83,8 +84,12 @@ public class GetReceiptsFromPeerTask
             .collect(toList());
     return sendRequestToPeer(
         peer -> {
-          LOG.debug("Requesting {} receipts from peer {}.", blockHeaders.size(), peer);
-          return peer.getReceipts(blockHashes);
+          // Only ask for as many receipts as this peer has been able to deliver
+          requestedReceipts =
+              peer.getPerformance()
+                  .recommendedRequestSize(EthPV63.GET_RECEIPTS, blockHashes.size());
+          LOG.debug("Requesting {} receipts from peer {}.", requestedReceipts, peer);
+          return peer.getReceipts(blockHashes.subList(0, requestedReceipts));
         },
         maximumRequiredBlockNumber);
   }
@@ -117,6 +122,8 @@ public class GetReceiptsFromPeerTask
       }
       blockHeaders.forEach(header -> receiptsByHeader.put(header, receiptsInBlock));
     }
+    peer.getPerformance()
+        .recordItems(EthPV63.GET_RECEIPTS, requestedReceipts, receiptsByBlock.size());
     return Optional.of(receiptsByHeader);
   }
 }
@@ -69,7 +69,7 @@ class AccountTrieNodeDataRequest extends TrieNodeDataRequest {
                     CompactEncoding.pathToBytes(
                         Bytes.concatenate(getLocation().orElse(Bytes.EMPTY), path)))));
     if (worldStateStorage instanceof BonsaiWorldStateKeyValueStorage) {
-      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.updater())
+      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.bulkLoadUpdater())
           .putAccountInfoState(accountHash.get(), value)
           .commit();
     }
@@ -33,7 +33,7 @@ public class PersistDataStep {
       final List<Task<NodeDataRequest>> tasks,
       final BlockHeader blockHeader,
       final WorldDownloadState<NodeDataRequest> downloadState) {
-    final Updater updater = worldStateStorage.updater();
+    final Updater updater = worldStateStorage.bulkLoadUpdater();
     tasks.stream()
         .map(
             task -> {
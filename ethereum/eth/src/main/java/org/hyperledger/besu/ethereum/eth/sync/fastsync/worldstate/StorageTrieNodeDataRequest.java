@@ -63,7 +63,7 @@ class StorageTrieNodeDataRequest extends TrieNodeDataRequest {
       final Bytes path,
       final Bytes value) {
     if (worldStateStorage instanceof BonsaiWorldStateKeyValueStorage) {
-      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.updater())
+      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.bulkLoadUpdater())
           .putStorageValueBySlotHash(
               accountHash.get(),
               getSlotHash(location, path),
@@ -38,7 +38,7 @@ public class PersistDataStep {
   }
 
   public List<Task<SnapDataRequest>> persist(final List<Task<SnapDataRequest>> tasks) {
-    final WorldStateStorage.Updater updater = worldStateStorage.updater();
+    final WorldStateStorage.Updater updater = worldStateStorage.bulkLoadUpdater();
     for (Task<SnapDataRequest> task : tasks) {
       if (task.getData().isValid()) {
         // enqueue child requests
@@ -133,7 +133,7 @@ public class AccountTrieNodeDataRequest extends TrieNodeDataRequest {
         Hash.wrap(
             Bytes32.wrap(CompactEncoding.pathToBytes(Bytes.concatenate(getLocation(), path))));
     if (worldStateStorage instanceof BonsaiWorldStateKeyValueStorage) {
-      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.updater())
+      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.bulkLoadUpdater())
           .putAccountInfoState(accountHash, value)
           .commit();
     }
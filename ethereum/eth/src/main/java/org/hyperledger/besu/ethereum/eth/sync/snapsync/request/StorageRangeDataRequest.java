@@ -97,14 +97,15 @@ public class StorageRangeDataRequest extends SnapDataRequest {
 
     // search incomplete nodes in the range
     final AtomicInteger nbNodesSaved = new AtomicInteger();
-    final AtomicReference<Updater> updaterTmp = new AtomicReference<>(worldStateStorage.updater());
+    final AtomicReference<Updater> updaterTmp =
+        new AtomicReference<>(worldStateStorage.bulkLoadUpdater());
     final NodeUpdater nodeUpdater =
         (location, hash, value) -> {
           // create small batch in order to commit small amount of nodes at the same time
           updaterTmp.get().putAccountStorageTrieNode(Hash.wrap(accountHash), location, hash, value);
           if (nbNodesSaved.getAndIncrement() % 1000 == 0) {
             updaterTmp.get().commit();
-            updaterTmp.set(worldStateStorage.updater());
+            updaterTmp.set(worldStateStorage.bulkLoadUpdater());
           }
         };
     stackTrie.commit(nodeUpdater);
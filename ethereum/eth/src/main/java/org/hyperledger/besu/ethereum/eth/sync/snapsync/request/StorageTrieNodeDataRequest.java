@@ -69,7 +69,7 @@ public class StorageTrieNodeDataRequest extends TrieNodeDataRequest {
       final Bytes path,
       final Bytes value) {
     if (worldStateStorage instanceof BonsaiWorldStateKeyValueStorage) {
-      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.updater())
+      ((BonsaiWorldStateKeyValueStorage.Updater) worldStateStorage.bulkLoadUpdater())
           .putStorageValueBySlotHash(
               accountHash, getSlotHash(location, path), Bytes32.leftPad(RLP.decodeValue(value)))
           .commit();
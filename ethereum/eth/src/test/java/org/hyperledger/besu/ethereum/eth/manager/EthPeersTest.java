@@ -28,6 +28,8 @@ import org.hyperledger.besu.datatypes.Hash;
 import org.hyperledger.besu.ethereum.core.Difficulty;
 import org.hyperledger.besu.ethereum.eth.manager.exceptions.NoAvailablePeersException;
 import org.hyperledger.besu.ethereum.eth.manager.exceptions.PeerDisconnectedException;
+import org.hyperledger.besu.ethereum.eth.messages.EthPV62;
+import org.hyperledger.besu.ethereum.eth.messages.EthPV63;
 import org.hyperledger.besu.ethereum.eth.messages.NodeDataMessage;
 import org.hyperledger.besu.ethereum.p2p.rlpx.connections.PeerConnection.PeerNotConnected;
 import org.hyperledger.besu.ethereum.p2p.rlpx.wire.messages.DisconnectMessage.DisconnectReason;
@@ -151,6 +153,27 @@ public class EthPeersTest {
     assertRequestSuccessful(pendingRequest);
   }
 
+  @Test
+  public void shouldUseFastestPeerWhenBothHaveSameNumberOfOutstandingRequests() throws Exception {
+    final RespondingEthPeer slowPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    final RespondingEthPeer fastPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    slowPeer.getEthPeer().getPerformance().recordResponse(EthPV63.GET_NODE_DATA, 1000, 1000);
+    fastPeer.getEthPeer().getPerformance().recordResponse(EthPV63.GET_NODE_DATA, 100, 100_000);
+    // only the throughput for the type of request being sent matters
+    slowPeer.getEthPeer().getPerformance().recordResponse(EthPV62.GET_BLOCK_HEADERS, 1, 1_000_000);
+    // the fast peer is preferred even though it was used more recently
+    useRequestSlot(fastPeer.getEthPeer());
+    freeUpCapacity(fastPeer.getEthPeer());
+
+    final PendingPeerRequest pendingRequest =
+        ethPeers.executePeerRequest(peerRequest, EthPV63.GET_NODE_DATA, 10, Optional.empty());
+
+    verify(peerRequest).sendRequest(fastPeer.getEthPeer());
+    assertRequestSuccessful(pendingRequest);
+  }
+
   @Test
   public void shouldFailWithNoAvailablePeersWhenNoPeersConnected() {
     final PendingPeerRequest pendingRequest =
@@ -60,8 +60,8 @@ public class EthServerTest {
 
   @Test
   public void shouldHandleDataBeingUnavailableWhenRespondingToNodeDataRequests() throws Exception {
-    when(worldStateArchive.getNodeData(HASH1)).thenReturn(Optional.of(VALUE1));
-    when(worldStateArchive.getNodeData(HASH2)).thenReturn(Optional.empty());
+    when(worldStateArchive.getNodeData(asList(HASH1, HASH2)))
+        .thenReturn(asList(Optional.of(VALUE1), Optional.empty()));
     assertThat(
             ethMessages.dispatch(
                 new EthMessage(ethPeer, GetNodeDataMessage.create(asList(HASH1, HASH2)))))
@@ -70,8 +70,8 @@ public class EthServerTest {
 
   @Test
   public void shouldLimitNumberOfResponsesToNodeDataRequests() throws Exception {
-    when(worldStateArchive.getNodeData(HASH1)).thenReturn(Optional.of(VALUE1));
-    when(worldStateArchive.getNodeData(HASH2)).thenReturn(Optional.of(VALUE2));
+    when(worldStateArchive.getNodeData(asList(HASH1, HASH2)))
+        .thenReturn(asList(Optional.of(VALUE1), Optional.of(VALUE2)));
     assertThat(
             ethMessages.dispatch(
                 new EthMessage(ethPeer, GetNodeDataMessage.create(asList(HASH1, HASH2, HASH3)))))
@@ -81,9 +81,8 @@ public class EthServerTest {
   @Test
   public void shouldLimitTheNumberOfNodeDataResponsesLookedUpNotTheNumberReturned()
       throws Exception {
-    when(worldStateArchive.getNodeData(HASH1)).thenReturn(Optional.of(VALUE1));
-    when(worldStateArchive.getNodeData(HASH2)).thenReturn(Optional.empty());
-    when(worldStateArchive.getNodeData(HASH3)).thenReturn(Optional.of(VALUE3));
+    when(worldStateArchive.getNodeData(asList(HASH1, HASH2)))
+        .thenReturn(asList(Optional.of(VALUE1), Optional.empty()));
     assertThat(
             ethMessages.dispatch(
                 new EthMessage(ethPeer, GetNodeDataMessage.create(asList(HASH1, HASH2, HASH3)))))
@@ -0,0 +1,115 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.eth.manager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hyperledger.besu.ethereum.eth.messages.EthPV62;
+import org.hyperledger.besu.ethereum.eth.messages.EthPV63;
+
+import org.junit.Test;
+
+public class PeerPerformanceTest {
+
+  private final PeerPerformance performance = new PeerPerformance();
+
+  @Test
+  public void shouldReportNoMeasurementsForNewPeer() {
+    assertThat(performance.getThroughput(EthPV62.GET_BLOCK_BODIES)).isNaN();
+    assertThat(performance.getLatencyPercentile(EthPV62.GET_BLOCK_BODIES, 50)).isEmpty();
+    assertThat(performance.getCompleteness(EthPV62.GET_BLOCK_BODIES)).isEqualTo(1);
+    assertThat(performance.recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, 128)).isEqualTo(128);
+  }
+
+  @Test
+  public void shouldMeasureThroughputPerRequestType() {
+    performance.recordResponse(EthPV62.GET_BLOCK_BODIES, 100, 10_000);
+    performance.recordResponse(EthPV63.GET_RECEIPTS, 100, 10_000);
+
+    assertThat(performance.getThroughput(EthPV62.GET_BLOCK_BODIES)).isEqualTo(100_000);
+    assertThat(performance.getThroughput(EthPV63.GET_RECEIPTS)).isEqualTo(100_000);
+
+    performance.recordResponse(EthPV62.GET_BLOCK_BODIES, 100, 50_000);
+
+    assertThat(performance.getThroughput(EthPV62.GET_BLOCK_BODIES)).isEqualTo(200_000);
+    assertThat(performance.getThroughput(EthPV63.GET_RECEIPTS)).isEqualTo(100_000);
+  }
+
+  @Test
+  public void shouldComputeLatencyPercentilesFromRecentResponses() {
+    for (int latency = 1; latency <= 100; latency++) {
+      performance.recordResponse(EthPV62.GET_BLOCK_HEADERS, latency, 100);
+    }
+
+    // only the most recent samples are kept
+    assertThat(performance.getLatencyPercentile(EthPV62.GET_BLOCK_HEADERS, 0)).hasValue(37);
+    assertThat(performance.getLatencyPercentile(EthPV62.GET_BLOCK_HEADERS, 50)).hasValue(68);
+    assertThat(performance.getLatencyPercentile(EthPV62.GET_BLOCK_HEADERS, 100)).hasValue(100);
+    assertThat(performance.getLatencyPercentile(EthPV62.GET_BLOCK_BODIES, 50)).isEmpty();
+  }
+
+  @Test
+  public void shouldTrackCompleteness() {
+    performance.recordItems(EthPV62.GET_BLOCK_BODIES, 100, 50);
+    assertThat(performance.getCompleteness(EthPV62.GET_BLOCK_BODIES)).isEqualTo(0.5);
+
+    performance.recordItems(EthPV62.GET_BLOCK_BODIES, 100, 100);
+    assertThat(performance.getCompleteness(EthPV62.GET_BLOCK_BODIES)).isEqualTo(0.625);
+  }
+
+  @Test
+  public void shouldSizeRequestsToWhatThePeerDelivers() {
+    performance.recordItems(EthPV62.GET_BLOCK_BODIES, 128, 40);
+
+    assertThat(performance.recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, 128)).isEqualTo(51);
+    assertThat(performance.recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, 20)).isEqualTo(20);
+    assertThat(performance.recommendedRequestSize(EthPV63.GET_RECEIPTS, 128)).isEqualTo(128);
+  }
+
+  @Test
+  public void shouldNotCapRequestsWhenSmallRequestsWereServedInFull() {
+    for (int i = 0; i < 10; i++) {
+      performance.recordItems(EthPV62.GET_BLOCK_BODIES, 1, 1);
+    }
+
+    assertThat(performance.recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, 128)).isEqualTo(128);
+  }
+
+  @Test
+  public void shouldGrowCappedRequestsWhenTheyAreServedInFull() {
+    performance.recordItems(EthPV62.GET_BLOCK_BODIES, 128, 40);
+    performance.recordItems(EthPV62.GET_BLOCK_BODIES, 51, 51);
+
+    assertThat(performance.recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, 128)).isEqualTo(65);
+  }
+
+  @Test
+  public void shouldShrinkRequestsForSlowPeers() {
+    performance.recordItems(EthPV62.GET_BLOCK_BODIES, 128, 128);
+    performance.recordResponse(
+        EthPV62.GET_BLOCK_BODIES, PeerPerformance.TARGET_LATENCY_MILLIS * 4, 1_000_000);
+
+    assertThat(performance.recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, 128)).isEqualTo(32);
+  }
+
+  @Test
+  public void shouldNeverRecommendEmptyRequests() {
+    performance.recordItems(EthPV62.GET_BLOCK_BODIES, 128, 0);
+    performance.recordResponse(
+        EthPV62.GET_BLOCK_BODIES, PeerPerformance.TARGET_LATENCY_MILLIS * 100, 100);
+
+    assertThat(performance.recommendedRequestSize(EthPV62.GET_BLOCK_BODIES, 128)).isEqualTo(1);
+  }
+}
@@ -17,6 +17,7 @@ package org.hyperledger.besu.ethereum.eth.manager;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import org.hyperledger.besu.ethereum.eth.EthProtocol;
+import org.hyperledger.besu.ethereum.eth.messages.EthPV62;
 import org.hyperledger.besu.ethereum.p2p.rlpx.connections.PeerConnection;
 import org.hyperledger.besu.ethereum.p2p.rlpx.wire.Capability;
 import org.hyperledger.besu.ethereum.p2p.rlpx.wire.MessageData;
@@ -273,6 +274,29 @@ public class RequestManagerTest {
     assertThat(receivedMessagesA.size() + receivedMessagesB.size()).isEqualTo(1);
   }
 
+  @Test
+  public void recordsResponseLatencyAndThroughputOfPeer() throws Exception {
+    final TestClock clock = new TestClock();
+    final EthPeer peer = createPeer();
+    final RequestManager requestManager = new RequestManager(peer, true, EthProtocol.NAME, clock);
+
+    requestManager.dispatchRequest(__ -> {}, new RawMessage(EthPV62.GET_BLOCK_BODIES, Bytes.EMPTY));
+    clock.stepMillis(250);
+
+    final BytesValueRLPOutput rlpOutput = new BytesValueRLPOutput();
+    rlpOutput.startList();
+    rlpOutput.writeLongScalar(0);
+    rlpOutput.writeBytes(Bytes.repeat((byte) 1, 1000));
+    rlpOutput.endList();
+    final RawMessage response = new RawMessage(EthPV62.BLOCK_BODIES, rlpOutput.encoded());
+    requestManager.dispatchResponse(new EthMessage(peer, response));
+
+    final PeerPerformance performance = peer.getPerformance();
+    assertThat(performance.getLatencyPercentile(EthPV62.GET_BLOCK_BODIES, 50)).hasValue(250);
+    assertThat(performance.getThroughput(EthPV62.GET_BLOCK_BODIES))
+        .isEqualTo(response.getSize() * 4.0);
+  }
+
   private EthMessage mockMessage(final EthPeer peer, final boolean supportsRequestId) {
     if (!supportsRequestId) {
       return new EthMessage(peer, new RawMessage(1, Bytes.EMPTY));
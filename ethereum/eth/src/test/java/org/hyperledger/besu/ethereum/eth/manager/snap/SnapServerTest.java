@@ -0,0 +1,294 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.eth.manager.snap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.datatypes.Wei;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldStateKeyValueStorage;
+import org.hyperledger.besu.ethereum.bonsai.BonsaiWorldView;
+import org.hyperledger.besu.ethereum.chain.Blockchain;
+import org.hyperledger.besu.ethereum.core.BlockHeader;
+import org.hyperledger.besu.ethereum.core.BlockHeaderTestFixture;
+import org.hyperledger.besu.ethereum.core.InMemoryKeyValueStorageProvider;
+import org.hyperledger.besu.ethereum.eth.manager.EthMessage;
+import org.hyperledger.besu.ethereum.eth.manager.EthMessages;
+import org.hyperledger.besu.ethereum.eth.manager.EthPeer;
+import org.hyperledger.besu.ethereum.eth.messages.snap.AccountRangeMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.ByteCodesMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetAccountRangeMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetByteCodesMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetStorageRangeMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.GetTrieNodesMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.StorageRangeMessage;
+import org.hyperledger.besu.ethereum.eth.messages.snap.TrieNodesMessage;
+import org.hyperledger.besu.ethereum.eth.sync.snapsync.RangeManager;
+import org.hyperledger.besu.ethereum.p2p.rlpx.wire.MessageData;
+import org.hyperledger.besu.ethereum.proof.WorldStateProofProvider;
+import org.hyperledger.besu.ethereum.rlp.BytesValueRLPOutput;
+import org.hyperledger.besu.ethereum.rlp.RLP;
+import org.hyperledger.besu.ethereum.trie.CompactEncoding;
+import org.hyperledger.besu.ethereum.trie.MerklePatriciaTrie;
+import org.hyperledger.besu.ethereum.trie.StoredMerklePatriciaTrie;
+import org.hyperledger.besu.ethereum.worldstate.StateTrieAccountValue;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.units.bigints.UInt256;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SnapServerTest {
+
+  private static final int ACCOUNT_COUNT = 50;
+  private static final int SLOT_COUNT = 5;
+  private static final int SIZE_REQUEST = 512 * 1024;
+
+  private final BonsaiWorldStateKeyValueStorage worldStateStorage =
+      new BonsaiWorldStateKeyValueStorage(new InMemoryKeyValueStorageProvider());
+  private final WorldStateProofProvider proofProvider =
+      new WorldStateProofProvider(worldStateStorage);
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private final EthMessages snapMessages = new EthMessages();
+  private final List<Hash> accountHashes = new ArrayList<>();
+  private final List<Bytes> codes = new ArrayList<>();
+  private Hash rootHash;
+
+  @Before
+  public void setUp() {
+    rootHash = createState();
+    final BlockHeader chainHead = new BlockHeaderTestFixture().stateRoot(rootHash).buildHeader();
+    final BonsaiWorldStateKeyValueStorage.Updater updater = worldStateStorage.updater();
+    updater
+        .getTrieBranchStorageTransaction()
+        .put(
+            BonsaiWorldStateKeyValueStorage.WORLD_BLOCK_HASH_KEY,
+            chainHead.getHash().toArrayUnsafe());
+    updater.commit();
+    when(blockchain.getChainHeadHeader()).thenReturn(chainHead);
+    accountHashes.sort(Bytes::compareTo);
+  }
+
+  @Test
+  public void servesAccountRangeWithProofs() {
+    createServer(SnapServer.DEFAULT_PEER_BYTES_PER_SECOND);
+
+    final AccountRangeMessage.AccountRangeData response =
+        requestAccountRange(rootHash, Hash.ZERO, SIZE_REQUEST);
+
+    assertThat(response.accounts().keySet()).containsExactlyElementsOf(accountHashes);
+    assertThat(
+            proofProvider.isValidRangeProof(
+                Hash.ZERO,
+                response.accounts().lastKey(),
+                rootHash,
+                new ArrayList<>(response.proofs()),
+                response.accounts()))
+        .isTrue();
+  }
+
+  @Test
+  public void cutsAccountRangeAtTheRequestedSize() {
+    createServer(SnapServer.DEFAULT_PEER_BYTES_PER_SECOND);
+    final Bytes32 startKeyHash = accountHashes.get(10);
+
+    final AccountRangeMessage.AccountRangeData response =
+        requestAccountRange(rootHash, startKeyHash, 500);
+
+    assertThat(response.accounts()).isNotEmpty().hasSizeLessThan(ACCOUNT_COUNT - 10);
+    assertThat(response.accounts().firstKey()).isEqualTo(startKeyHash);
+    assertThat(
+            proofProvider.isValidRangeProof(
+                startKeyHash,
+                response.accounts().lastKey(),
+                rootHash,
+                new ArrayList<>(response.proofs()),
+                response.accounts()))
+        .isTrue();
+  }
+
+  @Test
+  public void answersEmptyForUnknownStateRoot() {
+    createServer(SnapServer.DEFAULT_PEER_BYTES_PER_SECOND);
+
+    final AccountRangeMessage.AccountRangeData response =
+        requestAccountRange(Hash.EMPTY_TRIE_HASH, Hash.ZERO, SIZE_REQUEST);
+
+    assertThat(response.accounts()).isEmpty();
+    assertThat(response.proofs()).isEmpty();
+  }
+
+  @Test
+  public void servesStorageRanges() {
+    createServer(SnapServer.DEFAULT_PEER_BYTES_PER_SECOND);
+    final List<Bytes32> requestedAccounts = List.of(accountHashes.get(0), accountHashes.get(1));
+
+    final StorageRangeMessage.SlotRangeData response =
+        StorageRangeMessage.readFrom(
+                dispatch(
+                    GetStorageRangeMessage.create(
+                        rootHash, requestedAccounts, Hash.ZERO, RangeManager.MAX_RANGE)))
+            .slotsData(false);
+
+    assertThat(response.slots()).hasSize(2);
+    assertThat(response.slots().first())
+        .hasSize(SLOT_COUNT)
+        .containsEntry(
+            Hash.hash(UInt256.ONE), BonsaiWorldView.encodeTrieValue(UInt256.valueOf(2)));
+    assertThat(response.proofs()).isEmpty();
+  }
+
+  @Test
+  public void servesBytecodesByCodeHash() {
+    createServer(SnapServer.DEFAULT_PEER_BYTES_PER_SECOND);
+    final List<Bytes32> codeHashes =
+        List.of(
+            Hash.hash(codes.get(0)),
+            Hash.hash(Bytes.fromHexString("0x6002")),
+            Hash.hash(codes.get(1)));
+
+    assertThat(
+            ByteCodesMessage.readFrom(dispatch(GetByteCodesMessage.create(codeHashes)))
+                .bytecodes(false)
+                .codes())
+        .containsExactly(codes.get(0), codes.get(1));
+  }
+
+  @Test
+  public void repliesToBytecodesRequestWithoutKnownCodes() {
+    createServer(SnapServer.DEFAULT_PEER_BYTES_PER_SECOND);
+
+    assertThat(
+            ByteCodesMessage.readFrom(
+                    dispatch(
+                        GetByteCodesMessage.create(
+                            List.of(Hash.hash(Bytes.fromHexString("0x6002"))))))
+                .bytecodes(false)
+                .codes())
+        .isEmpty();
+  }
+
+  @Test
+  public void servesTrieNodes() {
+    createServer(SnapServer.DEFAULT_PEER_BYTES_PER_SECOND);
+
+    final List<Bytes> nodes =
+        new ArrayList<>(
+            TrieNodesMessage.readFrom(
+                    dispatch(
+                        GetTrieNodesMessage.create(
+                            rootHash,
+                            List.of(
+                                List.of(CompactEncoding.encode(Bytes.EMPTY)),
+                                List.of(
+                                    accountHashes.get(0), CompactEncoding.encode(Bytes.EMPTY))))))
+                .nodes(false));
+
+    assertThat(nodes).hasSize(2);
+    assertThat(Hash.hash(nodes.get(0))).isEqualTo(rootHash);
+  }
+
+  @Test
+  public void throttlesPeerOverItsBudget() {
+    createServer(1_000);
+
+    assertThat(requestAccountRange(rootHash, Hash.ZERO, SIZE_REQUEST).accounts()).isNotEmpty();
+    assertThat(requestAccountRange(rootHash, Hash.ZERO, SIZE_REQUEST).accounts()).isEmpty();
+  }
+
+  private void createServer(final long peerBytesPerSecond) {
+    new SnapServer(
+        snapMessages,
+        worldStateStorage,
+        blockchain,
+        new NoOpMetricsSystem(),
+        peerBytesPerSecond,
+        Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+  }
+
+  private MessageData dispatch(final MessageData request) {
+    final EthPeer peer = mock(EthPeer.class);
+    when(peer.nodeId()).thenReturn(Bytes.of(1));
+    return snapMessages
+        .dispatch(new EthMessage(peer, request.wrapMessageData(BigInteger.ONE)))
+        .orElseThrow();
+  }
+
+  private AccountRangeMessage.AccountRangeData requestAccountRange(
+      final Hash rootHash, final Bytes32 startKeyHash, final int responseBytes) {
+    final BytesValueRLPOutput out = new BytesValueRLPOutput();
+    out.startList();
+    out.writeBytes(rootHash);
+    out.writeBytes(startKeyHash);
+    out.writeBytes(RangeManager.MAX_RANGE);
+    out.writeIntScalar(responseBytes);
+    out.endList();
+    return AccountRangeMessage.readFrom(dispatch(new GetAccountRangeMessage(out.encoded())))
+        .accountData(false);
+  }
+
+  private Hash createState() {
+    final BonsaiWorldStateKeyValueStorage.Updater updater = worldStateStorage.updater();
+    final MerklePatriciaTrie<Bytes, Bytes> accountTrie =
+        new StoredMerklePatriciaTrie<>(
+            worldStateStorage::getAccountStateTrieNode, b -> b, b -> b);
+    for (int i = 0; i < ACCOUNT_COUNT; i++) {
+      final Hash accountHash = Hash.hash(Bytes.ofUnsignedInt(i));
+      final MerklePatriciaTrie<Bytes32, Bytes> storageTrie =
+          new StoredMerklePatriciaTrie<>(
+              (location, hash) ->
+                  worldStateStorage.getAccountStorageTrieNode(accountHash, location, hash),
+              b -> b,
+              b -> b);
+      for (int slot = 1; slot <= SLOT_COUNT; slot++) {
+        final Hash slotHash = Hash.hash(UInt256.valueOf(slot));
+        final UInt256 value = UInt256.valueOf(slot * 2L);
+        storageTrie.put(slotHash, BonsaiWorldView.encodeTrieValue(value));
+        updater.putStorageValueBySlotHash(accountHash, slotHash, value);
+      }
+      storageTrie.commit(
+          (location, hash, value) ->
+              updater.putAccountStorageTrieNode(accountHash, location, hash, value));
+      final Bytes code = Bytes.concatenate(Bytes.fromHexString("0x6001"), Bytes.ofUnsignedInt(i));
+      final StateTrieAccountValue account =
+          new StateTrieAccountValue(
+              1L, Wei.of(2L), Hash.wrap(storageTrie.getRootHash()), Hash.hash(code));
+      final Bytes accountValue = RLP.encode(account::writeTo);
+      accountTrie.put(accountHash, accountValue);
+      updater.putAccountInfoState(accountHash, accountValue);
+      updater.putCode(accountHash, Hash.hash(code), code);
+      accountHashes.add(accountHash);
+      codes.add(code);
+    }
+    accountTrie.commit(updater::putAccountStateTrieNode);
+    final Hash rootHash = Hash.wrap(accountTrie.getRootHash());
+    updater
+        .getTrieBranchStorageTransaction()
+        .put(BonsaiWorldStateKeyValueStorage.WORLD_ROOT_HASH_KEY, rootHash.toArrayUnsafe());
+    updater.commit();
+    return rootHash;
+  }
+}
@@ -19,12 +19,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 import org.hyperledger.besu.ethereum.core.Block;
 import org.hyperledger.besu.ethereum.core.BlockBody;
 import org.hyperledger.besu.ethereum.core.BlockHeader;
+import org.hyperledger.besu.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import org.hyperledger.besu.ethereum.eth.manager.RespondingEthPeer;
 import org.hyperledger.besu.ethereum.eth.manager.ethtaskutils.PeerMessageTaskTest;
+import org.hyperledger.besu.ethereum.eth.messages.EthPV62;
+import org.hyperledger.besu.ethereum.eth.messages.GetBlockBodiesMessage;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.junit.Test;
+
 public class GetBodiesFromPeerTaskTest extends PeerMessageTaskTest<List<Block>> {
 
   @Override
@@ -47,6 +53,36 @@ public class GetBodiesFromPeerTaskTest extends PeerMessageTaskTest<List<Block>>
         protocolSchedule, ethContext, headersToComplete, metricsSystem);
   }
 
+  @Test
+  public void requestsAllBodiesFromPeerThatServedSmallRequestsInFull() {
+    final RespondingEthPeer respondingEthPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    // e.g. single bodies requested while following the chain head
+    respondingEthPeer.getEthPeer().getPerformance().recordItems(EthPV62.GET_BLOCK_BODIES, 1, 1);
+
+    final List<Block> requestedData = generateDataToBeRequested();
+    createTask(requestedData).run();
+
+    assertThat(requestedHashes(respondingEthPeer)).hasSize(requestedData.size());
+  }
+
+  @Test
+  public void requestsFewerBodiesFromPeerThatTruncatedResponses() {
+    final RespondingEthPeer respondingEthPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    respondingEthPeer.getEthPeer().getPerformance().recordItems(EthPV62.GET_BLOCK_BODIES, 128, 1);
+
+    final List<Block> requestedData = generateDataToBeRequested();
+    createTask(requestedData).run();
+
+    assertThat(requestedHashes(respondingEthPeer)).hasSize(2);
+  }
+
+  private Iterable<?> requestedHashes(final RespondingEthPeer respondingEthPeer) {
+    return GetBlockBodiesMessage.readFrom(respondingEthPeer.peekNextOutgoingRequest().orElseThrow())
+        .hashes();
+  }
+
   @Override
   protected void assertPartialResultMatchesExpectation(
       final List<Block> requestedData, final List<Block> partialResponse) {
@@ -18,12 +18,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import org.hyperledger.besu.ethereum.core.BlockHeader;
 import org.hyperledger.besu.ethereum.core.TransactionReceipt;
+import org.hyperledger.besu.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import org.hyperledger.besu.ethereum.eth.manager.RespondingEthPeer;
 import org.hyperledger.besu.ethereum.eth.manager.ethtaskutils.PeerMessageTaskTest;
+import org.hyperledger.besu.ethereum.eth.messages.EthPV63;
+import org.hyperledger.besu.ethereum.eth.messages.GetReceiptsMessage;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.junit.Test;
+
 public class GetReceiptsFromPeerTaskTest
     extends PeerMessageTaskTest<Map<BlockHeader, List<TransactionReceipt>>> {
 
@@ -45,6 +51,43 @@ public class GetReceiptsFromPeerTaskTest
     return GetReceiptsFromPeerTask.forHeaders(ethContext, requestedData.keySet(), metricsSystem);
   }
 
+  @Test
+  public void requestsAllReceiptsFromPeerThatServedSmallRequestsInFull() {
+    final RespondingEthPeer respondingEthPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    respondingEthPeer.getEthPeer().getPerformance().recordItems(EthPV63.GET_RECEIPTS, 1, 1);
+
+    final Map<BlockHeader, List<TransactionReceipt>> requestedData = generateDataToBeRequested();
+    createTask(requestedData).run();
+
+    assertThat(requestedHashes(respondingEthPeer)).hasSize(distinctReceiptsRoots(requestedData));
+  }
+
+  @Test
+  public void requestsFewerReceiptsFromPeerThatTruncatedResponses() {
+    final RespondingEthPeer respondingEthPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
+    respondingEthPeer.getEthPeer().getPerformance().recordItems(EthPV63.GET_RECEIPTS, 128, 1);
+
+    final Map<BlockHeader, List<TransactionReceipt>> requestedData = generateDataToBeRequested();
+    createTask(requestedData).run();
+
+    assertThat(requestedHashes(respondingEthPeer))
+        .hasSize(Math.min(2, distinctReceiptsRoots(requestedData)));
+  }
+
+  // Receipts are only requested once for headers sharing a receipts root
+  private int distinctReceiptsRoots(
+      final Map<BlockHeader, List<TransactionReceipt>> requestedData) {
+    return (int)
+        requestedData.keySet().stream().map(BlockHeader::getReceiptsRoot).distinct().count();
+  }
+
+  private Iterable<?> requestedHashes(final RespondingEthPeer respondingEthPeer) {
+    return GetReceiptsMessage.readFrom(respondingEthPeer.peekNextOutgoingRequest().orElseThrow())
+        .hashes();
+  }
+
   @Override
   protected void assertPartialResultMatchesExpectation(
       final Map<BlockHeader, List<TransactionReceipt>> requestedData,
@@ -26,6 +26,8 @@ import java.util.Objects;
 
 public class RlpxConfiguration {
   public static final float DEFAULT_FRACTION_REMOTE_CONNECTIONS_ALLOWED = 0.6f;
+  public static final int DEFAULT_OUTBOUND_BATCH_MAX_SIZE = 64;
+  public static final long DEFAULT_OUTBOUND_BATCH_MAX_DELAY_MILLIS = 0;
   private String clientId = "TestClient/1.0.0";
   private String bindHost = NetworkUtility.INADDR_ANY;
   private int bindPort = 30303;
@@ -33,6 +35,8 @@ public class RlpxConfiguration {
   private boolean limitRemoteWireConnectionsEnabled = false;
   private float fractionRemoteWireConnectionsAllowed = DEFAULT_FRACTION_REMOTE_CONNECTIONS_ALLOWED;
   private List<SubProtocol> supportedProtocols = Collections.emptyList();
+  private int outboundBatchMaxSize = DEFAULT_OUTBOUND_BATCH_MAX_SIZE;
+  private long outboundBatchMaxDelayMillis = DEFAULT_OUTBOUND_BATCH_MAX_DELAY_MILLIS;
 
   public static RlpxConfiguration create() {
     return new RlpxConfiguration();
@@ -103,6 +107,33 @@ public class RlpxConfiguration {
     return this;
   }
 
+  public int getOutboundBatchMaxSize() {
+    return outboundBatchMaxSize;
+  }
+
+  public RlpxConfiguration setOutboundBatchMaxSize(final int outboundBatchMaxSize) {
+    checkState(outboundBatchMaxSize > 0, "Outbound batch max size must be positive.");
+    this.outboundBatchMaxSize = outboundBatchMaxSize;
+    return this;
+  }
+
+  public long getOutboundBatchMaxDelayMillis() {
+    return outboundBatchMaxDelayMillis;
+  }
+
+  /**
+   * Sets how long outbound messages may wait for more messages to be flushed with. With no delay,
+   * the messages sent in the same event loop tick are flushed together.
+   *
+   * @param outboundBatchMaxDelayMillis the maximum delay in milliseconds
+   * @return this configuration
+   */
+  public RlpxConfiguration setOutboundBatchMaxDelayMillis(final long outboundBatchMaxDelayMillis) {
+    checkState(outboundBatchMaxDelayMillis >= 0, "Outbound batch max delay must not be negative.");
+    this.outboundBatchMaxDelayMillis = outboundBatchMaxDelayMillis;
+    return this;
+  }
+
   public int getMaxRemotelyInitiatedConnections() {
     if (!limitRemoteWireConnectionsEnabled) {
       return maxPeers;
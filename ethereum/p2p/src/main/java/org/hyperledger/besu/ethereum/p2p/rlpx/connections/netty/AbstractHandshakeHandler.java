@@ -60,6 +60,8 @@ abstract class AbstractHandshakeHandler extends SimpleChannelInboundHandler<Byte
 
   private final FramerProvider framerProvider;
 
+  private final OutboundBatching outboundBatching;
+
   AbstractHandshakeHandler(
       final List<SubProtocol> subProtocols,
       final LocalNode localNode,
@@ -68,7 +70,8 @@ abstract class AbstractHandshakeHandler extends SimpleChannelInboundHandler<Byte
       final PeerConnectionEventDispatcher connectionEventDispatcher,
       final MetricsSystem metricsSystem,
       final HandshakerProvider handshakerProvider,
-      final FramerProvider framerProvider) {
+      final FramerProvider framerProvider,
+      final OutboundBatching outboundBatching) {
     this.subProtocols = subProtocols;
     this.localNode = localNode;
     this.expectedPeer = expectedPeer;
@@ -77,6 +80,7 @@ abstract class AbstractHandshakeHandler extends SimpleChannelInboundHandler<Byte
     this.metricsSystem = metricsSystem;
     this.handshaker = handshakerProvider.buildInstance();
     this.framerProvider = framerProvider;
+    this.outboundBatching = outboundBatching;
   }
 
   /**
@@ -117,7 +121,8 @@ abstract class AbstractHandshakeHandler extends SimpleChannelInboundHandler<Byte
               expectedPeer,
               connectionEventDispatcher,
               connectionFuture,
-              metricsSystem);
+              metricsSystem,
+              outboundBatching);
 
       ctx.channel()
           .pipeline()
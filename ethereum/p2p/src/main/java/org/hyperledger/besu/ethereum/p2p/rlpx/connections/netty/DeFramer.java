@@ -70,6 +70,11 @@ final class DeFramer extends ByteToMessageDecoder {
   private final List<SubProtocol> subProtocols;
   private boolean hellosExchanged;
   private final LabelledMetric<Counter> outboundMessagesCounter;
+  private final OutboundBatching outboundBatching;
+  private final Counter pooledBytesCounter;
+  private final Counter allocatedBytesCounter;
+  private long recordedPooledBytes;
+  private long recordedAllocatedBytes;
 
   DeFramer(
       final Framer framer,
@@ -78,13 +83,15 @@ final class DeFramer extends ByteToMessageDecoder {
       final Optional<Peer> expectedPeer,
       final PeerConnectionEventDispatcher connectionEventDispatcher,
       final CompletableFuture<PeerConnection> connectFuture,
-      final MetricsSystem metricsSystem) {
+      final MetricsSystem metricsSystem,
+      final OutboundBatching outboundBatching) {
     this.framer = framer;
     this.subProtocols = subProtocols;
     this.localNode = localNode;
     this.expectedPeer = expectedPeer;
     this.connectFuture = connectFuture;
     this.connectionEventDispatcher = connectionEventDispatcher;
+    this.outboundBatching = outboundBatching;
     this.outboundMessagesCounter =
         metricsSystem.createLabelledCounter(
             BesuMetricCategory.NETWORK,
@@ -93,10 +100,48 @@ final class DeFramer extends ByteToMessageDecoder {
             "protocol",
             "name",
             "code");
+    this.pooledBytesCounter =
+        metricsSystem.createCounter(
+            BesuMetricCategory.NETWORK,
+            "p2p_deframer_pooled_bytes",
+            "Bytes of inbound frames decrypted in pooled buffers");
+    this.allocatedBytesCounter =
+        metricsSystem.createCounter(
+            BesuMetricCategory.NETWORK,
+            "p2p_deframer_allocated_bytes",
+            "Bytes allocated on the heap for inbound message payloads");
   }
 
   @Override
   protected void decode(final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out) {
+    try {
+      decodeMessages(ctx, in, out);
+    } finally {
+      recordAllocations();
+    }
+  }
+
+  @Override
+  public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+    LOG.debug(
+        "Connection to {} closed, {} inbound bytes deframed in pooled buffers, {} payload bytes allocated",
+        ctx.channel().remoteAddress(),
+        framer.getPooledBytes(),
+        framer.getAllocatedBytes());
+    super.channelInactive(ctx);
+  }
+
+  private void recordAllocations() {
+    final long pooledBytes = framer.getPooledBytes();
+    final long allocatedBytes = framer.getAllocatedBytes();
+    pooledBytesCounter.inc(pooledBytes - recordedPooledBytes);
+    allocatedBytesCounter.inc(allocatedBytes - recordedAllocatedBytes);
+    recordedPooledBytes = pooledBytes;
+    recordedAllocatedBytes = allocatedBytes;
+  }
+
+  private void decodeMessages(
+      final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out) {
     MessageData message;
     while ((message = framer.deframe(in)) != null) {
 
@@ -133,7 +178,8 @@ final class DeFramer extends ByteToMessageDecoder {
                 peerInfo,
                 capabilityMultiplexer,
                 connectionEventDispatcher,
-                outboundMessagesCounter);
+                outboundMessagesCounter,
+                outboundBatching);
 
         // Check peer is who we expected
         if (expectedPeer.isPresent()
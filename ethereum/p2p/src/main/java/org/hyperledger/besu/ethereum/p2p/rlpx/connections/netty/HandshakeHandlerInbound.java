@@ -40,7 +40,8 @@ final class HandshakeHandlerInbound extends AbstractHandshakeHandler {
       final PeerConnectionEventDispatcher connectionEventDispatcher,
       final MetricsSystem metricsSystem,
       final HandshakerProvider handshakerProvider,
-      final FramerProvider framerProvider) {
+      final FramerProvider framerProvider,
+      final OutboundBatching outboundBatching) {
     super(
         subProtocols,
         localNode,
@@ -49,7 +50,8 @@ final class HandshakeHandlerInbound extends AbstractHandshakeHandler {
         connectionEventDispatcher,
         metricsSystem,
         handshakerProvider,
-        framerProvider);
+        framerProvider,
+        outboundBatching);
     handshaker.prepareResponder(nodeKey);
   }
 
@@ -17,24 +17,87 @@ package org.hyperledger.besu.ethereum.p2p.rlpx.connections.netty;
 import org.hyperledger.besu.ethereum.p2p.rlpx.framing.Framer;
 import org.hyperledger.besu.ethereum.p2p.rlpx.wire.CapabilityMultiplexer;
 
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
 
-final class MessageFramer extends MessageToByteEncoder<OutboundMessage> {
+/**
+ * Frames outbound messages into a single buffer until the channel is flushed, so that the messages
+ * coalesced by {@link NettyPeerConnection} reach the socket in one write.
+ */
+final class MessageFramer extends ChannelOutboundHandlerAdapter {
 
   private final CapabilityMultiplexer multiplexer;
 
   private final Framer framer;
 
+  private ByteBuf batch;
+  private final List<ChannelPromise> batchPromises = new ArrayList<>();
+
   MessageFramer(final CapabilityMultiplexer multiplexer, final Framer framer) {
     this.multiplexer = multiplexer;
     this.framer = framer;
   }
 
   @Override
-  protected void encode(
-      final ChannelHandlerContext ctx, final OutboundMessage msg, final ByteBuf out) {
-    framer.frame(multiplexer.multiplex(msg.getCapability(), msg.getData()), out);
+  public void write(
+      final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+    if (!(msg instanceof OutboundMessage)) {
+      ctx.write(msg, promise);
+      return;
+    }
+    final OutboundMessage message = (OutboundMessage) msg;
+    if (batch == null) {
+      batch = ctx.alloc().buffer();
+    }
+    final int writerIndex = batch.writerIndex();
+    try {
+      framer.frame(multiplexer.multiplex(message.getCapability(), message.getData()), batch);
+    } catch (final RuntimeException e) {
+      batch.writerIndex(writerIndex);
+      promise.tryFailure(e);
+      return;
+    }
+    if (!promise.isVoid()) {
+      batchPromises.add(promise);
+    }
+  }
+
+  @Override
+  public void flush(final ChannelHandlerContext ctx) {
+    if (batch != null) {
+      final ByteBuf framed = batch;
+      final List<ChannelPromise> promises = new ArrayList<>(batchPromises);
+      batch = null;
+      batchPromises.clear();
+      ctx.write(framed)
+          .addListener(
+              future -> {
+                for (final ChannelPromise promise : promises) {
+                  if (future.isSuccess()) {
+                    promise.trySuccess();
+                  } else {
+                    promise.tryFailure(future.cause());
+                  }
+                }
+              });
+    }
+    ctx.flush();
+  }
+
+  @Override
+  public void handlerRemoved(final ChannelHandlerContext ctx) {
+    if (batch != null) {
+      batch.release();
+      batch = null;
+    }
+    final ClosedChannelException closed = new ClosedChannelException();
+    batchPromises.forEach(promise -> promise.tryFailure(closed));
+    batchPromises.clear();
   }
 }
@@ -67,6 +67,7 @@ public class NettyConnectionInitializer
   private final LocalNode localNode;
   private final PeerConnectionEventDispatcher eventDispatcher;
   private final MetricsSystem metricsSystem;
+  private final OutboundBatching outboundBatching;
   private final Subscribers<ConnectCallback> connectSubscribers = Subscribers.create();
 
   private ChannelFuture server;
@@ -86,6 +87,7 @@ public class NettyConnectionInitializer
     this.localNode = localNode;
     this.eventDispatcher = eventDispatcher;
     this.metricsSystem = metricsSystem;
+    this.outboundBatching = new OutboundBatching(config, metricsSystem);
 
     metricsSystem.createIntegerGauge(
         BesuMetricCategory.NETWORK,
@@ -240,7 +242,8 @@ public class NettyConnectionInitializer
         eventDispatcher,
         metricsSystem,
         this,
-        this);
+        this,
+        outboundBatching);
   }
 
   @NotNull
@@ -255,7 +258,8 @@ public class NettyConnectionInitializer
         eventDispatcher,
         metricsSystem,
         this,
-        this);
+        this,
+        outboundBatching);
   }
 
   @NotNull
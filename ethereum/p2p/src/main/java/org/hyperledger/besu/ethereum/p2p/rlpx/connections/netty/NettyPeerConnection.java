@@ -14,6 +14,7 @@
  */
 package org.hyperledger.besu.ethereum.p2p.rlpx.connections.netty;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import org.hyperledger.besu.ethereum.p2p.peers.Peer;
@@ -29,13 +30,23 @@ import org.hyperledger.besu.plugin.services.metrics.LabelledMetric;
 
 import java.net.InetSocketAddress;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 final class NettyPeerConnection extends AbstractPeerConnection {
 
+  private static final Logger LOG = LoggerFactory.getLogger(NettyPeerConnection.class);
+
   private final ChannelHandlerContext ctx;
+  private final OutboundBatching outboundBatching;
+  // Only accessed on the channel's event loop
+  private int unflushedMessages;
+  private boolean flushScheduled;
 
   public NettyPeerConnection(
       final ChannelHandlerContext ctx,
@@ -43,7 +54,8 @@ final class NettyPeerConnection extends AbstractPeerConnection {
       final PeerInfo peerInfo,
       final CapabilityMultiplexer multiplexer,
       final PeerConnectionEventDispatcher connectionEventDispatcher,
-      final LabelledMetric<Counter> outboundMessagesCounter) {
+      final LabelledMetric<Counter> outboundMessagesCounter,
+      final OutboundBatching outboundBatching) {
     super(
         peer,
         peerInfo,
@@ -55,6 +67,7 @@ final class NettyPeerConnection extends AbstractPeerConnection {
         outboundMessagesCounter);
 
     this.ctx = ctx;
+    this.outboundBatching = outboundBatching;
     ctx.channel()
         .closeFuture()
         .addListener(
@@ -64,7 +77,48 @@ final class NettyPeerConnection extends AbstractPeerConnection {
 
   @Override
   protected void doSendMessage(final Capability capability, final MessageData message) {
-    ctx.channel().writeAndFlush(new OutboundMessage(capability, message));
+    final OutboundMessage outboundMessage = new OutboundMessage(capability, message);
+    final EventLoop eventLoop = ctx.channel().eventLoop();
+    if (eventLoop.inEventLoop()) {
+      write(outboundMessage);
+    } else {
+      try {
+        eventLoop.execute(() -> write(outboundMessage));
+      } catch (final RejectedExecutionException e) {
+        LOG.debug("Dropping message {} as the event loop is shutting down", message);
+      }
+    }
+  }
+
+  /**
+   * Writes the message without flushing it, so that it is flushed along with the other messages
+   * sent before the scheduled flush runs.
+   */
+  private void write(final OutboundMessage message) {
+    ctx.channel().write(message);
+    unflushedMessages++;
+    if (unflushedMessages >= outboundBatching.getMaxBatchSize()) {
+      flush();
+    } else if (!flushScheduled) {
+      flushScheduled = true;
+      final EventLoop eventLoop = ctx.channel().eventLoop();
+      final long maxDelayMillis = outboundBatching.getMaxDelayMillis();
+      if (maxDelayMillis > 0) {
+        eventLoop.schedule(this::flush, maxDelayMillis, MILLISECONDS);
+      } else {
+        eventLoop.execute(this::flush);
+      }
+    }
+  }
+
+  private void flush() {
+    flushScheduled = false;
+    if (unflushedMessages == 0) {
+      return;
+    }
+    outboundBatching.recordFlush(unflushedMessages);
+    unflushedMessages = 0;
+    ctx.channel().flush();
   }
 
   @Override
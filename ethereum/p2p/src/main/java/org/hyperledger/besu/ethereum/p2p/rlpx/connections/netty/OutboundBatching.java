@@ -0,0 +1,83 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.p2p.rlpx.connections.netty;
+
+import org.hyperledger.besu.ethereum.p2p.config.RlpxConfiguration;
+import org.hyperledger.besu.metrics.BesuMetricCategory;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.metrics.LabelledMetric;
+
+/**
+ * How outbound messages are coalesced before a connection is flushed, shared by all the
+ * connections of a node.
+ *
+ * <p>Messages sent to a connection are written without flushing and a flush is scheduled on the
+ * connection's event loop, so all the messages sent in the same event loop tick, or within the
+ * configured delay, are framed into one buffer and reach the socket in a single write. A connection
+ * is flushed right away once it holds the maximum number of unflushed messages.
+ */
+final class OutboundBatching {
+
+  // upper bounds of the batch size buckets, the last bucket holds any larger batch
+  private static final int[] BATCH_SIZE_BUCKETS = {1, 2, 4, 8, 16, 32, 64};
+
+  private final int maxBatchSize;
+  private final long maxDelayMillis;
+  private final Counter flushCounter;
+  private final Counter[] batchSizeCounters = new Counter[BATCH_SIZE_BUCKETS.length + 1];
+
+  OutboundBatching(final RlpxConfiguration config, final MetricsSystem metricsSystem) {
+    this(config.getOutboundBatchMaxSize(), config.getOutboundBatchMaxDelayMillis(), metricsSystem);
+  }
+
+  OutboundBatching(
+      final int maxBatchSize, final long maxDelayMillis, final MetricsSystem metricsSystem) {
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayMillis = maxDelayMillis;
+    this.flushCounter =
+        metricsSystem.createCounter(
+            BesuMetricCategory.NETWORK,
+            "p2p_outbound_flushes",
+            "Count of flushes of coalesced outbound messages to peer connections");
+    final LabelledMetric<Counter> batchSizes =
+        metricsSystem.createLabelledCounter(
+            BesuMetricCategory.NETWORK,
+            "p2p_outbound_batches",
+            "Count of flushed outbound batches by the bucket of their number of messages",
+            "batch_size");
+    for (int i = 0; i < BATCH_SIZE_BUCKETS.length; i++) {
+      batchSizeCounters[i] = batchSizes.labels(Integer.toString(BATCH_SIZE_BUCKETS[i]));
+    }
+    batchSizeCounters[BATCH_SIZE_BUCKETS.length] = batchSizes.labels("more");
+  }
+
+  int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  long getMaxDelayMillis() {
+    return maxDelayMillis;
+  }
+
+  void recordFlush(final int batchSize) {
+    flushCounter.inc();
+    int bucket = 0;
+    while (bucket < BATCH_SIZE_BUCKETS.length && batchSize > BATCH_SIZE_BUCKETS[bucket]) {
+      bucket++;
+    }
+    batchSizeCounters[bucket].inc();
+  }
+}
@@ -32,6 +32,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.errorprone.annotations.FormatMethod;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.MutableBytes;
 import org.bouncycastle.crypto.BlockCipher;
@@ -85,6 +87,9 @@ public class Framer {
   private boolean compressionEnabled = false;
   // have we ever successfully uncompressed a packet?
   private boolean compressionSuccessful = false;
+  private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+  private long pooledBytes;
+  private long allocatedBytes;
 
   protected Framer() {
     this.secrets = null;
@@ -262,59 +267,103 @@ public class Framer {
       throw error("Expected %s bytes in header, got %s", expectedSize, f.readableBytes());
     }
 
-    final byte[] frameData = new byte[frameSize + pad];
-    final byte[] fMac = new byte[LENGTH_MAC];
-    f.readBytes(frameData).readBytes(fMac);
+    // A compressed frame is only needed until it is decompressed into the payload, so it is
+    // decrypted in a pooled buffer. An uncompressed frame is decrypted in the array that then
+    // backs the payload.
+    final int dataLength = frameSize + pad;
+    final ByteBuf pooledFrame = compressionEnabled ? allocator.heapBuffer(dataLength) : null;
+    try {
+      final byte[] frameData;
+      final int offset;
+      if (pooledFrame != null) {
+        f.readBytes(pooledFrame, dataLength);
+        frameData = pooledFrame.array();
+        offset = pooledFrame.arrayOffset() + pooledFrame.readerIndex();
+        pooledBytes += dataLength;
+      } else {
+        frameData = new byte[dataLength];
+        offset = 0;
+        f.readBytes(frameData);
+        allocatedBytes += dataLength;
+      }
+      final byte[] fMac = new byte[LENGTH_MAC];
+      f.readBytes(fMac);
 
-    // Validate the frame's MAC.
-    final byte[] fMacSeed = secrets.updateIngress(frameData).getIngressMac();
-    final byte[] fMacSeedEnc = new byte[16];
-    macEncryptor.processBlock(fMacSeed, 0, fMacSeedEnc, 0);
-    byte[] expectedMac = secrets.updateIngress(xor(fMacSeedEnc, fMacSeed)).getIngressMac();
-    expectedMac = Arrays.copyOf(expectedMac, LENGTH_MAC);
+      // Validate the frame's MAC.
+      final byte[] fMacSeed = secrets.updateIngress(frameData, offset, dataLength).getIngressMac();
+      final byte[] fMacSeedEnc = new byte[16];
+      macEncryptor.processBlock(fMacSeed, 0, fMacSeedEnc, 0);
+      byte[] expectedMac = secrets.updateIngress(xor(fMacSeedEnc, fMacSeed)).getIngressMac();
+      expectedMac = Arrays.copyOf(expectedMac, LENGTH_MAC);
 
-    validateMac(fMac, expectedMac);
+      validateMac(fMac, expectedMac);
 
-    // Decrypt frame data.
-    decryptor.processBytes(frameData, 0, frameData.length, frameData, 0);
+      // Decrypt frame data.
+      decryptor.processBytes(frameData, offset, dataLength, frameData, offset);
 
-    // Read the id.
-    final Bytes idbv = RLP.decodeOne(Bytes.of(frameData[0]));
-    final int id = idbv.isZero() || idbv.size() == 0 ? 0 : idbv.get(0);
+      // Read the id.
+      final Bytes idbv = RLP.decodeOne(Bytes.of(frameData[offset]));
+      final int id = idbv.isZero() || idbv.size() == 0 ? 0 : idbv.get(0);
 
-    // Write message data to ByteBuf, decompressing as necessary
-    final Bytes data;
-    if (compressionEnabled) {
-      final byte[] compressedMessageData = Arrays.copyOfRange(frameData, 1, frameData.length - pad);
-      final int uncompressedLength = compressor.uncompressedLength(compressedMessageData);
-      if (uncompressedLength >= LENGTH_MAX_MESSAGE_FRAME) {
-        throw error("Message size %s in excess of maximum length.", uncompressedLength);
+      final int messageLength = frameSize - LENGTH_MESSAGE_ID;
+      final Bytes data =
+          pooledFrame != null
+              ? decompress(frameData, offset + LENGTH_MESSAGE_ID, messageLength)
+              : Bytes.wrap(frameData, LENGTH_MESSAGE_ID, messageLength);
+      return new RawMessage(id, data);
+    } finally {
+      if (pooledFrame != null) {
+        pooledFrame.release();
       }
-      Bytes _data;
-      try {
-        final byte[] decompressedMessageData = compressor.decompress(compressedMessageData);
-        _data = Bytes.wrap(decompressedMessageData);
-        compressionSuccessful = true;
-      } catch (final FramingException fe) {
-        if (compressionSuccessful) {
-          throw fe;
-        } else {
-          // OpenEthereum/Parity does not implement EIP-706
-          // If failing on the first packet downgrade to uncompressed
-          compressionEnabled = false;
-          LOG.debug("Snappy decompression failed: downgrading to uncompressed");
-          final int messageLength = frameSize - LENGTH_MESSAGE_ID;
-          _data = Bytes.wrap(frameData, 1, messageLength);
-        }
+    }
+  }
+
+  /**
+   * Decompresses a message straight from the decrypted frame into an array of the uncompressed
+   * size, which then backs the message data without any further copy.
+   */
+  private Bytes decompress(final byte[] frameData, final int offset, final int length) {
+    final int uncompressedLength = compressor.uncompressedLength(frameData, offset, length);
+    if (uncompressedLength >= LENGTH_MAX_MESSAGE_FRAME) {
+      throw error("Message size %s in excess of maximum length.", uncompressedLength);
+    }
+    try {
+      final byte[] decompressedMessageData = new byte[uncompressedLength];
+      compressor.decompress(frameData, offset, length, decompressedMessageData);
+      allocatedBytes += uncompressedLength;
+      compressionSuccessful = true;
+      return Bytes.wrap(decompressedMessageData);
+    } catch (final FramingException fe) {
+      if (compressionSuccessful) {
+        throw fe;
       }
-      data = _data;
-    } else {
-      // Move data to a ByteBuf
-      final int messageLength = frameSize - LENGTH_MESSAGE_ID;
-      data = Bytes.wrap(frameData, 1, messageLength);
+      // OpenEthereum/Parity does not implement EIP-706
+      // If failing on the first packet downgrade to uncompressed
+      compressionEnabled = false;
+      LOG.debug("Snappy decompression failed: downgrading to uncompressed");
+      allocatedBytes += length;
+      return Bytes.wrap(Arrays.copyOfRange(frameData, offset, offset + length));
     }
+  }
 
-    return new RawMessage(id, data);
+  /**
+   * The number of inbound frame bytes decrypted in buffers borrowed from the pooled allocator
+   * since this framer was created.
+   *
+   * @return the number of pooled bytes
+   */
+  public synchronized long getPooledBytes() {
+    return pooledBytes;
+  }
+
+  /**
+   * The number of bytes allocated on the heap for inbound message payloads since this framer was
+   * created.
+   *
+   * @return the number of allocated bytes
+   */
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
   }
 
   private void validateMac(final byte[] candidateMac, final byte[] expectedMac) {
@@ -337,11 +386,11 @@ public class Framer {
         message.getSize() < LENGTH_MAX_MESSAGE_FRAME, "Message size in excess of maximum length.");
     // Compress message
     if (compressionEnabled) {
-      // Extract data from message
-      // Compress data
-      final byte[] compressed = compressor.compress(message.getData().toArrayUnsafe());
+      // A message broadcast to many peers keeps its compressed data, so only the encryption and
+      // MAC are computed per connection
+      final Bytes compressed = message.getCompressedData(Framer::compress);
       // Construct new, compressed message
-      frameMessage(new RawMessage(message.getCode(), Bytes.wrap(compressed)), output);
+      frameMessage(new RawMessage(message.getCode(), compressed), output);
     } else {
       frameMessage(message, output);
     }
@@ -391,6 +440,10 @@ public class Framer {
     buf.writeBytes(f.toArrayUnsafe()).writeBytes(fMac);
   }
 
+  private static Bytes compress(final Bytes data) {
+    return Bytes.wrap(compressor.compress(data.toArrayUnsafe()));
+  }
+
   private static int padding16(final int size) {
     final int pad = size % 16;
     return pad == 0 ? 0 : 16 - pad;
@@ -45,6 +45,30 @@ public class SnappyCompressor {
     }
   }
 
+  public void decompress(
+      final byte[] compressed, final int offset, final int length, final byte[] output) {
+    checkNotNull(compressed, "input data must not be null");
+    try {
+      final int decompressedLength = Snappy.uncompress(compressed, offset, length, output, 0);
+      if (decompressedLength != output.length) {
+        throw new FramingException(
+            String.format(
+                "Snappy decompressed %s bytes, expected %s", decompressedLength, output.length));
+      }
+    } catch (final IOException e) {
+      throw new FramingException("Snappy decompression failed", e);
+    }
+  }
+
+  public int uncompressedLength(final byte[] compressed, final int offset, final int length) {
+    checkNotNull(compressed, "input data must not be null");
+    try {
+      return Snappy.uncompressedLength(compressed, offset, length);
+    } catch (final IOException e) {
+      throw new FramingException("Snappy uncompressedLength failed", e);
+    }
+  }
+
   public int uncompressedLength(final byte[] compressed) {
     checkNotNull(compressed, "input data must not be null");
     try {
@@ -15,6 +15,7 @@
 package org.hyperledger.besu.ethereum.p2p.rlpx.wire;
 
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
 import org.apache.tuweni.bytes.Bytes;
 
@@ -22,6 +23,9 @@ public abstract class AbstractMessageData implements MessageData {
 
   protected final Bytes data;
 
+  // The same message instance is sent to every peer a block or consensus message is gossiped to
+  private volatile Bytes compressedData;
+
   protected AbstractMessageData(final Bytes data) {
     this.data = data;
   }
@@ -36,6 +40,17 @@ public abstract class AbstractMessageData implements MessageData {
     return data;
   }
 
+  @Override
+  public Bytes getCompressedData(final UnaryOperator<Bytes> compressor) {
+    Bytes compressed = compressedData;
+    if (compressed == null) {
+      // Concurrent connections may both compress the data, they produce the same bytes
+      compressed = compressor.apply(getData());
+      compressedData = compressed;
+    }
+    return compressed;
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (this == o) {
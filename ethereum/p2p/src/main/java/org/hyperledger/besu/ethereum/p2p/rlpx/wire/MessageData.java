@@ -21,6 +21,7 @@ import org.hyperledger.besu.ethereum.rlp.RLPInput;
 import java.math.BigInteger;
 import java.util.AbstractMap;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 import org.apache.tuweni.bytes.Bytes;
 
@@ -48,6 +49,19 @@ public interface MessageData {
    */
   Bytes getData();
 
+  /**
+   * Returns the compressed representation of this message's data. Messages that are sent to many
+   * peers keep it once computed, so that their data is compressed only once rather than once per
+   * connection.
+   *
+   * @param compressor the compression to apply, which must always give the same output for the
+   *     same data
+   * @return the compressed representation of this message's data
+   */
+  default Bytes getCompressedData(final UnaryOperator<Bytes> compressor) {
+    return compressor.apply(getData());
+  }
+
   default MessageData wrapMessageData(final BigInteger requestId) {
     final BytesValueRLPOutput rlpOutput = new BytesValueRLPOutput();
     rlpOutput.startList();
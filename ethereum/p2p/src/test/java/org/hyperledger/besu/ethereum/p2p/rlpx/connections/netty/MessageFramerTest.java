@@ -0,0 +1,81 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.p2p.rlpx.connections.netty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hyperledger.besu.ethereum.p2p.rlpx.framing.FramerTest.fixedSecrets;
+
+import org.hyperledger.besu.ethereum.p2p.rlpx.framing.Framer;
+import org.hyperledger.besu.ethereum.p2p.rlpx.wire.CapabilityMultiplexer;
+import org.hyperledger.besu.ethereum.p2p.rlpx.wire.MessageData;
+import org.hyperledger.besu.ethereum.p2p.rlpx.wire.messages.DisconnectMessage;
+import org.hyperledger.besu.ethereum.p2p.rlpx.wire.messages.DisconnectMessage.DisconnectReason;
+import org.hyperledger.besu.ethereum.p2p.rlpx.wire.messages.PingMessage;
+
+import java.util.Collections;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+public class MessageFramerTest {
+
+  private final CapabilityMultiplexer multiplexer =
+      new CapabilityMultiplexer(
+          Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+  private final EmbeddedChannel channel =
+      new EmbeddedChannel(new MessageFramer(multiplexer, new Framer(fixedSecrets())));
+
+  @Test
+  public void framesMessagesWrittenBeforeAFlushIntoOneBuffer() {
+    final ChannelFuture first = channel.write(new OutboundMessage(null, PingMessage.get()));
+    final ChannelFuture second = channel.write(new OutboundMessage(null, PingMessage.get()));
+    final ChannelFuture third =
+        channel.write(
+            new OutboundMessage(null, DisconnectMessage.create(DisconnectReason.TIMEOUT)));
+    assertThat((Object) channel.readOutbound()).isNull();
+    assertThat(first.isDone()).isFalse();
+
+    channel.flush();
+
+    final ByteBuf framed = channel.readOutbound();
+    assertThat((Object) channel.readOutbound()).isNull();
+    assertThat(first.isSuccess()).isTrue();
+    assertThat(second.isSuccess()).isTrue();
+    assertThat(third.isSuccess()).isTrue();
+
+    final Framer deframer = new Framer(fixedSecrets());
+    final MessageData firstMessage = deframer.deframe(framed);
+    final MessageData secondMessage = deframer.deframe(framed);
+    final MessageData thirdMessage = deframer.deframe(framed);
+    assertThat(firstMessage.getData()).isEqualTo(PingMessage.get().getData());
+    assertThat(secondMessage.getData()).isEqualTo(PingMessage.get().getData());
+    assertThat(DisconnectMessage.readFrom(thirdMessage).getReason())
+        .isEqualTo(DisconnectReason.TIMEOUT);
+    assertThat(framed.isReadable()).isFalse();
+    framed.release();
+  }
+
+  @Test
+  public void failsUnflushedWritesWhenTheChannelCloses() {
+    final ChannelFuture write = channel.write(new OutboundMessage(null, PingMessage.get()));
+
+    channel.close();
+
+    assertThat(write.isDone()).isTrue();
+    assertThat(write.isSuccess()).isFalse();
+  }
+}
@@ -271,6 +271,72 @@ public class FramerTest {
     assertThat(receivingFramer.isCompressionSuccessful()).isTrue();
   }
 
+  @Test
+  public void deframesCompressedMessagesFromDirectBuffersIntoExactPayloads() {
+    final HandshakeSecrets secrets = fixedSecrets();
+    final Framer receivingFramer = new Framer(secrets);
+    final Framer sendingFramer = new Framer(secrets);
+    sendingFramer.enableCompression();
+    receivingFramer.enableCompression();
+
+    final byte[] payload = new byte[100_000];
+    for (int i = 0; i < payload.length; i++) {
+      payload[i] = (byte) (i % 7);
+    }
+    final ByteBuf out = Unpooled.directBuffer();
+    for (int i = 0; i < 3; i++) {
+      sendingFramer.frame(new RawMessage(0x16, Bytes.wrap(payload)), out);
+    }
+
+    for (int i = 0; i < 3; i++) {
+      final MessageData message = receivingFramer.deframe(out);
+      assertThat(message.getCode()).isEqualTo(0x16);
+      assertThat(message.getData()).isEqualTo(Bytes.wrap(payload));
+    }
+    assertThat(receivingFramer.deframe(out)).isNull();
+    assertThat(receivingFramer.getPooledBytes()).isPositive();
+    assertThat(receivingFramer.getAllocatedBytes()).isEqualTo(3L * payload.length);
+    out.release();
+  }
+
+  @Test
+  public void compressesMessageFramedForManyPeersOnce() throws IOException {
+    final HandshakeSecrets secrets = fixedSecrets();
+    final Framer firstFramer = new Framer(secrets);
+    final Framer secondFramer = new Framer(secrets);
+    firstFramer.enableCompression();
+    secondFramer.enableCompression();
+    final MessageData message = new RawMessage(0x07, Bytes.random(1_000));
+
+    final ByteBuf firstOut = Unpooled.buffer();
+    firstFramer.frame(message, firstOut);
+    final Bytes compressed =
+        message.getCompressedData(
+            data -> {
+              throw new AssertionError("Message compressed again");
+            });
+    final ByteBuf secondOut = Unpooled.buffer();
+    secondFramer.frame(message, secondOut);
+
+    assertThat(compressed).isEqualTo(Bytes.wrap(Snappy.compress(message.getData().toArray())));
+    assertThat(secondOut.readableBytes()).isEqualTo(firstOut.readableBytes());
+  }
+
+  /**
+   * Secrets built from fixed keys, for tests that frame and deframe with the same secrets.
+   *
+   * @return new handshake secrets
+   */
+  public static HandshakeSecrets fixedSecrets() {
+    return new HandshakeSecrets(
+        Bytes.fromHexString("0x75b3ee95adff0c529a05efd7612aa1dbe5057eb9facdde0dfc837ad143da1d43")
+            .toArray(),
+        Bytes.fromHexString("0x030dfd1566f4800c4842c177f7d476b64ae2b99a2aa0ab5600aa2f41a8710575")
+            .toArray(),
+        Bytes.fromHexString("0xc9d3385b1588a5969cba312f8c29bedb4cb9d56ec0cf825436addc1ec644f1d6")
+            .toArray());
+  }
+
   private HandshakeSecrets secretsFrom(final JsonNode td, final boolean swap) {
     final byte[] aes = decodeHexDump(td.get("aes_secret").asText());
     final byte[] mac = decodeHexDump(td.get("mac_secret").asText());
@@ -87,6 +87,27 @@ public class CapabilityMultiplexerTest {
     assertThat(demultiplexedData).isEqualTo(ethData);
   }
 
+  @Test
+  public void multiplexedMessagesShareTheCompressedDataOfTheOriginalMessage() {
+    final Capability eth66 = Capability.create("eth", 66);
+    final List<Capability> caps = Arrays.asList(eth66);
+    final CapabilityMultiplexer multiplexer =
+        new CapabilityMultiplexer(Arrays.asList(subProtocol("eth", 17)), caps, caps);
+    final MessageData message = new RawMessage(1, Bytes.of(1, 2, 3));
+    final Bytes compressed = Bytes.of(9);
+
+    assertThat(multiplexer.multiplex(eth66, message).getCompressedData(data -> compressed))
+        .isSameAs(compressed);
+    assertThat(
+            multiplexer
+                .multiplex(eth66, message)
+                .getCompressedData(
+                    data -> {
+                      throw new AssertionError("Message compressed again");
+                    }))
+        .isSameAs(compressed);
+  }
+
   private SubProtocol subProtocol(final String name, final int messageSpace) {
     return new SubProtocol() {
       @Override
@@ -0,0 +1,126 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.ethereum.trie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+
+/**
+ * A {@link CommitVisitor} that commits the dirty children of large branch nodes concurrently.
+ *
+ * <p>When a dirty branch node has at least {@code minDirtyChildren} dirty children, each of those
+ * subtrees is encoded, hashed and committed on the executor, with its node writes kept in a
+ * buffer. The buffers are then passed to the {@link NodeUpdater} in child order followed by the
+ * branch node itself, which is the order a sequential commit stores them in. Subtrees committed
+ * concurrently are not split further, so only the topmost qualifying branch nodes are forked.
+ *
+ * <p>The subtrees of different children share no nodes, so they can be encoded and hashed
+ * independently. The executor must not be one whose threads are waiting on the commit.
+ */
+public class ParallelCommitVisitor<V> extends CommitVisitor<V> {
+
+  public static final int DEFAULT_MIN_DIRTY_CHILDREN = 4;
+
+  private final NodeUpdater nodeUpdater;
+  private final ExecutorService executor;
+  private final int minDirtyChildren;
+
+  public ParallelCommitVisitor(final NodeUpdater nodeUpdater, final ExecutorService executor) {
+    this(nodeUpdater, executor, DEFAULT_MIN_DIRTY_CHILDREN);
+  }
+
+  public ParallelCommitVisitor(
+      final NodeUpdater nodeUpdater, final ExecutorService executor, final int minDirtyChildren) {
+    super(nodeUpdater);
+    this.nodeUpdater = nodeUpdater;
+    this.executor = executor;
+    this.minDirtyChildren = minDirtyChildren;
+  }
+
+  @Override
+  public void visit(final Bytes location, final BranchNode<V> branchNode) {
+    if (!branchNode.isDirty()) {
+      return;
+    }
+
+    final List<Callable<BufferedNodeUpdater>> subtreeCommits = new ArrayList<>();
+    for (byte i = 0; i < BranchNode.RADIX; ++i) {
+      final Node<V> child = branchNode.child(i);
+      if (child.isDirty()) {
+        final Bytes childLocation = Bytes.concatenate(location, Bytes.of(i));
+        subtreeCommits.add(
+            () -> {
+              final BufferedNodeUpdater buffer = new BufferedNodeUpdater();
+              child.accept(childLocation, new CommitVisitor<>(buffer));
+              return buffer;
+            });
+      }
+    }
+    if (subtreeCommits.size() < minDirtyChildren) {
+      super.visit(location, branchNode);
+      return;
+    }
+
+    for (final BufferedNodeUpdater buffer : commitSubtrees(subtreeCommits)) {
+      buffer.replayTo(nodeUpdater);
+    }
+    maybeStoreNode(location, branchNode);
+  }
+
+  private List<BufferedNodeUpdater> commitSubtrees(
+      final List<Callable<BufferedNodeUpdater>> subtreeCommits) {
+    final List<BufferedNodeUpdater> buffers = new ArrayList<>(subtreeCommits.size());
+    try {
+      for (final Future<BufferedNodeUpdater> future : executor.invokeAll(subtreeCommits)) {
+        buffers.add(future.get());
+      }
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new MerkleTrieException("Unable to commit trie subtree", e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MerkleTrieException("Interrupted while committing trie subtrees", e);
+    }
+    return buffers;
+  }
+
+  private static class BufferedNodeUpdater implements NodeUpdater {
+    private final List<Bytes> locations = new ArrayList<>();
+    private final List<Bytes32> hashes = new ArrayList<>();
+    private final List<Bytes> values = new ArrayList<>();
+
+    @Override
+    public void store(final Bytes location, final Bytes32 hash, final Bytes value) {
+      locations.add(location);
+      hashes.add(hash);
+      values.add(value);
+    }
+
+    private void replayTo(final NodeUpdater nodeUpdater) {
+      for (int i = 0; i < locations.size(); i++) {
+        nodeUpdater.store(locations.get(i), hashes.get(i), values.get(i));
+      }
+    }
+  }
+}
@@ -20,7 +20,12 @@ import org.hyperledger.besu.plugin.services.storage.KeyValueStorage;
 import org.hyperledger.besu.services.kvstore.InMemoryKeyValueStorage;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import org.apache.tuweni.bytes.Bytes;
@@ -120,4 +125,48 @@ public class StoredMerklePatriciaTrieTest extends AbstractMerklePatriciaTrieTest
     assertThat(trie.get(key2)).isEqualTo(Optional.of("value2"));
     assertThat(trie.get(key3)).isEqualTo(Optional.of("value3"));
   }
+
+  @Test
+  public void parallelCommitStoresTheSameNodesInTheSameOrder() {
+    final MerkleStorage sequentialStorage =
+        new KeyValueMerkleStorage(new InMemoryKeyValueStorage());
+    final MerkleStorage parallelStorage = new KeyValueMerkleStorage(new InMemoryKeyValueStorage());
+    final StoredMerklePatriciaTrie<Bytes32, String> sequentialTrie =
+        new StoredMerklePatriciaTrie<>(sequentialStorage::get, valueSerializer, valueDeserializer);
+    final StoredMerklePatriciaTrie<Bytes32, String> parallelTrie =
+        new StoredMerklePatriciaTrie<>(parallelStorage::get, valueSerializer, valueDeserializer);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final Random random = new Random(1);
+      // the second round updates a trie whose untouched subtrees are only stored
+      for (int round = 0; round < 2; round++) {
+        for (int i = 0; i < 1_000; i++) {
+          final Bytes32 key = Bytes32.random(random);
+          final String value = "value" + i;
+          sequentialTrie.put(key, value);
+          parallelTrie.put(key, value);
+        }
+
+        final List<String> sequentialWrites = new ArrayList<>();
+        sequentialTrie.commit(
+            (location, hash, value) -> {
+              sequentialWrites.add(location + ":" + hash);
+              sequentialStorage.put(location, hash, value);
+            });
+        final List<String> parallelWrites = new ArrayList<>();
+        final NodeUpdater parallelUpdater =
+            (location, hash, value) -> {
+              parallelWrites.add(location + ":" + hash);
+              parallelStorage.put(location, hash, value);
+            };
+        parallelTrie.commit(
+            parallelUpdater, new ParallelCommitVisitor<>(parallelUpdater, executor, 2));
+
+        assertThat(parallelWrites).isEqualTo(sequentialWrites);
+        assertThat(parallelTrie.getRootHash()).isEqualTo(sequentialTrie.getRootHash());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -15,6 +15,7 @@
 package org.hyperledger.besu.evm;
 
 import org.hyperledger.besu.datatypes.Hash;
+import org.hyperledger.besu.evm.internal.BasicBlockAnalysis;
 import org.hyperledger.besu.evm.operation.JumpDestOperation;
 import org.hyperledger.besu.evm.operation.PushOperation;
 
@@ -36,6 +37,9 @@ public class Code {
   /** Used to cache valid jump destinations. */
   long[] validJumpDestinations;
 
+  /** Used to cache the basic block analysis of the EVM that last executed this code. */
+  BasicBlockAnalysis basicBlocks;
+
   /** Syntactic sugar for an empty contract */
   public static Code EMPTY = new Code(Bytes.EMPTY, Hash.EMPTY);
 
@@ -19,10 +19,12 @@ import org.hyperledger.besu.evm.frame.ExceptionalHaltReason;
 import org.hyperledger.besu.evm.frame.MessageFrame;
 import org.hyperledger.besu.evm.frame.MessageFrame.State;
 import org.hyperledger.besu.evm.gascalculator.GasCalculator;
+import org.hyperledger.besu.evm.internal.BasicBlockAnalysis;
 import org.hyperledger.besu.evm.internal.CodeCache;
 import org.hyperledger.besu.evm.internal.EvmConfiguration;
 import org.hyperledger.besu.evm.internal.FixedStack.OverflowException;
 import org.hyperledger.besu.evm.internal.FixedStack.UnderflowException;
+import org.hyperledger.besu.evm.operation.AbstractFixedCostOperation;
 import org.hyperledger.besu.evm.operation.InvalidOperation;
 import org.hyperledger.besu.evm.operation.Operation;
 import org.hyperledger.besu.evm.operation.Operation.OperationResult;
@@ -55,6 +57,11 @@ public class EVM {
   private final Operation endOfScriptStop;
   private final CodeCache codeCache;
 
+  /** Flat opcode dispatch table used by the untraced interpreter loop. */
+  private final Operation[] operationArray;
+
+  private final boolean superinstructionsEnabled;
+
   public EVM(
       final OperationRegistry operations,
       final GasCalculator gasCalculator,
@@ -63,6 +70,12 @@ public class EVM {
     this.gasCalculator = gasCalculator;
     this.endOfScriptStop = new VirtualOperation(new StopOperation(gasCalculator));
     this.codeCache = new CodeCache(evmConfiguration);
+    this.superinstructionsEnabled = evmConfiguration.isSuperinstructionsEnabled();
+    this.operationArray = new Operation[256];
+    for (int i = 0; i < operationArray.length; i++) {
+      final Operation operation = operations.get(i);
+      operationArray[i] = operation == null ? new InvalidOperation(i, null) : operation;
+    }
   }
 
   public GasCalculator getGasCalculator() {
@@ -70,11 +83,128 @@ public class EVM {
   }
 
   public void runToHalt(final MessageFrame frame, final OperationTracer operationTracer) {
+    if (operationTracer == OperationTracer.NO_TRACING) {
+      runToHaltUntraced(frame);
+      return;
+    }
     while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
       executeNextOperation(frame, operationTracer);
     }
   }
 
+  /**
+   * Interpreter loop used when no tracer is attached. Operations are dispatched straight from the
+   * opcode byte through a flat table, and the loop itself does not allocate per operation (no
+   * tracer callback, no lookups that create operations on the fly).
+   *
+   * <p>Basic blocks of fixed cost operations (see {@link BasicBlockAnalysis}) are charged their
+   * static gas and checked for stack bounds once on entry. When a block cannot be paid for in full,
+   * or its stack bounds are not met, it runs one operation at a time so that the halt happens at
+   * the exact failing operation. Superinstructions, when enabled, are only used by this loop, so
+   * tracers always observe the unfused operations.
+   *
+   * @param frame the frame to execute until it leaves the {@link State#CODE_EXECUTING} state
+   */
+  private void runToHaltUntraced(final MessageFrame frame) {
+    final Code code = frame.getCode();
+    final byte[] bytecode = code.getBytes().toArrayUnsafe();
+    final int codeLength = bytecode.length;
+    final Operation[] dispatch = operationArray;
+    final BasicBlockAnalysis basicBlocks = basicBlocks(code, bytecode);
+    int pc = frame.getPC();
+    while (frame.getState() == State.CODE_EXECUTING) {
+      final int block = basicBlocks.blockAt(pc);
+      if (block >= 0 && canEnterBlock(frame, basicBlocks, block)) {
+        pc = runBlock(frame, pc, basicBlocks, block);
+        continue;
+      }
+      final Operation operation = pc < codeLength ? dispatch[bytecode[pc] & 0xff] : endOfScriptStop;
+      frame.setCurrentOperation(operation);
+      OperationResult result;
+      try {
+        result = operation.execute(frame, this);
+      } catch (final OverflowException oe) {
+        result = OVERFLOW_RESPONSE;
+      } catch (final UnderflowException ue) {
+        result = UNDERFLOW_RESPONSE;
+      }
+      final OptionalLong gasCost = result.getGasCost();
+      logState(frame, gasCost.orElse(0L));
+      final Optional<ExceptionalHaltReason> haltReason = result.getHaltReason();
+      if (haltReason.isPresent()) {
+        LOG.trace("MessageFrame evaluation halted because of {}", haltReason.get());
+        frame.setExceptionalHaltReason(haltReason);
+        frame.setState(State.EXCEPTIONAL_HALT);
+      } else if (gasCost.isPresent()) {
+        frame.decrementRemainingGas(gasCost.getAsLong());
+      }
+      if (frame.getState() == State.CODE_EXECUTING) {
+        // jumps update the frame PC themselves and report an increment of zero
+        pc = frame.getPC() + result.getPcIncrement();
+        frame.setPC(pc);
+      }
+    }
+  }
+
+  private BasicBlockAnalysis basicBlocks(final Code code, final byte[] bytecode) {
+    BasicBlockAnalysis basicBlocks = code.basicBlocks;
+    if (basicBlocks == null || !basicBlocks.isFor(operationArray)) {
+      basicBlocks = BasicBlockAnalysis.analyse(bytecode, operationArray, superinstructionsEnabled);
+      code.basicBlocks = basicBlocks;
+    }
+    return basicBlocks;
+  }
+
+  private static boolean canEnterBlock(
+      final MessageFrame frame, final BasicBlockAnalysis basicBlocks, final int block) {
+    final int stackSize = frame.stackSize();
+    return frame.getRemainingGas() >= basicBlocks.getGasCost(block)
+        && stackSize >= basicBlocks.getRequiredStackItems(block)
+        && stackSize + basicBlocks.getMaxStackGrowth(block) <= frame.getMaxStackSize();
+  }
+
+  /**
+   * Runs a basic block whose gas and stack bounds have been checked. Only operations that end a
+   * block (JUMP, JUMPI, STOP) can leave it early, so the gas charged up front is exactly the gas
+   * the block uses. The operations of the block may include superinstructions standing for several
+   * of its operations.
+   *
+   * @return the program counter after the block
+   */
+  private int runBlock(
+      final MessageFrame frame,
+      final int start,
+      final BasicBlockAnalysis basicBlocks,
+      final int block) {
+    frame.decrementRemainingGas(basicBlocks.getGasCost(block));
+    final AbstractFixedCostOperation[] blockOperations = basicBlocks.getOperations();
+    final int last = basicBlocks.getOperationsEnd(block);
+    int pc = start;
+    for (int i = basicBlocks.getFirstOperation(block); i < last; i++) {
+      final AbstractFixedCostOperation operation = blockOperations[i];
+      frame.setCurrentOperation(operation);
+      final OperationResult result = operation.executeWithoutGasCheck(frame, this);
+      logState(frame, operation.getFixedGasCost());
+      final Optional<ExceptionalHaltReason> haltReason = result.getHaltReason();
+      if (haltReason.isPresent()) {
+        LOG.trace("MessageFrame evaluation halted because of {}", haltReason.get());
+        frame.setExceptionalHaltReason(haltReason);
+        frame.setState(State.EXCEPTIONAL_HALT);
+        return pc;
+      }
+      if (frame.getState() != State.CODE_EXECUTING) {
+        return pc;
+      }
+      pc = frame.getPC() + result.getPcIncrement();
+      frame.setPC(pc);
+      if (result.getPcIncrement() == 0) {
+        // a taken jump leaves the block
+        return pc;
+      }
+    }
+    return pc;
+  }
+
   private void executeNextOperation(
       final MessageFrame frame, final OperationTracer operationTracer) {
     frame.setCurrentOperation(operationAtOffset(frame.getCode(), frame.getPC()));
@@ -139,12 +269,53 @@ public class EVM {
     return Objects.requireNonNullElseGet(operation, () -> new InvalidOperation(opcode, null));
   }
 
+  /**
+   * Returns the analysed code of a deployed contract, which is cached in memory and, if code
+   * analysis is persisted, in the database.
+   *
+   * @param codeHash the hash of the code
+   * @param codeBytes the code
+   * @return the analysed code
+   */
   public Code getCode(final Hash codeHash, final Bytes codeBytes) {
     Code result = codeCache.getIfPresent(codeHash);
     if (result == null) {
       result = new Code(codeBytes, codeHash);
+      if (codeCache.hasAnalysisStorage() && !codeBytes.isEmpty()) {
+        final int expectedLength = (codeBytes.size() >> 6) + 1;
+        final Optional<long[]> storedJumpDests =
+            codeCache
+                .getStoredJumpDestinations(codeHash)
+                .filter(bitmap -> bitmap.length == expectedLength);
+        if (storedJumpDests.isPresent()) {
+          result.validJumpDestinations = storedJumpDests.get();
+        } else {
+          codeCache.storeJumpDestinations(codeHash, result.calculateJumpDests());
+        }
+      }
+      codeCache.put(codeHash, result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the analysed init code of a contract creation. It is only cached in memory, since init
+   * code usually runs once.
+   *
+   * @param initCode the init code
+   * @return the analysed init code
+   */
+  public Code getInitCode(final Bytes initCode) {
+    final Hash codeHash = Hash.hash(initCode);
+    Code result = codeCache.getIfPresent(codeHash);
+    if (result == null) {
+      result = new Code(initCode, codeHash);
       codeCache.put(codeHash, result);
     }
     return result;
   }
+
+  public CodeCache getCodeCache() {
+    return codeCache;
+  }
 }
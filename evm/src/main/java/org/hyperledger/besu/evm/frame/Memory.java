@@ -31,8 +31,18 @@ public class Memory {
   // See below.
   private static final long MAX_BYTES = Integer.MAX_VALUE;
 
+  // Largest word aligned array size the JVM reliably allocates.
+  private static final int MAX_CAPACITY = ((Integer.MAX_VALUE - 8) / Bytes32.SIZE) * Bytes32.SIZE;
+
+  private static final int MIN_CAPACITY = 1024;
+
+  private static final byte[] EMPTY_BUFFER = new byte[0];
+
+  private final MemoryPool pool;
+
   /**
-   * The data stored within the memory.
+   * The data stored within the memory. Only the first {@code activeWords * 32} bytes are active,
+   * the rest of the buffer is spare capacity and always zero.
    *
    * <p>Note that the current Ethereum spec don't put a limit on memory, so we could theoretically
    * overflow this. A byte array implementation limits us to 2 GiB. But that would cost over 51
@@ -42,13 +52,17 @@ public class Memory {
 
   private int activeWords;
 
+  // Set once bytes sharing the buffer have been handed out, after which it cannot be reused.
+  private boolean retained;
+
   public Memory() {
-    memBytes = new byte[0];
-    updateSize();
+    this(null);
   }
 
-  private void updateSize() {
-    activeWords = memBytes.length / Bytes32.SIZE;
+  Memory(final MemoryPool pool) {
+    this.pool = pool;
+    memBytes = EMPTY_BUFFER;
+    activeWords = 0;
   }
 
   private static RuntimeException overflow(final long v) {
@@ -137,11 +151,35 @@ public class Memory {
   private void maybeExpandCapacity(final int newActiveWords) {
     if (activeWords >= newActiveWords) return;
 
-    // Require full capacity to guarantee we don't resize more than once.
-    byte[] newMem = new byte[newActiveWords * Bytes32.SIZE];
-    System.arraycopy(memBytes, 0, newMem, 0, memBytes.length);
-    memBytes = newMem;
-    updateSize();
+    final int newActiveBytes = newActiveWords * Bytes32.SIZE;
+    if (newActiveBytes > memBytes.length) {
+      // Grow geometrically so that memory growing a few words at a time is not copied on each
+      // expansion. The spare capacity is zero, so expanding within it needs no work at all.
+      final int capacity =
+          (int)
+              Math.max(
+                  newActiveBytes,
+                  Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, 2L * memBytes.length)));
+      final byte[] newMem =
+          pool == null ? new byte[capacity] : pool.acquire(newActiveBytes, capacity);
+      System.arraycopy(memBytes, 0, newMem, 0, getActiveBytes());
+      memBytes = newMem;
+    }
+    activeWords = newActiveWords;
+  }
+
+  /**
+   * Hands the buffer of this memory back to its pool, unless bytes sharing it have been handed out
+   * by {@link #getBytesWithoutCopy(long, long)}. The memory is empty afterwards.
+   */
+  void release() {
+    if (pool != null && !retained && memBytes.length > 0) {
+      Arrays.fill(memBytes, 0, getActiveBytes(), (byte) 0);
+      pool.release(memBytes);
+    }
+    memBytes = EMPTY_BUFFER;
+    activeWords = 0;
+    retained = false;
   }
 
   /**
@@ -156,12 +194,18 @@ public class Memory {
     if (other == this) return true;
     if (!(other instanceof Memory)) return false;
 
-    return Arrays.equals(memBytes, ((Memory) other).memBytes);
+    final Memory otherMemory = (Memory) other;
+    return Arrays.equals(
+        memBytes, 0, getActiveBytes(), otherMemory.memBytes, 0, otherMemory.getActiveBytes());
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(memBytes);
+    int result = 1;
+    for (int i = 0; i < getActiveBytes(); i++) {
+      result = 31 * result + memBytes[i];
+    }
+    return result;
   }
 
   /**
@@ -170,7 +214,7 @@ public class Memory {
    * @return The current number of active bytes stored in memory.
    */
   int getActiveBytes() {
-    return memBytes.length;
+    return activeWords * Bytes32.SIZE;
   }
 
   /**
@@ -207,11 +251,42 @@ public class Memory {
   }
 
   /**
-   * Returns a copy of bytes from memory.
+   * Returns bytes from memory without copying them.
+   *
+   * <p>The returned bytes share the buffer of this memory, so they only stay stable as long as the
+   * memory is not written to again. This is meant for values that leave the frame as it halts, such
+   * as the output of RETURN and REVERT. The buffer of this memory is never reused afterwards.
+   * Values covering less than half of the buffer are copied instead, so that a short value does not
+   * keep a much larger buffer alive.
    *
    * @param location The location in memory to start with.
    * @param numBytes The number of bytes to get.
-   * @return A fresh copy of the bytes from memory starting at {@code location} and extending {@code
+   * @return The bytes from memory starting at {@code location} and extending {@code numBytes}.
+   */
+  public Bytes getBytesWithoutCopy(final long location, final long numBytes) {
+    // See getBytes for why we check length == 0 first.
+    final int length = asByteLength(numBytes);
+    if (length == 0) {
+      return Bytes.EMPTY;
+    }
+
+    final int start = asByteIndex(location);
+
+    ensureCapacityForBytes(start, length);
+    if (length < memBytes.length / 2) {
+      return Bytes.wrap(Arrays.copyOfRange(memBytes, start, start + length));
+    }
+    retained = true;
+    return Bytes.wrap(memBytes, start, length);
+  }
+
+  /**
+   * Returns a mutable view of bytes in memory. Contents should not be considered stable outside the
+   * scope of the current operation.
+   *
+   * @param location The location in memory to start with.
+   * @param numBytes The number of bytes to get.
+   * @return A view of the bytes in memory starting at {@code location} and extending {@code
    *     numBytes}.
    */
   public MutableBytes getMutableBytes(final long location, final long numBytes) {
@@ -411,6 +486,6 @@ public class Memory {
 
   @Override
   public String toString() {
-    return Bytes.wrap(memBytes).toHexString();
+    return Bytes.wrap(memBytes, 0, getActiveBytes()).toHexString();
   }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.frame;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Recycles the buffers backing {@link Memory} between the message frames of a single transaction.
+ * Frames of a transaction run one at a time, so the pool is not thread safe.
+ *
+ * <p>Buffers are zero when handed back, so they can be used as fresh memory.
+ */
+final class MemoryPool {
+
+  private static final int MAX_POOLED_BUFFERS = 16;
+  private static final int MAX_POOLED_BUFFER_SIZE = 1 << 20;
+
+  private final Deque<byte[]> buffers = new ArrayDeque<>(MAX_POOLED_BUFFERS);
+
+  /**
+   * Returns a zeroed buffer of at least the required size, reusing a pooled one when possible.
+   *
+   * @param requiredSize the minimum size of the buffer
+   * @param preferredSize the size of the buffer to allocate when no pooled buffer fits
+   * @return a zeroed buffer of at least {@code requiredSize} bytes
+   */
+  byte[] acquire(final int requiredSize, final int preferredSize) {
+    final Iterator<byte[]> iterator = buffers.iterator();
+    while (iterator.hasNext()) {
+      final byte[] buffer = iterator.next();
+      if (buffer.length >= requiredSize) {
+        iterator.remove();
+        return buffer;
+      }
+    }
+    return new byte[preferredSize];
+  }
+
+  /**
+   * Hands a buffer back to the pool. Very large buffers are left to the garbage collector.
+   *
+   * @param buffer a buffer that is entirely zero
+   */
+  void release(final byte[] buffer) {
+    if (buffer.length <= MAX_POOLED_BUFFER_SIZE && buffers.size() < MAX_POOLED_BUFFERS) {
+      buffers.push(buffer);
+    }
+  }
+}
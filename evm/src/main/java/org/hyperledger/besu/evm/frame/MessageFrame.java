@@ -41,6 +41,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimap;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
@@ -201,6 +202,7 @@ public class MessageFrame {
   private final Function<Long, Hash> blockHashLookup;
   private final int maxStackSize;
   private int pc;
+  private final MessageFrameArena arena;
   private final Memory memory;
   private final OperandStack stack;
   private Bytes output;
@@ -240,6 +242,7 @@ public class MessageFrame {
   private final Consumer<MessageFrame> completer;
   private Optional<MemoryEntry> maybeUpdatedMemory = Optional.empty();
   private Optional<StorageEntry> maybeUpdatedStorage = Optional.empty();
+  private boolean recycled;
 
   public static Builder builder() {
     return new Builder();
@@ -278,8 +281,10 @@ public class MessageFrame {
     this.blockHashLookup = blockHashLookup;
     this.maxStackSize = maxStackSize;
     this.pc = 0;
-    this.memory = new Memory();
-    this.stack = new OperandStack(maxStackSize);
+    // frames of the same transaction share one arena to recycle their internals
+    this.arena = parentMessageFrame == null ? new MessageFrameArena() : parentMessageFrame.arena;
+    this.memory = new Memory(arena.getMemoryPool());
+    this.stack = arena.acquireOperandStack(maxStackSize);
     this.output = Bytes.EMPTY;
     this.returnData = Bytes.EMPTY;
     this.logs = new ArrayList<>();
@@ -310,18 +315,21 @@ public class MessageFrame {
     this.warmedUpStorage = HashMultimap.create(accessListWarmStorage);
 
     // the warmed up addresses will always be a superset of the address keys in the warmed up
-    // storage, so we can do both warm-ups in one pass
-    accessListWarmAddresses.parallelStream()
-        .forEach(
-            address ->
-                Optional.ofNullable(worldUpdater.get(address))
-                    .ifPresent(
-                        account ->
-                            warmedUpStorage.get(address).parallelStream()
-                                .forEach(
-                                    storageKeyBytes ->
-                                        account.getStorageValue(
-                                            UInt256.fromBytes(storageKeyBytes)))));
+    // storage, so we can do both warm-ups in one pass; only the initial frame of a transaction
+    // carries an access list, so child frames skip this entirely
+    if (!accessListWarmAddresses.isEmpty()) {
+      accessListWarmAddresses.parallelStream()
+          .forEach(
+              address ->
+                  Optional.ofNullable(worldUpdater.get(address))
+                      .ifPresent(
+                          account ->
+                              warmedUpStorage.get(address).parallelStream()
+                                  .forEach(
+                                      storageKeyBytes ->
+                                          account.getStorageValue(
+                                              UInt256.fromBytes(storageKeyBytes)))));
+    }
   }
 
   /**
@@ -479,6 +487,15 @@ public class MessageFrame {
     stack.set(offset, value);
   }
 
+  /**
+   * Returns the operand stack, for operations that work on stack words in place.
+   *
+   * @return the operand stack of this frame
+   */
+  public OperandStack getOperandStack() {
+    return stack;
+  }
+
   /**
    * Return the current stack size.
    *
@@ -569,7 +586,35 @@ public class MessageFrame {
    * @return The bytes in the specified range
    */
   public Bytes readMemory(final long offset, final long length) {
-    return readMutableMemory(offset, length, false).copy();
+    return memory.getBytes(offset, length);
+  }
+
+  /**
+   * Read bytes in memory without copying them. The bytes stay backed by the memory of this frame,
+   * so they are only stable if the memory is not written to afterwards, as is the case for values
+   * produced when the frame halts.
+   *
+   * @param offset The offset in memory
+   * @param length The length of the bytes to read
+   * @return The bytes in the specified range
+   */
+  public Bytes shadowReadMemory(final long offset, final long length) {
+    return memory.getBytesWithoutCopy(offset, length);
+  }
+
+  /**
+   * Hands the operand stack and memory buffer of this frame back to the arena shared by the frames
+   * of its transaction. The memory buffer is kept if bytes read with {@link #shadowReadMemory(long,
+   * long)} still use it. Must only be called once the frame has completed and nothing reads its
+   * stack or memory any more.
+   */
+  public void recycle() {
+    if (recycled) {
+      return;
+    }
+    recycled = true;
+    memory.release();
+    arena.releaseOperandStack(stack);
   }
 
   /**
@@ -1124,7 +1169,7 @@ public class MessageFrame {
     private Map<String, Object> contextVariables;
     private Optional<Bytes> reason = Optional.empty();
     private Set<Address> accessListWarmAddresses = emptySet();
-    private Multimap<Address, Bytes32> accessListWarmStorage = HashMultimap.create();
+    private Multimap<Address, Bytes32> accessListWarmStorage = ImmutableSetMultimap.of();
 
     public Builder type(final Type type) {
       this.type = type;
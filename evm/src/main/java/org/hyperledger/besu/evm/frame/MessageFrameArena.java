@@ -0,0 +1,64 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.frame;
+
+import org.hyperledger.besu.evm.internal.OperandStack;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Recycles the internals of completed message frames (their operand stack and memory buffer) for
+ * the frames created later in the same transaction. All frames of a transaction share the arena of
+ * the frame at the bottom of their message frame stack. Frames of a transaction run one at a time,
+ * so the arena is not thread safe.
+ */
+final class MessageFrameArena {
+
+  private static final int MAX_POOLED_OPERAND_STACKS = 16;
+
+  private final MemoryPool memoryPool = new MemoryPool();
+  private final Deque<OperandStack> operandStacks = new ArrayDeque<>(MAX_POOLED_OPERAND_STACKS);
+
+  MemoryPool getMemoryPool() {
+    return memoryPool;
+  }
+
+  /**
+   * Returns an empty operand stack, reusing one released by a completed frame when possible.
+   *
+   * @param maxSize the maximum size of the stack
+   * @return an empty operand stack of the given maximum size
+   */
+  OperandStack acquireOperandStack(final int maxSize) {
+    final OperandStack stack = operandStacks.peek();
+    if (stack != null && stack.getMaxSize() == maxSize) {
+      return operandStacks.pop();
+    }
+    return new OperandStack(maxSize);
+  }
+
+  /**
+   * Hands the operand stack of a completed frame back to the arena.
+   *
+   * @param stack the operand stack, which must not be used by its frame any more
+   */
+  void releaseOperandStack(final OperandStack stack) {
+    if (operandStacks.size() < MAX_POOLED_OPERAND_STACKS) {
+      stack.clear();
+      operandStacks.push(stack);
+    }
+  }
+}
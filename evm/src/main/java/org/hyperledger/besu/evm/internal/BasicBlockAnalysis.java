@@ -0,0 +1,306 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.internal;
+
+import org.hyperledger.besu.evm.operation.AbstractFixedCostOperation;
+import org.hyperledger.besu.evm.operation.AbstractFusedOperation;
+import org.hyperledger.besu.evm.operation.GasOperation;
+import org.hyperledger.besu.evm.operation.IsZeroOperation;
+import org.hyperledger.besu.evm.operation.IsZeroPushJumpiOperation;
+import org.hyperledger.besu.evm.operation.JumpDestOperation;
+import org.hyperledger.besu.evm.operation.JumpOperation;
+import org.hyperledger.besu.evm.operation.JumpiOperation;
+import org.hyperledger.besu.evm.operation.Operation;
+import org.hyperledger.besu.evm.operation.PopOperation;
+import org.hyperledger.besu.evm.operation.PushJumpOperation;
+import org.hyperledger.besu.evm.operation.PushJumpiOperation;
+import org.hyperledger.besu.evm.operation.PushOperation;
+import org.hyperledger.besu.evm.operation.StopOperation;
+import org.hyperledger.besu.evm.operation.SwapOperation;
+import org.hyperledger.besu.evm.operation.SwapPopOperation;
+
+import java.util.Arrays;
+
+/**
+ * Splits legacy bytecode into basic blocks of fixed cost operations and pre-computes, for each
+ * block, its total static gas and the stack height it needs and reaches.
+ *
+ * <p>A block starts at a JUMPDEST or right after any operation that ends the previous one, and ends
+ * after JUMP, JUMPI or STOP, before a JUMPDEST, or before any operation whose cost is not fixed.
+ * GAS is never part of a block because it observes the remaining gas. Blocks with a single
+ * operation are not recorded since there is nothing to batch.
+ *
+ * <p>When fusion is requested, common sequences inside a block are replaced by superinstructions
+ * (see {@link AbstractFusedOperation}). A block never ends inside such a sequence, so fusing it
+ * does not change the gas or stack bounds of the block.
+ *
+ * <p>The analysis depends on the operation table it was computed with, so it is only valid for the
+ * EVM that owns that table.
+ */
+public class BasicBlockAnalysis {
+
+  private final Operation[] operationTable;
+  private final int count;
+  private final int[] starts;
+  private final int[] ends;
+  private final long[] gasCosts;
+  private final int[] requiredStackItems;
+  private final int[] maxStackGrowth;
+  private final int[] firstOperations;
+  private final AbstractFixedCostOperation[] operations;
+
+  private BasicBlockAnalysis(final Builder builder) {
+    this.operationTable = builder.operationTable;
+    this.count = builder.count;
+    this.starts = builder.starts;
+    this.ends = builder.ends;
+    this.gasCosts = builder.gasCosts;
+    this.requiredStackItems = builder.requiredStackItems;
+    this.maxStackGrowth = builder.maxStackGrowth;
+    this.firstOperations = builder.firstOperations;
+    this.operations = builder.operations;
+  }
+
+  public static BasicBlockAnalysis analyse(final byte[] code, final Operation[] operationTable) {
+    return analyse(code, operationTable, false);
+  }
+
+  public static BasicBlockAnalysis analyse(
+      final byte[] code, final Operation[] operationTable, final boolean fuse) {
+    final Builder builder = new Builder(code, operationTable, fuse);
+    final int length = code.length;
+    int pc = 0;
+    while (pc < length) {
+      final Operation operation = operationTable[code[pc] & 0xff];
+      final boolean batchable =
+          operation instanceof AbstractFixedCostOperation && !(operation instanceof GasOperation);
+      if (!batchable || operation instanceof JumpDestOperation) {
+        builder.closeBlock(pc);
+      }
+      if (!batchable) {
+        pc += operation.getOpSize();
+        continue;
+      }
+      builder.addOperation(pc, (AbstractFixedCostOperation) operation);
+      // a truncated PUSH at the end of the code still ends at the code length
+      pc = Math.min(pc + operation.getOpSize(), length);
+      if (operation instanceof JumpOperation
+          || operation instanceof JumpiOperation
+          || operation instanceof StopOperation) {
+        builder.closeBlock(pc);
+      }
+    }
+    builder.closeBlock(pc);
+    return new BasicBlockAnalysis(builder);
+  }
+
+  /**
+   * Whether this analysis was computed with the given operation table.
+   *
+   * @param table the operation table of the executing EVM
+   * @return true if the analysis can be used with that table
+   */
+  public boolean isFor(final Operation[] table) {
+    return operationTable == table;
+  }
+
+  /**
+   * Finds the block starting at the given program counter.
+   *
+   * @param pc the program counter
+   * @return the index of the block, or -1 if no block starts there
+   */
+  public int blockAt(final int pc) {
+    final int index = Arrays.binarySearch(starts, 0, count, pc);
+    return index < 0 ? -1 : index;
+  }
+
+  public int getEnd(final int block) {
+    return ends[block];
+  }
+
+  public long getGasCost(final int block) {
+    return gasCosts[block];
+  }
+
+  public int getRequiredStackItems(final int block) {
+    return requiredStackItems[block];
+  }
+
+  public int getMaxStackGrowth(final int block) {
+    return maxStackGrowth[block];
+  }
+
+  public int getBlockCount() {
+    return count;
+  }
+
+  /**
+   * The operations of all blocks, in order. The operations of a block are those from {@link
+   * #getFirstOperation(int)} up to the first operation of the next block.
+   *
+   * @return the operations of all blocks
+   */
+  public AbstractFixedCostOperation[] getOperations() {
+    return operations;
+  }
+
+  public int getFirstOperation(final int block) {
+    return firstOperations[block];
+  }
+
+  public int getOperationsEnd(final int block) {
+    return firstOperations[block + 1];
+  }
+
+  private static class Builder {
+    private final byte[] code;
+    private final Operation[] operationTable;
+    private final boolean fuse;
+    private int count = 0;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private long[] gasCosts = new long[16];
+    private int[] requiredStackItems = new int[16];
+    private int[] maxStackGrowth = new int[16];
+    private int[] firstOperations = new int[17];
+    private AbstractFixedCostOperation[] operations = new AbstractFixedCostOperation[64];
+    private int operationCount = 0;
+
+    private int blockStart = -1;
+    private int blockOperations;
+    private long blockGas;
+    private int height;
+    private int lowest;
+    private int highest;
+    private int[] blockPcs = new int[16];
+    private AbstractFixedCostOperation[] blockOps = new AbstractFixedCostOperation[16];
+
+    private Builder(final byte[] code, final Operation[] operationTable, final boolean fuse) {
+      this.code = code;
+      this.operationTable = operationTable;
+      this.fuse = fuse;
+    }
+
+    private void addOperation(final int pc, final AbstractFixedCostOperation operation) {
+      if (blockStart < 0) {
+        blockStart = pc;
+        blockOperations = 0;
+        blockGas = 0;
+        height = 0;
+        lowest = 0;
+        highest = 0;
+      }
+      if (blockOperations == blockOps.length) {
+        blockPcs = Arrays.copyOf(blockPcs, blockOperations * 2);
+        blockOps = Arrays.copyOf(blockOps, blockOperations * 2);
+      }
+      blockPcs[blockOperations] = pc;
+      blockOps[blockOperations] = operation;
+      blockOperations++;
+      blockGas += operation.getFixedGasCost();
+      height -= operation.getStackItemsConsumed();
+      lowest = Math.min(lowest, height);
+      height += operation.getStackItemsProduced();
+      highest = Math.max(highest, height);
+    }
+
+    private void closeBlock(final int end) {
+      if (blockStart >= 0 && blockOperations > 1) {
+        if (count + 1 == firstOperations.length) {
+          final int capacity = count * 2;
+          starts = Arrays.copyOf(starts, capacity);
+          ends = Arrays.copyOf(ends, capacity);
+          gasCosts = Arrays.copyOf(gasCosts, capacity);
+          requiredStackItems = Arrays.copyOf(requiredStackItems, capacity);
+          maxStackGrowth = Arrays.copyOf(maxStackGrowth, capacity);
+          firstOperations = Arrays.copyOf(firstOperations, capacity + 1);
+        }
+        starts[count] = blockStart;
+        ends[count] = end;
+        gasCosts[count] = blockGas;
+        requiredStackItems[count] = -lowest;
+        maxStackGrowth[count] = highest;
+        firstOperations[count] = operationCount;
+        addBlockOperations();
+        count++;
+        firstOperations[count] = operationCount;
+      }
+      blockStart = -1;
+    }
+
+    private void addBlockOperations() {
+      int i = 0;
+      while (i < blockOperations) {
+        final AbstractFusedOperation fused = fuse ? fuseAt(i) : null;
+        if (fused != null) {
+          appendOperation(fused);
+          i += fused.getFusedOperationCount();
+        } else {
+          appendOperation(blockOps[i]);
+          i++;
+        }
+      }
+    }
+
+    private void appendOperation(final AbstractFixedCostOperation operation) {
+      if (operationCount == operations.length) {
+        operations = Arrays.copyOf(operations, operationCount * 2);
+      }
+      operations[operationCount++] = operation;
+    }
+
+    private AbstractFusedOperation fuseAt(final int i) {
+      final AbstractFixedCostOperation first = blockOps[i];
+      final AbstractFixedCostOperation second = i + 1 < blockOperations ? blockOps[i + 1] : null;
+      final AbstractFixedCostOperation third = i + 2 < blockOperations ? blockOps[i + 2] : null;
+      if (first instanceof PushOperation && second instanceof JumpOperation) {
+        return new PushJumpOperation(
+            (PushOperation) first, (JumpOperation) second, pushedDestination(i));
+      }
+      if (first instanceof PushOperation && second instanceof JumpiOperation) {
+        return new PushJumpiOperation(
+            (PushOperation) first, (JumpiOperation) second, pushedDestination(i));
+      }
+      if (first instanceof IsZeroOperation
+          && second instanceof PushOperation
+          && third instanceof JumpiOperation) {
+        return new IsZeroPushJumpiOperation(
+            (IsZeroOperation) first,
+            (PushOperation) second,
+            (JumpiOperation) third,
+            pushedDestination(i + 1));
+      }
+      if (first instanceof SwapOperation && second instanceof PopOperation) {
+        return new SwapPopOperation((SwapOperation) first, (PopOperation) second);
+      }
+      return null;
+    }
+
+    /** Reads the value pushed by the PUSH at the given block index as a jump destination. */
+    private int pushedDestination(final int i) {
+      final int pc = blockPcs[i];
+      final int end = Math.min(pc + blockOps[i].getOpSize(), code.length);
+      long destination = 0;
+      for (int j = pc + 1; j < end; j++) {
+        destination = (destination << 8) | (code[j] & 0xff);
+        if (destination > Integer.MAX_VALUE) {
+          return -1;
+        }
+      }
+      return (int) destination;
+    }
+  }
+}
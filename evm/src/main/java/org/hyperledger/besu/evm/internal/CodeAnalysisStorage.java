@@ -0,0 +1,57 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.internal;
+
+import org.hyperledger.besu.datatypes.Hash;
+
+import java.util.Optional;
+
+/**
+ * Persistent tier behind the {@link CodeCache}. Holds the jump destination analysis of deployed
+ * code keyed by code hash so that it survives restarts and cache evictions.
+ *
+ * <p>Only the jump destinations are kept: they depend on the bytes of the code alone. The basic
+ * block and superinstruction analysis depends on the operation table of the EVM that runs the code,
+ * and refers to its operations, so it is computed again in memory once per loaded code.
+ */
+public interface CodeAnalysisStorage {
+
+  CodeAnalysisStorage NONE =
+      new CodeAnalysisStorage() {
+        @Override
+        public Optional<long[]> getJumpDestinations(final Hash codeHash) {
+          return Optional.empty();
+        }
+
+        @Override
+        public void putJumpDestinations(final Hash codeHash, final long[] jumpDestinations) {}
+      };
+
+  /**
+   * Returns the valid jump destination bitmap stored for the code with the given hash.
+   *
+   * @param codeHash the hash of the code
+   * @return the stored bitmap, or empty if the code has not been analysed before
+   */
+  Optional<long[]> getJumpDestinations(Hash codeHash);
+
+  /**
+   * Stores the valid jump destination bitmap for the code with the given hash.
+   *
+   * @param codeHash the hash of the code
+   * @param jumpDestinations the bitmap, as computed by {@code Code.calculateJumpDests()}
+   */
+  void putJumpDestinations(Hash codeHash, long[] jumpDestinations);
+}
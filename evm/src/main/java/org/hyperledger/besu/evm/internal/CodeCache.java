@@ -18,6 +18,9 @@ package org.hyperledger.besu.evm.internal;
 import org.hyperledger.besu.datatypes.Hash;
 import org.hyperledger.besu.evm.Code;
 
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
@@ -25,15 +28,23 @@ public class CodeCache {
 
   private final Cache<Hash, Code> cache;
   private final long weightLimit;
+  private final CodeAnalysisStorage analysisStorage;
+  private final LongAdder storedAnalysisHits = new LongAdder();
+  private final LongAdder storedAnalysisMisses = new LongAdder();
 
   public CodeCache(final EvmConfiguration config) {
-    this(config.getJumpDestCacheWeightBytes());
+    this(config.getJumpDestCacheWeightBytes(), config.getCodeAnalysisStorage());
   }
 
-  private CodeCache(final long maxWeightBytes) {
+  private CodeCache(final long maxWeightBytes, final CodeAnalysisStorage analysisStorage) {
     this.weightLimit = maxWeightBytes;
+    this.analysisStorage = analysisStorage;
     this.cache =
-        Caffeine.newBuilder().maximumWeight(maxWeightBytes).weigher(new CodeScale()).build();
+        Caffeine.newBuilder()
+            .maximumWeight(maxWeightBytes)
+            .weigher(new CodeScale())
+            .recordStats()
+            .build();
   }
 
   public void invalidate(final Hash key) {
@@ -60,4 +71,48 @@ public class CodeCache {
   public long getWeightLimit() {
     return weightLimit;
   }
+
+  public boolean hasAnalysisStorage() {
+    return analysisStorage != CodeAnalysisStorage.NONE;
+  }
+
+  /**
+   * Looks up the jump destination bitmap of code that is not in memory in the persistent tier.
+   *
+   * @param codeHash the hash of the code
+   * @return the stored bitmap, or empty if the code has not been analysed before
+   */
+  public Optional<long[]> getStoredJumpDestinations(final Hash codeHash) {
+    final Optional<long[]> stored = analysisStorage.getJumpDestinations(codeHash);
+    if (stored.isPresent()) {
+      storedAnalysisHits.increment();
+    } else {
+      storedAnalysisMisses.increment();
+    }
+    return stored;
+  }
+
+  public void storeJumpDestinations(final Hash codeHash, final long[] jumpDestinations) {
+    analysisStorage.putJumpDestinations(codeHash, jumpDestinations);
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  public long getStoredAnalysisHitCount() {
+    return storedAnalysisHits.sum();
+  }
+
+  public long getStoredAnalysisMissCount() {
+    return storedAnalysisMisses.sum();
+  }
 }
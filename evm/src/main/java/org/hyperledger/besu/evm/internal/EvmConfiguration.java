@@ -18,9 +18,38 @@ package org.hyperledger.besu.evm.internal;
 public class EvmConfiguration {
   public static final EvmConfiguration DEFAULT = new EvmConfiguration(32_000L);
   private final long jumpDestCacheWeightKB;
+  private final boolean codeAnalysisPersisted;
+  private final boolean superinstructionsEnabled;
+  private final CodeAnalysisStorage codeAnalysisStorage;
 
   public EvmConfiguration(final long jumpDestCacheWeightKB) {
+    this(jumpDestCacheWeightKB, false);
+  }
+
+  public EvmConfiguration(final long jumpDestCacheWeightKB, final boolean codeAnalysisPersisted) {
+    this(jumpDestCacheWeightKB, codeAnalysisPersisted, false);
+  }
+
+  public EvmConfiguration(
+      final long jumpDestCacheWeightKB,
+      final boolean codeAnalysisPersisted,
+      final boolean superinstructionsEnabled) {
+    this(
+        jumpDestCacheWeightKB,
+        codeAnalysisPersisted,
+        superinstructionsEnabled,
+        CodeAnalysisStorage.NONE);
+  }
+
+  private EvmConfiguration(
+      final long jumpDestCacheWeightKB,
+      final boolean codeAnalysisPersisted,
+      final boolean superinstructionsEnabled,
+      final CodeAnalysisStorage codeAnalysisStorage) {
     this.jumpDestCacheWeightKB = jumpDestCacheWeightKB;
+    this.codeAnalysisPersisted = codeAnalysisPersisted;
+    this.superinstructionsEnabled = superinstructionsEnabled;
+    this.codeAnalysisStorage = codeAnalysisStorage;
   }
 
   public long getJumpDestCacheWeightBytes() {
@@ -30,4 +59,37 @@ public class EvmConfiguration {
   public long getJumpDestCacheWeightKB() {
     return jumpDestCacheWeightKB;
   }
+
+  /**
+   * Whether code analysis should be kept in persistent storage behind the in-memory code cache.
+   * The storage itself is supplied by the client through {@link
+   * #withCodeAnalysisStorage(CodeAnalysisStorage)}.
+   *
+   * @return true if code analysis should be persisted
+   */
+  public boolean isCodeAnalysisPersisted() {
+    return codeAnalysisPersisted;
+  }
+
+  /**
+   * Whether common operation sequences are fused into single virtual operations when code runs
+   * without a tracer attached.
+   *
+   * @return true if superinstructions are enabled
+   */
+  public boolean isSuperinstructionsEnabled() {
+    return superinstructionsEnabled;
+  }
+
+  public CodeAnalysisStorage getCodeAnalysisStorage() {
+    return codeAnalysisStorage;
+  }
+
+  public EvmConfiguration withCodeAnalysisStorage(final CodeAnalysisStorage codeAnalysisStorage) {
+    return new EvmConfiguration(
+        jumpDestCacheWeightKB,
+        codeAnalysisPersisted,
+        superinstructionsEnabled,
+        codeAnalysisStorage);
+  }
 }
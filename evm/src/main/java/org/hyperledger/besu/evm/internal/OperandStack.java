@@ -1,5 +1,5 @@
 /*
- * Copyright contributors to Hyperledger Besu
+ * Copyright ConsenSys AG.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -11,16 +11,517 @@
  * specific language governing permissions and limitations under the License.
  *
  * SPDX-License-Identifier: Apache-2.0
- *
  */
-
 package org.hyperledger.besu.evm.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+import org.hyperledger.besu.evm.internal.FixedStack.OverflowException;
+import org.hyperledger.besu.evm.internal.FixedStack.UnderflowException;
+
 import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+
+/**
+ * The EVM operand stack.
+ *
+ * <p>Every slot holds a 256-bit word that is available in one or both of two representations: a
+ * {@link Bytes} reference, as pushed by most operations, and four 64-bit limbs stored in a flat
+ * {@code long[]} (most significant limb first). Arithmetic, bitwise and comparison operations work
+ * on the limbs in place and never allocate; the {@link Bytes} view of a slot is only materialized
+ * when it is read through {@link #get(int)} or {@link #pop()}.
+ */
+public class OperandStack {
+
+  private static final int LIMBS_PER_WORD = 4;
+  private static final int INITIAL_LIMB_CAPACITY = 16;
+
+  private final Bytes[] entries;
+  private final int maxSize;
+  private int top;
 
-public class OperandStack extends FixedStack<Bytes> {
+  private long[] limbs;
+  private boolean[] limbsValid;
+  private final long[] product = new long[LIMBS_PER_WORD];
 
   public OperandStack(final int maxSize) {
-    super(maxSize, Bytes.class);
+    checkArgument(maxSize >= 0, "max size must be non-negative");
+
+    this.entries = new Bytes[maxSize];
+    this.maxSize = maxSize;
+    this.top = -1;
+    final int limbCapacity = Math.min(maxSize, INITIAL_LIMB_CAPACITY);
+    this.limbs = new long[limbCapacity * LIMBS_PER_WORD];
+    this.limbsValid = new boolean[limbCapacity];
+  }
+
+  public Bytes get(final int offset) {
+    if (offset < 0 || offset >= size()) {
+      throw new UnderflowException();
+    }
+
+    final int slot = top - offset;
+    final Bytes value = entries[slot];
+    return value == null ? materialize(slot) : value;
+  }
+
+  public Bytes pop() {
+    if (top < 0) {
+      throw new UnderflowException();
+    }
+
+    final Bytes value = entries[top] == null ? materialize(top) : entries[top];
+    clearSlot(top--);
+    return value;
+  }
+
+  /**
+   * Pops the specified number of operands from the stack.
+   *
+   * @param items the number of operands to pop off the stack
+   * @throws IllegalArgumentException if the items to pop is negative.
+   * @throws UnderflowException when the items to pop is greater than {@link #size()}
+   */
+  public void bulkPop(final int items) {
+    if (items < 0) {
+      throw new IllegalArgumentException(
+          String.format("requested number of items to bulk pop (%d) is negative", items));
+    }
+    checkArgument(items > 0, "number of items to pop must be greater than 0");
+    if (items > size()) {
+      throw new UnderflowException();
+    }
+
+    for (int i = 0; i < items; ++i) {
+      clearSlot(top--);
+    }
+  }
+
+  public void push(final Bytes operand) {
+    final int nextTop = top + 1;
+    if (nextTop == maxSize) {
+      throw new OverflowException();
+    }
+    entries[nextTop] = operand;
+    if (nextTop < limbsValid.length) {
+      limbsValid[nextTop] = false;
+    }
+    top = nextTop;
+  }
+
+  /**
+   * Pushes a 32 byte word whose bytes may change once this call returns, such as a view of EVM
+   * memory. The word is copied into limbs rather than kept as is.
+   *
+   * @param word the 32 byte word to push
+   */
+  public void pushWord(final Bytes word) {
+    final int nextTop = top + 1;
+    if (nextTop == maxSize) {
+      throw new OverflowException();
+    }
+    ensureLimbCapacity(nextTop);
+    final int base = nextTop * LIMBS_PER_WORD;
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      limbs[base + i] = word.getLong(i * Long.BYTES);
+    }
+    limbsValid[nextTop] = true;
+    entries[nextTop] = null;
+    top = nextTop;
+  }
+
+  public void set(final int offset, final Bytes operand) {
+    if (offset < 0 || offset >= size()) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    final int slot = top - offset;
+    entries[slot] = operand;
+    if (slot < limbsValid.length) {
+      limbsValid[slot] = false;
+    }
+  }
+
+  public int size() {
+    return top + 1;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** Removes all operands, leaving the stack as if it had just been created. */
+  public void clear() {
+    while (top >= 0) {
+      clearSlot(top--);
+    }
+  }
+
+  public boolean isFull() {
+    return top + 1 >= maxSize;
+  }
+
+  public boolean isEmpty() {
+    return top < 0;
+  }
+
+  /**
+   * Pushes a copy of the item at the given depth, where a depth of 1 is the top of the stack.
+   *
+   * @param depth the one-based depth of the item to duplicate
+   */
+  public void dup(final int depth) {
+    if (depth > size()) {
+      throw new UnderflowException();
+    }
+    final int nextTop = top + 1;
+    if (nextTop == maxSize) {
+      throw new OverflowException();
+    }
+
+    final int source = top - depth + 1;
+    entries[nextTop] = entries[source];
+    if (isLimbValid(source)) {
+      ensureLimbCapacity(nextTop);
+      System.arraycopy(
+          limbs, source * LIMBS_PER_WORD, limbs, nextTop * LIMBS_PER_WORD, LIMBS_PER_WORD);
+      limbsValid[nextTop] = true;
+    } else if (nextTop < limbsValid.length) {
+      limbsValid[nextTop] = false;
+    }
+    top = nextTop;
+  }
+
+  /**
+   * Exchanges the top of the stack with the item at the given offset.
+   *
+   * @param offset the offset from the top of the stack of the item to exchange with
+   */
+  public void swap(final int offset) {
+    if (offset >= size()) {
+      throw new UnderflowException();
+    }
+
+    final int other = top - offset;
+    final Bytes tmp = entries[top];
+    entries[top] = entries[other];
+    entries[other] = tmp;
+    final boolean topValid = isLimbValid(top);
+    final boolean otherValid = isLimbValid(other);
+    if (topValid || otherValid) {
+      ensureLimbCapacity(top);
+      final int topBase = top * LIMBS_PER_WORD;
+      final int otherBase = other * LIMBS_PER_WORD;
+      for (int i = 0; i < LIMBS_PER_WORD; i++) {
+        final long limb = limbs[topBase + i];
+        limbs[topBase + i] = limbs[otherBase + i];
+        limbs[otherBase + i] = limb;
+      }
+      limbsValid[top] = otherValid;
+      limbsValid[other] = topValid;
+    }
+  }
+
+  /** ADD: replaces the two top items a, b with a + b (mod 2^256). */
+  public void add() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    long carry = 0;
+    for (int i = LIMBS_PER_WORD - 1; i >= 0; i--) {
+      final long x = limbs[a + i];
+      final long partial = x + limbs[b + i];
+      final long sum = partial + carry;
+      carry =
+          (Long.compareUnsigned(partial, x) < 0 || Long.compareUnsigned(sum, partial) < 0) ? 1 : 0;
+      limbs[b + i] = sum;
+    }
+    completeBinaryOperation();
+  }
+
+  /** SUB: replaces the two top items a, b with a - b (mod 2^256). */
+  public void sub() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    long borrow = 0;
+    for (int i = LIMBS_PER_WORD - 1; i >= 0; i--) {
+      final long x = limbs[a + i];
+      final long y = limbs[b + i];
+      final long partial = x - y;
+      final long difference = partial - borrow;
+      borrow =
+          (Long.compareUnsigned(x, y) < 0 || Long.compareUnsigned(partial, borrow) < 0) ? 1 : 0;
+      limbs[b + i] = difference;
+    }
+    completeBinaryOperation();
+  }
+
+  /** MUL: replaces the two top items a, b with a * b (mod 2^256). */
+  public void mul() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    final long[] result = product;
+    result[0] = 0;
+    result[1] = 0;
+    result[2] = 0;
+    result[3] = 0;
+    // schoolbook multiplication over little-endian limb indices, dropping everything above 2^256
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      final long x = limbs[a + LIMBS_PER_WORD - 1 - i];
+      if (x == 0) {
+        continue;
+      }
+      long carry = 0;
+      for (int j = 0; j < LIMBS_PER_WORD - i; j++) {
+        final long y = limbs[b + LIMBS_PER_WORD - 1 - j];
+        final long low = x * y;
+        final long high = unsignedMultiplyHigh(x, y);
+        final long partial = result[i + j] + low;
+        final long sum = partial + carry;
+        carry =
+            high
+                + (Long.compareUnsigned(partial, low) < 0 ? 1 : 0)
+                + (Long.compareUnsigned(sum, partial) < 0 ? 1 : 0);
+        result[i + j] = sum;
+      }
+    }
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      limbs[b + i] = result[LIMBS_PER_WORD - 1 - i];
+    }
+    completeBinaryOperation();
+  }
+
+  /**
+   * SIGNEXTEND: replaces the two top items b, x with x sign extended from its (b + 1)th least
+   * significant byte.
+   */
+  public void signExtend() {
+    final int indexBase = binaryOperands();
+    final int valueBase = indexBase - LIMBS_PER_WORD;
+    final long byteIndex = limbs[indexBase + 3];
+    if ((limbs[indexBase] | limbs[indexBase + 1] | limbs[indexBase + 2]) == 0
+        && Long.compareUnsigned(byteIndex, 31) < 0) {
+      final int signBit = (int) byteIndex * 8 + 7;
+      // limb holding the sign bit, counted from the most significant limb
+      final int signLimb = LIMBS_PER_WORD - 1 - (signBit >>> 6);
+      final int bitInLimb = signBit & 0x3F;
+      final boolean negative = ((limbs[valueBase + signLimb] >>> bitInLimb) & 1L) != 0;
+      for (int i = 0; i < signLimb; i++) {
+        limbs[valueBase + i] = negative ? -1L : 0L;
+      }
+      if (bitInLimb < 63) {
+        final long mask = -1L << (bitInLimb + 1);
+        limbs[valueBase + signLimb] =
+            negative ? limbs[valueBase + signLimb] | mask : limbs[valueBase + signLimb] & ~mask;
+      }
+      completeBinaryOperation();
+    } else {
+      // an index of 31 or more leaves the value untouched, including its Bytes representation
+      clearSlot(top--);
+    }
+  }
+
+  /** AND: replaces the two top items a, b with a &amp; b. */
+  public void and() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      limbs[b + i] &= limbs[a + i];
+    }
+    completeBinaryOperation();
+  }
+
+  /** OR: replaces the two top items a, b with a | b. */
+  public void or() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      limbs[b + i] |= limbs[a + i];
+    }
+    completeBinaryOperation();
+  }
+
+  /** XOR: replaces the two top items a, b with a ^ b. */
+  public void xor() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      limbs[b + i] ^= limbs[a + i];
+    }
+    completeBinaryOperation();
+  }
+
+  /** NOT: replaces the top item with its bitwise complement. */
+  public void not() {
+    final int a = unaryOperand();
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      limbs[a + i] = ~limbs[a + i];
+    }
+    completeUnaryOperation();
+  }
+
+  /** ISZERO: replaces the top item with 1 if it is zero, otherwise with 0. */
+  public void isZero() {
+    final int a = unaryOperand();
+    final boolean zero = (limbs[a] | limbs[a + 1] | limbs[a + 2] | limbs[a + 3]) == 0;
+    setBoolean(a, zero);
+    completeUnaryOperation();
+  }
+
+  /**
+   * Pops the top of the stack and tells whether it was zero, without materializing it.
+   *
+   * @return true if the popped operand was zero
+   */
+  public boolean popIsZero() {
+    final int a = unaryOperand();
+    final boolean zero = (limbs[a] | limbs[a + 1] | limbs[a + 2] | limbs[a + 3]) == 0;
+    clearSlot(top--);
+    return zero;
+  }
+
+  /** LT: replaces the two top items a, b with 1 if a &lt; b (unsigned), otherwise with 0. */
+  public void lt() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    setBoolean(b, compareUnsigned(a, b) < 0);
+    completeBinaryOperation();
+  }
+
+  /** GT: replaces the two top items a, b with 1 if a &gt; b (unsigned), otherwise with 0. */
+  public void gt() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    setBoolean(b, compareUnsigned(a, b) > 0);
+    completeBinaryOperation();
+  }
+
+  /** EQ: replaces the two top items a, b with 1 if a == b, otherwise with 0. */
+  public void eq() {
+    final int a = binaryOperands();
+    final int b = a - LIMBS_PER_WORD;
+    setBoolean(b, compareUnsigned(a, b) == 0);
+    completeBinaryOperation();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < entries.length; ++i) {
+      final Bytes entry = i <= top && entries[i] == null ? materialize(i) : entries[i];
+      builder.append(String.format("\n0x%04X ", i)).append(entry);
+    }
+    return builder.toString();
+  }
+
+  private int binaryOperands() {
+    if (top < 1) {
+      throw new UnderflowException();
+    }
+    loadLimbs(top - 1);
+    loadLimbs(top);
+    return top * LIMBS_PER_WORD;
+  }
+
+  private int unaryOperand() {
+    if (top < 0) {
+      throw new UnderflowException();
+    }
+    loadLimbs(top);
+    return top * LIMBS_PER_WORD;
+  }
+
+  private void completeBinaryOperation() {
+    clearSlot(top--);
+    entries[top] = null;
+  }
+
+  private void completeUnaryOperation() {
+    entries[top] = null;
+  }
+
+  private void setBoolean(final int base, final boolean value) {
+    limbs[base] = 0;
+    limbs[base + 1] = 0;
+    limbs[base + 2] = 0;
+    limbs[base + 3] = value ? 1 : 0;
+  }
+
+  private int compareUnsigned(final int a, final int b) {
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      final int comparison = Long.compareUnsigned(limbs[a + i], limbs[b + i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  private boolean isLimbValid(final int slot) {
+    return slot < limbsValid.length && limbsValid[slot];
+  }
+
+  private void clearSlot(final int slot) {
+    entries[slot] = null;
+    if (slot < limbsValid.length) {
+      limbsValid[slot] = false;
+    }
+  }
+
+  private void ensureLimbCapacity(final int slot) {
+    if (slot < limbsValid.length) {
+      return;
+    }
+    final int capacity = Math.min(maxSize, Math.max(slot + 1, limbsValid.length * 2));
+    final long[] newLimbs = new long[capacity * LIMBS_PER_WORD];
+    System.arraycopy(limbs, 0, newLimbs, 0, limbs.length);
+    final boolean[] newLimbsValid = new boolean[capacity];
+    System.arraycopy(limbsValid, 0, newLimbsValid, 0, limbsValid.length);
+    limbs = newLimbs;
+    limbsValid = newLimbsValid;
+  }
+
+  private void loadLimbs(final int slot) {
+    ensureLimbCapacity(slot);
+    if (limbsValid[slot]) {
+      return;
+    }
+    final Bytes value = entries[slot];
+    final int base = slot * LIMBS_PER_WORD;
+    final int size = value.size();
+    if (size == Bytes32.SIZE) {
+      for (int i = 0; i < LIMBS_PER_WORD; i++) {
+        limbs[base + i] = value.getLong(i * Long.BYTES);
+      }
+    } else {
+      // values narrower than a word are left padded with zeros, wider ones keep the low 256 bits
+      for (int i = LIMBS_PER_WORD - 1; i >= 0; i--) {
+        final int end = size - (LIMBS_PER_WORD - 1 - i) * Long.BYTES;
+        long limb = 0;
+        for (int j = Math.max(0, end - Long.BYTES); j < end; j++) {
+          limb = (limb << 8) | (value.get(j) & 0xFFL);
+        }
+        limbs[base + i] = limb;
+      }
+    }
+    limbsValid[slot] = true;
+  }
+
+  private Bytes materialize(final int slot) {
+    final byte[] word = new byte[Bytes32.SIZE];
+    final int base = slot * LIMBS_PER_WORD;
+    for (int i = 0; i < LIMBS_PER_WORD; i++) {
+      long limb = limbs[base + i];
+      for (int j = Long.BYTES - 1; j >= 0; j--) {
+        word[i * Long.BYTES + j] = (byte) limb;
+        limb >>>= 8;
+      }
+    }
+    final Bytes value = Bytes32.wrap(word);
+    entries[slot] = value;
+    return value;
+  }
+
+  private static long unsignedMultiplyHigh(final long x, final long y) {
+    return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
   }
 }
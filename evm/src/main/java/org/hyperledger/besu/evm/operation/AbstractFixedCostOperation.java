@@ -26,7 +26,7 @@ import org.hyperledger.besu.evm.internal.FixedStack.UnderflowException;
 import java.util.Optional;
 import java.util.OptionalLong;
 
-abstract class AbstractFixedCostOperation extends AbstractOperation {
+public abstract class AbstractFixedCostOperation extends AbstractOperation {
 
   protected final OperationResult successResponse;
   protected final OperationResult outOfGasResponse;
@@ -71,5 +71,27 @@ abstract class AbstractFixedCostOperation extends AbstractOperation {
     }
   }
 
+  /**
+   * Executes the operation without checking the remaining gas. Only to be used by callers that
+   * have already charged and checked the gas of the whole basic block this operation belongs to.
+   *
+   * @param frame The frame for execution of this operation.
+   * @param evm The EVM for execution of this operation.
+   * @return the gas cost and any exceptional halt reasons of the operation.
+   */
+  public final OperationResult executeWithoutGasCheck(final MessageFrame frame, final EVM evm) {
+    try {
+      return executeFixedCostOperation(frame, evm);
+    } catch (final UnderflowException ufe) {
+      return underflowResponse;
+    } catch (final OverflowException ofe) {
+      return overflowResponse;
+    }
+  }
+
+  public long getFixedGasCost() {
+    return gasCost;
+  }
+
   protected abstract OperationResult executeFixedCostOperation(MessageFrame frame, EVM evm);
 }
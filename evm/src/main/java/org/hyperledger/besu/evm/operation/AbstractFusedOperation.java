@@ -0,0 +1,104 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.operation;
+
+import org.hyperledger.besu.evm.frame.ExceptionalHaltReason;
+import org.hyperledger.besu.evm.frame.MessageFrame;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+
+/**
+ * A virtual operation standing for a short sequence of fixed cost operations (a superinstruction).
+ *
+ * <p>Fused operations are only executed as part of a basic block whose gas and stack bounds have
+ * already been checked, never on their own and never while tracing. They leave the frame in the
+ * same state as the sequence they replace, including the program counter when the sequence halts
+ * part way through.
+ */
+public abstract class AbstractFusedOperation extends AbstractFixedCostOperation {
+
+  protected final OperationResult fallThroughResponse;
+  protected final OperationResult jumpResponse;
+  protected final OperationResult invalidJumpResponse;
+  private final int fusedOperationCount;
+
+  protected AbstractFusedOperation(final AbstractFixedCostOperation... operations) {
+    super(
+        operations[0].getOpcode(),
+        Arrays.stream(operations).map(Operation::getName).collect(Collectors.joining("+")),
+        stackItemsConsumed(operations),
+        stackItemsConsumed(operations) + stackHeightChange(operations),
+        Arrays.stream(operations).mapToInt(Operation::getOpSize).sum(),
+        operations[0].gasCalculator(),
+        Arrays.stream(operations).mapToLong(AbstractFixedCostOperation::getFixedGasCost).sum());
+    fallThroughResponse =
+        new OperationResult(OptionalLong.of(gasCost), Optional.empty(), getOpSize());
+    jumpResponse = new OperationResult(OptionalLong.of(gasCost), Optional.empty(), 0);
+    invalidJumpResponse =
+        new OperationResult(
+            OptionalLong.of(gasCost), Optional.of(ExceptionalHaltReason.INVALID_JUMP_DESTINATION));
+    fusedOperationCount = operations.length;
+  }
+
+  public int getFusedOperationCount() {
+    return fusedOperationCount;
+  }
+
+  /**
+   * Jumps to a destination known when the code was analysed.
+   *
+   * @param frame the frame to jump in
+   * @param destination the jump destination, or -1 if it does not fit in an int
+   * @param jumpOffset the offset of the jump operation from the start of the fused sequence
+   * @return the result of the jump
+   */
+  protected OperationResult jump(
+      final MessageFrame frame, final int destination, final int jumpOffset) {
+    if (destination < 0 || frame.getCode().isJumpDestInvalid(destination)) {
+      // halt at the jump itself, as the unfused sequence would
+      frame.setPC(frame.getPC() + jumpOffset);
+      return invalidJumpResponse;
+    }
+    frame.setPC(destination);
+    return jumpResponse;
+  }
+
+  @Override
+  public boolean isVirtualOperation() {
+    return true;
+  }
+
+  private static int stackItemsConsumed(final Operation[] operations) {
+    int height = 0;
+    int lowest = 0;
+    for (final Operation operation : operations) {
+      height -= operation.getStackItemsConsumed();
+      lowest = Math.min(lowest, height);
+      height += operation.getStackItemsProduced();
+    }
+    return -lowest;
+  }
+
+  private static int stackHeightChange(final Operation[] operations) {
+    int height = 0;
+    for (final Operation operation : operations) {
+      height += operation.getStackItemsProduced() - operation.getStackItemsConsumed();
+    }
+    return height;
+  }
+}
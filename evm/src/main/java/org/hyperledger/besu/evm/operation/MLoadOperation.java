@@ -24,8 +24,6 @@ import org.hyperledger.besu.evm.gascalculator.GasCalculator;
 import java.util.Optional;
 import java.util.OptionalLong;
 
-import org.apache.tuweni.bytes.Bytes;
-
 public class MLoadOperation extends AbstractOperation {
 
   public MLoadOperation(final GasCalculator gasCalculator) {
@@ -42,9 +40,8 @@ public class MLoadOperation extends AbstractOperation {
           OptionalLong.of(cost), Optional.of(ExceptionalHaltReason.INSUFFICIENT_GAS));
     }
 
-    final Bytes value = frame.readMutableMemory(location, 32, true).copy();
-
-    frame.pushStackItem(value);
+    // the word is copied straight from memory into the stack limbs
+    frame.getOperandStack().pushWord(frame.readMutableMemory(location, 32, true));
     return new OperationResult(OptionalLong.of(cost), Optional.empty());
   }
 }
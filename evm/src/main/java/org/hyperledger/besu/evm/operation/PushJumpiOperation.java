@@ -0,0 +1,42 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.operation;
+
+import org.hyperledger.besu.evm.EVM;
+import org.hyperledger.besu.evm.frame.MessageFrame;
+
+/**
+ * PUSHn followed by JUMPI: a conditional jump to a destination known when the code was analysed.
+ */
+public class PushJumpiOperation extends AbstractFusedOperation {
+
+  private final int destination;
+  private final int jumpOffset;
+
+  public PushJumpiOperation(
+      final PushOperation push, final JumpiOperation jumpi, final int destination) {
+    super(push, jumpi);
+    this.destination = destination;
+    this.jumpOffset = push.getOpSize();
+  }
+
+  @Override
+  protected OperationResult executeFixedCostOperation(final MessageFrame frame, final EVM evm) {
+    if (frame.getOperandStack().popIsZero()) {
+      return fallThroughResponse;
+    }
+    return jump(frame, destination, jumpOffset);
+  }
+}
@@ -43,7 +43,7 @@ public class RevertOperation extends AbstractOperation {
           OptionalLong.of(cost), Optional.of(ExceptionalHaltReason.INSUFFICIENT_GAS));
     }
 
-    final Bytes reason = frame.readMemory(from, length);
+    final Bytes reason = frame.shadowReadMemory(from, length);
     frame.setOutputData(reason);
     frame.setRevertReason(reason);
     frame.setState(MessageFrame.State.REVERT);
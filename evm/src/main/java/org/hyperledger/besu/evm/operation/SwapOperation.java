@@ -22,8 +22,6 @@ import org.hyperledger.besu.evm.gascalculator.GasCalculator;
 import java.util.Optional;
 import java.util.OptionalLong;
 
-import org.apache.tuweni.bytes.Bytes;
-
 public class SwapOperation extends AbstractFixedCostOperation {
 
   private final int index;
@@ -52,9 +50,7 @@ public class SwapOperation extends AbstractFixedCostOperation {
       return underflowResponse;
     }
 
-    final Bytes tmp = frame.getStackItem(0);
-    frame.setStackItem(0, frame.getStackItem(index));
-    frame.setStackItem(index, tmp);
+    frame.getOperandStack().swap(index);
 
     return successResponse;
   }
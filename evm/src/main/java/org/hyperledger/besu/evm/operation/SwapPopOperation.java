@@ -0,0 +1,38 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.operation;
+
+import org.hyperledger.besu.evm.EVM;
+import org.hyperledger.besu.evm.frame.MessageFrame;
+import org.hyperledger.besu.evm.internal.OperandStack;
+
+/** SWAPn followed by POP: replaces the item at depth n with the top of the stack, then pops. */
+public class SwapPopOperation extends AbstractFusedOperation {
+
+  private final int index;
+
+  public SwapPopOperation(final SwapOperation swap, final PopOperation pop) {
+    super(swap, pop);
+    this.index = swap.getOpcode() - 0x90 + 1;
+  }
+
+  @Override
+  protected OperationResult executeFixedCostOperation(final MessageFrame frame, final EVM evm) {
+    final OperandStack stack = frame.getOperandStack();
+    stack.swap(index);
+    stack.bulkPop(1);
+    return fallThroughResponse;
+  }
+}
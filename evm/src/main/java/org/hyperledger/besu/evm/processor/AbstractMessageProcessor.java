@@ -196,9 +196,21 @@ public abstract class AbstractMessageProcessor {
     if (frame.getState() == MessageFrame.State.COMPLETED_FAILED) {
       completedFailed(frame);
     }
+
+    // tracers may keep references to the stack or memory (e.g. through the input of child
+    // frames), so frame internals are only reused when nothing traces the execution
+    if (operationTracer == OperationTracer.NO_TRACING
+        && (frame.getState() == MessageFrame.State.COMPLETED_SUCCESS
+            || frame.getState() == MessageFrame.State.COMPLETED_FAILED)) {
+      frame.recycle();
+    }
   }
 
   public Code getCodeFromEVM(final Hash codeHash, final Bytes codeBytes) {
     return evm.getCode(codeHash, codeBytes);
   }
+
+  public Code getInitCodeFromEVM(final Bytes initCode) {
+    return evm.getInitCode(initCode);
+  }
 }
@@ -149,7 +149,8 @@ public class ContractCreationProcessor extends AbstractMessageProcessor {
         // Finalize contract creation, setting the contract code.
         final MutableAccount contract =
             frame.getWorldUpdater().getOrCreate(frame.getContractAddress()).getMutable();
-        contract.setCode(contractCode);
+        // the output may share the memory buffer of the frame, the code outlives it in caches
+        contract.setCode(Bytes.wrap(contractCode.toArray()));
         LOG.trace(
             "Successful creation of contract {} with code of size {} (Gas remaining: {})",
             frame.getContractAddress(),
@@ -0,0 +1,68 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.frame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.Test;
+
+public class MemoryPoolTest {
+
+  private static final Bytes32 WORD = Bytes32.fromHexString("0xABCDEF");
+
+  private final MemoryPool pool = new MemoryPool();
+
+  @Test
+  public void releasedMemoryIsReusedZeroed() {
+    final Memory first = new Memory(pool);
+    first.setWord(0, WORD);
+    first.release();
+    assertThat(first.getActiveWords()).isZero();
+
+    final byte[] pooled = pool.acquire(32, 32);
+    assertThat(pooled).hasSize(1024).containsOnly(0);
+    pool.release(pooled);
+
+    final Memory second = new Memory(pool);
+    assertThat(second.getWord(0)).isEqualTo(Bytes32.ZERO);
+    assertThat(pool.acquire(32, 32)).hasSize(32);
+  }
+
+  @Test
+  public void memoryWithBytesReadWithoutCopyIsNotReused() {
+    final Memory memory = new Memory(pool);
+    memory.setWord(992, WORD);
+    final Bytes output = memory.getBytesWithoutCopy(0, 1024);
+    memory.release();
+
+    assertThat(pool.acquire(32, 32)).hasSize(32);
+    assertThat(output.slice(992)).isEqualTo(WORD);
+  }
+
+  @Test
+  public void shortBytesReadWithoutCopyDoNotKeepTheBuffer() {
+    final Memory memory = new Memory(pool);
+    memory.setWord(0, WORD);
+    memory.setWord(992, WORD);
+    final Bytes output = memory.getBytesWithoutCopy(0, 32);
+    memory.setWord(0, Bytes32.ZERO);
+    memory.release();
+
+    assertThat(output).isEqualTo(WORD);
+    assertThat(pool.acquire(32, 32)).hasSize(1024).containsOnly(0);
+  }
+}
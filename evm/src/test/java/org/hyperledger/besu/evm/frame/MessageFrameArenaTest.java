@@ -0,0 +1,49 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.evm.frame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hyperledger.besu.evm.internal.OperandStack;
+
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.Test;
+
+public class MessageFrameArenaTest {
+
+  private final MessageFrameArena arena = new MessageFrameArena();
+
+  @Test
+  public void releasedOperandStackIsReusedEmpty() {
+    final OperandStack stack = arena.acquireOperandStack(1024);
+    stack.push(Bytes32.ZERO);
+    stack.push(Bytes32.ZERO);
+    stack.add();
+    arena.releaseOperandStack(stack);
+
+    final OperandStack reused = arena.acquireOperandStack(1024);
+    assertThat(reused).isSameAs(stack);
+    assertThat(reused.isEmpty()).isTrue();
+    assertThat(arena.acquireOperandStack(1024)).isNotSameAs(stack);
+  }
+
+  @Test
+  public void operandStackOfAnotherSizeIsNotReused() {
+    final OperandStack stack = arena.acquireOperandStack(1024);
+    arena.releaseOperandStack(stack);
+
+    assertThat(arena.acquireOperandStack(16)).isNotSameAs(stack).matches(s -> s.getMaxSize() == 16);
+  }
+}
@@ -18,9 +18,13 @@ import org.hyperledger.besu.plugin.Unstable;
 import org.hyperledger.besu.plugin.services.exception.StorageException;
 
 import java.io.Closeable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -61,6 +65,66 @@ public interface KeyValueStorage extends Closeable {
    */
   Optional<byte[]> get(byte[] key) throws StorageException;
 
+  /**
+   * Retrieves the values associated with the given keys in a single batch.
+   *
+   * <p>The default implementation retrieves the keys one by one, storages able to read several
+   * keys at once should override it.
+   *
+   * @param keys the keys whose associated values are being retrieved.
+   * @return for each key, in the same order, an {@link Optional} containing the associated value,
+   *     otherwise empty.
+   * @throws StorageException problem encountered during the retrieval attempt.
+   */
+  default List<Optional<byte[]>> getMultiple(final List<byte[]> keys) throws StorageException {
+    return keys.stream().map(this::get).collect(Collectors.toList());
+  }
+
+  /**
+   * Retrieves the entry with the greatest key that is less than or equal to the given key, keys
+   * being compared as unsigned bytes.
+   *
+   * <p>The default implementation scans every key, storages that keep their keys sorted should
+   * override it.
+   *
+   * @param key the key to search from.
+   * @return an {@link Optional} containing the key and value of the nearest entry at or before the
+   *     given key, otherwise empty.
+   * @throws StorageException problem encountered during the retrieval attempt.
+   */
+  default Optional<Map.Entry<byte[], byte[]>> getNearestBefore(final byte[] key)
+      throws StorageException {
+    try (final Stream<byte[]> keys = streamKeys()) {
+      return keys.filter(candidate -> Arrays.compareUnsigned(candidate, key) <= 0)
+          .max(Arrays::compareUnsigned)
+          .flatMap(nearest -> get(nearest).map(value -> Map.entry(nearest, value)));
+    }
+  }
+
+  /**
+   * Returns a stream of the entries whose key is greater than or equal to the given key, in
+   * ascending order of keys compared as unsigned bytes. The stream must be closed once consumed.
+   *
+   * <p>The default implementation sorts every key, storages that keep their keys sorted should
+   * override it.
+   *
+   * @param startKey the key to start streaming from.
+   * @return A stream of the key and value of the entries from the given key on.
+   * @throws StorageException problem encountered during the retrieval attempt.
+   */
+  default Stream<Map.Entry<byte[], byte[]>> streamFromKey(final byte[] startKey)
+      throws StorageException {
+    final List<byte[]> keys;
+    try (final Stream<byte[]> allKeys = streamKeys()) {
+      keys =
+          allKeys
+              .filter(candidate -> Arrays.compareUnsigned(candidate, startKey) >= 0)
+              .sorted(Arrays::compareUnsigned)
+              .collect(Collectors.toList());
+    }
+    return keys.stream().flatMap(key -> get(key).map(value -> Map.entry(key, value)).stream());
+  }
+
   /**
    * Returns a stream of all keys.
    *
@@ -96,4 +160,22 @@ public interface KeyValueStorage extends Closeable {
    * @throws StorageException problem encountered when starting a new transaction.
    */
   KeyValueStorageTransaction startTransaction() throws StorageException;
+
+  /**
+   * Begins a transaction for loading large amounts of data, such as the world state during sync.
+   *
+   * <p>Committed values are visible to reads right away but, to make loading faster, storages may
+   * skip conflict checks and their write-ahead log for these transactions. Values lost on a crash
+   * must be acceptable to the caller, for instance because it can download them again. Storages
+   * that skip their write-ahead log make these values durable before committing any later regular
+   * transaction that writes the same keyspace.
+   *
+   * <p>The default implementation begins a regular transaction.
+   *
+   * @return transaction to sequence key-value operations.
+   * @throws StorageException problem encountered when starting a new transaction.
+   */
+  default KeyValueStorageTransaction startBulkLoadTransaction() throws StorageException {
+    return startTransaction();
+  }
 }
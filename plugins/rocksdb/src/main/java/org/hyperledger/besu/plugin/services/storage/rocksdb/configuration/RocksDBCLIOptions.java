@@ -14,15 +14,26 @@
  */
 package org.hyperledger.besu.plugin.services.storage.rocksdb.configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.google.common.base.MoreObjects;
 import picocli.CommandLine;
 
 public class RocksDBCLIOptions {
 
   public static final int DEFAULT_MAX_OPEN_FILES = 1024;
-  public static final long DEFAULT_CACHE_CAPACITY = 8388608;
+  public static final long DEFAULT_CACHE_CAPACITY = 134217728;
   public static final int DEFAULT_MAX_BACKGROUND_COMPACTIONS = 4;
   public static final int DEFAULT_BACKGROUND_THREAD_COUNT = 4;
+  // only table options, which existing databases can be reopened with, change by default
+  public static final Map<String, RocksDBSegmentProfile> DEFAULT_SEGMENT_PROFILES =
+      Map.of(
+          "WORLD_STATE", RocksDBSegmentProfile.PARTITIONED_POINT_LOOKUP,
+          "ACCOUNT_INFO_STATE", RocksDBSegmentProfile.POINT_LOOKUP,
+          "CODE_STORAGE", RocksDBSegmentProfile.POINT_LOOKUP,
+          "ACCOUNT_STORAGE_STORAGE", RocksDBSegmentProfile.PARTITIONED_POINT_LOOKUP,
+          "TRIE_BRANCH_STORAGE", RocksDBSegmentProfile.POINT_LOOKUP);
 
   private static final String MAX_OPEN_FILES_FLAG = "--Xplugin-rocksdb-max-open-files";
   private static final String CACHE_CAPACITY_FLAG = "--Xplugin-rocksdb-cache-capacity";
@@ -30,6 +41,7 @@ public class RocksDBCLIOptions {
       "--Xplugin-rocksdb-max-background-compactions";
   private static final String BACKGROUND_THREAD_COUNT_FLAG =
       "--Xplugin-rocksdb-background-thread-count";
+  private static final String SEGMENT_PROFILE_FLAG = "--Xplugin-rocksdb-segment-profile";
 
   @CommandLine.Option(
       names = {MAX_OPEN_FILES_FLAG},
@@ -42,7 +54,7 @@ public class RocksDBCLIOptions {
   @CommandLine.Option(
       names = {CACHE_CAPACITY_FLAG},
       hidden = true,
-      defaultValue = "8388608",
+      defaultValue = "134217728",
       paramLabel = "<LONG>",
       description = "Cache capacity of RocksDB (default: ${DEFAULT-VALUE})")
   long cacheCapacity;
@@ -63,6 +75,18 @@ public class RocksDBCLIOptions {
       description = "Number of RocksDB background threads (default: ${DEFAULT-VALUE})")
   int backgroundThreadCount;
 
+  @CommandLine.Option(
+      names = {SEGMENT_PROFILE_FLAG},
+      hidden = true,
+      split = ",",
+      paramLabel = "<SEGMENT=PROFILE>",
+      description =
+          "Tuning profile of a RocksDB segment, overriding its default. Profiles are DEFAULT,"
+              + " POINT_LOOKUP, PARTITIONED_POINT_LOOKUP and APPEND_MOSTLY. APPEND_MOSTLY uses"
+              + " universal compaction, which can need up to twice the size of the segment in"
+              + " free disk space and must then be kept for the life of the database")
+  Map<String, RocksDBSegmentProfile> segmentProfiles = new HashMap<>();
+
   private RocksDBCLIOptions() {}
 
   public static RocksDBCLIOptions create() {
@@ -75,12 +99,15 @@ public class RocksDBCLIOptions {
     options.cacheCapacity = config.getCacheCapacity();
     options.maxBackgroundCompactions = config.getMaxBackgroundCompactions();
     options.backgroundThreadCount = config.getBackgroundThreadCount();
+    options.segmentProfiles = new HashMap<>(config.getSegmentProfiles());
     return options;
   }
 
   public RocksDBFactoryConfiguration toDomainObject() {
+    final Map<String, RocksDBSegmentProfile> profiles = new HashMap<>(DEFAULT_SEGMENT_PROFILES);
+    profiles.putAll(segmentProfiles);
     return new RocksDBFactoryConfiguration(
-        maxOpenFiles, maxBackgroundCompactions, backgroundThreadCount, cacheCapacity);
+        maxOpenFiles, maxBackgroundCompactions, backgroundThreadCount, cacheCapacity, profiles);
   }
 
   @Override
@@ -90,6 +117,7 @@ public class RocksDBCLIOptions {
         .add("cacheCapacity", cacheCapacity)
         .add("maxBackgroundCompactions", maxBackgroundCompactions)
         .add("backgroundThreadCount", backgroundThreadCount)
+        .add("segmentProfiles", segmentProfiles)
         .toString();
   }
 }
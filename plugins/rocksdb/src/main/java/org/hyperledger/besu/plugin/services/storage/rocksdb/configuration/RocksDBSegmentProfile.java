@@ -0,0 +1,38 @@
+/*
+ * Copyright contributors to Hyperledger Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.hyperledger.besu.plugin.services.storage.rocksdb.configuration;
+
+/** How the column family of a segment is tuned, based on how the segment is read and written. */
+public enum RocksDBSegmentProfile {
+  /** RocksDB defaults, only sharing the block cache. */
+  DEFAULT,
+  /**
+   * Random reads of keys that are often absent: bloom filters, with the index and filter blocks
+   * kept in the block cache and pinned for L0 files.
+   */
+  POINT_LOOKUP,
+  /**
+   * Like {@link #POINT_LOOKUP} for large segments: the index and filters are partitioned so only
+   * their top level has to stay in memory.
+   */
+  PARTITIONED_POINT_LOOKUP,
+  /**
+   * Data that is mostly appended and read by keys known to exist: universal compaction to lower
+   * write amplification, no bloom filter, and stronger compression on the bottommost level. Never
+   * a default: universal compaction can need twice the size of the segment in free disk space, and
+   * a database compacted this way cannot simply be reopened with level compaction afterwards.
+   */
+  APPEND_MOSTLY
+}
@@ -23,18 +23,29 @@ import org.hyperledger.besu.plugin.services.metrics.OperationTimer;
 import org.hyperledger.besu.plugin.services.storage.SegmentIdentifier;
 import org.hyperledger.besu.plugin.services.storage.rocksdb.RocksDBMetrics;
 import org.hyperledger.besu.plugin.services.storage.rocksdb.RocksDBMetricsFactory;
+import org.hyperledger.besu.plugin.services.storage.rocksdb.RocksDbEntryIterator;
 import org.hyperledger.besu.plugin.services.storage.rocksdb.RocksDbKeyIterator;
 import org.hyperledger.besu.plugin.services.storage.rocksdb.RocksDbUtil;
 import org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBConfiguration;
+import org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBSegmentProfile;
 import org.hyperledger.besu.services.kvstore.SegmentedKeyValueStorage;
 import org.hyperledger.besu.services.kvstore.SegmentedKeyValueStorageTransactionTransitionValidatorDecorator;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -43,18 +54,30 @@ import java.util.stream.Stream;
 import com.google.common.collect.ImmutableMap;
 import org.apache.tuweni.bytes.Bytes;
 import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.CompressionType;
 import org.rocksdb.DBOptions;
 import org.rocksdb.Env;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.IndexType;
+import org.rocksdb.IngestExternalFileOptions;
 import org.rocksdb.LRUCache;
 import org.rocksdb.OptimisticTransactionDB;
+import org.rocksdb.Options;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.RocksObject;
+import org.rocksdb.SstFileWriter;
 import org.rocksdb.Statistics;
 import org.rocksdb.Status;
 import org.rocksdb.TransactionDBOptions;
+import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +92,10 @@ public class RocksDBColumnarKeyValueStorage
   private static final Logger LOG = LoggerFactory.getLogger(RocksDBColumnarKeyValueStorage.class);
   private static final String DEFAULT_COLUMN = "default";
   private static final String NO_SPACE_LEFT_ON_DEVICE = "No space left on device";
+  private static final double BLOOM_FILTER_BITS_PER_KEY = 10;
+  private static final String BULK_LOAD_DIR = "bulk-load";
+  // below this many entries a bulk load is cheaper to write as a batch than as ingested files
+  private static final int BULK_LOAD_MIN_INGESTED_ENTRIES = 10_000;
 
   private final DBOptions options;
   private final TransactionDBOptions txOptions;
@@ -77,6 +104,12 @@ public class RocksDBColumnarKeyValueStorage
   private final Map<String, ColumnFamilyHandle> columnHandlesByName;
   private final RocksDBMetrics metrics;
   private final WriteOptions tryDeleteOptions = new WriteOptions().setNoSlowdown(true);
+  private final WriteOptions bulkLoadOptions = new WriteOptions().setDisableWAL(true);
+  // segments with bulk loaded values that are only in the memtables, and so not durable yet
+  private final Set<ColumnFamilyHandle> unloggedSegments = ConcurrentHashMap.newKeySet();
+  private final Path bulkLoadDir;
+  // the block cache, column family options and filters the open database still uses
+  private final List<RocksObject> columnFamilyResources = new ArrayList<>();
 
   public RocksDBColumnarKeyValueStorage(
       final RocksDBConfiguration configuration,
@@ -85,20 +118,28 @@ public class RocksDBColumnarKeyValueStorage
       final RocksDBMetricsFactory rocksDBMetricsFactory)
       throws StorageException {
 
+    bulkLoadDir = configuration.getDatabaseDir().resolve(BULK_LOAD_DIR);
     try (final ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions()) {
+      // every column family shares one block cache so its capacity bounds the whole database
+      final Cache cache = new LRUCache(configuration.getCacheCapacity());
+      columnFamilyResources.add(cache);
       final List<ColumnFamilyDescriptor> columnDescriptors =
           segments.stream()
               .map(
                   segment ->
                       new ColumnFamilyDescriptor(
-                          segment.getId(), new ColumnFamilyOptions().setTtl(0)))
+                          segment.getId(),
+                          createColumnFamilyOptions(
+                              configuration.getSegmentProfile(segment.getName()),
+                              cache,
+                              columnFamilyResources)))
               .collect(Collectors.toList());
       columnDescriptors.add(
           new ColumnFamilyDescriptor(
               DEFAULT_COLUMN.getBytes(StandardCharsets.UTF_8),
               columnFamilyOptions
                   .setTtl(0)
-                  .setTableFormatConfig(createBlockBasedTableConfig(configuration))));
+                  .setTableFormatConfig(new BlockBasedTableConfig().setBlockCache(cache))));
 
       final Statistics stats = new Statistics();
       options =
@@ -133,13 +174,53 @@ public class RocksDBColumnarKeyValueStorage
       }
       columnHandlesByName = builder.build();
     } catch (final RocksDBException e) {
+      columnFamilyResources.forEach(RocksObject::close);
       throw new StorageException(e);
     }
   }
 
-  private BlockBasedTableConfig createBlockBasedTableConfig(final RocksDBConfiguration config) {
-    final LRUCache cache = new LRUCache(config.getCacheCapacity());
-    return new BlockBasedTableConfig().setBlockCache(cache);
+  private static ColumnFamilyOptions createColumnFamilyOptions(
+      final RocksDBSegmentProfile profile,
+      final Cache cache,
+      final List<RocksObject> resources) {
+    final ColumnFamilyOptions options = new ColumnFamilyOptions().setTtl(0);
+    resources.add(options);
+    final BlockBasedTableConfig tableConfig = new BlockBasedTableConfig().setBlockCache(cache);
+    switch (profile) {
+      case POINT_LOOKUP:
+        tableConfig
+            .setFilterPolicy(newBloomFilter(resources))
+            .setCacheIndexAndFilterBlocks(true)
+            .setPinL0FilterAndIndexBlocksInCache(true);
+        options.setCompressionType(CompressionType.LZ4_COMPRESSION);
+        break;
+      case PARTITIONED_POINT_LOOKUP:
+        tableConfig
+            .setFilterPolicy(newBloomFilter(resources))
+            .setIndexType(IndexType.kTwoLevelIndexSearch)
+            .setPartitionFilters(true)
+            .setCacheIndexAndFilterBlocks(true)
+            .setPinL0FilterAndIndexBlocksInCache(true)
+            .setPinTopLevelIndexAndFilter(true);
+        options.setCompressionType(CompressionType.LZ4_COMPRESSION);
+        break;
+      case APPEND_MOSTLY:
+        options
+            .setCompactionStyle(CompactionStyle.UNIVERSAL)
+            .setCompressionType(CompressionType.LZ4_COMPRESSION)
+            .setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
+        break;
+      case DEFAULT:
+      default:
+        break;
+    }
+    return options.setTableFormatConfig(tableConfig);
+  }
+
+  private static BloomFilter newBloomFilter(final List<RocksObject> resources) {
+    final BloomFilter filter = new BloomFilter(BLOOM_FILTER_BITS_PER_KEY, false);
+    resources.add(filter);
+    return filter;
   }
 
   @Override
@@ -159,6 +240,34 @@ public class RocksDBColumnarKeyValueStorage
     }
   }
 
+  @Override
+  public List<Optional<byte[]>> getMultiple(
+      final ColumnFamilyHandle segment, final List<byte[]> keys) throws StorageException {
+    throwIfClosed();
+
+    try (final OperationTimer.TimingContext ignored = metrics.getReadLatency().startTimer()) {
+      return db.multiGetAsList(Collections.nCopies(keys.size(), segment), keys).stream()
+          .map(Optional::ofNullable)
+          .collect(Collectors.toList());
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public Optional<Map.Entry<byte[], byte[]>> getNearestBefore(
+      final ColumnFamilyHandle segment, final byte[] key) throws StorageException {
+    throwIfClosed();
+
+    try (final OperationTimer.TimingContext ignored = metrics.getReadLatency().startTimer();
+        final RocksIterator rocksIterator = db.newIterator(segment)) {
+      rocksIterator.seekForPrev(key);
+      return rocksIterator.isValid()
+          ? Optional.of(Map.entry(rocksIterator.key(), rocksIterator.value()))
+          : Optional.empty();
+    }
+  }
+
   @Override
   public Transaction<ColumnFamilyHandle> startTransaction() throws StorageException {
     throwIfClosed();
@@ -167,6 +276,13 @@ public class RocksDBColumnarKeyValueStorage
         new RocksDbTransaction(db.beginTransaction(writeOptions), writeOptions));
   }
 
+  @Override
+  public Transaction<ColumnFamilyHandle> startBulkLoadTransaction() throws StorageException {
+    throwIfClosed();
+    return new SegmentedKeyValueStorageTransactionTransitionValidatorDecorator<>(
+        new RocksDbBulkLoadTransaction());
+  }
+
   @Override
   public Stream<byte[]> streamKeys(final ColumnFamilyHandle segmentHandle) {
     final RocksIterator rocksIterator = db.newIterator(segmentHandle);
@@ -174,6 +290,15 @@ public class RocksDBColumnarKeyValueStorage
     return RocksDbKeyIterator.create(rocksIterator).toStream();
   }
 
+  @Override
+  public Stream<Map.Entry<byte[], byte[]>> streamFromKey(
+      final ColumnFamilyHandle segmentHandle, final byte[] startKey) {
+    throwIfClosed();
+    final RocksIterator rocksIterator = db.newIterator(segmentHandle);
+    rocksIterator.seek(startKey);
+    return RocksDbEntryIterator.create(rocksIterator).toStream();
+  }
+
   @Override
   public boolean tryDelete(final ColumnFamilyHandle segmentHandle, final byte[] key) {
     try {
@@ -218,8 +343,10 @@ public class RocksDBColumnarKeyValueStorage
       txOptions.close();
       options.close();
       tryDeleteOptions.close();
+      bulkLoadOptions.close();
       columnHandlesByName.values().forEach(ColumnFamilyHandle::close);
       db.close();
+      columnFamilyResources.forEach(RocksObject::close);
     }
   }
 
@@ -230,10 +357,20 @@ public class RocksDBColumnarKeyValueStorage
     }
   }
 
+  private void flushUnloggedSegments() throws RocksDBException {
+    final List<ColumnFamilyHandle> segments = new ArrayList<>(unloggedSegments);
+    // values loaded after the segments are removed from the set are still in the flushed memtables
+    unloggedSegments.removeAll(segments);
+    try (final FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+      db.flush(flushOptions, segments);
+    }
+  }
+
   private class RocksDbTransaction implements Transaction<ColumnFamilyHandle> {
 
     private final org.rocksdb.Transaction innerTx;
     private final WriteOptions options;
+    private boolean writesUnloggedSegment = false;
 
     RocksDbTransaction(final org.rocksdb.Transaction innerTx, final WriteOptions options) {
       this.innerTx = innerTx;
@@ -242,6 +379,7 @@ public class RocksDBColumnarKeyValueStorage
 
     @Override
     public void put(final ColumnFamilyHandle segment, final byte[] key, final byte[] value) {
+      writesUnloggedSegment |= unloggedSegments.contains(segment);
       try (final OperationTimer.TimingContext ignored = metrics.getWriteLatency().startTimer()) {
         innerTx.put(segment, key, value);
       } catch (final RocksDBException e) {
@@ -255,6 +393,7 @@ public class RocksDBColumnarKeyValueStorage
 
     @Override
     public void remove(final ColumnFamilyHandle segment, final byte[] key) {
+      writesUnloggedSegment |= unloggedSegments.contains(segment);
       try (final OperationTimer.TimingContext ignored = metrics.getRemoveLatency().startTimer()) {
         innerTx.delete(segment, key);
       } catch (final RocksDBException e) {
@@ -269,6 +408,10 @@ public class RocksDBColumnarKeyValueStorage
     @Override
     public void commit() throws StorageException {
       try (final OperationTimer.TimingContext ignored = metrics.getCommitLatency().startTimer()) {
+        if (writesUnloggedSegment) {
+          // bulk loaded values this transaction may depend on must not be lost while it is kept
+          flushUnloggedSegments();
+        }
         innerTx.commit();
       } catch (final RocksDBException e) {
         if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
@@ -302,4 +445,106 @@ public class RocksDBColumnarKeyValueStorage
       options.close();
     }
   }
+
+  /**
+   * Buffers its updates sorted by segment and key and writes them without conflict checks or
+   * write-ahead log. Large loads are written to SST files that are ingested directly into the
+   * column families, which is durable and skips the memtables, smaller ones are written as a batch.
+   */
+  private class RocksDbBulkLoadTransaction implements Transaction<ColumnFamilyHandle> {
+
+    private final Map<ColumnFamilyHandle, NavigableMap<byte[], Optional<byte[]>>> updates =
+        new HashMap<>();
+    private int entries = 0;
+
+    @Override
+    public void put(final ColumnFamilyHandle segment, final byte[] key, final byte[] value) {
+      segmentUpdates(segment).put(key, Optional.of(value));
+      entries++;
+    }
+
+    @Override
+    public void remove(final ColumnFamilyHandle segment, final byte[] key) {
+      segmentUpdates(segment).put(key, Optional.empty());
+      entries++;
+    }
+
+    private NavigableMap<byte[], Optional<byte[]>> segmentUpdates(
+        final ColumnFamilyHandle segment) {
+      return updates.computeIfAbsent(segment, __ -> new TreeMap<>(Arrays::compareUnsigned));
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      try (final OperationTimer.TimingContext ignored = metrics.getCommitLatency().startTimer()) {
+        if (entries >= BULK_LOAD_MIN_INGESTED_ENTRIES) {
+          ingest();
+        } else {
+          write();
+        }
+      } catch (final RocksDBException e) {
+        if (e.getMessage().contains(NO_SPACE_LEFT_ON_DEVICE)) {
+          LOG.error(e.getMessage());
+          System.exit(0);
+        }
+        throw new StorageException(e);
+      } catch (final IOException e) {
+        throw new StorageException(e);
+      } finally {
+        updates.clear();
+      }
+    }
+
+    private void write() throws RocksDBException {
+      try (final WriteBatch batch = new WriteBatch()) {
+        for (final ColumnFamilyHandle segment : updates.keySet()) {
+          for (final Map.Entry<byte[], Optional<byte[]>> update : updates.get(segment).entrySet()) {
+            if (update.getValue().isPresent()) {
+              batch.put(segment, update.getKey(), update.getValue().get());
+            } else {
+              batch.delete(segment, update.getKey());
+            }
+          }
+        }
+        db.write(bulkLoadOptions, batch);
+      }
+      unloggedSegments.addAll(updates.keySet());
+    }
+
+    private void ingest() throws RocksDBException, IOException {
+      Files.createDirectories(bulkLoadDir);
+      try (final EnvOptions envOptions = new EnvOptions();
+          final Options sstOptions = new Options();
+          final IngestExternalFileOptions ingestOptions =
+              new IngestExternalFileOptions().setMoveFiles(true)) {
+        for (final ColumnFamilyHandle segment : updates.keySet()) {
+          final Path file = Files.createTempFile(bulkLoadDir, "segment", ".sst");
+          try {
+            try (final SstFileWriter writer = new SstFileWriter(envOptions, sstOptions)) {
+              writer.open(file.toString());
+              for (final Map.Entry<byte[], Optional<byte[]>> update :
+                  updates.get(segment).entrySet()) {
+                if (update.getValue().isPresent()) {
+                  writer.put(update.getKey(), update.getValue().get());
+                } else {
+                  writer.delete(update.getKey());
+                }
+              }
+              writer.finish();
+            }
+            db.ingestExternalFile(segment, List.of(file.toString()), ingestOptions);
+          } finally {
+            // ingestion moves the file into the database, it is only left over on failures
+            Files.deleteIfExists(file);
+          }
+        }
+      }
+    }
+
+    @Override
+    public void rollback() {
+      updates.clear();
+      metrics.getRollbackCount().inc();
+    }
+  }
 }
@@ -19,9 +19,11 @@ import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration
 import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_CACHE_CAPACITY;
 import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_MAX_BACKGROUND_COMPACTIONS;
 import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_MAX_OPEN_FILES;
+import static org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions.DEFAULT_SEGMENT_PROFILES;
 
 import org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBCLIOptions;
 import org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBFactoryConfiguration;
+import org.hyperledger.besu.plugin.services.storage.rocksdb.configuration.RocksDBSegmentProfile;
 
 import org.junit.Test;
 import picocli.CommandLine;
@@ -34,6 +36,7 @@ public class RocksDBCLIOptionsTest {
       "--Xplugin-rocksdb-max-background-compactions";
   private static final String BACKGROUND_THREAD_COUNT_FLAG =
       "--Xplugin-rocksdb-background-thread-count";
+  private static final String SEGMENT_PROFILE_FLAG = "--Xplugin-rocksdb-segment-profile";
 
   @Test
   public void defaultValues() {
@@ -48,6 +51,29 @@ public class RocksDBCLIOptionsTest {
     assertThat(configuration.getMaxBackgroundCompactions())
         .isEqualTo(DEFAULT_MAX_BACKGROUND_COMPACTIONS);
     assertThat(configuration.getMaxOpenFiles()).isEqualTo(DEFAULT_MAX_OPEN_FILES);
+    assertThat(configuration.getSegmentProfiles()).isEqualTo(DEFAULT_SEGMENT_PROFILES);
+  }
+
+  @Test
+  public void customSegmentProfiles() {
+    final RocksDBCLIOptions options = RocksDBCLIOptions.create();
+
+    new CommandLine(options)
+        .parse(
+            SEGMENT_PROFILE_FLAG,
+            "BLOCKCHAIN=APPEND_MOSTLY,CODE_STORAGE=DEFAULT,PRIVATE_STATE=POINT_LOOKUP");
+
+    final RocksDBFactoryConfiguration configuration = options.toDomainObject();
+    assertThat(configuration.getSegmentProfiles())
+        .containsEntry("BLOCKCHAIN", RocksDBSegmentProfile.APPEND_MOSTLY)
+        .containsEntry("CODE_STORAGE", RocksDBSegmentProfile.DEFAULT)
+        .containsEntry("PRIVATE_STATE", RocksDBSegmentProfile.POINT_LOOKUP)
+        .containsEntry("TRIE_BRANCH_STORAGE", RocksDBSegmentProfile.POINT_LOOKUP);
+  }
+
+  @Test
+  public void universalCompactionIsNotADefault() {
+    assertThat(DEFAULT_SEGMENT_PROFILES).doesNotContainValue(RocksDBSegmentProfile.APPEND_MOSTLY);
   }
 
   @Test
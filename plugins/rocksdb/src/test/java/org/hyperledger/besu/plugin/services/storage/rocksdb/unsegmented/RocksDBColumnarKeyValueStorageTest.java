@@ -32,6 +32,7 @@ import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
 
+import com.google.common.primitives.Ints;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -107,6 +108,43 @@ public class RocksDBColumnarKeyValueStorageTest extends AbstractKeyValueStorageT
     }
   }
 
+  @Test
+  public void bulkLoadsAreReadableOnceCommitted() throws Exception {
+    final SegmentedKeyValueStorage<ColumnFamilyHandle> store = createSegmentedStore();
+    final ColumnFamilyHandle fooSegment = store.getSegmentIdentifierByName(TestSegment.FOO);
+    final ColumnFamilyHandle barSegment = store.getSegmentIdentifierByName(TestSegment.BAR);
+
+    final Transaction<ColumnFamilyHandle> tx = store.startTransaction();
+    tx.put(fooSegment, bytesOf(1), bytesOf(1));
+    tx.commit();
+
+    // small loads are written as a batch
+    final Transaction<ColumnFamilyHandle> batch = store.startBulkLoadTransaction();
+    batch.put(fooSegment, bytesOf(2), bytesOf(2));
+    batch.remove(fooSegment, bytesOf(1));
+    batch.commit();
+
+    final Transaction<ColumnFamilyHandle> afterBatch = store.startTransaction();
+    afterBatch.put(fooSegment, bytesOf(3), bytesOf(3));
+    afterBatch.commit();
+
+    // large loads are ingested as sorted files
+    final Transaction<ColumnFamilyHandle> ingested = store.startBulkLoadTransaction();
+    for (int i = 20_000; i > 0; i--) {
+      ingested.put(barSegment, Ints.toByteArray(i), Ints.toByteArray(i));
+    }
+    ingested.remove(fooSegment, bytesOf(2));
+    ingested.commit();
+
+    assertThat(store.get(fooSegment, bytesOf(1))).isEmpty();
+    assertThat(store.get(fooSegment, bytesOf(2))).isEmpty();
+    assertThat(store.get(fooSegment, bytesOf(3))).contains(bytesOf(3));
+    assertThat(store.streamKeys(barSegment).count()).isEqualTo(20_000);
+    assertThat(store.get(barSegment, Ints.toByteArray(12_345))).contains(Ints.toByteArray(12_345));
+
+    store.close();
+  }
+
   @Test
   public void canGetThroughSegmentIteration() throws Exception {
     final SegmentedKeyValueStorage<ColumnFamilyHandle> store = createSegmentedStore();
@@ -18,9 +18,13 @@ import org.hyperledger.besu.plugin.services.exception.StorageException;
 import org.hyperledger.besu.plugin.services.storage.SegmentIdentifier;
 
 import java.io.Closeable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -45,6 +49,57 @@ public interface SegmentedKeyValueStorage<S> extends Closeable {
     return get(segment, key).isPresent();
   }
 
+  /**
+   * Get the values of the given keys in the associated segment in a single batch.
+   *
+   * @param segment the segment
+   * @param keys Indexes into persistent data repository.
+   * @return The values persisted at the key indexes, in the same order.
+   */
+  default List<Optional<byte[]>> getMultiple(final S segment, final List<byte[]> keys)
+      throws StorageException {
+    return keys.stream().map(key -> get(segment, key)).collect(Collectors.toList());
+  }
+
+  /**
+   * Get the entry of the associated segment with the greatest key that is less than or equal to
+   * the given key, keys being compared as unsigned bytes.
+   *
+   * @param segment the segment
+   * @param key the key to search from.
+   * @return The key and value of the nearest entry at or before the key.
+   */
+  default Optional<Map.Entry<byte[], byte[]>> getNearestBefore(final S segment, final byte[] key)
+      throws StorageException {
+    try (final Stream<byte[]> keys = streamKeys(segment)) {
+      return keys.filter(candidate -> Arrays.compareUnsigned(candidate, key) <= 0)
+          .max(Arrays::compareUnsigned)
+          .flatMap(nearest -> get(segment, nearest).map(value -> Map.entry(nearest, value)));
+    }
+  }
+
+  /**
+   * Stream the entries of the associated segment whose key is greater than or equal to the given
+   * key, in ascending order of keys compared as unsigned bytes.
+   *
+   * @param segment the segment
+   * @param startKey the key to start streaming from.
+   * @return The key and value of the entries from the given key on.
+   */
+  default Stream<Map.Entry<byte[], byte[]>> streamFromKey(final S segment, final byte[] startKey)
+      throws StorageException {
+    final List<byte[]> keys;
+    try (final Stream<byte[]> allKeys = streamKeys(segment)) {
+      keys =
+          allKeys
+              .filter(candidate -> Arrays.compareUnsigned(candidate, startKey) >= 0)
+              .sorted(Arrays::compareUnsigned)
+              .collect(Collectors.toList());
+    }
+    return keys.stream()
+        .flatMap(key -> get(segment, key).map(value -> Map.entry(key, value)).stream());
+  }
+
   /**
    * Begins a transaction. Returns a transaction object that can be updated and committed.
    *
@@ -52,6 +107,17 @@ public interface SegmentedKeyValueStorage<S> extends Closeable {
    */
   Transaction<S> startTransaction() throws StorageException;
 
+  /**
+   * Begins a transaction for loading large amounts of data, which may skip conflict checks and the
+   * write-ahead log of the storage, see {@link
+   * org.hyperledger.besu.plugin.services.storage.KeyValueStorage#startBulkLoadTransaction()}.
+   *
+   * @return An object representing the transaction.
+   */
+  default Transaction<S> startBulkLoadTransaction() throws StorageException {
+    return startTransaction();
+  }
+
   /**
    * Returns a stream of all keys for the segment.
    *
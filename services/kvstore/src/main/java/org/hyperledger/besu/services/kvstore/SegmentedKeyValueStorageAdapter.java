@@ -20,6 +20,8 @@ import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
 import org.hyperledger.besu.plugin.services.storage.SegmentIdentifier;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -50,6 +52,17 @@ public class SegmentedKeyValueStorageAdapter<S> implements KeyValueStorage {
     return storage.get(segmentHandle, key);
   }
 
+  @Override
+  public List<Optional<byte[]>> getMultiple(final List<byte[]> keys) throws StorageException {
+    return storage.getMultiple(segmentHandle, keys);
+  }
+
+  @Override
+  public Optional<Map.Entry<byte[], byte[]>> getNearestBefore(final byte[] key)
+      throws StorageException {
+    return storage.getNearestBefore(segmentHandle, key);
+  }
+
   @Override
   public Set<byte[]> getAllKeysThat(final Predicate<byte[]> returnCondition) {
     return storage.getAllKeysThat(segmentHandle, returnCondition);
@@ -60,6 +73,12 @@ public class SegmentedKeyValueStorageAdapter<S> implements KeyValueStorage {
     return storage.streamKeys(segmentHandle);
   }
 
+  @Override
+  public Stream<Map.Entry<byte[], byte[]>> streamFromKey(final byte[] startKey)
+      throws StorageException {
+    return storage.streamFromKey(segmentHandle, startKey);
+  }
+
   @Override
   public boolean tryDelete(final byte[] key) {
     return storage.tryDelete(segmentHandle, key);
@@ -72,7 +91,16 @@ public class SegmentedKeyValueStorageAdapter<S> implements KeyValueStorage {
 
   @Override
   public KeyValueStorageTransaction startTransaction() throws StorageException {
-    final SegmentedKeyValueStorage.Transaction<S> transaction = storage.startTransaction();
+    return forSegment(storage.startTransaction());
+  }
+
+  @Override
+  public KeyValueStorageTransaction startBulkLoadTransaction() throws StorageException {
+    return forSegment(storage.startBulkLoadTransaction());
+  }
+
+  private KeyValueStorageTransaction forSegment(
+      final SegmentedKeyValueStorage.Transaction<S> transaction) {
     return new KeyValueStorageTransaction() {
 
       @Override
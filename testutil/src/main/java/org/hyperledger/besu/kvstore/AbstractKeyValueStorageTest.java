@@ -24,6 +24,7 @@ import org.hyperledger.besu.plugin.services.storage.KeyValueStorageTransaction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -103,6 +104,75 @@ public abstract class AbstractKeyValueStorageTest {
             bytesFromHexString("10"), bytesFromHexString("11"), bytesFromHexString("12"));
   }
 
+  @Test
+  public void getNearestBefore() throws Exception {
+    final KeyValueStorage store = createStore();
+    final KeyValueStorageTransaction tx = store.startTransaction();
+    tx.put(bytesFromHexString("0F"), bytesFromHexString("0ABC"));
+    tx.put(bytesFromHexString("1000"), bytesFromHexString("0DEF"));
+    tx.put(bytesFromHexString("F0"), bytesFromHexString("0123"));
+    tx.commit();
+
+    assertThat(store.getNearestBefore(bytesFromHexString("0E"))).isEmpty();
+    assertThat(store.getNearestBefore(bytesFromHexString("0F")))
+        .hasValueSatisfying(
+            entry -> {
+              assertThat(entry.getKey()).isEqualTo(bytesFromHexString("0F"));
+              assertThat(entry.getValue()).isEqualTo(bytesFromHexString("0ABC"));
+            });
+    assertThat(store.getNearestBefore(bytesFromHexString("10FF")))
+        .hasValueSatisfying(
+            entry -> assertThat(entry.getValue()).isEqualTo(bytesFromHexString("0DEF")));
+    assertThat(store.getNearestBefore(bytesFromHexString("FF")))
+        .hasValueSatisfying(
+            entry -> assertThat(entry.getKey()).isEqualTo(bytesFromHexString("F0")));
+  }
+
+  @Test
+  public void streamFromKey() throws Exception {
+    final KeyValueStorage store = createStore();
+    final KeyValueStorageTransaction tx = store.startTransaction();
+    tx.put(bytesFromHexString("0F"), bytesFromHexString("0ABC"));
+    tx.put(bytesFromHexString("1000"), bytesFromHexString("0DEF"));
+    tx.put(bytesFromHexString("F0"), bytesFromHexString("0123"));
+    tx.commit();
+
+    try (final Stream<Map.Entry<byte[], byte[]>> entries =
+        store.streamFromKey(bytesFromHexString("10"))) {
+      assertThat(entries.map(Map.Entry::getKey))
+          .containsExactly(bytesFromHexString("1000"), bytesFromHexString("F0"));
+    }
+    try (final Stream<Map.Entry<byte[], byte[]>> entries =
+        store.streamFromKey(bytesFromHexString("0F"))) {
+      assertThat(entries.findFirst())
+          .hasValueSatisfying(
+              entry -> assertThat(entry.getValue()).isEqualTo(bytesFromHexString("0ABC")));
+    }
+    try (final Stream<Map.Entry<byte[], byte[]>> entries =
+        store.streamFromKey(bytesFromHexString("F1"))) {
+      assertThat(entries).isEmpty();
+    }
+  }
+
+  @Test
+  public void getMultiple() throws Exception {
+    final KeyValueStorage store = createStore();
+    final KeyValueStorageTransaction tx = store.startTransaction();
+    tx.put(bytesFromHexString("0F"), bytesFromHexString("0ABC"));
+    tx.put(bytesFromHexString("10"), bytesFromHexString("0DEF"));
+    tx.commit();
+
+    final List<Optional<byte[]>> values =
+        store.getMultiple(
+            List.of(bytesFromHexString("10"), bytesFromHexString("11"), bytesFromHexString("0F")));
+
+    assertThat(values).hasSize(3);
+    assertThat(values.get(0).map(Bytes::wrap)).contains(Bytes.fromHexString("0DEF"));
+    assertThat(values.get(1)).isEmpty();
+    assertThat(values.get(2).map(Bytes::wrap)).contains(Bytes.fromHexString("0ABC"));
+    assertThat(store.getMultiple(List.of())).isEmpty();
+  }
+
   @Test
   public void containsKey() throws Exception {
     final KeyValueStorage store = createStore();